@@ -2,10 +2,26 @@ package io.cockroachdb.jdbc;
 
 import java.sql.*;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.postgresql.PGConnection;
+
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.copy.CopyWriter;
+import io.cockroachdb.jdbc.jfr.DriverEvents;
+import io.cockroachdb.jdbc.management.DriverMonitor;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
+import io.cockroachdb.jdbc.pipeline.Pipeline;
 import io.cockroachdb.jdbc.query.QueryProcessor;
+import io.cockroachdb.jdbc.routing.LeaseholderRouter;
+import io.cockroachdb.jdbc.scan.ParallelScan;
+import io.cockroachdb.jdbc.tracing.Span;
+import io.cockroachdb.jdbc.tracing.Tracer;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
 import io.cockroachdb.jdbc.util.WrapperSupport;
 
 /**
@@ -16,15 +32,91 @@ import io.cockroachdb.jdbc.util.WrapperSupport;
 public class CockroachConnection extends WrapperSupport<Connection> implements Connection {
     private final ConnectionSettings connectionSettings;
 
+    private final ClusterNode clusterNode;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     protected CockroachConnection(Connection delegate, ConnectionSettings connectionSettings) {
+        this(delegate, connectionSettings, null);
+    }
+
+    protected CockroachConnection(Connection delegate, ConnectionSettings connectionSettings,
+                                  ClusterNode clusterNode) {
         super(delegate);
         this.connectionSettings = connectionSettings;
+        this.clusterNode = clusterNode;
+
+        DriverMonitor.getInstance().connectionOpened();
     }
 
     public ConnectionSettings getConnectionSettings() {
         return connectionSettings;
     }
 
+    /**
+     * @return the cluster node this connection was balanced to when using topology discovery, or null
+     */
+    public ClusterNode getClusterNode() {
+        return clusterNode;
+    }
+
+    /**
+     * @return the router for single-key statements to leaseholder nodes when using
+     * range caching, or null
+     */
+    public LeaseholderRouter getLeaseholderRouter() {
+        return connectionSettings.getLeaseholderRouter();
+    }
+
+    /**
+     * Open a typed row writer for bulk ingest into the given table columns using
+     * {@code COPY .. FROM STDIN}. Rows are committed in chunks, each as a separate
+     * transaction, bypassing any driver-level retries.
+     *
+     * @param table the target table name
+     * @param columns the target column names, in the order values are written
+     * @return a new COPY writer that must be closed to commit the last chunk
+     * @throws SQLException if the connection is closed or COPY is not supported by the delegate
+     */
+    public CopyWriter copyIn(String table, String... columns) throws SQLException {
+        checkClosed();
+        return new CopyWriter(this, getDelegate().unwrap(PGConnection.class).getCopyAPI(), table, columns);
+    }
+
+    /**
+     * Create a pipeline for sending multiple independent statements in a single round trip.
+     * Note that statements pipelined on an unwrapped connection bypass driver-level retries,
+     * use {@link Pipeline#of(Connection)} with the connection obtained from the driver for that.
+     *
+     * @return a new pipeline that syncs queued statements when closed
+     * @throws SQLException if the connection is closed
+     */
+    public Pipeline pipeline() throws SQLException {
+        checkClosed();
+        return new Pipeline(this);
+    }
+
+    /**
+     * Open a consistent parallel scan of all rows in a table. The primary key space is split
+     * into spans at range boundaries, each streamed by keyset pagination on a separate connection
+     * at the same {@code AS OF SYSTEM TIME} timestamp.
+     *
+     * @param table the table name
+     * @param parallelism max number of spans scanned in parallel
+     * @return a started scan that must be closed
+     * @throws SQLException if the connection is closed or the table ranges could not be loaded
+     */
+    public ParallelScan parallelScan(String table, int parallelism) throws SQLException {
+        checkClosed();
+        ResourceSupplier<Connection> connectionFactory = connectionSettings.getConnectionFactory();
+        if (connectionFactory == null) {
+            throw new SQLFeatureNotSupportedException("No connection factory available for parallel scans");
+        }
+        return ParallelScan.open(connectionFactory, table, parallelism);
+    }
+
     @Override
     public Statement createStatement() throws SQLException {
         return new CockroachStatement(getDelegate().createStatement(), connectionSettings);
@@ -32,8 +124,12 @@ public class CockroachConnection extends WrapperSupport<Connection> implements C
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (sql != null && sql.startsWith(Pipeline.PIPELINE_COMMENT)) {
+            // Pipelined statements are processed individually and not instrumented as one statement
+            return new CockroachPreparedStatement(getDelegate().prepareStatement(sql));
+        }
         final String finalQuery = connectionSettings.getQueryProcessor().processQuery(this, sql);
-        return getDelegate().prepareStatement(finalQuery);
+        return new CockroachPreparedStatement(getDelegate().prepareStatement(finalQuery), finalQuery, connectionSettings);
     }
 
     @Override
@@ -58,19 +154,57 @@ public class CockroachConnection extends WrapperSupport<Connection> implements C
 
     @Override
     public void commit() throws SQLException {
-        getDelegate().commit();
+        long startTime = System.nanoTime();
+        Object event = DriverEvents.beginCommit();
+        Tracer tracer = connectionSettings.getTracer();
+        Span span = tracer != null ? tracer.startSpan("cockroachdb.commit")
+                .setAttribute("db.system", "cockroachdb") : null;
+        SQLException error = null;
+        try {
+            getDelegate().commit();
+        } catch (SQLException e) {
+            error = e;
+            throw e;
+        } finally {
+            DriverMetrics.recordCommit(startTime);
+            DriverEvents.endCommit(event, getDelegate());
+            if (span != null) {
+                if (error != null) {
+                    span.recordException(error);
+                }
+                span.end();
+            }
+            StatementStatistics statementStatistics = connectionSettings.getStatementStatistics();
+            if (statementStatistics != null) {
+                statementStatistics.record(StatementStatistics.COMMIT, System.nanoTime() - startTime, 0, 0, error);
+            }
+        }
         checkState();
     }
 
     @Override
     public void rollback() throws SQLException {
-        getDelegate().rollback();
+        Object event = DriverEvents.beginRollback();
+        try {
+            getDelegate().rollback();
+        } finally {
+            DriverEvents.endRollback(event, getDelegate());
+        }
         checkState();
     }
 
     @Override
     public void close() throws SQLException {
-        getDelegate().close();
+        try {
+            getDelegate().close();
+        } finally {
+            if (clusterNode != null && released.compareAndSet(false, true)) {
+                clusterNode.release();
+            }
+            if (closed.compareAndSet(false, true)) {
+                DriverMonitor.getInstance().connectionClosed();
+            }
+        }
         checkState();
     }
 
@@ -106,6 +240,10 @@ public class CockroachConnection extends WrapperSupport<Connection> implements C
 
     @Override
     public void setCatalog(String catalog) throws SQLException {
+        if (connectionSettings.getSingleFlight() != null && !Objects.equals(catalog, getDelegate().getCatalog())) {
+            // Shared flights are keyed by URL and user only
+            connectionSettings.setSingleFlight(null);
+        }
         getDelegate().setCatalog(catalog);
     }
 
@@ -145,7 +283,8 @@ public class CockroachConnection extends WrapperSupport<Connection> implements C
             throws SQLException {
         String finalQuery = connectionSettings.getQueryProcessor().processQuery(this, sql);
         return new CockroachPreparedStatement(
-                getDelegate().prepareStatement(finalQuery, resultSetType, resultSetConcurrency));
+                getDelegate().prepareStatement(finalQuery, resultSetType, resultSetConcurrency),
+                finalQuery, connectionSettings);
     }
 
     @Override
@@ -206,7 +345,8 @@ public class CockroachConnection extends WrapperSupport<Connection> implements C
                                               int resultSetHoldability) throws SQLException {
         String finalQuery = connectionSettings.getQueryProcessor().processQuery(this, sql);
         return new CockroachPreparedStatement(
-                getDelegate().prepareStatement(finalQuery, resultSetType, resultSetConcurrency, resultSetHoldability));
+                getDelegate().prepareStatement(finalQuery, resultSetType, resultSetConcurrency,
+                        resultSetHoldability), finalQuery, connectionSettings);
     }
 
     @Override
@@ -219,21 +359,24 @@ public class CockroachConnection extends WrapperSupport<Connection> implements C
     public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
         String finalQuery = connectionSettings.getQueryProcessor().processQuery(this, sql);
         return new CockroachPreparedStatement(
-                getDelegate().prepareStatement(finalQuery, autoGeneratedKeys));
+                getDelegate().prepareStatement(finalQuery, autoGeneratedKeys),
+                finalQuery, connectionSettings, autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
         String finalQuery = connectionSettings.getQueryProcessor().processQuery(this, sql);
         return new CockroachPreparedStatement(
-                getDelegate().prepareStatement(finalQuery, columnIndexes));
+                getDelegate().prepareStatement(finalQuery, columnIndexes),
+                finalQuery, connectionSettings, true);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
         String finalQuery = connectionSettings.getQueryProcessor().processQuery(this, sql);
         return new CockroachPreparedStatement(
-                getDelegate().prepareStatement(finalQuery, columnNames));
+                getDelegate().prepareStatement(finalQuery, columnNames),
+                finalQuery, connectionSettings, true);
     }
 
     @Override
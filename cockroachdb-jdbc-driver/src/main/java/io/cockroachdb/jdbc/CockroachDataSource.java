@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -16,10 +17,16 @@ import org.postgresql.PGProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.cockroachdb.jdbc.bulk.BulkWriter;
+import io.cockroachdb.jdbc.coalesce.GroupCommitter;
+import io.cockroachdb.jdbc.coalesce.PointLoader;
+import io.cockroachdb.jdbc.pool.ConnectionPool;
+import io.cockroachdb.jdbc.pool.PoolSettings;
 import io.cockroachdb.jdbc.util.DurationFormat;
 
 /**
- * A simple, non-pooled {@code java.sql.DataSource} implementation for CockroachDB.
+ * A simple {@code java.sql.DataSource} implementation for CockroachDB. Non-pooled by default,
+ * with an optional built-in connection pool.
  */
 public class CockroachDataSource implements DataSource, CommonDataSource, Closeable {
     @FunctionalInterface
@@ -63,6 +70,16 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
         private String retryStrategyClassName
                 = CockroachProperty.RETRY_STRATEGY_CLASSNAME.getDefaultValue();
 
+        private boolean groupCommit;
+
+        private Duration groupCommitMaxDelay = DEFAULT_GROUP_COMMIT_MAX_DELAY;
+
+        private int groupCommitMaxRows = DEFAULT_GROUP_COMMIT_MAX_ROWS;
+
+        private boolean pooling;
+
+        private final PoolSettings poolSettings = new PoolSettings();
+
         private Builder() {
         }
 
@@ -121,6 +138,46 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
             return this;
         }
 
+        public Builder withGroupCommit(boolean groupCommit) {
+            this.groupCommit = groupCommit;
+            return this;
+        }
+
+        public Builder withGroupCommitMaxDelay(Duration groupCommitMaxDelay) {
+            this.groupCommitMaxDelay = groupCommitMaxDelay;
+            return this;
+        }
+
+        public Builder withGroupCommitMaxRows(int groupCommitMaxRows) {
+            this.groupCommitMaxRows = groupCommitMaxRows;
+            return this;
+        }
+
+        public Builder withPooling(boolean pooling) {
+            this.pooling = pooling;
+            return this;
+        }
+
+        public Builder withMaxPoolSize(int maxPoolSize) {
+            this.poolSettings.setMaxPoolSize(maxPoolSize);
+            return this;
+        }
+
+        public Builder withConnectionTimeout(Duration connectionTimeout) {
+            this.poolSettings.setConnectionTimeout(connectionTimeout);
+            return this;
+        }
+
+        public Builder withMaxLifetime(Duration maxLifetime) {
+            this.poolSettings.setMaxLifetime(maxLifetime);
+            return this;
+        }
+
+        public Builder withMaxLifetimeJitter(Duration maxLifetimeJitter) {
+            this.poolSettings.setMaxLifetimeJitter(maxLifetimeJitter);
+            return this;
+        }
+
         public Builder withDataSourceProperties(Consumer<DataSourceConfig> configurer) {
             configurer.accept(properties::put);
             return this;
@@ -132,6 +189,11 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
             ds.setUsername(username);
             ds.setPassword(password);
             ds.setAutoCommit(autoCommit);
+            ds.setGroupCommit(groupCommit);
+            ds.setGroupCommitMaxDelay(groupCommitMaxDelay);
+            ds.setGroupCommitMaxRows(groupCommitMaxRows);
+            ds.setPooling(pooling);
+            ds.setPoolSettings(poolSettings);
 
             ds.addDataSourceProperty(PGProperty.REWRITE_BATCHED_INSERTS.getName(),
                     rewriteBatchedInserts);
@@ -154,6 +216,10 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
         }
     }
 
+    public static final Duration DEFAULT_GROUP_COMMIT_MAX_DELAY = Duration.ofMillis(1);
+
+    public static final int DEFAULT_GROUP_COMMIT_MAX_ROWS = 64;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private String url;
@@ -164,6 +230,20 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
 
     private boolean autoCommit = true;
 
+    private boolean groupCommit;
+
+    private Duration groupCommitMaxDelay = DEFAULT_GROUP_COMMIT_MAX_DELAY;
+
+    private int groupCommitMaxRows = DEFAULT_GROUP_COMMIT_MAX_ROWS;
+
+    private volatile GroupCommitter groupCommitter;
+
+    private boolean pooling;
+
+    private PoolSettings poolSettings = new PoolSettings();
+
+    private volatile ConnectionPool connectionPool;
+
     private final Properties properties = new Properties();
 
     public CockroachDataSource() {
@@ -185,25 +265,148 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
         this.autoCommit = autoCommit;
     }
 
+    /**
+     * Enable coalescing of concurrent single-row auto-commit inserts and upserts into
+     * multi-row statements. Disabled by default.
+     *
+     * @param groupCommit true to enable group commit
+     * @see GroupCommitter
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * @param groupCommitMaxDelay max time the first write in a group waits for others to join
+     */
+    public void setGroupCommitMaxDelay(Duration groupCommitMaxDelay) {
+        this.groupCommitMaxDelay = groupCommitMaxDelay;
+    }
+
+    /**
+     * @param groupCommitMaxRows max number of rows in a group
+     */
+    public void setGroupCommitMaxRows(int groupCommitMaxRows) {
+        this.groupCommitMaxRows = groupCommitMaxRows;
+    }
+
+    /**
+     * @return the group committer shared by connections of this datasource, or null if disabled
+     */
+    public GroupCommitter getGroupCommitter() {
+        if (!groupCommit) {
+            return null;
+        }
+        GroupCommitter result = groupCommitter;
+        if (result == null) {
+            synchronized (this) {
+                result = groupCommitter;
+                if (result == null) {
+                    result = new GroupCommitter(groupCommitMaxDelay, groupCommitMaxRows);
+                    groupCommitter = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Enable the built-in connection pool for {@link #getConnection()}. Disabled by default.
+     *
+     * @param pooling true to enable pooling
+     * @see ConnectionPool
+     */
+    public void setPooling(boolean pooling) {
+        this.pooling = pooling;
+    }
+
+    public void setPoolSettings(PoolSettings poolSettings) {
+        this.poolSettings = poolSettings;
+    }
+
+    public PoolSettings getPoolSettings() {
+        return poolSettings;
+    }
+
+    /**
+     * @return the connection pool, or null if pooling is disabled or no connection is obtained yet
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    private ConnectionPool connectionPool() {
+        ConnectionPool result = connectionPool;
+        if (result == null) {
+            synchronized (this) {
+                result = connectionPool;
+                if (result == null) {
+                    result = new ConnectionPool(() -> openConnection(username, password), poolSettings);
+                    connectionPool = result;
+                }
+            }
+        }
+        return result;
+    }
+
     public void addDataSourceProperty(String propertyName, Object value) {
         properties.put(propertyName, String.valueOf(value));
     }
 
     public String getDescription() {
-        return "Non-Pooling DataSource from " + CockroachDriverInfo.DRIVER_FULL_NAME;
+        return (pooling ? "Pooling" : "Non-Pooling") + " DataSource from " + CockroachDriverInfo.DRIVER_FULL_NAME;
     }
 
     @Override
     public void close() {
+        ConnectionPool pool = connectionPool;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Create a builder for an asynchronous {@link BulkWriter} that flushes rows to the
+     * given table over connections obtained from this datasource.
+     *
+     * @param table the target table name
+     * @return a bulk writer builder
+     */
+    public BulkWriter.Builder bulkWriter(String table) {
+        return BulkWriter.builder(this).withTable(table);
+    }
+
+    /**
+     * Create a builder for a {@link PointLoader} that coalesces concurrent point lookups
+     * into single queries over connections obtained from this datasource.
+     *
+     * @param query the lookup query with a single array placeholder, like
+     * {@code SELECT * FROM product WHERE id = ANY(?)}
+     * @param rowMapper the mapper of result rows
+     * @param <T> the mapped row type
+     * @return a point loader builder
+     */
+    public <T> PointLoader.Builder<T> pointLoader(String query, PointLoader.RowMapper<T> rowMapper) {
+        return PointLoader.builder(this, rowMapper).withQuery(query);
     }
 
     @Override
     public Connection getConnection() throws SQLException {
-        return getConnection(username, password);
+        if (pooling) {
+            return connectionPool().getConnection();
+        }
+        return openConnection(username, password);
     }
 
+    /**
+     * Attempts to establish a non-pooled connection with the given credentials.
+     */
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
+        return openConnection(username, password);
+    }
+
+    private Connection openConnection(String username, String password) throws SQLException {
         try {
             CockroachDriver driver = CockroachDriver.getRegisteredDriver();
             if (username != null) {
@@ -216,6 +419,11 @@ public class CockroachDataSource implements DataSource, CommonDataSource, Closea
             if (!autoCommit) {
                 connection.setAutoCommit(false);
             }
+            if (groupCommit) {
+                connection.unwrap(CockroachConnection.class)
+                        .getConnectionSettings()
+                        .setGroupCommitter(getGroupCommitter());
+            }
             logger.debug("Created a {} for {} at {}", getDescription(), username, url);
             return connection;
         } catch (SQLException e) {
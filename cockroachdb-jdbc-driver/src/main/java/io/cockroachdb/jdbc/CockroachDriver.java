@@ -1,5 +1,7 @@
 package io.cockroachdb.jdbc;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.Driver;
@@ -7,21 +9,51 @@ import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.sql.SQLNonTransientException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.postgresql.util.PSQLState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.cluster.ClusterTopology;
+import io.cockroachdb.jdbc.cluster.LoadBalancer;
+import io.cockroachdb.jdbc.cluster.LocalityAwareLoadBalancer;
+import io.cockroachdb.jdbc.cluster.TopologySettings;
+import io.cockroachdb.jdbc.coalesce.SingleFlight;
+import io.cockroachdb.jdbc.diagnostics.ContentionCollector;
+import io.cockroachdb.jdbc.diagnostics.ContentionRetryListener;
+import io.cockroachdb.jdbc.diagnostics.SlowStatementLog;
+import io.cockroachdb.jdbc.hedge.HedgeConnectionFactory;
+import io.cockroachdb.jdbc.hedge.QueryHedger;
+import io.cockroachdb.jdbc.management.DriverMonitor;
+import io.cockroachdb.jdbc.metrics.ContentionStatistics;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
+import io.cockroachdb.jdbc.pool.PoolSettings;
+import io.cockroachdb.jdbc.query.FullScanGuard;
+import io.cockroachdb.jdbc.query.QueryProcessor;
 import io.cockroachdb.jdbc.query.SelectForUpdateProcessor;
 import io.cockroachdb.jdbc.retry.ConnectionRetryInterceptor;
 import io.cockroachdb.jdbc.retry.MethodTraceLogger;
 import io.cockroachdb.jdbc.retry.RetryListener;
 import io.cockroachdb.jdbc.retry.RetryStrategy;
+import io.cockroachdb.jdbc.routing.LeaseholderRouter;
+import io.cockroachdb.jdbc.routing.NodeConnectionFactory;
+import io.cockroachdb.jdbc.routing.PartitionedBatchExecutor;
+import io.cockroachdb.jdbc.routing.RangeCache;
+import io.cockroachdb.jdbc.tracing.TraceparentCommenter;
+import io.cockroachdb.jdbc.tracing.Tracer;
+import io.cockroachdb.jdbc.util.DurationFormat;
+import io.cockroachdb.jdbc.util.Pair;
 
 /**
  * A {@code java.sql.Driver} implementation for CockroachDB, wrapping an underlying
@@ -40,6 +72,7 @@ public class CockroachDriver implements Driver {
         } catch (SQLException e) {
             throw new ExceptionInInitializerError(e);
         }
+        DriverMonitor.registerMBean();
     }
 
     public static boolean isRegistered() {
@@ -62,6 +95,52 @@ public class CockroachDriver implements Driver {
         }
         DriverManager.deregisterDriver(singletonInstance);
         singletonInstance = null;
+        closeSharedResources();
+    }
+
+    /**
+     * Close and release the components shared by connections with the same URL, user and
+     * settings, like query hedgers, leaseholder routers and background diagnostics, including
+     * the side connections and credentials they retain. Connections opened after this get
+     * new instances, while open connections keep working with hedging, explains and
+     * background collections stopped.
+     */
+    public static void closeSharedResources() {
+        closeAll(QUERY_HEDGERS);
+        closeAll(LEASEHOLDER_ROUTERS);
+        closeAll(SLOW_STATEMENT_LOGS);
+        closeAll(FULL_SCAN_GUARDS);
+        closeAll(CONTENTION_COLLECTORS);
+        SINGLE_FLIGHTS.clear();
+        TRACERS.clear();
+    }
+
+    private static void closeAll(ConcurrentMap<String, ? extends Closeable> instances) {
+        for (String key : instances.keySet()) {
+            Closeable instance = instances.remove(key);
+            if (instance != null) {
+                try {
+                    instance.close();
+                } catch (IOException | RuntimeException e) {
+                    LoggerFactory.getLogger(CockroachDriver.class).warn("Unable to close [{}]", instance, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param url the JDBC URL
+     * @param info the connection properties
+     * @param settings the settings of the shared component
+     * @return key of a component shared by connections with the same URL, user and settings
+     */
+    private static String sharedKey(String url, Properties info, Object... settings) {
+        StringBuilder sb = new StringBuilder(toDelegateURL(url))
+                .append('|').append(info.getProperty("user", ""));
+        for (Object setting : settings) {
+            sb.append('|').append(setting);
+        }
+        return sb.toString();
     }
 
     public static CockroachDriver getRegisteredDriver() throws SQLException {
@@ -75,10 +154,26 @@ public class CockroachDriver implements Driver {
         return url.replace(DRIVER_PREFIX, "jdbc:postgresql");
     }
 
+    private static final ConcurrentMap<String, QueryHedger> QUERY_HEDGERS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, SingleFlight> SINGLE_FLIGHTS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, LeaseholderRouter> LEASEHOLDER_ROUTERS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, SlowStatementLog> SLOW_STATEMENT_LOGS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, FullScanGuard> FULL_SCAN_GUARDS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, ContentionCollector> CONTENTION_COLLECTORS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<String, Tracer> TRACERS = new ConcurrentHashMap<>();
+
     private static Supplier<RetryListener> retryListenerSupplier;
 
     private static Supplier<RetryStrategy> retryStrategySupplier;
 
+    private static Supplier<Tracer> tracerSupplier;
+
     /**
      * Set a retry listener supplier that overrides any per-connection class name setting.
      *
@@ -101,6 +196,15 @@ public class CockroachDriver implements Driver {
         CockroachDriver.retryStrategySupplier = retryStrategySupplier;
     }
 
+    /**
+     * Set a tracer supplier that overrides any per-connection class name setting.
+     *
+     * @param tracerSupplier a global tracer supplier, invoked after a new connection is opened
+     */
+    public static void setTracerSupplier(Supplier<Tracer> tracerSupplier) {
+        CockroachDriver.tracerSupplier = tracerSupplier;
+    }
+
     //////////////////////////////////////////////////////////////////////
 
     @Override
@@ -124,12 +228,85 @@ public class CockroachDriver implements Driver {
             throw new SQLNonTransientException("Error parsing JDBC URL");
         }
 
-        final Connection psqlConnection = DriverManager.getConnection(toDelegateURL(url), info);
+        final String locality = CockroachProperty.LOCALITY.toDriverPropertyInfo(properties).value;
+
+        final String rangeCacheTables = CockroachProperty.RANGE_CACHE_TABLES.toDriverPropertyInfo(properties).value;
+
+        final ClusterTopology clusterTopology =
+                Boolean.parseBoolean(CockroachProperty.TOPOLOGY_DISCOVERY.toDriverPropertyInfo(properties).value)
+                        || !locality.isEmpty() || !rangeCacheTables.isEmpty()
+                        ? loadClusterTopology(url, info, properties) : null;
+
+        final LoadBalancer loadBalancer = clusterTopology != null ? loadLoadBalancer(properties) : null;
+
+        final Pair<Connection, ClusterNode> psqlConnection = openDelegate(clusterTopology, loadBalancer, url, info);
 
         final ConnectionSettings connectionSettings = new ConnectionSettings();
+        connectionSettings.setConnectionFactory(() -> {
+            Pair<Connection, ClusterNode> connection = openDelegate(clusterTopology, loadBalancer, url, info);
+            return new CockroachConnection(connection.getFirst(),
+                    new ConnectionSettings().setQueryProcessor(QueryProcessor.PASS_THROUGH),
+                    connection.getSecond());
+        });
+
+        if (Boolean.parseBoolean(CockroachProperty.HEDGE_READS.toDriverPropertyInfo(properties).value)) {
+            connectionSettings.setQueryHedger(loadQueryHedger(url, info, properties, clusterTopology, loadBalancer));
+        }
+        if (Boolean.parseBoolean(CockroachProperty.SINGLE_FLIGHT_READS.toDriverPropertyInfo(properties).value)) {
+            connectionSettings.setSingleFlight(SINGLE_FLIGHTS.computeIfAbsent(
+                    sharedKey(url, info), k -> new SingleFlight()));
+        }
+        if (Boolean.parseBoolean(CockroachProperty.STATEMENT_STATISTICS.toDriverPropertyInfo(properties).value)) {
+            connectionSettings.setStatementStatistics(StatementStatistics.getInstance());
+        }
+        final Duration slowStatementThreshold = DurationFormat.parseDuration(
+                CockroachProperty.SLOW_STATEMENT_THRESHOLD.toDriverPropertyInfo(properties).value);
+        if (!slowStatementThreshold.isZero()) {
+            final int explainRate = Integer.parseInt(
+                    CockroachProperty.SLOW_STATEMENT_EXPLAIN_RATE.toDriverPropertyInfo(properties).value);
+            connectionSettings.setSlowStatementLog(SLOW_STATEMENT_LOGS.computeIfAbsent(
+                    sharedKey(url, info, slowStatementThreshold, explainRate),
+                    k -> new SlowStatementLog(slowStatementThreshold, explainRate,
+                            connectionSettings.getConnectionFactory())));
+        }
+        if (!rangeCacheTables.isEmpty()) {
+            LeaseholderRouter leaseholderRouter =
+                    loadLeaseholderRouter(url, info, properties, clusterTopology, loadBalancer);
+            connectionSettings.setLeaseholderRouter(leaseholderRouter);
+
+            if (Boolean.parseBoolean(CockroachProperty.PARTITION_BATCHES.toDriverPropertyInfo(properties).value)) {
+                connectionSettings.setPartitionedBatchExecutor(new PartitionedBatchExecutor(leaseholderRouter));
+            }
+        }
         connectionSettings.setUseCockroachMetadata(Boolean.parseBoolean(
                 CockroachProperty.USE_COCKROACH_METADATA.toDriverPropertyInfo(properties).value));
 
+        final String fullScanGuard = CockroachProperty.FULL_SCAN_GUARD.toDriverPropertyInfo(properties).value;
+        if (!"off".equalsIgnoreCase(fullScanGuard)) {
+            final FullScanGuard.Policy policy;
+            try {
+                policy = FullScanGuard.Policy.valueOf(fullScanGuard.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Invalid value for driver property \""
+                        + CockroachProperty.FULL_SCAN_GUARD.getName() + "\": " + fullScanGuard,
+                        PSQLState.INVALID_PARAMETER_VALUE);
+            }
+            final long minTableRows = Long.parseLong(
+                    CockroachProperty.FULL_SCAN_GUARD_MIN_ROWS.toDriverPropertyInfo(properties).value);
+            connectionSettings.addQueryStage(FULL_SCAN_GUARDS.computeIfAbsent(
+                    sharedKey(url, info, policy, minTableRows),
+                    k -> new FullScanGuard(connectionSettings.getConnectionFactory(), policy, minTableRows)));
+        }
+
+        final Tracer tracer = loadTracer(url, info, properties);
+        if (tracer != null) {
+            connectionSettings.setTracer(tracer);
+            if (Boolean.parseBoolean(CockroachProperty.TRACEPARENT_COMMENTS.toDriverPropertyInfo(properties).value)) {
+                // Last stage, since comments are excluded from fingerprints of other stages
+                connectionSettings.addQueryStage(new TraceparentCommenter(tracer));
+            }
+        }
+
         if (Boolean.parseBoolean(CockroachProperty.IMPLICIT_SELECT_FOR_UPDATE.toDriverPropertyInfo(properties).value)) {
             connectionSettings.setQueryProcessor(SelectForUpdateProcessor.INSTANCE);
         } else {
@@ -138,20 +315,36 @@ public class CockroachDriver implements Driver {
 
         if (Boolean.parseBoolean(CockroachProperty.RETRY_TRANSIENT_ERRORS.toDriverPropertyInfo(properties).value)) {
             connectionSettings.setRetryStrategy(loadRetryStrategy(properties));
-            connectionSettings.setRetryListener(loadRetryListener(properties));
+            RetryListener retryListener = loadRetryListener(properties);
+            if (Boolean.parseBoolean(
+                    CockroachProperty.CONTENTION_ATTRIBUTION.toDriverPropertyInfo(properties).value)) {
+                final Duration interval = DurationFormat.parseDuration(
+                        CockroachProperty.CONTENTION_ATTRIBUTION_INTERVAL.toDriverPropertyInfo(properties).value);
+                retryListener = new ContentionRetryListener(retryListener, CONTENTION_COLLECTORS.computeIfAbsent(
+                        sharedKey(url, info, interval),
+                        k -> new ContentionCollector(connectionSettings.getConnectionFactory(), interval,
+                                ContentionStatistics.getInstance())));
+            }
+            connectionSettings.setRetryListener(retryListener);
+            connectionSettings.setRecentOperations(Integer.parseInt(
+                    CockroachProperty.RETRY_RECENT_OPERATIONS.toDriverPropertyInfo(properties).value));
 
             if (logger.isTraceEnabled()) {
                 connectionSettings.setMethodTraceLogger(
                         MethodTraceLogger.createInstance(logger).setMasked(false));
             }
 
-            CockroachConnection cockroachConnection = new CockroachConnection(psqlConnection, connectionSettings);
+            CockroachConnection cockroachConnection = new CockroachConnection(
+                    psqlConnection.getFirst(), connectionSettings, psqlConnection.getSecond());
 
             return ConnectionRetryInterceptor.proxy(cockroachConnection, connectionSettings,
                     () -> {
-                        Connection connection = DriverManager.getConnection(toDelegateURL(url), info);
-                        connection.setAutoCommit(false);
-                        return new CockroachConnection(connection, connectionSettings); // Derive connection settings
+                        Pair<Connection, ClusterNode> connection
+                                = openDelegate(clusterTopology, loadBalancer, url, info);
+                        connection.getFirst().setAutoCommit(false);
+                        // Derive connection settings
+                        return new CockroachConnection(connection.getFirst(), connectionSettings,
+                                connection.getSecond());
                     });
         } else {
             if (Boolean.parseBoolean(
@@ -162,7 +355,110 @@ public class CockroachDriver implements Driver {
                         PSQLState.UNKNOWN_STATE);
             }
 
-            return new CockroachConnection(psqlConnection, connectionSettings);
+            return new CockroachConnection(psqlConnection.getFirst(), connectionSettings, psqlConnection.getSecond());
+        }
+    }
+
+    private Pair<Connection, ClusterNode> openDelegate(ClusterTopology clusterTopology, LoadBalancer loadBalancer,
+                                                       String url, Properties info) throws SQLException {
+        if (clusterTopology != null) {
+            return clusterTopology.connect(loadBalancer);
+        }
+        return Pair.of(DriverManager.getConnection(toDelegateURL(url), info), null);
+    }
+
+    protected QueryHedger loadQueryHedger(String url, Properties info, Properties properties,
+                                          ClusterTopology clusterTopology, LoadBalancer loadBalancer) {
+        final double percentile =
+                Double.parseDouble(CockroachProperty.HEDGE_PERCENTILE.toDriverPropertyInfo(properties).value) / 100.0;
+        final Duration minDelay =
+                DurationFormat.parseDuration(CockroachProperty.HEDGE_MIN_DELAY.toDriverPropertyInfo(properties).value);
+
+        String key = sharedKey(url, info, percentile, minDelay);
+        return QUERY_HEDGERS.computeIfAbsent(key, k -> new QueryHedger(
+                hedgeConnectionFactory(url, info, clusterTopology, loadBalancer), percentile, minDelay));
+    }
+
+    private HedgeConnectionFactory hedgeConnectionFactory(String url, Properties info,
+                                                          ClusterTopology clusterTopology, LoadBalancer loadBalancer) {
+        if (clusterTopology == null) {
+            return excludedHost -> DriverManager.getConnection(toDelegateURL(url), info);
+        }
+        return excludedHost -> {
+            // Prefer another node than the primary
+            Pair<Connection, ClusterNode> connection = clusterTopology.connect(candidates -> {
+                List<ClusterNode> others = candidates.stream()
+                        .filter(node -> excludedHost == null
+                                || !node.getHost().equals(excludedHost.getHost())
+                                || node.getPort() != excludedHost.getPort())
+                        .collect(Collectors.toList());
+                return loadBalancer.select(others.isEmpty() ? candidates : others);
+            });
+            return new CockroachConnection(connection.getFirst(),
+                    new ConnectionSettings().setQueryProcessor(QueryProcessor.PASS_THROUGH),
+                    connection.getSecond());
+        };
+    }
+
+    protected LeaseholderRouter loadLeaseholderRouter(String url, Properties info, Properties properties,
+                                                      ClusterTopology clusterTopology, LoadBalancer loadBalancer) {
+        final List<String> tables = Arrays.stream(
+                        CockroachProperty.RANGE_CACHE_TABLES.toDriverPropertyInfo(properties).value.split(","))
+                .map(String::trim)
+                .filter(table -> !table.isEmpty())
+                .collect(Collectors.toList());
+        final Duration refreshInterval = DurationFormat.parseDuration(
+                CockroachProperty.RANGE_CACHE_REFRESH_INTERVAL.toDriverPropertyInfo(properties).value);
+
+        String key = sharedKey(url, info, tables, refreshInterval);
+        return LEASEHOLDER_ROUTERS.computeIfAbsent(key, k -> {
+            NodeConnectionFactory connectionFactory = gateway -> {
+                // Fall back to any node if the gateway is unavailable
+                Pair<Connection, ClusterNode> connection = clusterTopology.connect(
+                        candidates -> gateway != null && candidates.contains(gateway)
+                                ? gateway : loadBalancer.select(candidates));
+                return new CockroachConnection(connection.getFirst(),
+                        new ConnectionSettings().setQueryProcessor(QueryProcessor.PASS_THROUGH),
+                        connection.getSecond());
+            };
+            RangeCache rangeCache = new RangeCache(() -> connectionFactory.open(null), tables);
+            LeaseholderRouter leaseholderRouter = new LeaseholderRouter(
+                    clusterTopology, rangeCache, connectionFactory, new PoolSettings());
+            leaseholderRouter.start(refreshInterval);
+            return leaseholderRouter;
+        });
+    }
+
+    protected ClusterTopology loadClusterTopology(String url, Properties info, Properties properties)
+            throws SQLException {
+        TopologySettings topologySettings = new TopologySettings()
+                .setRefreshInterval(DurationFormat.parseDuration(
+                        CockroachProperty.TOPOLOGY_REFRESH_INTERVAL.toDriverPropertyInfo(properties).value))
+                .setHealthProbeInterval(DurationFormat.parseDuration(
+                        CockroachProperty.HEALTH_PROBE_INTERVAL.toDriverPropertyInfo(properties).value))
+                .setFailureThreshold(Integer.parseInt(
+                        CockroachProperty.CIRCUIT_BREAKER_FAILURE_THRESHOLD.toDriverPropertyInfo(properties).value))
+                .setOpenDuration(DurationFormat.parseDuration(
+                        CockroachProperty.CIRCUIT_BREAKER_OPEN_DURATION.toDriverPropertyInfo(properties).value));
+        return ClusterTopology.getInstance(toDelegateURL(url), info, topologySettings);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected LoadBalancer loadLoadBalancer(Properties properties) throws SQLException {
+        String className = CockroachProperty.LOAD_BALANCER_CLASSNAME.toDriverPropertyInfo(properties).value;
+        try {
+            Class<LoadBalancer> loadBalancerClass = (Class<LoadBalancer>) Class.forName(className);
+            LoadBalancer loadBalancer = loadBalancerClass.getDeclaredConstructor().newInstance();
+
+            String locality = CockroachProperty.LOCALITY.toDriverPropertyInfo(properties).value;
+            if (!locality.isEmpty()) {
+                loadBalancer = new LocalityAwareLoadBalancer(ClusterNode.parseLocality(locality), loadBalancer);
+            }
+            return loadBalancer;
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | InvocationTargetException |
+                 NoSuchMethodException e) {
+            throw new InvalidConfigurationException("Unable to create instance of load balancer: " + className,
+                    PSQLState.UNEXPECTED_ERROR, e);
         }
     }
 
@@ -210,6 +506,38 @@ public class CockroachDriver implements Driver {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    protected Tracer loadTracer(String url, Properties info, Properties properties) throws SQLException {
+        // Supplier takes precedence
+        if (CockroachDriver.tracerSupplier != null) {
+            Tracer tracer = CockroachDriver.tracerSupplier.get();
+            tracer.configure(properties);
+            return tracer;
+        }
+
+        String className = CockroachProperty.TRACER_CLASSNAME.toDriverPropertyInfo(properties).value;
+        if (className.isEmpty()) {
+            return null;
+        }
+
+        String key = sharedKey(url, info, className);
+        Tracer tracer = TRACERS.get(key);
+        if (tracer != null) {
+            return tracer;
+        }
+        try {
+            Class<Tracer> tracerClass = (Class<Tracer>) Class.forName(className);
+            tracer = tracerClass.getDeclaredConstructor().newInstance();
+            tracer.configure(properties);
+            Tracer existing = TRACERS.putIfAbsent(key, tracer);
+            return existing != null ? existing : tracer;
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | InvocationTargetException |
+                 NoSuchMethodException e) {
+            throw new InvalidConfigurationException("Unable to create instance of tracer: " + className,
+                    PSQLState.UNEXPECTED_ERROR, e);
+        }
+    }
+
     @Override
     public boolean acceptsURL(String url) {
         if (!url.startsWith(DRIVER_PREFIX)) {
@@ -5,8 +5,20 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-
+import java.util.List;
+
+import io.cockroachdb.jdbc.coalesce.GroupCommitter;
+import io.cockroachdb.jdbc.coalesce.SingleFlight;
+import io.cockroachdb.jdbc.hedge.HedgeQuery;
+import io.cockroachdb.jdbc.hedge.QueryHedger;
+import io.cockroachdb.jdbc.metrics.DriverMetrics.StatementType;
+import io.cockroachdb.jdbc.routing.PartitionedBatchExecutor;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+import io.cockroachdb.jdbc.util.SqlUtils;
 import io.cockroachdb.jdbc.util.WrapperSupport;
 
 /**
@@ -14,154 +26,354 @@ import io.cockroachdb.jdbc.util.WrapperSupport;
  * or proxy.
  */
 public class CockroachPreparedStatement extends WrapperSupport<PreparedStatement> implements PreparedStatement {
+    private final String sql;
+
+    private final GroupCommitter groupCommitter;
+
+    private final QueryHedger queryHedger;
+
+    private final SingleFlight singleFlight;
+
+    private final PartitionedBatchExecutor batchExecutor;
+
+    private final ConnectionSettings connectionSettings;
+
+    private final ParameterBinding[] parameterBindings;
+
+    private boolean rebindable = true;
+
+    private List<ParameterBinding[]> batchRows;
+
+    private long parameterBytes;
+
     public CockroachPreparedStatement(PreparedStatement delegate) {
+        this(delegate, null, null);
+    }
+
+    public CockroachPreparedStatement(PreparedStatement delegate, String sql, ConnectionSettings connectionSettings) {
+        this(delegate, sql, connectionSettings, false);
+    }
+
+    /**
+     * @param delegate the delegate statement
+     * @param sql the SQL statement
+     * @param connectionSettings the connection settings
+     * @param generatedKeys true if the statement returns generated keys, in which case group commit and
+     * partitioned batches are not applied since these can't return the keys
+     */
+    public CockroachPreparedStatement(PreparedStatement delegate, String sql, ConnectionSettings connectionSettings,
+                                      boolean generatedKeys) {
         super(delegate);
+        this.sql = sql;
+
+        GroupCommitter groupCommitter = connectionSettings != null && !generatedKeys
+                ? connectionSettings.getGroupCommitter() : null;
+        QueryHedger queryHedger = connectionSettings != null ? connectionSettings.getQueryHedger() : null;
+        SingleFlight singleFlight = connectionSettings != null ? connectionSettings.getSingleFlight() : null;
+        PartitionedBatchExecutor batchExecutor = connectionSettings != null && !generatedKeys
+                ? connectionSettings.getPartitionedBatchExecutor() : null;
+
+        this.groupCommitter = groupCommitter != null && groupCommitter.isEligible(sql) ? groupCommitter : null;
+        this.queryHedger = queryHedger != null && QueryHedger.isEligible(sql) ? queryHedger : null;
+        this.singleFlight = singleFlight != null && SingleFlight.isEligible(sql) ? singleFlight : null;
+        this.batchExecutor = batchExecutor != null && batchExecutor.isEligible(sql) ? batchExecutor : null;
+        this.connectionSettings = connectionSettings;
+
+        if (this.groupCommitter != null || this.queryHedger != null || this.singleFlight != null
+                || this.batchExecutor != null
+                || (connectionSettings != null && connectionSettings.getSlowStatementLog() != null)) {
+            this.parameterBindings = new ParameterBinding[SqlUtils.countPlaceholders(sql)];
+        } else {
+            this.parameterBindings = null;
+        }
+    }
+
+    private <T> T instrument(StatementType type, ResourceSupplier<T> execution) throws SQLException {
+        long bytes = parameterBytes;
+        parameterBytes = 0;
+        return StatementExecution.execute(getDelegate(), connectionSettings, type, sql, parameterBindings, bytes,
+                execution);
+    }
+
+    private void captureParameter(int parameterIndex, Object value, ParameterBinding.Binder binder,
+                                  Object... qualifiers) {
+        if (binder == null) {
+            // Streams and readers are consumed on first use and can't be re-bound
+            rebindable = false;
+        } else if (parameterIndex > 0 && parameterIndex <= parameterBindings.length) {
+            parameterBindings[parameterIndex - 1] = ParameterBinding.of(value, binder, qualifiers);
+        }
+    }
+
+    private static Object timeZoneOf(Calendar cal) {
+        // The calendar is only used for its time zone when binding
+        return cal != null ? cal.getTimeZone() : null;
+    }
+
+    private boolean isSingleFlight() throws SQLException {
+        // Flights are shared by URL and user, so bypassed once the connection catalog is changed
+        return singleFlight != null && connectionSettings.getSingleFlight() != null && isRebindable();
+    }
+
+    private boolean isRebindable() throws SQLException {
+        if (!rebindable || !getDelegate().getConnection().getAutoCommit()) {
+            return false;
+        }
+        for (ParameterBinding parameterBinding : parameterBindings) {
+            if (parameterBinding == null) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public ResultSet executeQuery() throws SQLException {
-        return new CockroachResultSet(getDelegate().executeQuery());
+        return instrument(StatementType.QUERY, () -> {
+            if (isSingleFlight()) {
+                return new CockroachResultSet(singleFlight.executeQuery(getDelegate(), sql,
+                        parameterBindings.clone(), this::executeDelegateQuery));
+            }
+            return new CockroachResultSet(executeDelegateQuery());
+        });
+    }
+
+    private ResultSet executeDelegateQuery() throws SQLException {
+        if (queryHedger != null && isRebindable()) {
+            return queryHedger.executeQuery(getDelegate(),
+                    () -> getDelegate().executeQuery(), HedgeQuery.of(sql, parameterBindings.clone()));
+        }
+        return getDelegate().executeQuery();
     }
 
     @Override
     public int executeUpdate() throws SQLException {
-        return getDelegate().executeUpdate();
+        return instrument(StatementType.UPDATE, () -> {
+            if (groupCommitter != null && isRebindable()) {
+                return groupCommitter.executeUpdate(getDelegate().getConnection(), sql, parameterBindings.clone());
+            }
+            return getDelegate().executeUpdate();
+        });
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
         getDelegate().setNull(parameterIndex, sqlType);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, (ps, i) -> ps.setNull(i, sqlType), sqlType);
+        }
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
         getDelegate().setBoolean(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setBoolean(i, x));
+        }
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
         getDelegate().setByte(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setByte(i, x));
+        }
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
         getDelegate().setShort(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setShort(i, x));
+        }
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
         getDelegate().setInt(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setInt(i, x));
+        }
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
         getDelegate().setLong(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setLong(i, x));
+        }
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
         getDelegate().setFloat(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setFloat(i, x));
+        }
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
         getDelegate().setDouble(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setDouble(i, x));
+        }
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
         getDelegate().setBigDecimal(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setBigDecimal(i, x));
+        }
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
         getDelegate().setString(parameterIndex, x);
+        parameterBytes += x != null ? x.length() : 0;
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setString(i, x));
+        }
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
         getDelegate().setBytes(parameterIndex, x);
+        parameterBytes += x != null ? x.length : 0;
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setBytes(i, x));
+        }
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
         getDelegate().setDate(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setDate(i, x));
+        }
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
         getDelegate().setTime(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setTime(i, x));
+        }
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
         getDelegate().setTimestamp(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setTimestamp(i, x));
+        }
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
         getDelegate().setAsciiStream(parameterIndex, x, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @SuppressWarnings("deprecation")
     @Override
     public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
         getDelegate().setUnicodeStream(parameterIndex, x, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
         getDelegate().setBinaryStream(parameterIndex, x, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void clearParameters() throws SQLException {
         getDelegate().clearParameters();
+        if (parameterBindings != null) {
+            Arrays.fill(parameterBindings, null);
+            rebindable = true;
+        }
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
         getDelegate().setObject(parameterIndex, x, targetSqlType);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setObject(i, x, targetSqlType), targetSqlType);
+        }
     }
 
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
         getDelegate().setObject(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setObject(i, x));
+        }
     }
 
     @Override
     public boolean execute() throws SQLException {
-        return getDelegate().execute();
+        return instrument(StatementType.EXECUTE, () -> getDelegate().execute());
     }
 
     @Override
     public void addBatch() throws SQLException {
         getDelegate().addBatch();
+        if (batchExecutor != null) {
+            if (batchRows == null) {
+                batchRows = new ArrayList<>();
+            }
+            batchRows.add(parameterBindings.clone());
+        }
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
         getDelegate().setCharacterStream(parameterIndex, reader, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setRef(int parameterIndex, Ref x) throws SQLException {
         getDelegate().setRef(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setRef(i, x));
+        }
     }
 
     @Override
     public void setBlob(int parameterIndex, Blob x) throws SQLException {
         getDelegate().setBlob(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setClob(int parameterIndex, Clob x) throws SQLException {
         getDelegate().setClob(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setArray(int parameterIndex, Array x) throws SQLException {
         getDelegate().setArray(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setArray(i, x));
+        }
     }
 
     @Override
@@ -172,26 +384,41 @@ public class CockroachPreparedStatement extends WrapperSupport<PreparedStatement
     @Override
     public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
         getDelegate().setDate(parameterIndex, x, cal);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setDate(i, x, cal), timeZoneOf(cal));
+        }
     }
 
     @Override
     public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
         getDelegate().setTime(parameterIndex, x, cal);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setTime(i, x, cal), timeZoneOf(cal));
+        }
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
         getDelegate().setTimestamp(parameterIndex, x, cal);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setTimestamp(i, x, cal), timeZoneOf(cal));
+        }
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
         getDelegate().setNull(parameterIndex, sqlType, typeName);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, (ps, i) -> ps.setNull(i, sqlType, typeName), sqlType, typeName);
+        }
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
         getDelegate().setURL(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setURL(i, x));
+        }
     }
 
     @Override
@@ -202,97 +429,156 @@ public class CockroachPreparedStatement extends WrapperSupport<PreparedStatement
     @Override
     public void setRowId(int parameterIndex, RowId x) throws SQLException {
         getDelegate().setRowId(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setRowId(i, x));
+        }
     }
 
     @Override
     public void setNString(int parameterIndex, String value) throws SQLException {
         getDelegate().setNString(parameterIndex, value);
+        parameterBytes += value != null ? value.length() : 0;
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, value, (ps, i) -> ps.setNString(i, value));
+        }
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
         getDelegate().setNCharacterStream(parameterIndex, value, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setNClob(int parameterIndex, NClob value) throws SQLException {
         getDelegate().setNClob(parameterIndex, value);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
         getDelegate().setClob(parameterIndex, reader, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
         getDelegate().setBlob(parameterIndex, inputStream, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
         getDelegate().setNClob(parameterIndex, reader, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
         getDelegate().setSQLXML(parameterIndex, xmlObject);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
 
     public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
         getDelegate().setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setObject(i, x, targetSqlType, scaleOrLength),
+                    targetSqlType, scaleOrLength);
+        }
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
         getDelegate().setAsciiStream(parameterIndex, x, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
         getDelegate().setBinaryStream(parameterIndex, x, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
         getDelegate().setCharacterStream(parameterIndex, reader, length);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
         getDelegate().setAsciiStream(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
         getDelegate().setBinaryStream(parameterIndex, x);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
         getDelegate().setCharacterStream(parameterIndex, reader);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
         getDelegate().setNCharacterStream(parameterIndex, value);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setClob(int parameterIndex, Reader reader) throws SQLException {
         getDelegate().setClob(parameterIndex, reader);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
         getDelegate().setBlob(parameterIndex, inputStream);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
     public void setNClob(int parameterIndex, Reader reader) throws SQLException {
         getDelegate().setNClob(parameterIndex, reader);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, null, null);
+        }
     }
 
     @Override
@@ -424,11 +710,37 @@ public class CockroachPreparedStatement extends WrapperSupport<PreparedStatement
     @Override
     public void clearBatch() throws SQLException {
         getDelegate().clearBatch();
+        batchRows = null;
     }
 
     @Override
     public int[] executeBatch() throws SQLException {
-        return getDelegate().executeBatch();
+        return instrument(StatementType.BATCH, () -> {
+            List<ParameterBinding[]> rows = batchRows;
+            batchRows = null;
+            if (rows != null && batchExecutor.isPartitionable(rows.size()) && isBatchRebindable(rows)) {
+                int[] updateCounts = batchExecutor.executeBatch(sql, rows);
+                if (updateCounts != null) {
+                    getDelegate().clearBatch();
+                    return updateCounts;
+                }
+            }
+            return getDelegate().executeBatch();
+        });
+    }
+
+    private boolean isBatchRebindable(List<ParameterBinding[]> rows) throws SQLException {
+        if (!rebindable || !getDelegate().getConnection().getAutoCommit()) {
+            return false;
+        }
+        for (ParameterBinding[] row : rows) {
+            for (ParameterBinding parameterBinding : row) {
+                if (parameterBinding == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
@@ -509,16 +821,23 @@ public class CockroachPreparedStatement extends WrapperSupport<PreparedStatement
     @Override
     public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
         getDelegate().setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setObject(i, x, targetSqlType, scaleOrLength),
+                    targetSqlType, scaleOrLength);
+        }
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
         getDelegate().setObject(parameterIndex, x, targetSqlType);
+        if (parameterBindings != null) {
+            captureParameter(parameterIndex, x, (ps, i) -> ps.setObject(i, x, targetSqlType), targetSqlType);
+        }
     }
 
     @Override
     public long executeLargeUpdate() throws SQLException {
-        return getDelegate().executeLargeUpdate();
+        return instrument(StatementType.UPDATE, () -> getDelegate().executeLargeUpdate());
     }
 
     @Override
@@ -538,7 +857,10 @@ public class CockroachPreparedStatement extends WrapperSupport<PreparedStatement
 
     @Override
     public long[] executeLargeBatch() throws SQLException {
-        return getDelegate().executeLargeBatch();
+        return instrument(StatementType.BATCH, () -> {
+            batchRows = null;
+            return getDelegate().executeLargeBatch();
+        });
     }
 
     @Override
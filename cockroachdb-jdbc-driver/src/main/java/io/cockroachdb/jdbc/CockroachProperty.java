@@ -65,6 +65,34 @@ public enum CockroachProperty {
                     + "Applicable only when 'retryTransientErrors' is true.",
             new String[] {"5s", "7s", "15s", "30s", "1m"}),
 
+    RETRY_RECENT_OPERATIONS(
+            "retryRecentOperations",
+            "64",
+            false,
+            "Number of recent operations kept per connection in a preallocated ring buffer, including method, "
+                    + "SQL fingerprint, timing and outcome. The buffer is attached to the exception when retries are "
+                    + "exhausted or a result set checksum fails on replay. Applicable only when 'retryTransientErrors' "
+                    + "is true. Zero disables the buffer.",
+            new String[] {"0", "32", "64", "128", "256"}),
+
+    CONTENTION_ATTRIBUTION(
+            "contentionAttribution",
+            Boolean.FALSE.toString(),
+            false,
+            "Collect transaction contention events from 'crdb_internal.transaction_contention_events' on a side "
+                    + "connection in the background when transactions are retried on serialization failures, "
+                    + "aggregated by blocking transaction fingerprint and contended key into a hot key and hot "
+                    + "table report. Applicable only when 'retryTransientErrors' is true.",
+            new String[] {"true", "false"}),
+
+    CONTENTION_ATTRIBUTION_INTERVAL(
+            "contentionAttributionInterval",
+            "10s",
+            false,
+            "Min interval between collections of transaction contention events, in the format of a duration "
+                    + "expression (like '10s'). Applicable only when 'contentionAttribution' is true.",
+            new String[] {"5s", "10s", "1m"}),
+
     IMPLICIT_SELECT_FOR_UPDATE(
             "implicitSelectForUpdate",
             Boolean.FALSE.toString(),
@@ -82,6 +110,199 @@ public enum CockroachProperty {
             false,
             "Use CockroachDB JDBC connection metadata rather than PostgreSQL. The latter may cause "
                     + "incompatibility with libraries binding to PostgreSQL version details, such as Flyway.",
+            new String[] {"true", "false"}),
+
+    TOPOLOGY_DISCOVERY(
+            "topologyDiscovery",
+            Boolean.FALSE.toString(),
+            false,
+            "Discover the live cluster nodes and their localities through the hosts in the JDBC URL on first connect "
+                    + "and spread new connections across the nodes using the load balancer given by "
+                    + "'loadBalancerClassName'. The topology is refreshed periodically so that nodes joining, leaving or "
+                    + "draining are accounted for without an external load balancer hop.",
+            new String[] {"true", "false"}),
+
+    TOPOLOGY_REFRESH_INTERVAL(
+            "topologyRefreshInterval",
+            "30s",
+            false,
+            "Interval between cluster topology refreshes in the format of a duration expression (like '30s'). "
+                    + "Applicable only when 'topologyDiscovery' is true.",
+            new String[] {"10s", "30s", "1m", "5m"}),
+
+    LOAD_BALANCER_CLASSNAME(
+            "loadBalancerClassName",
+            "io.cockroachdb.jdbc.cluster.LeastConnectionsLoadBalancer",
+            false,
+            "Name of class that implements 'io.cockroachdb.jdbc.cluster.LoadBalancer' to be used for selecting "
+                    + "the node for new connections when 'topologyDiscovery' is true. "
+                    + "One instance is created for each cluster topology.",
+            new String[] {"io.cockroachdb.jdbc.cluster.LeastConnectionsLoadBalancer",
+                    "io.cockroachdb.jdbc.cluster.LatencyAwareLoadBalancer"}),
+
+    LOCALITY(
+            "locality",
+            "",
+            false,
+            "Locality of the client in the same format as the node '--locality' flag (like 'region=eu-west-1,zone=a'). "
+                    + "When set, new connections prefer nodes in the same zone, then in the same region, and fall back "
+                    + "to remote nodes only when no local nodes are available. Implies 'topologyDiscovery'.",
+            new String[] {}),
+
+    HEALTH_PROBE_INTERVAL(
+            "healthProbeInterval",
+            "5s",
+            false,
+            "Interval between background node health probes in the format of a duration expression (like '5s'), "
+                    + "or '0' to disable probing. Applicable only when 'topologyDiscovery' is true.",
+            new String[] {"0", "1s", "5s", "15s"}),
+
+    CIRCUIT_BREAKER_FAILURE_THRESHOLD(
+            "circuitBreakerFailureThreshold",
+            "3",
+            false,
+            "Number of consecutive connection errors to a node before its circuit breaker opens and the node "
+                    + "is skipped for new connections and retry reconnects. "
+                    + "Applicable only when 'topologyDiscovery' is true.",
+            new String[] {"1", "3", "5", "10"}),
+
+    CIRCUIT_BREAKER_OPEN_DURATION(
+            "circuitBreakerOpenDuration",
+            "15s",
+            false,
+            "Time an open node circuit breaker waits before permitting trial connections, in the format of a "
+                    + "duration expression (like '15s'). A successful health probe shortens the wait. "
+                    + "Applicable only when 'topologyDiscovery' is true.",
+            new String[] {"5s", "15s", "30s", "1m"}),
+
+    HEDGE_READS(
+            "hedgeReads",
+            Boolean.FALSE.toString(),
+            false,
+            "Hedge read-only auto-commit queries with an 'AS OF SYSTEM TIME' clause. If the query has not "
+                    + "completed within the hedge delay, given by a percentile of recent query latencies, it's issued "
+                    + "also on a second connection, preferably to another node. Whichever query answers first is "
+                    + "used and the other one is cancelled.",
+            new String[] {"true", "false"}),
+
+    HEDGE_PERCENTILE(
+            "hedgePercentile",
+            "95",
+            false,
+            "Percentile of recent historical query latencies used as hedge delay. "
+                    + "Applicable only when 'hedgeReads' is true.",
+            new String[] {"90", "95", "99"}),
+
+    HEDGE_MIN_DELAY(
+            "hedgeMinDelay",
+            "5ms",
+            false,
+            "Minimum hedge delay in the format of a duration expression (like '5ms'). "
+                    + "Applicable only when 'hedgeReads' is true.",
+            new String[] {"1ms", "5ms", "10ms", "50ms"}),
+
+    SINGLE_FLIGHT_READS(
+            "singleFlightReads",
+            Boolean.FALSE.toString(),
+            false,
+            "Deduplicate identical read-only auto-commit prepared queries in flight at the same time. "
+                    + "Concurrent executions with the same SQL and parameters share one query, whose result "
+                    + "is materialized once and handed to each caller as an independent result set. "
+                    + "Intended for small results under cache-miss storms.",
+            new String[] {"true", "false"}),
+
+    RANGE_CACHE_TABLES(
+            "rangeCacheTables",
+            "",
+            false,
+            "Comma separated list of tables to cache range descriptors and leaseholders for, loaded with "
+                    + "'SHOW RANGES'. Enables routing of single-key statements to the leaseholder node through "
+                    + "the connection's leaseholder router. Implies 'topologyDiscovery'.",
+            new String[] {}),
+
+    RANGE_CACHE_REFRESH_INTERVAL(
+            "rangeCacheRefreshInterval",
+            "1m",
+            false,
+            "Interval within which each cached table is refreshed, in the format of a duration expression "
+                    + "(like '1m'). Tables are refreshed one at a time. "
+                    + "Applicable only when 'rangeCacheTables' is set.",
+            new String[] {"30s", "1m", "5m"}),
+
+    PARTITION_BATCHES(
+            "partitionBatches",
+            Boolean.FALSE.toString(),
+            false,
+            "Partition large auto-commit insert and upsert batches by the leaseholder of each row's primary key "
+                    + "range and execute the partitions in parallel over pooled connections to the leaseholder "
+                    + "nodes. Partitions commit independently, so a failed batch may be partially applied. "
+                    + "Applicable only when 'rangeCacheTables' is set.",
+            new String[] {"true", "false"}),
+
+    STATEMENT_STATISTICS(
+            "statementStatistics",
+            Boolean.FALSE.toString(),
+            false,
+            "Aggregate client-side statement statistics by SQL fingerprint, with literals replaced and value lists "
+                    + "collapsed. Tracks calls, latencies, rows, bytes, errors, serialization failures and the "
+                    + "transaction retries caused, queryable through the API and JMX.",
+            new String[] {"true", "false"}),
+
+    SLOW_STATEMENT_THRESHOLD(
+            "slowStatementThreshold",
+            "0",
+            false,
+            "Log statements exceeding this execution time at warn level with the SQL fingerprint, masked "
+                    + "parameters, duration and connection, in the format of a duration expression (like '500ms'). "
+                    + "Zero disables slow statement logging.",
+            new String[] {"0", "250ms", "1s"}),
+
+    SLOW_STATEMENT_EXPLAIN_RATE(
+            "slowStatementExplainRate",
+            "1",
+            false,
+            "Max number of slow statements per minute re-run with 'EXPLAIN ANALYZE (DISTSQL)' on a side "
+                    + "connection, attaching the plan to the log entry. Only plain reads are explained since "
+                    + "'EXPLAIN ANALYZE' executes the statement. Zero disables explain. "
+                    + "Applicable only when 'slowStatementThreshold' is set.",
+            new String[] {"0", "1", "10"}),
+
+    FULL_SCAN_GUARD(
+            "fullScanGuard",
+            "off",
+            false,
+            "Guard against full scans of large tables. The first time a SELECT, UPDATE or DELETE fingerprint is "
+                    + "seen, 'EXPLAIN' runs in the background on a side connection and the outcome is cached. "
+                    + "Later executions planned with a full scan are either logged at warn level ('warn'), "
+                    + "only counted in the 'guardrail.full.scans' metric ('metric') or rejected ('reject').",
+            new String[] {"off", "warn", "metric", "reject"}),
+
+    FULL_SCAN_GUARD_MIN_ROWS(
+            "fullScanGuardMinRows",
+            "10000",
+            false,
+            "Min estimated row count of a table for full scans to be guarded against. "
+                    + "Applicable only when 'fullScanGuard' is set.",
+            new String[] {"1000", "10000", "100000"}),
+
+    TRACER_CLASSNAME(
+            "tracerClassName",
+            "",
+            false,
+            "Name of class that implements 'io.cockroachdb.jdbc.tracing.Tracer' to be used to trace statement "
+                    + "executions, commits and transaction retries as spans, like "
+                    + "'io.cockroachdb.jdbc.tracing.W3CTracer'. "
+                    + "One instance is shared by connections with the same URL, user and class name. "
+                    + "Empty disables tracing.",
+            new String[] {}),
+
+    TRACEPARENT_COMMENTS(
+            "traceparentComments",
+            Boolean.FALSE.toString(),
+            false,
+            "Append the current trace context as a sqlcommenter style comment, like "
+                    + "'/*traceparent='00-<trace-id>-<span-id>-01'*/', to SQL statements executed within a span. "
+                    + "Applicable only when 'tracerClassName' is set.",
             new String[] {"true", "false"});
 
     private final String name;
@@ -7,6 +7,7 @@ import java.net.URL;
 import java.sql.*;
 import java.util.Calendar;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.cockroachdb.jdbc.util.WrapperSupport;
 
@@ -15,13 +16,26 @@ import io.cockroachdb.jdbc.util.WrapperSupport;
  * or proxy.
  */
 public class CockroachResultSet extends WrapperSupport<ResultSet> implements ResultSet {
+    private LongAdder rowCounter;
+
     public CockroachResultSet(ResultSet delegate) {
         super(delegate);
     }
 
+    /**
+     * @param rowCounter counter incremented for each row read, or null to disable counting
+     */
+    public void setRowCounter(LongAdder rowCounter) {
+        this.rowCounter = rowCounter;
+    }
+
     @Override
     public boolean next() throws SQLException {
-        return getDelegate().next();
+        boolean next = getDelegate().next();
+        if (next && rowCounter != null) {
+            rowCounter.increment();
+        }
+        return next;
     }
 
     @Override
@@ -10,8 +10,12 @@ import java.util.regex.Pattern;
 
 import org.postgresql.util.PSQLState;
 
+import io.cockroachdb.jdbc.hedge.HedgeQuery;
+import io.cockroachdb.jdbc.hedge.QueryHedger;
+import io.cockroachdb.jdbc.metrics.DriverMetrics.StatementType;
 import io.cockroachdb.jdbc.query.QueryProcessor;
 import io.cockroachdb.jdbc.query.SelectForUpdateProcessor;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
 import io.cockroachdb.jdbc.util.WrapperSupport;
 
 /**
@@ -29,15 +33,40 @@ public class CockroachStatement extends WrapperSupport<Statement> implements Sta
         this.connectionSettings = connectionSettings;
     }
 
+    private <T> T instrument(StatementType type, String sql, ResourceSupplier<T> execution) throws SQLException {
+        return StatementExecution.execute(getDelegate(), connectionSettings, type, sql, null,
+                sql != null ? sql.length() : 0, execution);
+    }
+
+    private String processQuery(String sql) throws SQLException {
+        return connectionSettings.getQueryProcessor().processQuery(getConnection(), sql);
+    }
+
+    private String processStages(String sql) throws SQLException {
+        // Query rewrites like implicit select-for-update only apply to executeQuery
+        String query = sql;
+        for (QueryProcessor queryStage : connectionSettings.getQueryStages()) {
+            query = queryStage.processQuery(getConnection(), query);
+        }
+        return query;
+    }
+
     @Override
     public ResultSet executeQuery(String sql) throws SQLException {
-        final String finalQuery = connectionSettings.getQueryProcessor().processQuery(getConnection(), sql);
-        return new CockroachResultSet(getDelegate().executeQuery(finalQuery));
+        return instrument(StatementType.QUERY, sql, () -> {
+            final String finalQuery = processQuery(sql);
+            final QueryHedger queryHedger = connectionSettings.getQueryHedger();
+            if (queryHedger != null && QueryHedger.isEligible(finalQuery) && getConnection().getAutoCommit()) {
+                return new CockroachResultSet(queryHedger.executeQuery(getDelegate(),
+                        () -> getDelegate().executeQuery(finalQuery), HedgeQuery.of(finalQuery)));
+            }
+            return new CockroachResultSet(getDelegate().executeQuery(finalQuery));
+        });
     }
 
     @Override
     public int executeUpdate(String sql) throws SQLException {
-        return getDelegate().executeUpdate(sql);
+        return instrument(StatementType.UPDATE, sql, () -> getDelegate().executeUpdate(processStages(sql)));
     }
 
     @Override
@@ -136,7 +165,7 @@ public class CockroachStatement extends WrapperSupport<Statement> implements Sta
             // Don't pass statement to DB since it's not recognized
             return true;
         }
-        return getDelegate().execute(sql);
+        return instrument(StatementType.EXECUTE, sql, () -> getDelegate().execute(processStages(sql)));
     }
 
     @Override
@@ -197,7 +226,7 @@ public class CockroachStatement extends WrapperSupport<Statement> implements Sta
 
     @Override
     public int[] executeBatch() throws SQLException {
-        return getDelegate().executeBatch();
+        return instrument(StatementType.BATCH, null, () -> getDelegate().executeBatch());
     }
 
     @Override
@@ -217,32 +246,35 @@ public class CockroachStatement extends WrapperSupport<Statement> implements Sta
 
     @Override
     public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
-        return getDelegate().executeUpdate(sql, autoGeneratedKeys);
+        return instrument(StatementType.UPDATE, sql,
+                () -> getDelegate().executeUpdate(processStages(sql), autoGeneratedKeys));
     }
 
     @Override
     public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
-        return getDelegate().executeUpdate(sql, columnIndexes);
+        return instrument(StatementType.UPDATE, sql,
+                () -> getDelegate().executeUpdate(processStages(sql), columnIndexes));
     }
 
     @Override
     public int executeUpdate(String sql, String[] columnNames) throws SQLException {
-        return getDelegate().executeUpdate(sql, columnNames);
+        return instrument(StatementType.UPDATE, sql, () -> getDelegate().executeUpdate(processStages(sql), columnNames));
     }
 
     @Override
     public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
-        return getDelegate().execute(sql, autoGeneratedKeys);
+        return instrument(StatementType.EXECUTE, sql,
+                () -> getDelegate().execute(processStages(sql), autoGeneratedKeys));
     }
 
     @Override
     public boolean execute(String sql, int[] columnIndexes) throws SQLException {
-        return getDelegate().execute(sql, columnIndexes);
+        return instrument(StatementType.EXECUTE, sql, () -> getDelegate().execute(processStages(sql), columnIndexes));
     }
 
     @Override
     public boolean execute(String sql, String[] columnNames) throws SQLException {
-        return getDelegate().execute(sql, columnNames);
+        return instrument(StatementType.EXECUTE, sql, () -> getDelegate().execute(processStages(sql), columnNames));
     }
 
     @Override
@@ -292,26 +324,29 @@ public class CockroachStatement extends WrapperSupport<Statement> implements Sta
 
     @Override
     public long[] executeLargeBatch() throws SQLException {
-        return getDelegate().executeLargeBatch();
+        return instrument(StatementType.BATCH, null, () -> getDelegate().executeLargeBatch());
     }
 
     @Override
     public long executeLargeUpdate(String sql) throws SQLException {
-        return getDelegate().executeLargeUpdate(sql);
+        return instrument(StatementType.UPDATE, sql, () -> getDelegate().executeLargeUpdate(processStages(sql)));
     }
 
     @Override
     public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
-        return getDelegate().executeLargeUpdate(sql, autoGeneratedKeys);
+        return instrument(StatementType.UPDATE, sql,
+                () -> getDelegate().executeLargeUpdate(processStages(sql), autoGeneratedKeys));
     }
 
     @Override
     public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
-        return getDelegate().executeLargeUpdate(sql, columnIndexes);
+        return instrument(StatementType.UPDATE, sql,
+                () -> getDelegate().executeLargeUpdate(processStages(sql), columnIndexes));
     }
 
     @Override
     public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
-        return getDelegate().executeLargeUpdate(sql, columnNames);
+        return instrument(StatementType.UPDATE, sql,
+                () -> getDelegate().executeLargeUpdate(processStages(sql), columnNames));
     }
 }
\ No newline at end of file
@@ -1,11 +1,24 @@
 package io.cockroachdb.jdbc;
 
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
+import io.cockroachdb.jdbc.coalesce.GroupCommitter;
+import io.cockroachdb.jdbc.coalesce.SingleFlight;
+import io.cockroachdb.jdbc.diagnostics.SlowStatementLog;
+import io.cockroachdb.jdbc.hedge.QueryHedger;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
 import io.cockroachdb.jdbc.query.QueryProcessor;
 import io.cockroachdb.jdbc.retry.MethodTraceLogger;
 import io.cockroachdb.jdbc.retry.RetryListener;
 import io.cockroachdb.jdbc.retry.RetryStrategy;
+import io.cockroachdb.jdbc.routing.LeaseholderRouter;
+import io.cockroachdb.jdbc.routing.PartitionedBatchExecutor;
+import io.cockroachdb.jdbc.tracing.Tracer;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
 
 /**
  * Value object for JDBC connection settings.
@@ -16,12 +29,36 @@ public class ConnectionSettings {
 
     private QueryProcessor queryProcessor;
 
+    private final List<QueryProcessor> queryStages = new ArrayList<>();
+
+    private QueryProcessor effectiveQueryProcessor;
+
     private RetryStrategy retryStrategy;
 
     private RetryListener retryListener;
 
     private MethodTraceLogger methodTraceLogger;
 
+    private int recentOperations;
+
+    private GroupCommitter groupCommitter;
+
+    private QueryHedger queryHedger;
+
+    private SingleFlight singleFlight;
+
+    private StatementStatistics statementStatistics;
+
+    private SlowStatementLog slowStatementLog;
+
+    private LeaseholderRouter leaseholderRouter;
+
+    private PartitionedBatchExecutor partitionedBatchExecutor;
+
+    private ResourceSupplier<Connection> connectionFactory;
+
+    private Tracer tracer;
+
     public MethodTraceLogger getMethodTraceLogger() {
         return methodTraceLogger;
     }
@@ -30,6 +67,15 @@ public class ConnectionSettings {
         this.methodTraceLogger = methodTraceLogger;
     }
 
+    public int getRecentOperations() {
+        return recentOperations;
+    }
+
+    public ConnectionSettings setRecentOperations(int recentOperations) {
+        this.recentOperations = recentOperations;
+        return this;
+    }
+
     public boolean isUseCockroachMetadata() {
         return useCockroachMetadata;
     }
@@ -40,14 +86,41 @@ public class ConnectionSettings {
     }
 
     public QueryProcessor getQueryProcessor() {
-        return Optional.of(queryProcessor).get(); // NPE here if not set
+        return Optional.of(effectiveQueryProcessor).get(); // NPE here if not set
     }
 
     public ConnectionSettings setQueryProcessor(QueryProcessor queryProcessor) {
         this.queryProcessor = queryProcessor;
+        composeQueryProcessor();
         return this;
     }
 
+    /**
+     * Add a query processor stage applied after the query processor. Stages are retained
+     * when the query processor is replaced, for example by transaction scoped rewrites.
+     *
+     * @param queryStage the query processor stage
+     */
+    public ConnectionSettings addQueryStage(QueryProcessor queryStage) {
+        this.queryStages.add(queryStage);
+        composeQueryProcessor();
+        return this;
+    }
+
+    public List<QueryProcessor> getQueryStages() {
+        return Collections.unmodifiableList(queryStages);
+    }
+
+    private void composeQueryProcessor() {
+        QueryProcessor processor = queryProcessor;
+        if (processor != null) {
+            for (QueryProcessor queryStage : queryStages) {
+                processor = processor.andThen(queryStage);
+            }
+        }
+        this.effectiveQueryProcessor = processor;
+    }
+
     public RetryStrategy getRetryStrategy() {
         return Optional.of(retryStrategy).get(); // NPE here if not set
     }
@@ -65,4 +138,100 @@ public class ConnectionSettings {
         this.retryListener = retryListener;
         return this;
     }
+
+    /**
+     * @return the group committer or null if group commit is disabled
+     */
+    public GroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
+    public ConnectionSettings setGroupCommitter(GroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
+        return this;
+    }
+
+    /**
+     * @return the query hedger or null if hedging is disabled
+     */
+    public QueryHedger getQueryHedger() {
+        return queryHedger;
+    }
+
+    public ConnectionSettings setQueryHedger(QueryHedger queryHedger) {
+        this.queryHedger = queryHedger;
+        return this;
+    }
+
+    /**
+     * @return the single-flight deduplication of read queries or null if disabled
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public ConnectionSettings setSingleFlight(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+        return this;
+    }
+
+    public StatementStatistics getStatementStatistics() {
+        return statementStatistics;
+    }
+
+    public ConnectionSettings setStatementStatistics(StatementStatistics statementStatistics) {
+        this.statementStatistics = statementStatistics;
+        return this;
+    }
+
+    public SlowStatementLog getSlowStatementLog() {
+        return slowStatementLog;
+    }
+
+    public ConnectionSettings setSlowStatementLog(SlowStatementLog slowStatementLog) {
+        this.slowStatementLog = slowStatementLog;
+        return this;
+    }
+
+    public LeaseholderRouter getLeaseholderRouter() {
+        return leaseholderRouter;
+    }
+
+    public ConnectionSettings setLeaseholderRouter(LeaseholderRouter leaseholderRouter) {
+        this.leaseholderRouter = leaseholderRouter;
+        return this;
+    }
+
+    public PartitionedBatchExecutor getPartitionedBatchExecutor() {
+        return partitionedBatchExecutor;
+    }
+
+    public ConnectionSettings setPartitionedBatchExecutor(PartitionedBatchExecutor partitionedBatchExecutor) {
+        this.partitionedBatchExecutor = partitionedBatchExecutor;
+        return this;
+    }
+
+    /**
+     * @return factory for auto-commit side connections to the same cluster, or null
+     */
+    public ResourceSupplier<Connection> getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public ConnectionSettings setConnectionFactory(ResourceSupplier<Connection> connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        return this;
+    }
+
+    /**
+     * @return the tracer or null if tracing is disabled
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    public ConnectionSettings setTracer(Tracer tracer) {
+        this.tracer = tracer;
+        return this;
+    }
 }
@@ -0,0 +1,98 @@
+package io.cockroachdb.jdbc;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import io.cockroachdb.jdbc.diagnostics.SlowStatementLog;
+import io.cockroachdb.jdbc.jfr.DriverEvents;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+import io.cockroachdb.jdbc.metrics.DriverMetrics.StatementType;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
+import io.cockroachdb.jdbc.metrics.StatementStats;
+import io.cockroachdb.jdbc.tracing.Span;
+import io.cockroachdb.jdbc.tracing.Tracer;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+
+/**
+ * Instrumentation of statement executions shared by statement implementations, recording
+ * driver metrics, flight recorder events, statement statistics, slow statements and
+ * tracing spans. The span is current during the execution, so that query processors
+ * applied by plain statements at execution time see its trace context. Prepared statements
+ * are processed when prepared, outside of the statement span.
+ */
+abstract class StatementExecution {
+    private StatementExecution() {
+    }
+
+    /**
+     * @param statement the delegate statement
+     * @param connectionSettings the connection settings or null if not available
+     * @param type the statement type
+     * @param sql the SQL statement or null if not known
+     * @param parameterBindings the captured parameters or null if not available
+     * @param bytes estimated bytes sent
+     * @param execution the statement execution
+     * @return the execution result
+     * @throws SQLException on execution failure
+     */
+    static <T> T execute(Statement statement, ConnectionSettings connectionSettings, StatementType type,
+                         String sql, ParameterBinding[] parameterBindings, long bytes,
+                         ResourceSupplier<T> execution) throws SQLException {
+        long startTime = System.nanoTime();
+        Object event = DriverEvents.beginStatement();
+        Span span = startSpan(connectionSettings, type, sql);
+        T result = null;
+        SQLException error = null;
+        try {
+            result = execution.get();
+            return result;
+        } catch (SQLException e) {
+            error = e;
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - startTime;
+            DriverMetrics.recordStatement(type, startTime);
+            DriverEvents.endStatement(event, statement, type, sql);
+            if (span != null) {
+                if (error != null) {
+                    span.recordException(error);
+                }
+                span.end();
+            }
+
+            StatementStatistics statementStatistics = connectionSettings != null
+                    ? connectionSettings.getStatementStatistics() : null;
+            if (statementStatistics != null) {
+                StatementStats stats = statementStatistics.record(sql, duration,
+                        StatementStatistics.rowsOf(result), bytes, error);
+                if (result instanceof CockroachResultSet) {
+                    ((CockroachResultSet) result).setRowCounter(stats.getRowCounter());
+                }
+            }
+
+            SlowStatementLog slowStatementLog = connectionSettings != null
+                    ? connectionSettings.getSlowStatementLog() : null;
+            if (slowStatementLog != null && sql != null && slowStatementLog.isSlow(duration)) {
+                slowStatementLog.capture(statement, sql,
+                        parameterBindings != null ? parameterBindings.clone() : null, duration);
+            }
+        }
+    }
+
+    private static Span startSpan(ConnectionSettings connectionSettings, StatementType type, String sql) {
+        Tracer tracer = connectionSettings != null ? connectionSettings.getTracer() : null;
+        if (tracer == null) {
+            return null;
+        }
+        Span span = tracer.startSpan("cockroachdb.statement")
+                .setAttribute("db.system", "cockroachdb")
+                .setAttribute("db.operation", type.name());
+        String fingerprint = SqlFingerprints.fingerprintOf(SqlFingerprints.idOf(sql));
+        if (fingerprint != null) {
+            span.setAttribute("db.statement", fingerprint);
+        }
+        return span;
+    }
+}
@@ -0,0 +1,103 @@
+package io.cockroachdb.jdbc.bulk;
+
+import java.time.Duration;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * A concurrency limiter using additive-increase / multiplicative-decrease (AIMD).
+ * <p>
+ * The limit grows by roughly one permit per limit-sized window of successful operations
+ * completing within the target latency, and is cut by the backoff ratio when an operation
+ * is slower than the target or fails due to overload or contention. The limit starts at
+ * the minimum to avoid swamping the cluster on startup.
+ */
+public class AimdLimiter {
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long targetLatencyNanos;
+
+    private double limit;
+
+    private int inFlight;
+
+    public AimdLimiter(int minLimit, int maxLimit, double backoffRatio, Duration targetLatency) {
+        Assert.isTrue(minLimit > 0, "minLimit must be > 0");
+        Assert.isTrue(maxLimit >= minLimit, "maxLimit must be >= minLimit");
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.limit = minLimit;
+    }
+
+    /**
+     * Acquire a permit, blocking while the number of in-flight operations is at the limit.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Release a permit after a successful operation.
+     *
+     * @param latency the operation latency
+     */
+    public synchronized void onSuccess(Duration latency) {
+        if (latency.toNanos() > targetLatencyNanos) {
+            decrease();
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        release();
+    }
+
+    /**
+     * Release a permit after a failed operation.
+     *
+     * @param overload true if the failure signals overload or contention
+     */
+    public synchronized void onFailure(boolean overload) {
+        if (overload) {
+            decrease();
+        }
+        release();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AimdLimiter{" +
+                "limit=" + limit +
+                ", inFlight=" + inFlight +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                '}';
+    }
+}
@@ -0,0 +1,484 @@
+package io.cockroachdb.jdbc.bulk;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.postgresql.util.PSQLState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.CockroachConnection;
+import io.cockroachdb.jdbc.copy.CopyWriter;
+import io.cockroachdb.jdbc.retry.ExponentialBackoffRetryStrategy;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ExceptionUtils;
+
+/**
+ * An asynchronous bulk writer for high-volume ingest into a single table.
+ * <p>
+ * Producer threads append rows through their own {@link Producer} handle into primitive
+ * column buffers ({@code long[]}, {@code double[]} and UTF-8 byte arenas) without boxing.
+ * Full batches are handed off to background workers that flush them using {@code COPY}
+ * over several connections, each batch committed as a separate transaction.
+ * <p>
+ * The number of pooled batches is bounded, which applies backpressure by blocking producers
+ * when all batches are pending flush. Flush concurrency is throttled by an {@link AimdLimiter}
+ * based on flush latency and contention (40001) or overload (53xxx) errors, which are retried
+ * with exponential backoff.
+ * <p>
+ * Connection errors are only retried when acquiring a connection. A connection lost during
+ * a {@code COPY} leaves the outcome of the batch unknown, since it may have been committed,
+ * so it fails the writer rather than risk writing the batch twice.
+ * <p>
+ * Example usage:
+ * <pre>
+ * try (BulkWriter writer = dataSource.unwrap(CockroachDataSource.class)
+ *         .bulkWriter("product")
+ *         .withColumn("id", ColumnType.LONG)
+ *         .withColumn("name", ColumnType.STRING)
+ *         .build()) {
+ *     try (BulkWriter.Producer producer = writer.newProducer()) {
+ *         producer.appendLong(1).appendString("x").endRow();
+ *     }
+ * }
+ * </pre>
+ */
+public class BulkWriter implements AutoCloseable {
+    public static Builder builder(DataSource dataSource) {
+        return new Builder(dataSource);
+    }
+
+    public static final class Builder {
+        private final DataSource dataSource;
+
+        private String table;
+
+        private final List<String> columnNames = new ArrayList<>();
+
+        private final List<ColumnType> columnTypes = new ArrayList<>();
+
+        private int batchSize = 4096;
+
+        private int workers = 4;
+
+        private int maxPendingBatches;
+
+        private Duration targetFlushLatency = Duration.ofSeconds(1);
+
+        private double backoffRatio = 0.5;
+
+        private int maxAttempts = ExponentialBackoffRetryStrategy.MAX_ATTEMPTS;
+
+        private Builder(DataSource dataSource) {
+            Assert.notNull(dataSource, "dataSource is null");
+            this.dataSource = dataSource;
+        }
+
+        public Builder withTable(String table) {
+            this.table = table;
+            return this;
+        }
+
+        public Builder withColumn(String name, ColumnType type) {
+            Assert.hasText(name, "name is null");
+            Assert.notNull(type, "type is null");
+            this.columnNames.add(name);
+            this.columnTypes.add(type);
+            return this;
+        }
+
+        public Builder withBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder withWorkers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder withMaxPendingBatches(int maxPendingBatches) {
+            this.maxPendingBatches = maxPendingBatches;
+            return this;
+        }
+
+        public Builder withTargetFlushLatency(Duration targetFlushLatency) {
+            this.targetFlushLatency = targetFlushLatency;
+            return this;
+        }
+
+        public Builder withBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public Builder withMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public BulkWriter build() {
+            Assert.hasText(table, "table is null");
+            Assert.isTrue(!columnNames.isEmpty(), "no columns");
+            Assert.isTrue(batchSize > 0, "batchSize must be > 0");
+            Assert.isTrue(workers > 0, "workers must be > 0");
+            if (maxPendingBatches <= 0) {
+                maxPendingBatches = workers * 2;
+            }
+            return new BulkWriter(this);
+        }
+    }
+
+    private static final ColumnBatch POISON_PILL = new ColumnBatch(new ArrayList<>(), 0);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final DataSource dataSource;
+
+    private final String table;
+
+    private final String[] columnNames;
+
+    private final List<ColumnType> columnTypes;
+
+    private final int batchSize;
+
+    private final int maxPendingBatches;
+
+    private final AimdLimiter limiter;
+
+    private final ExponentialBackoffRetryStrategy retryStrategy = new ExponentialBackoffRetryStrategy();
+
+    private final BlockingQueue<ColumnBatch> freeBatches;
+
+    private final BlockingQueue<ColumnBatch> flushQueue;
+
+    private final AtomicInteger allocatedBatches = new AtomicInteger();
+
+    private final AtomicReference<SQLException> failure = new AtomicReference<>();
+
+    private final LongAdder rowsWritten = new LongAdder();
+
+    private final LongAdder batchesRetried = new LongAdder();
+
+    private final ExecutorService workerPool;
+
+    private final int workers;
+
+    private volatile boolean closed;
+
+    protected BulkWriter(Builder builder) {
+        this.dataSource = builder.dataSource;
+        this.table = builder.table;
+        this.columnNames = builder.columnNames.toArray(new String[0]);
+        this.columnTypes = new ArrayList<>(builder.columnTypes);
+        this.batchSize = builder.batchSize;
+        this.maxPendingBatches = builder.maxPendingBatches;
+        this.workers = builder.workers;
+        this.limiter = new AimdLimiter(1, builder.workers, builder.backoffRatio, builder.targetFlushLatency);
+        this.retryStrategy.setMaxAttempts(builder.maxAttempts);
+        this.freeBatches = new LinkedBlockingQueue<>(maxPendingBatches);
+        this.flushQueue = new LinkedBlockingQueue<>();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "bulk-writer-" + table + "-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::runWorker);
+        }
+    }
+
+    /**
+     * Create a new producer handle. Each producer thread must use its own handle
+     * and close it to hand off any partial batch.
+     *
+     * @return a new producer
+     */
+    public Producer newProducer() {
+        checkState();
+        return new Producer();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long getBatchesRetried() {
+        return batchesRetried.sum();
+    }
+
+    public AimdLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Wait for all pending batches to be flushed and stop the workers. Producers must
+     * be closed beforehand.
+     *
+     * @throws SQLException the first flush failure, if any
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < workers; i++) {
+            flushQueue.add(POISON_PILL);
+        }
+        workerPool.shutdown();
+        try {
+            while (!workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.debug("Waiting for [{}] pending batches to flush to [{}]", flushQueue.size(), table);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workerPool.shutdownNow();
+        }
+        SQLException ex = failure.get();
+        if (ex != null) {
+            throw ex;
+        }
+        logger.debug("Closed bulk writer for [{}] with [{}] rows written", table, getRowsWritten());
+    }
+
+    private void checkState() {
+        if (closed) {
+            throw new IllegalStateException("Bulk writer is closed");
+        }
+        SQLException ex = failure.get();
+        if (ex != null) {
+            throw new IllegalStateException("Bulk writer failed", ex);
+        }
+    }
+
+    private ColumnBatch borrowBatch() throws InterruptedException {
+        checkState();
+        ColumnBatch batch = freeBatches.poll();
+        if (batch == null) {
+            if (allocatedBatches.incrementAndGet() <= maxPendingBatches) {
+                return new ColumnBatch(columnTypes, batchSize);
+            }
+            allocatedBatches.decrementAndGet();
+            // Backpressure: wait for a batch to be flushed and returned
+            while ((batch = freeBatches.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                checkState();
+            }
+        }
+        return batch;
+    }
+
+    private void submitBatch(ColumnBatch batch) {
+        flushQueue.add(batch);
+    }
+
+    private void runWorker() {
+        Connection connection = null;
+        try {
+            for (; ; ) {
+                ColumnBatch batch = flushQueue.take();
+                if (batch == POISON_PILL) {
+                    break;
+                }
+                try {
+                    if (failure.get() == null) {
+                        connection = flushBatch(connection, batch);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    SQLException ex = e instanceof SQLException
+                            ? (SQLException) e : new SQLException("Bulk write failed", e);
+                    failure.compareAndSet(null, ex);
+                    logger.warn("Bulk write to [{}] failed:\n{}", table, ExceptionUtils.toNestedString(ex));
+                    closeQuietly(connection);
+                    connection = null;
+                } finally {
+                    batch.clear();
+                    freeBatches.offer(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection flushBatch(Connection connection, ColumnBatch batch)
+            throws SQLException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            limiter.acquire();
+            final long startTime = System.nanoTime();
+            boolean copyStarted = false;
+            try {
+                if (connection == null) {
+                    connection = dataSource.getConnection();
+                }
+                copyStarted = true;
+                try (CopyWriter writer = connection.unwrap(CockroachConnection.class)
+                        .copyIn(table, columnNames)
+                        .setChunkSize(Integer.MAX_VALUE)) {
+                    batch.writeTo(writer);
+                }
+                limiter.onSuccess(Duration.ofNanos(System.nanoTime() - startTime));
+                rowsWritten.add(batch.size());
+                return connection;
+            } catch (SQLException e) {
+                boolean overload = isOverloadError(e);
+                limiter.onFailure(overload);
+
+                if (retryStrategy.isConnectionError(e)) {
+                    closeQuietly(connection);
+                    connection = null;
+                    // Ambiguous result, the batch may have been committed
+                    if (copyStarted) {
+                        throw e;
+                    }
+                } else if (!overload) {
+                    throw e;
+                }
+                if (!retryStrategy.proceedWithRetry(attempt)) {
+                    throw e;
+                }
+
+                Duration backoff = retryStrategy.getBackoffDuration(attempt);
+                batchesRetried.increment();
+                logger.debug("Retrying batch of [{}] rows to [{}] in {} (attempt {}, limit {}): {}",
+                        batch.size(), table, backoff, attempt, limiter.getLimit(), e.getMessage());
+                Thread.sleep(backoff.toMillis());
+            } catch (RuntimeException e) {
+                limiter.onFailure(false);
+                throw e;
+            }
+        }
+    }
+
+    protected boolean isOverloadError(SQLException ex) {
+        String sqlState = ex.getSQLState();
+        return PSQLState.SERIALIZATION_FAILURE.getState().equals(sqlState)
+                // Insufficient resources class
+                || (sqlState != null && sqlState.startsWith("53"));
+    }
+
+    private void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Error closing connection", e);
+            }
+        }
+    }
+
+    /**
+     * A single-threaded row appender feeding pooled column batches to the writer.
+     */
+    public final class Producer implements AutoCloseable {
+        private ColumnBatch batch;
+
+        private int column;
+
+        private Producer() {
+        }
+
+        public Producer appendNull() {
+            batch(null).setNull(column++);
+            return this;
+        }
+
+        public Producer appendLong(long value) {
+            batch(ColumnType.LONG).setLong(column++, value);
+            return this;
+        }
+
+        public Producer appendBoolean(boolean value) {
+            batch(ColumnType.BOOLEAN).setLong(column++, value ? 1 : 0);
+            return this;
+        }
+
+        public Producer appendDouble(double value) {
+            batch(ColumnType.DOUBLE).setDouble(column++, value);
+            return this;
+        }
+
+        public Producer appendString(CharSequence value) {
+            if (value == null) {
+                return appendNull();
+            }
+            batch(ColumnType.STRING).setString(column++, value);
+            return this;
+        }
+
+        /**
+         * Complete the current row, handing off the batch to the workers when full. This
+         * blocks if all batches are pending flush.
+         *
+         * @return this producer
+         */
+        public Producer endRow() {
+            if (batch == null || column != batch.columnCount()) {
+                throw new IllegalStateException("Expected " + columnNames.length + " column values but got "
+                        + column);
+            }
+            batch.endRow();
+            column = 0;
+            if (batch.isFull()) {
+                submitBatch(batch);
+                batch = null;
+            }
+            return this;
+        }
+
+        /**
+         * Hand off the current partial batch to the workers.
+         */
+        public void flush() {
+            if (column != 0) {
+                throw new IllegalStateException("Cannot flush an incomplete row");
+            }
+            if (batch != null && batch.size() > 0) {
+                submitBatch(batch);
+                batch = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        private ColumnBatch batch(ColumnType type) {
+            if (batch == null) {
+                try {
+                    batch = borrowBatch();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for batch", e);
+                }
+            }
+            if (column >= batch.columnCount()) {
+                throw new IllegalStateException("Row already has " + batch.columnCount() + " column values");
+            }
+            if (type != null && batch.columnType(column) != type) {
+                throw new IllegalStateException("Expected " + batch.columnType(column)
+                        + " value for column " + columnNames[column] + " but got " + type);
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.cockroachdb.jdbc.bulk;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import io.cockroachdb.jdbc.copy.CopyWriter;
+
+/**
+ * A fixed capacity batch of rows stored in primitive column buffers. Batches are pooled
+ * and reused by {@link BulkWriter}, including the byte arenas for string columns.
+ * Not thread safe.
+ */
+class ColumnBatch {
+    private final ColumnType[] types;
+
+    private final long[][] longs;
+
+    private final double[][] doubles;
+
+    private final ByteArena[] strings;
+
+    private final boolean[][] nulls;
+
+    private final int capacity;
+
+    private int rows;
+
+    ColumnBatch(List<ColumnType> columnTypes, int capacity) {
+        this.types = columnTypes.toArray(new ColumnType[0]);
+        this.capacity = capacity;
+        this.longs = new long[types.length][];
+        this.doubles = new double[types.length][];
+        this.strings = new ByteArena[types.length];
+        this.nulls = new boolean[types.length][capacity];
+
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case LONG:
+                case BOOLEAN:
+                    longs[i] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles[i] = new double[capacity];
+                    break;
+                case STRING:
+                    strings[i] = new ByteArena(capacity);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown type: " + types[i]);
+            }
+        }
+    }
+
+    int columnCount() {
+        return types.length;
+    }
+
+    ColumnType columnType(int column) {
+        return types[column];
+    }
+
+    int size() {
+        return rows;
+    }
+
+    boolean isFull() {
+        return rows == capacity;
+    }
+
+    void endRow() {
+        rows++;
+    }
+
+    void clear() {
+        rows = 0;
+        for (ByteArena arena : strings) {
+            if (arena != null) {
+                arena.clear();
+            }
+        }
+    }
+
+    void setNull(int column) {
+        nulls[column][rows] = true;
+        if (strings[column] != null) {
+            strings[column].addEmpty();
+        }
+    }
+
+    void setLong(int column, long value) {
+        nulls[column][rows] = false;
+        longs[column][rows] = value;
+    }
+
+    void setDouble(int column, double value) {
+        nulls[column][rows] = false;
+        doubles[column][rows] = value;
+    }
+
+    void setString(int column, CharSequence value) {
+        nulls[column][rows] = false;
+        strings[column].add(value);
+    }
+
+    void writeTo(CopyWriter writer) throws SQLException {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < types.length; col++) {
+                if (nulls[col][row]) {
+                    writer.writeNull();
+                    continue;
+                }
+                switch (types[col]) {
+                    case LONG:
+                        writer.writeLong(longs[col][row]);
+                        break;
+                    case BOOLEAN:
+                        writer.writeBoolean(longs[col][row] != 0);
+                        break;
+                    case DOUBLE:
+                        writer.writeDouble(doubles[col][row]);
+                        break;
+                    case STRING:
+                        ByteArena arena = strings[col];
+                        writer.writeUtf8(arena.bytes, arena.offsets[row], arena.offsets[row + 1] - arena.offsets[row]);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown type: " + types[col]);
+                }
+            }
+            writer.endRow();
+        }
+    }
+
+    /**
+     * Growable byte arena holding UTF-8 encoded values back to back, indexed by row offsets.
+     */
+    static class ByteArena {
+        private byte[] bytes = new byte[1024];
+
+        private final int[] offsets;
+
+        private int count;
+
+        ByteArena(int capacity) {
+            this.offsets = new int[capacity + 1];
+        }
+
+        void clear() {
+            count = 0;
+        }
+
+        void addEmpty() {
+            offsets[count + 1] = offsets[count];
+            count++;
+        }
+
+        void add(CharSequence value) {
+            int pos = offsets[count];
+            final int len = value.length();
+            ensureCapacity(pos + len * 3);
+            for (int i = 0; i < len; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xc0 | (c >> 6));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < len
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[pos++] = (byte) (0xf0 | (cp >> 18));
+                    bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    bytes[pos++] = (byte) (0x80 | (cp & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[pos++] = '?';
+                } else {
+                    bytes[pos++] = (byte) (0xe0 | (c >> 12));
+                    bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            offsets[++count] = pos;
+        }
+
+        private void ensureCapacity(int size) {
+            if (size > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size, bytes.length * 2));
+            }
+        }
+    }
+}
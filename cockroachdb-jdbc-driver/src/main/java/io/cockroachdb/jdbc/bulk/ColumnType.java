@@ -0,0 +1,24 @@
+package io.cockroachdb.jdbc.bulk;
+
+/**
+ * Enum of column buffer types supported by {@link BulkWriter}.
+ */
+public enum ColumnType {
+    /**
+     * Any integer type, buffered in a {@code long[]}.
+     */
+    LONG,
+    /**
+     * Boolean type, buffered in a {@code long[]}.
+     */
+    BOOLEAN,
+    /**
+     * Any floating point type, buffered in a {@code double[]}.
+     */
+    DOUBLE,
+    /**
+     * Any type with a string representation (including DECIMAL, UUID and TIMESTAMP),
+     * buffered as UTF-8 in a byte arena.
+     */
+    STRING
+}
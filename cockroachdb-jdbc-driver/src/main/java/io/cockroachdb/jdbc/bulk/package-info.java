@@ -0,0 +1,4 @@
+/**
+ * This package provides asynchronous bulk writing with column buffers and adaptive throttling.
+ */
+package io.cockroachdb.jdbc.bulk;
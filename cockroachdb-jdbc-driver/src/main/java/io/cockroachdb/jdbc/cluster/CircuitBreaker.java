@@ -0,0 +1,98 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.time.Duration;
+
+/**
+ * Per-node circuit breaker that opens after a number of consecutive connection errors,
+ * causing the node to be skipped for new connections and reconnects.
+ * <p>
+ * An open breaker turns half-open when the open duration has elapsed or when a background
+ * health probe succeeds, which permits trial connections again. A successful connection
+ * closes the breaker while another failure re-opens it immediately.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openDurationNanos;
+
+    private int consecutiveFailures;
+
+    private boolean open;
+
+    private long openedAtNanos;
+
+    private long totalTrips;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    public synchronized State getState() {
+        if (!open) {
+            return State.CLOSED;
+        }
+        return System.nanoTime() - openedAtNanos >= openDurationNanos ? State.HALF_OPEN : State.OPEN;
+    }
+
+    /**
+     * @return true unless the breaker is open
+     */
+    public boolean isCallPermitted() {
+        return getState() != State.OPEN;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return number of times the breaker has opened
+     */
+    public synchronized long getTotalTrips() {
+        return totalTrips;
+    }
+
+    /**
+     * Record a successful connection, closing the breaker.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+    }
+
+    /**
+     * Record a health probe success, turning an open breaker half-open.
+     */
+    public synchronized void recordProbeSuccess() {
+        if (open) {
+            openedAtNanos = System.nanoTime() - openDurationNanos;
+        }
+    }
+
+    /**
+     * Record a connection error, opening the breaker if the threshold is reached or
+     * if the breaker is half-open.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (open || consecutiveFailures >= failureThreshold) {
+            if (!open) {
+                totalTrips++;
+            }
+            open = true;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getState().name();
+    }
+}
@@ -0,0 +1,185 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A CockroachDB node in the cluster topology, with the client-side load statistics
+ * used for balancing connections.
+ * <p>
+ * Nodes are updated in place on topology refresh so that the load statistics survive.
+ */
+public class ClusterNode {
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * Parse a locality string such as {@code region=eu-west-1,zone=eu-west-1a}.
+     *
+     * @param locality the locality string, may be null
+     * @return ordered map of locality tiers, never null
+     */
+    public static Map<String, String> parseLocality(String locality) {
+        Map<String, String> tiers = new LinkedHashMap<>();
+        if (locality != null) {
+            for (String tier : locality.split(",")) {
+                int idx = tier.indexOf('=');
+                if (idx > 0) {
+                    tiers.put(tier.substring(0, idx).trim(), tier.substring(idx + 1).trim());
+                }
+            }
+        }
+        return Collections.unmodifiableMap(tiers);
+    }
+
+    private final int nodeId;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    private final CircuitBreaker circuitBreaker;
+
+    private volatile String host;
+
+    private volatile int port;
+
+    private volatile Map<String, String> locality = Collections.emptyMap();
+
+    private volatile boolean live = true;
+
+    private volatile boolean draining;
+
+    private volatile double latencyNanos;
+
+    public ClusterNode(int nodeId, String host, int port) {
+        this(nodeId, host, port, new CircuitBreaker(3, Duration.ofSeconds(15)));
+    }
+
+    public ClusterNode(int nodeId, String host, int port, CircuitBreaker circuitBreaker) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.port = port;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public Map<String, String> getLocality() {
+        return locality;
+    }
+
+    /**
+     * @return true if the node is live and not draining
+     */
+    public boolean isAvailable() {
+        return live && !draining;
+    }
+
+    /**
+     * @return true if the node is available and its circuit breaker permits new connections
+     */
+    public boolean isHealthy() {
+        return isAvailable() && circuitBreaker.isCallPermitted();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * @return true if the node started draining with this update
+     */
+    synchronized boolean update(String host, int port, Map<String, String> locality, boolean live, boolean draining) {
+        boolean drainStarted = draining && !this.draining;
+        this.host = host;
+        this.port = port;
+        this.locality = locality;
+        this.live = live;
+        this.draining = draining;
+        return drainStarted;
+    }
+
+    /**
+     * Mark the node as draining, for example on an admin shutdown ({@code 57P01}) error from it,
+     * so that it's skipped for new connections until the next topology refresh. Topology listeners
+     * are notified if the node was not already draining.
+     */
+    public void markDraining() {
+        boolean notify;
+        synchronized (this) {
+            notify = !draining;
+            draining = true;
+        }
+        if (notify) {
+            ClusterTopology.fireNodeDraining(this);
+        }
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /**
+     * Signal that a connection to this node is opened.
+     */
+    public void acquire() {
+        activeConnections.incrementAndGet();
+    }
+
+    /**
+     * Signal that a connection to this node is closed.
+     */
+    public void release() {
+        activeConnections.decrementAndGet();
+    }
+
+    /**
+     * @return exponentially weighted moving average of observed latencies in nanos, or 0 if unknown
+     */
+    public double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Record a latency sample, such as the time to open a connection or a health probe round trip.
+     *
+     * @param nanos the latency in nanos
+     */
+    public synchronized void recordLatency(long nanos) {
+        double current = latencyNanos;
+        latencyNanos = current == 0 ? nanos : current + EWMA_ALPHA * (nanos - current);
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterNode{" +
+                "nodeId=" + nodeId +
+                ", address=" + host + ":" + port +
+                ", locality=" + locality +
+                ", live=" + live +
+                ", draining=" + draining +
+                ", circuitBreaker=" + circuitBreaker +
+                ", activeConnections=" + activeConnections +
+                ", latencyMillis=" + String.format("%.2f", latencyNanos / 1_000_000.0) +
+                '}';
+    }
+}
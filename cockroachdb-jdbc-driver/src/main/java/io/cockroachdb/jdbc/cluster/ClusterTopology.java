@@ -0,0 +1,445 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.Pair;
+
+/**
+ * Live view of the cluster nodes discovered through CockroachDB internal tables, used for
+ * spreading new connections across nodes without an external load balancer.
+ * <p>
+ * The topology is read on first connect through the seed hosts of the JDBC URL and then
+ * refreshed periodically in the background, so that joining nodes start receiving connections
+ * and nodes that leave or drain stop receiving them. One topology instance is shared by all
+ * connections with the same seed URL and user.
+ * <p>
+ * Each node has a circuit breaker that opens on repeated connection errors, observed either
+ * when connecting or by the background health prober, so that new connections and retry
+ * reconnects skip unhealthy nodes rather than piling up behind connect timeouts.
+ */
+public class ClusterTopology {
+    static final String GOSSIP_NODES_QUERY =
+            "SELECT n.node_id, n.sql_address, n.locality, n.is_live, COALESCE(l.draining, false) "
+                    + "FROM crdb_internal.gossip_nodes n "
+                    + "LEFT JOIN crdb_internal.gossip_liveness l ON l.node_id = n.node_id";
+
+    static final String KV_NODE_STATUS_QUERY =
+            "SELECT node_id, address, locality::STRING, true, false FROM crdb_internal.kv_node_status";
+
+    private static final ConcurrentMap<String, ClusterTopology> INSTANCES = new ConcurrentHashMap<>();
+
+    private static final List<TopologyListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static class SchedulerHolder {
+        static final ScheduledExecutorService INSTANCE;
+
+        static {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, r -> {
+                Thread thread = new Thread(r, "cockroachdb-topology");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            INSTANCE = executor;
+        }
+    }
+
+    /**
+     * Get or create the topology for a seed URL and user.
+     *
+     * @param delegateUrl the pgjdbc seed URL
+     * @param info the connection properties including credentials
+     * @param topologySettings refresh and health probe settings
+     * @return the shared topology instance
+     */
+    public static ClusterTopology getInstance(String delegateUrl, Properties info,
+                                              TopologySettings topologySettings) {
+        String key = stripQuery(delegateUrl) + "|" + info.getProperty("user", "");
+        return INSTANCES.computeIfAbsent(key, k -> {
+            ClusterTopology topology = new ClusterTopology(delegateUrl, info, topologySettings);
+            topology.scheduleTasks();
+            return topology;
+        });
+    }
+
+    /**
+     * Add a listener for topology changes of all cluster topologies.
+     *
+     * @param listener the listener
+     */
+    public static void addListener(TopologyListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(TopologyListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    static void fireNodeDraining(ClusterNode node) {
+        for (TopologyListener listener : LISTENERS) {
+            try {
+                listener.onNodeDraining(node);
+            } catch (RuntimeException e) {
+                LoggerFactory.getLogger(ClusterTopology.class).warn("Topology listener failed", e);
+            }
+        }
+    }
+
+    static String stripQuery(String url) {
+        int idx = url.indexOf('?');
+        return idx >= 0 ? url.substring(0, idx) : url;
+    }
+
+    /**
+     * Replace the host list in a pgjdbc URL with a single host and port.
+     *
+     * @param delegateUrl the pgjdbc URL
+     * @param host the host
+     * @param port the port
+     * @return the rewritten URL
+     */
+    public static String withHost(String delegateUrl, String host, int port) {
+        final String prefix = "jdbc:postgresql:";
+        Assert.isTrue(delegateUrl.startsWith(prefix), "Not a pgjdbc URL: " + delegateUrl);
+
+        String rest = delegateUrl.substring(prefix.length());
+        String authority = "//" + host + ":" + port;
+        if (rest.startsWith("//")) {
+            int end = rest.length();
+            int slash = rest.indexOf('/', 2);
+            int query = rest.indexOf('?', 2);
+            if (slash >= 0) {
+                end = slash;
+            } else if (query >= 0) {
+                end = query;
+            }
+            return prefix + authority + rest.substring(end);
+        }
+        return prefix + authority + "/" + rest;
+    }
+
+    /**
+     * @param ex the exception
+     * @return true if the exception indicates that a node is unreachable or not accepting connections
+     */
+    public static boolean isNodeUnavailable(SQLException ex) {
+        String sqlState = ex.getSQLState();
+        return sqlState == null
+                || sqlState.startsWith("08")
+                || "57P01".equals(sqlState)
+                || "57P02".equals(sqlState)
+                || "57P03".equals(sqlState);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String seedUrl;
+
+    private final Properties info;
+
+    private final TopologySettings topologySettings;
+
+    private final ConcurrentMap<Integer, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+    private volatile List<ClusterNode> availableNodes = Collections.emptyList();
+
+    private volatile long lastRefreshNanos;
+
+    public ClusterTopology(String seedUrl, Properties info) {
+        this(seedUrl, info, new TopologySettings());
+    }
+
+    public ClusterTopology(String seedUrl, Properties info, TopologySettings topologySettings) {
+        this.seedUrl = seedUrl;
+        this.info = info;
+        this.topologySettings = topologySettings;
+    }
+
+    private void scheduleTasks() {
+        long refreshPeriod = topologySettings.getRefreshInterval().toMillis();
+        if (refreshPeriod > 0) {
+            SchedulerHolder.INSTANCE.scheduleWithFixedDelay(() -> {
+                try {
+                    refresh();
+                } catch (SQLException | RuntimeException e) {
+                    logger.warn("Topology refresh failed for [{}]: {}", seedUrl, e.toString());
+                }
+            }, refreshPeriod, refreshPeriod, TimeUnit.MILLISECONDS);
+        }
+
+        long probePeriod = topologySettings.getHealthProbeInterval().toMillis();
+        if (probePeriod > 0) {
+            SchedulerHolder.INSTANCE.scheduleWithFixedDelay(() -> {
+                try {
+                    probe();
+                } catch (RuntimeException e) {
+                    logger.warn("Health probe failed for [{}]: {}", seedUrl, e.toString());
+                }
+            }, probePeriod, probePeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public TopologySettings getTopologySettings() {
+        return topologySettings;
+    }
+
+    public String getSeedUrl() {
+        return seedUrl;
+    }
+
+    /**
+     * @return all known nodes
+     */
+    public List<ClusterNode> getNodes() {
+        return new ArrayList<>(nodes.values());
+    }
+
+    /**
+     * @return nodes that are live and not draining
+     */
+    public List<ClusterNode> getAvailableNodes() {
+        return availableNodes;
+    }
+
+    public ClusterNode getNode(int nodeId) {
+        return nodes.get(nodeId);
+    }
+
+    /**
+     * @return time of last successful refresh in nanos (monotonic), or 0 if never refreshed
+     */
+    public long getLastRefreshNanos() {
+        return lastRefreshNanos;
+    }
+
+    /**
+     * Refresh the topology over a short-lived connection to an available node or the seed hosts.
+     *
+     * @throws SQLException if no node could be reached or the topology could not be read
+     */
+    public void refresh() throws SQLException {
+        try (Connection connection = openConnection()) {
+            refresh(connection);
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        for (ClusterNode node : availableNodes) {
+            if (!node.isHealthy()) {
+                continue;
+            }
+            try {
+                return DriverManager.getConnection(withHost(seedUrl, node.getHost(), node.getPort()), info);
+            } catch (SQLException e) {
+                logger.debug("Unable to connect to node [{}] for topology refresh: {}", node, e.toString());
+            }
+        }
+        return DriverManager.getConnection(seedUrl, info);
+    }
+
+    /**
+     * Refresh the topology using the given connection.
+     *
+     * @param connection the connection to query
+     * @throws SQLException if the topology could not be read
+     */
+    public void refresh(Connection connection) throws SQLException {
+        Set<Integer> seen = new HashSet<>();
+        List<ClusterNode> drainStarted = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet;
+            try {
+                resultSet = statement.executeQuery(GOSSIP_NODES_QUERY);
+            } catch (SQLException e) {
+                logger.debug("Falling back to kv_node_status for topology: {}", e.toString());
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+                resultSet = statement.executeQuery(KV_NODE_STATUS_QUERY);
+            }
+
+            try (ResultSet rs = resultSet) {
+                while (rs.next()) {
+                    int nodeId = rs.getInt(1);
+                    String address = rs.getString(2);
+                    Map<String, String> locality = ClusterNode.parseLocality(normalizeLocality(rs.getString(3)));
+                    boolean live = rs.getBoolean(4);
+                    boolean draining = rs.getBoolean(5);
+
+                    int idx = address != null ? address.lastIndexOf(':') : -1;
+                    if (idx <= 0) {
+                        logger.debug("Skipping node [{}] without SQL address: {}", nodeId, address);
+                        continue;
+                    }
+                    String host = address.substring(0, idx);
+                    int port = Integer.parseInt(address.substring(idx + 1));
+
+                    ClusterNode node = nodes.computeIfAbsent(nodeId, id -> new ClusterNode(id, host, port,
+                            topologySettings.createCircuitBreaker()));
+                    if (node.update(host, port, locality, live, draining)) {
+                        drainStarted.add(node);
+                    }
+                    seen.add(nodeId);
+                }
+            }
+        }
+
+        if (seen.isEmpty()) {
+            logger.warn("No nodes found in topology for [{}] - keeping previous topology", seedUrl);
+            return;
+        }
+
+        nodes.keySet().retainAll(seen);
+        updateAvailableNodes();
+        lastRefreshNanos = System.nanoTime();
+
+        for (ClusterNode node : drainStarted) {
+            logger.info("Node [{}] is draining", node);
+            fireNodeDraining(node);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Refreshed topology for [{}]: {}", seedUrl, nodes.values());
+        }
+    }
+
+    private static String normalizeLocality(String locality) {
+        // kv_node_status has localities in JSON, like {"tiers": [{"key": "region", "value": "eu"}]}
+        if (locality == null || !locality.trim().startsWith("{")) {
+            return locality;
+        }
+        StringBuilder sb = new StringBuilder();
+        String[] parts = locality.replaceAll("[{}\\[\\]\"\\s]", "").split(",");
+        for (int i = 0; i + 1 < parts.length; i += 2) {
+            String key = parts[i].substring(parts[i].indexOf("key:") + 4);
+            String value = parts[i + 1].substring(parts[i + 1].indexOf("value:") + 6);
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(key).append('=').append(value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Probe all live nodes by opening a TCP connection to the SQL address. A successful probe
+     * records the round trip latency and turns an open breaker half-open, while a failed probe
+     * counts as a connection error.
+     */
+    public void probe() {
+        for (ClusterNode node : getNodes()) {
+            if (node.isLive()) {
+                probe(node);
+            }
+        }
+    }
+
+    void probe(ClusterNode node) {
+        long startTime = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(node.getHost(), node.getPort()),
+                    (int) topologySettings.getHealthProbeTimeout().toMillis());
+            node.recordLatency(System.nanoTime() - startTime);
+            node.getCircuitBreaker().recordProbeSuccess();
+        } catch (IOException e) {
+            node.getCircuitBreaker().recordFailure();
+            logger.debug("Health probe failed for node [{}]: {}", node, e.toString());
+        }
+    }
+
+    void updateAvailableNodes() {
+        List<ClusterNode> available = new ArrayList<>();
+        for (ClusterNode node : nodes.values()) {
+            if (node.isAvailable()) {
+                available.add(node);
+            }
+        }
+        this.availableNodes = Collections.unmodifiableList(available);
+    }
+
+    /**
+     * Open a connection to a healthy node selected by the load balancer, falling back to the next
+     * candidate if a node is unreachable and finally to the seed URL.
+     *
+     * @param loadBalancer the load balancer for selecting among available nodes
+     * @return the connection and the node it's connected to, or null node if connected through the seeds
+     * @throws SQLException if no connection could be opened
+     */
+    public Pair<Connection, ClusterNode> connect(LoadBalancer loadBalancer) throws SQLException {
+        if (lastRefreshNanos == 0) {
+            synchronized (this) {
+                if (lastRefreshNanos == 0) {
+                    try {
+                        refresh();
+                    } catch (SQLException e) {
+                        logger.warn("Topology discovery failed for [{}] - using seed hosts: {}",
+                                seedUrl, e.toString());
+                    }
+                }
+            }
+        }
+
+        List<ClusterNode> candidates = new ArrayList<>();
+        for (ClusterNode node : availableNodes) {
+            if (node.isHealthy()) {
+                candidates.add(node);
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            ClusterNode node = loadBalancer.select(candidates);
+            String url = withHost(seedUrl, node.getHost(), node.getPort());
+            long startTime = System.nanoTime();
+            try {
+                Connection connection = DriverManager.getConnection(url, info);
+                node.recordLatency(System.nanoTime() - startTime);
+                node.getCircuitBreaker().recordSuccess();
+                node.acquire();
+                logger.debug("Opened connection to node [{}]", node);
+                return Pair.of(connection, node);
+            } catch (SQLException e) {
+                if (!isNodeUnavailable(e)) {
+                    throw e;
+                }
+                node.getCircuitBreaker().recordFailure();
+                logger.debug("Unable to connect to node [{}] - trying next: {}", node, e.toString());
+                candidates.remove(node);
+            }
+        }
+
+        return Pair.of(DriverManager.getConnection(seedUrl, info), null);
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterTopology{" +
+                "seedUrl='" + seedUrl + '\'' +
+                ", nodes=" + nodes.values() +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects a node using the power of two random choices, picking the one with the lowest
+ * cost given by the EWMA latency weighted by the number of open connections. Nodes without
+ * latency samples are preferred so that they get probed.
+ */
+public class LatencyAwareLoadBalancer implements LoadBalancer {
+    @Override
+    public ClusterNode select(List<ClusterNode> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i) {
+            j++;
+        }
+        ClusterNode a = candidates.get(i);
+        ClusterNode b = candidates.get(j);
+        return cost(a) <= cost(b) ? a : b;
+    }
+
+    private static double cost(ClusterNode node) {
+        return node.getLatencyNanos() * (node.getActiveConnections() + 1);
+    }
+}
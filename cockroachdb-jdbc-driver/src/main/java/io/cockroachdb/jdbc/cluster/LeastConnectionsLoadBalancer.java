@@ -0,0 +1,28 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects the node with the least number of open connections from this client,
+ * breaking ties randomly to avoid herding on a single node.
+ */
+public class LeastConnectionsLoadBalancer implements LoadBalancer {
+    @Override
+    public ClusterNode select(List<ClusterNode> candidates) {
+        ClusterNode selected = null;
+        int min = Integer.MAX_VALUE;
+        int ties = 0;
+        for (ClusterNode node : candidates) {
+            int active = node.getActiveConnections();
+            if (active < min) {
+                min = active;
+                selected = node;
+                ties = 1;
+            } else if (active == min && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                selected = node;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,17 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.util.List;
+
+/**
+ * Strategy interface for selecting the node to open a new connection to.
+ */
+@FunctionalInterface
+public interface LoadBalancer {
+    /**
+     * Select a node among candidates.
+     *
+     * @param candidates the available nodes, never empty
+     * @return the selected node
+     */
+    ClusterNode select(List<ClusterNode> candidates);
+}
@@ -0,0 +1,66 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * Load balancer decorator that narrows the candidates to the nodes closest to the client
+ * locality before delegating the final selection.
+ * <p>
+ * Locality tiers are matched in order, so with a client locality of {@code region=eu-west-1,zone=a}
+ * nodes in the same zone are preferred over nodes in the same region, which in turn are preferred
+ * over remote nodes. Since the topology only offers available nodes and unreachable nodes are
+ * removed from the candidates on connect, remote nodes are used only when no local nodes are healthy.
+ */
+public class LocalityAwareLoadBalancer implements LoadBalancer {
+    private final Map<String, String> locality;
+
+    private final LoadBalancer delegate;
+
+    public LocalityAwareLoadBalancer(Map<String, String> locality, LoadBalancer delegate) {
+        Assert.notNull(locality, "locality is null");
+        Assert.notNull(delegate, "delegate is null");
+        this.locality = locality;
+        this.delegate = delegate;
+    }
+
+    public Map<String, String> getLocality() {
+        return locality;
+    }
+
+    /**
+     * @param node the node
+     * @return the number of leading locality tiers the node has in common with the client
+     */
+    public int matchingTiers(ClusterNode node) {
+        Map<String, String> nodeLocality = node.getLocality();
+        int tiers = 0;
+        for (Map.Entry<String, String> tier : locality.entrySet()) {
+            if (!tier.getValue().equals(nodeLocality.get(tier.getKey()))) {
+                break;
+            }
+            tiers++;
+        }
+        return tiers;
+    }
+
+    @Override
+    public ClusterNode select(List<ClusterNode> candidates) {
+        List<ClusterNode> closest = new ArrayList<>();
+        int max = -1;
+        for (ClusterNode node : candidates) {
+            int tiers = matchingTiers(node);
+            if (tiers > max) {
+                max = tiers;
+                closest.clear();
+            }
+            if (tiers == max) {
+                closest.add(node);
+            }
+        }
+        return delegate.select(closest);
+    }
+}
@@ -0,0 +1,16 @@
+package io.cockroachdb.jdbc.cluster;
+
+/**
+ * Callback interface for cluster topology changes, such as a node starting to drain
+ * during a rolling restart.
+ */
+@FunctionalInterface
+public interface TopologyListener {
+    /**
+     * Invoked when a node is first seen draining, either on topology refresh or on
+     * receiving an admin shutdown error from the node.
+     *
+     * @param node the draining node
+     */
+    void onNodeDraining(ClusterNode node);
+}
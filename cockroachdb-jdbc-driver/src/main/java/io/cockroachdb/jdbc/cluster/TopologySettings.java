@@ -0,0 +1,83 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.time.Duration;
+
+/**
+ * Value object for cluster topology discovery and node health settings.
+ */
+@SuppressWarnings("UnusedReturnValue")
+public class TopologySettings {
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    private Duration healthProbeInterval = Duration.ofSeconds(5);
+
+    private Duration healthProbeTimeout = Duration.ofSeconds(2);
+
+    private int failureThreshold = 3;
+
+    private Duration openDuration = Duration.ofSeconds(15);
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * @param refreshInterval interval between topology refreshes, or zero to disable
+     */
+    public TopologySettings setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        return this;
+    }
+
+    public Duration getHealthProbeInterval() {
+        return healthProbeInterval;
+    }
+
+    /**
+     * @param healthProbeInterval interval between node health probes, or zero to disable
+     */
+    public TopologySettings setHealthProbeInterval(Duration healthProbeInterval) {
+        this.healthProbeInterval = healthProbeInterval;
+        return this;
+    }
+
+    public Duration getHealthProbeTimeout() {
+        return healthProbeTimeout;
+    }
+
+    /**
+     * @param healthProbeTimeout max time to wait for a node to accept a probe connection
+     */
+    public TopologySettings setHealthProbeTimeout(Duration healthProbeTimeout) {
+        this.healthProbeTimeout = healthProbeTimeout;
+        return this;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * @param failureThreshold number of consecutive connection errors before a node breaker opens
+     */
+    public TopologySettings setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * @param openDuration time a node breaker stays open before permitting trial connections
+     */
+    public TopologySettings setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+        return this;
+    }
+
+    public CircuitBreaker createCircuitBreaker() {
+        return new CircuitBreaker(failureThreshold, openDuration);
+    }
+}
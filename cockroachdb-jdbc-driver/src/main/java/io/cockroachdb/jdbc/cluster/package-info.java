@@ -0,0 +1,5 @@
+/**
+ * This package provides cluster topology discovery and client-side load balancing
+ * of connections across CockroachDB nodes.
+ */
+package io.cockroachdb.jdbc.cluster;
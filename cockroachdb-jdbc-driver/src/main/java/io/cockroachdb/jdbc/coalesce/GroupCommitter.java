@@ -0,0 +1,334 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+
+/**
+ * Coalesces concurrent single-row auto-commit writes with the same statement template
+ * into one multi-row statement, trading a small added latency for fewer consensus rounds.
+ * <p>
+ * Eligible statements are single-row {@code INSERT} or {@code UPSERT} with only placeholders
+ * in the {@code VALUES} clause and no {@code ON CONFLICT} or {@code RETURNING} clause, so
+ * that each row always affects exactly one row. The first thread to arrive becomes the
+ * group leader and waits for up to the max delay, or until the group holds max rows, before
+ * executing the group on its own connection. Each caller gets its own update count back.
+ * If the multi-row statement fails with a definite statement error, like a constraint
+ * violation (23xxx) or a data exception (22xxx), the rows are executed one by one so that
+ * each caller gets its own outcome. Any other error, like a connection error (08xxx) or an
+ * ambiguous result (40003), fails the whole group since the rows may have been written.
+ * <p>
+ * Thread safe and intended to be shared by all connections of a datasource.
+ */
+public class GroupCommitter {
+    private static final Pattern INSERT_PATTERN = Pattern.compile(
+            "^\\s*((?:insert|upsert)\\s+into\\s+[^\\s(]+\\s*\\([^)]*\\)\\s*values)\\s*"
+                    + "(\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))\\s*;?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final int MAX_TEMPLATES = 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final long maxDelayNanos;
+
+    private final int maxRows;
+
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder totalGroups = new LongAdder();
+
+    private final LongAdder totalRows = new LongAdder();
+
+    public GroupCommitter(Duration maxDelay, int maxRows) {
+        Assert.isTrue(!maxDelay.isNegative(), "maxDelay must be >= 0");
+        Assert.isTrue(maxRows > 0, "maxRows must be > 0");
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @param sql the SQL statement
+     * @return true if the statement qualifies for group commit
+     */
+    public boolean isEligible(String sql) {
+        return sql != null && template(sql) != null;
+    }
+
+    /**
+     * @param sql an eligible SQL statement
+     * @return number of parameter placeholders in the statement
+     */
+    public int getParameterCount(String sql) {
+        return template(sql).parameterCount;
+    }
+
+    public long getTotalGroups() {
+        return totalGroups.sum();
+    }
+
+    public long getTotalRows() {
+        return totalRows.sum();
+    }
+
+    /**
+     * Execute a single-row write as part of a group, blocking until the group is executed.
+     *
+     * @param connection the caller's connection in auto-commit mode, used if the caller becomes group leader
+     * @param sql an eligible SQL statement
+     * @param parameters the bound parameters of the caller
+     * @return the update count of the caller's row
+     * @throws SQLException if the caller's row failed
+     */
+    public int executeUpdate(Connection connection, String sql, ParameterBinding[] parameters)
+            throws SQLException {
+        final Template template = template(sql);
+        Assert.notNull(template, "Statement not eligible for group commit: " + sql);
+
+        final Group group;
+        final int slot;
+        boolean leader = false;
+
+        template.lock.lock();
+        try {
+            if (template.current == null) {
+                template.current = new Group(maxRows);
+                leader = true;
+            }
+            group = template.current;
+            slot = group.add(parameters);
+            if (group.size == maxRows) {
+                template.seal(group);
+            }
+            if (leader) {
+                long remaining = maxDelayNanos;
+                try {
+                    while (!group.sealed && remaining > 0) {
+                        remaining = template.sealed.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (!group.sealed) {
+                    template.seal(group);
+                }
+            }
+        } finally {
+            template.lock.unlock();
+        }
+
+        if (leader) {
+            execute(connection, template, group);
+        }
+
+        try {
+            return group.results[slot].get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Group commit failed", e.getCause());
+        }
+    }
+
+    private void execute(Connection connection, Template template, Group group) {
+        final int n = group.size;
+
+        totalGroups.increment();
+        totalRows.add(n);
+
+        try {
+            if (n > 1) {
+                try (PreparedStatement ps = connection.prepareStatement(template.toSQL(n))) {
+                    int index = 1;
+                    for (int row = 0; row < n; row++) {
+                        for (ParameterBinding parameter : group.rows[row]) {
+                            parameter.bind(ps, index++);
+                        }
+                    }
+                    int count = ps.executeUpdate();
+                    int rowCount = count == n ? 1 : Statement.SUCCESS_NO_INFO;
+                    for (int row = 0; row < n; row++) {
+                        group.results[row].complete(rowCount);
+                    }
+                    return;
+                } catch (SQLException e) {
+                    if (!isStatementError(e)) {
+                        throw e;
+                    }
+                    logger.debug("Group of [{}] rows failed - executing rows individually: {}",
+                            n, e.getMessage());
+                }
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(template.toSQL(1))) {
+                for (int row = 0; row < n; row++) {
+                    try {
+                        int index = 1;
+                        for (ParameterBinding parameter : group.rows[row]) {
+                            parameter.bind(ps, index++);
+                        }
+                        group.results[row].complete(ps.executeUpdate());
+                    } catch (SQLException e) {
+                        group.results[row].completeExceptionally(e);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (int row = 0; row < n; row++) {
+                group.results[row].completeExceptionally(e);
+            }
+        } catch (Error e) {
+            for (int row = 0; row < n; row++) {
+                group.results[row].completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    protected boolean isStatementError(SQLException ex) {
+        String sqlState = ex.getSQLState();
+        // Integrity constraint violation or data exception class
+        return sqlState != null && (sqlState.startsWith("23") || sqlState.startsWith("22"));
+    }
+
+    private Template template(String sql) {
+        Template template = templates.get(sql);
+        if (template != null) {
+            return template;
+        }
+        // Only eligible statements are cached, so that statements with literals don't fill up the map
+        if (!isCandidate(sql)) {
+            return null;
+        }
+        Matcher matcher = INSERT_PATTERN.matcher(sql);
+        if (!matcher.matches()) {
+            return null;
+        }
+        if (templates.size() >= MAX_TEMPLATES) {
+            // Evict any template, callers already holding it still complete their group
+            Iterator<String> it = templates.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return templates.computeIfAbsent(sql, s -> new Template(matcher.group(1), matcher.group(2), maxRows));
+    }
+
+    private static boolean isCandidate(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return (sql.regionMatches(true, i, "insert", 0, 6) || sql.regionMatches(true, i, "upsert", 0, 6))
+                && sql.indexOf('?') > i;
+    }
+
+    int getTemplateCount() {
+        return templates.size();
+    }
+
+    private static class Template {
+        final String prefix;
+
+        final String rowPlaceholder;
+
+        final int parameterCount;
+
+        final AtomicReferenceArray<String> statements;
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final Condition sealed = lock.newCondition();
+
+        Group current;
+
+        Template(String prefix, String rowPlaceholder, int maxRows) {
+            this.prefix = prefix;
+            this.rowPlaceholder = rowPlaceholder;
+            this.parameterCount = (int) rowPlaceholder.chars().filter(c -> c == '?').count();
+            this.statements = new AtomicReferenceArray<>(maxRows + 1);
+        }
+
+        void seal(Group group) {
+            group.sealed = true;
+            if (current == group) {
+                current = null;
+            }
+            sealed.signalAll();
+        }
+
+        String toSQL(int rows) {
+            String sql = statements.get(rows);
+            if (sql == null) {
+                StringBuilder sb = new StringBuilder(prefix.length() + rows * (rowPlaceholder.length() + 1));
+                sb.append(prefix).append(' ');
+                for (int i = 0; i < rows; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(rowPlaceholder);
+                }
+                sql = sb.toString();
+                statements.set(rows, sql);
+            }
+            return sql;
+        }
+    }
+
+    private static class Group {
+        final ParameterBinding[][] rows;
+
+        final CompletableFuture<Integer>[] results;
+
+        int size;
+
+        boolean sealed;
+
+        @SuppressWarnings("unchecked")
+        Group(int maxRows) {
+            this.rows = new ParameterBinding[maxRows][];
+            this.results = new CompletableFuture[maxRows];
+        }
+
+        int add(ParameterBinding[] parameters) {
+            rows[size] = parameters;
+            results[size] = new CompletableFuture<>();
+            return size++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCommitter{" +
+                "maxDelay=" + TimeUnit.NANOSECONDS.toMicros(maxDelayNanos) + "us" +
+                ", maxRows=" + maxRows +
+                ", totalGroups=" + totalGroups +
+                ", totalRows=" + totalRows +
+                '}';
+    }
+}
@@ -0,0 +1,362 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable, fully read query result that can be handed out as any number of
+ * independent forward-only result sets, each with its own cursor over the shared rows.
+ * <p>
+ * Values are captured with {@code getObject} together with their {@code getString}
+ * representation. The typed getters convert from the captured object, so that for example
+ * {@code getLong} works on any numeric column.
+ */
+public final class MaterializedResult {
+    /**
+     * Read all remaining rows of a result set, without closing it.
+     *
+     * @param resultSet the result set to read
+     * @return the materialized result
+     * @throws SQLException on read errors
+     */
+    public static MaterializedResult of(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = new Column(
+                    metaData.getColumnLabel(i + 1),
+                    metaData.getColumnName(i + 1),
+                    metaData.getColumnType(i + 1),
+                    metaData.getColumnTypeName(i + 1),
+                    metaData.getColumnClassName(i + 1));
+        }
+
+        List<Object[]> values = new ArrayList<>();
+        List<String[]> strings = new ArrayList<>();
+        while (resultSet.next()) {
+            Object[] rowValues = new Object[columnCount];
+            String[] rowStrings = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                Object value = resultSet.getObject(i + 1);
+                rowValues[i] = value;
+                rowStrings[i] = value instanceof String ? (String) value : resultSet.getString(i + 1);
+            }
+            values.add(rowValues);
+            strings.add(rowStrings);
+        }
+        return new MaterializedResult(columns, values, strings);
+    }
+
+    private static final class Column {
+        final String label;
+
+        final String name;
+
+        final int type;
+
+        final String typeName;
+
+        final String className;
+
+        Column(String label, String name, int type, String typeName, String className) {
+            this.label = label;
+            this.name = name;
+            this.type = type;
+            this.typeName = typeName;
+            this.className = className;
+        }
+    }
+
+    private final Column[] columns;
+
+    private final List<Object[]> values;
+
+    private final List<String[]> strings;
+
+    private final ResultSetMetaData metaData;
+
+    private MaterializedResult(Column[] columns, List<Object[]> values, List<String[]> strings) {
+        this.columns = columns;
+        this.values = Collections.unmodifiableList(values);
+        this.strings = Collections.unmodifiableList(strings);
+        this.metaData = createMetaData();
+    }
+
+    public int getRowCount() {
+        return values.size();
+    }
+
+    /**
+     * Create a new forward-only, read-only result set over the rows.
+     *
+     * @param statement the statement returned by {@code getStatement}, may be null
+     * @return a new result set positioned before the first row
+     */
+    public ResultSet newResultSet(Statement statement) {
+        Cursor cursor = new Cursor(statement);
+        return (ResultSet) Proxy.newProxyInstance(
+                MaterializedResult.class.getClassLoader(),
+                new Class[] {ResultSet.class},
+                (proxy, method, args) -> cursor.invoke(proxy, method.getName(), args));
+    }
+
+    private int columnIndex(Object column) throws SQLException {
+        if (column instanceof Integer) {
+            int index = (Integer) column;
+            if (index < 1 || index > columns.length) {
+                throw new SQLException("Column index out of range: " + index, "22023");
+            }
+            return index - 1;
+        }
+        String label = (String) column;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].label.equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        throw new SQLException("Column not found: " + label, "42703");
+    }
+
+    private ResultSetMetaData createMetaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+                MaterializedResult.class.getClassLoader(),
+                new Class[] {ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns.length;
+                        case "getColumnLabel":
+                            return columns[columnIndex(args[0])].label;
+                        case "getColumnName":
+                            return columns[columnIndex(args[0])].name;
+                        case "getColumnType":
+                            return columns[columnIndex(args[0])].type;
+                        case "getColumnTypeName":
+                            return columns[columnIndex(args[0])].typeName;
+                        case "getColumnClassName":
+                            return columns[columnIndex(args[0])].className;
+                        case "isReadOnly":
+                            return true;
+                        case "isWrapperFor":
+                            return ((Class<?>) args[0]).isInstance(proxy);
+                        case "unwrap":
+                            return ((Class<?>) args[0]).cast(proxy);
+                        case "toString":
+                            return "MaterializedResultSetMetaData";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new SQLFeatureNotSupportedException(method.getName());
+                    }
+                });
+    }
+
+    private final class Cursor {
+        private final Statement statement;
+
+        private int row = -1;
+
+        private boolean wasNull;
+
+        private boolean closed;
+
+        Cursor(Statement statement) {
+            this.statement = statement;
+        }
+
+        Object invoke(Object proxy, String methodName, Object[] args) throws SQLException {
+            switch (methodName) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "toString":
+                    return "MaterializedResultSet{rows=" + values.size() + ", row=" + (row + 1) + "}";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    return ((Class<?>) args[0]).cast(proxy);
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("ResultSet is closed", "55000");
+            }
+
+            switch (methodName) {
+                case "next":
+                    if (row < values.size()) {
+                        row++;
+                    }
+                    return row < values.size();
+                case "getRow":
+                    return row >= 0 && row < values.size() ? row + 1 : 0;
+                case "isBeforeFirst":
+                    return row < 0 && !values.isEmpty();
+                case "isAfterLast":
+                    return row >= values.size() && !values.isEmpty();
+                case "isFirst":
+                    return row == 0 && !values.isEmpty();
+                case "isLast":
+                    return row == values.size() - 1;
+                case "wasNull":
+                    return wasNull;
+                case "findColumn":
+                    return columnIndex(args[0]) + 1;
+                case "getMetaData":
+                    return metaData;
+                case "getStatement":
+                    return statement;
+                case "getType":
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                case "getConcurrency":
+                    return ResultSet.CONCUR_READ_ONLY;
+                case "getHoldability":
+                    return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+                case "getFetchDirection":
+                    return ResultSet.FETCH_FORWARD;
+                case "getFetchSize":
+                    return 0;
+                case "setFetchSize":
+                    return null;
+                case "getWarnings":
+                    return null;
+                case "clearWarnings":
+                    return null;
+                default:
+                    break;
+            }
+
+            if (methodName.startsWith("get") && args != null && args.length >= 1
+                    && (args[0] instanceof Integer || args[0] instanceof String)) {
+                if (row < 0 || row >= values.size()) {
+                    throw new SQLException("ResultSet not positioned on a row", "24000");
+                }
+                int column = columnIndex(args[0]);
+                Object value = values.get(row)[column];
+                wasNull = value == null;
+                if (methodName.equals("getObject") && args.length == 2 && args[1] instanceof Class) {
+                    return convert(value, strings.get(row)[column], (Class<?>) args[1]);
+                }
+                return get(methodName, value, strings.get(row)[column]);
+            }
+
+            throw new SQLFeatureNotSupportedException(methodName);
+        }
+
+        private Object get(String methodName, Object value, String string) throws SQLException {
+            switch (methodName) {
+                case "getObject":
+                    return value;
+                case "getString":
+                case "getNString":
+                    return string;
+                case "getBoolean":
+                    return convertOrDefault(value, string, Boolean.class, false);
+                case "getByte":
+                    return convertOrDefault(value, string, Byte.class, (byte) 0);
+                case "getShort":
+                    return convertOrDefault(value, string, Short.class, (short) 0);
+                case "getInt":
+                    return convertOrDefault(value, string, Integer.class, 0);
+                case "getLong":
+                    return convertOrDefault(value, string, Long.class, 0L);
+                case "getFloat":
+                    return convertOrDefault(value, string, Float.class, 0f);
+                case "getDouble":
+                    return convertOrDefault(value, string, Double.class, 0d);
+                case "getBigDecimal":
+                    return convert(value, string, BigDecimal.class);
+                case "getBytes":
+                    return convert(value, string, byte[].class);
+                case "getDate":
+                    return convert(value, string, Date.class);
+                case "getTime":
+                    return convert(value, string, Time.class);
+                case "getTimestamp":
+                    return convert(value, string, Timestamp.class);
+                case "getArray":
+                    return convert(value, string, java.sql.Array.class);
+                default:
+                    throw new SQLFeatureNotSupportedException(methodName);
+            }
+        }
+
+        private <T> T convertOrDefault(Object value, String string, Class<T> type, T nullValue) throws SQLException {
+            T result = convert(value, string, type);
+            return result != null ? result : nullValue;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T convert(Object value, String string, Class<T> type) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        if (type.isInstance(value)) {
+            return (T) value;
+        }
+        if (type == String.class) {
+            return (T) string;
+        }
+        try {
+            if (type == Boolean.class) {
+                if (value instanceof Number) {
+                    return (T) Boolean.valueOf(((Number) value).intValue() != 0);
+                }
+                String s = string.trim().toLowerCase();
+                return (T) Boolean.valueOf(s.equals("t") || s.equals("true") || s.equals("1"));
+            }
+            if (Number.class.isAssignableFrom(type)) {
+                BigDecimal decimal = value instanceof Number
+                        ? new BigDecimal(value.toString())
+                        : new BigDecimal(string.trim());
+                if (type == BigDecimal.class) {
+                    return (T) decimal;
+                }
+                if (type == Long.class) {
+                    return (T) Long.valueOf(decimal.longValue());
+                }
+                if (type == Integer.class) {
+                    return (T) Integer.valueOf(decimal.intValue());
+                }
+                if (type == Short.class) {
+                    return (T) Short.valueOf(decimal.shortValue());
+                }
+                if (type == Byte.class) {
+                    return (T) Byte.valueOf(decimal.byteValue());
+                }
+                if (type == Double.class) {
+                    return (T) Double.valueOf(decimal.doubleValue());
+                }
+                if (type == Float.class) {
+                    return (T) Float.valueOf(decimal.floatValue());
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new SQLException("Can't convert value '" + string + "' to " + type.getSimpleName(), "22P02", e);
+        }
+        throw new SQLException("Can't convert " + value.getClass().getName() + " to " + type.getName(), "22P02");
+    }
+}
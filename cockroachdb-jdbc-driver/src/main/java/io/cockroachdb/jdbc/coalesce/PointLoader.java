@@ -0,0 +1,360 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.SqlUtils;
+
+/**
+ * Coalesces concurrent point lookups by key from many threads into a single query
+ * with an array parameter, like {@code SELECT * FROM product WHERE id = ANY(?)},
+ * and fans the rows back out to each caller by key.
+ * <p>
+ * Keys are collected for up to the max delay after the first key of a batch arrives,
+ * or until the batch holds max batch size distinct keys. Concurrent lookups of the same
+ * key share the same result. Each batch is executed on its own connection obtained
+ * from the datasource.
+ * <p>
+ * Thread safe and intended to be shared by all threads issuing the same lookup.
+ * <p>
+ * Example usage:
+ * <pre>
+ * PointLoader&lt;Product&gt; loader = dataSource.unwrap(CockroachDataSource.class)
+ *         .pointLoader("SELECT * FROM product WHERE id = ANY(?)", rs -&gt; new Product(rs))
+ *         .withKeyColumn("id")
+ *         .withKeyType("UUID")
+ *         .build();
+ * List&lt;Product&gt; products = loader.get(id);
+ * </pre>
+ *
+ * @param <T> the mapped row type
+ */
+public class PointLoader<T> implements AutoCloseable {
+    /**
+     * Maps the current row of a result set.
+     *
+     * @param <T> the mapped row type
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T mapRow(ResultSet resultSet) throws SQLException;
+    }
+
+    public static <T> Builder<T> builder(DataSource dataSource, RowMapper<T> rowMapper) {
+        return new Builder<>(dataSource, rowMapper);
+    }
+
+    public static final class Builder<T> {
+        private final DataSource dataSource;
+
+        private final RowMapper<T> rowMapper;
+
+        private String query;
+
+        private String keyColumn = "id";
+
+        private String keyType = "INT8";
+
+        private Duration maxDelay = Duration.ofMillis(1);
+
+        private int maxBatchSize = 256;
+
+        private Builder(DataSource dataSource, RowMapper<T> rowMapper) {
+            Assert.notNull(dataSource, "dataSource is null");
+            Assert.notNull(rowMapper, "rowMapper is null");
+            this.dataSource = dataSource;
+            this.rowMapper = rowMapper;
+        }
+
+        /**
+         * @param query the lookup query with a single array placeholder, like
+         * {@code SELECT * FROM product WHERE id = ANY(?)}
+         */
+        public Builder<T> withQuery(String query) {
+            this.query = query;
+            return this;
+        }
+
+        /**
+         * @param keyColumn the label of the result column holding the key of each row
+         */
+        public Builder<T> withKeyColumn(String keyColumn) {
+            this.keyColumn = keyColumn;
+            return this;
+        }
+
+        /**
+         * @param keyType the SQL type name of the keys, used for creating the key array
+         */
+        public Builder<T> withKeyType(String keyType) {
+            this.keyType = keyType;
+            return this;
+        }
+
+        public Builder<T> withMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder<T> withMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public PointLoader<T> build() {
+            Assert.hasText(query, "query is null");
+            Assert.isTrue(SqlUtils.countPlaceholders(query) == 1, "query must have exactly one placeholder");
+            Assert.hasText(keyColumn, "keyColumn is null");
+            Assert.hasText(keyType, "keyType is null");
+            Assert.isTrue(!maxDelay.isNegative(), "maxDelay must be >= 0");
+            Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be > 0");
+            return new PointLoader<>(this);
+        }
+    }
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static class ExecutorHolder {
+        static final ScheduledExecutorService SCHEDULER;
+
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "cockroachdb-loader-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "cockroachdb-loader-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            SCHEDULER = executor;
+        }
+    }
+
+    /**
+     * Normalize keys so that integral keys of any boxed type match the keys read back.
+     */
+    static Object normalizeKey(Object key) {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        return key;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final DataSource dataSource;
+
+    private final RowMapper<T> rowMapper;
+
+    private final String query;
+
+    private final String keyColumn;
+
+    private final String keyType;
+
+    private final long maxDelayNanos;
+
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+
+    private Map<Object, CompletableFuture<List<T>>> pending;
+
+    private ScheduledFuture<?> flushTimer;
+
+    private boolean closed;
+
+    private final LongAdder totalBatches = new LongAdder();
+
+    private final LongAdder totalKeys = new LongAdder();
+
+    private final LongAdder totalLoads = new LongAdder();
+
+    protected PointLoader(Builder<T> builder) {
+        this.dataSource = builder.dataSource;
+        this.rowMapper = builder.rowMapper;
+        this.query = builder.query;
+        this.keyColumn = builder.keyColumn;
+        this.keyType = builder.keyType;
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.maxBatchSize = builder.maxBatchSize;
+    }
+
+    /**
+     * @return number of lookup queries executed
+     */
+    public long getTotalBatches() {
+        return totalBatches.sum();
+    }
+
+    /**
+     * @return number of distinct keys looked up
+     */
+    public long getTotalKeys() {
+        return totalKeys.sum();
+    }
+
+    /**
+     * @return number of lookups requested
+     */
+    public long getTotalLoads() {
+        return totalLoads.sum();
+    }
+
+    /**
+     * Request the rows with the given key as part of the next batch.
+     *
+     * @param key the key
+     * @return a future completed with the rows of the key, empty if none
+     */
+    public CompletableFuture<List<T>> load(Object key) {
+        Assert.notNull(key, "key is null");
+
+        final Object normalizedKey = normalizeKey(key);
+        final CompletableFuture<List<T>> result;
+        Map<Object, CompletableFuture<List<T>>> batch = null;
+
+        synchronized (lock) {
+            Assert.isTrue(!closed, "Loader is closed");
+            if (pending == null) {
+                pending = new LinkedHashMap<>();
+                flushTimer = ExecutorHolder.SCHEDULER.schedule(this::flushPending,
+                        maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+            result = pending.computeIfAbsent(normalizedKey, k -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                batch = pending;
+                pending = null;
+                flushTimer.cancel(false);
+            }
+        }
+
+        totalLoads.increment();
+
+        if (batch != null) {
+            submit(batch);
+        }
+
+        // Isolate callers sharing the same key from each other
+        return result.thenApply(rows -> rows);
+    }
+
+    /**
+     * Lookup the rows with the given key as part of the next batch, blocking until the batch is executed.
+     *
+     * @param key the key
+     * @return the rows of the key, empty if none
+     * @throws SQLException if the batch failed
+     */
+    public List<T> get(Object key) throws SQLException {
+        try {
+            return load(key).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for point lookup", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Point lookup failed", e.getCause());
+        }
+    }
+
+    private void flushPending() {
+        Map<Object, CompletableFuture<List<T>>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = null;
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+    }
+
+    private void submit(Map<Object, CompletableFuture<List<T>>> batch) {
+        ExecutorHolder.EXECUTOR.execute(() -> execute(batch));
+    }
+
+    private void execute(Map<Object, CompletableFuture<List<T>>> batch) {
+        totalBatches.increment();
+        totalKeys.add(batch.size());
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
+            Array keys = connection.createArrayOf(keyType, batch.keySet().toArray());
+            ps.setArray(1, keys);
+
+            Map<Object, List<T>> rows = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Object key = normalizeKey(rs.getObject(keyColumn));
+                    rows.computeIfAbsent(key, k -> new ArrayList<>()).add(rowMapper.mapRow(rs));
+                }
+            }
+
+            batch.forEach((key, future) -> future.complete(
+                    Collections.unmodifiableList(rows.getOrDefault(key, Collections.emptyList()))));
+        } catch (SQLException | RuntimeException e) {
+            logger.debug("Point lookup of [{}] keys failed: {}", batch.size(), e.toString());
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        } catch (Error e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Flush any pending batch and reject further lookups.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            if (flushTimer != null) {
+                flushTimer.cancel(false);
+            }
+        }
+        flushPending();
+    }
+
+    @Override
+    public String toString() {
+        return "PointLoader{" +
+                "query='" + query + '\'' +
+                ", maxDelay=" + TimeUnit.NANOSECONDS.toMicros(maxDelayNanos) + "us" +
+                ", maxBatchSize=" + maxBatchSize +
+                ", totalBatches=" + totalBatches +
+                ", totalKeys=" + totalKeys +
+                '}';
+    }
+}
@@ -0,0 +1,170 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+import io.cockroachdb.jdbc.util.SqlUtils;
+
+/**
+ * Deduplicates identical read queries in flight at the same time. The first caller of a given
+ * SQL and parameter combination executes the query and materializes the result, while callers
+ * arriving before it completes wait and share that result. Each caller receives its own
+ * independent result set over the shared rows.
+ * <p>
+ * Only read-only auto-commit queries are eligible. A caller sharing a result may observe a
+ * snapshot taken slightly before it issued the query, which is indistinguishable from the query
+ * having been executed marginally earlier. Historical reads with {@code AS OF SYSTEM TIME} are
+ * unaffected by this, since their results are immutable. Results are materialized in memory,
+ * so this is intended for small results like point lookups or short listings.
+ */
+public class SingleFlight {
+    /**
+     * @param sql the SQL query
+     * @return true if the query is a plain read without locking or writes
+     */
+    public static boolean isEligible(String sql) {
+        return SqlUtils.isPlainRead(sql);
+    }
+
+    private static final class FlightKey {
+        private final String sql;
+
+        private final ParameterBinding[] parameterBindings;
+
+        private final int hashCode;
+
+        FlightKey(String sql, ParameterBinding[] parameterBindings) {
+            this.sql = sql;
+            this.parameterBindings = parameterBindings;
+            this.hashCode = 31 * sql.hashCode() + Arrays.hashCode(parameterBindings);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FlightKey that = (FlightKey) o;
+            return hashCode == that.hashCode
+                    && Objects.equals(sql, that.sql)
+                    && Arrays.equals(parameterBindings, that.parameterBindings);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentMap<FlightKey, CompletableFuture<MaterializedResult>> flights
+            = new ConcurrentHashMap<>();
+
+    private final LongAdder totalQueries = new LongAdder();
+
+    private final LongAdder totalShared = new LongAdder();
+
+    /**
+     * @return number of queries requested
+     */
+    public long getTotalQueries() {
+        return totalQueries.sum();
+    }
+
+    /**
+     * @return number of queries answered by sharing the result of an identical in-flight query
+     */
+    public long getTotalShared() {
+        return totalShared.sum();
+    }
+
+    /**
+     * @return number of distinct queries currently in flight
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    /**
+     * Execute a query, or join an identical query already in flight.
+     *
+     * @param statement the statement returned by the result set's {@code getStatement}
+     * @param sql the SQL query
+     * @param parameterBindings the bound parameters, not modified after this call
+     * @param query the query executed if no identical query is in flight
+     * @return an independent result set over the materialized rows
+     * @throws SQLException if the query failed, also for callers sharing it
+     */
+    public ResultSet executeQuery(Statement statement, String sql, ParameterBinding[] parameterBindings,
+                                  ResourceSupplier<ResultSet> query) throws SQLException {
+        Assert.notNull(sql, "sql is null");
+        totalQueries.increment();
+
+        final FlightKey key = new FlightKey(sql, parameterBindings);
+        final CompletableFuture<MaterializedResult> flight = new CompletableFuture<>();
+
+        CompletableFuture<MaterializedResult> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            totalShared.increment();
+            return await(existing).newResultSet(statement);
+        }
+
+        try (ResultSet resultSet = query.get()) {
+            MaterializedResult result = MaterializedResult.of(resultSet);
+            flight.complete(result);
+            return result.newResultSet(statement);
+        } catch (SQLException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private MaterializedResult await(CompletableFuture<MaterializedResult> flight) throws SQLException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for in-flight query", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            logger.debug("Shared in-flight query failed: {}", cause.toString());
+            if (cause instanceof SQLException) {
+                SQLException ex = (SQLException) cause;
+                throw new SQLException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), ex);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Shared in-flight query failed", cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{" +
+                "inFlight=" + flights.size() +
+                ", totalQueries=" + totalQueries +
+                ", totalShared=" + totalShared +
+                '}';
+    }
+}
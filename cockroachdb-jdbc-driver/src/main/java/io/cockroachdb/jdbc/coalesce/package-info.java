@@ -0,0 +1,4 @@
+/**
+ * This package provides coalescing of concurrent statement executions across threads.
+ */
+package io.cockroachdb.jdbc.coalesce;
@@ -0,0 +1,15 @@
+package io.cockroachdb.jdbc.copy;
+
+/**
+ * Callback interface for receiving throughput statistics for each
+ * committed {@link CopyWriter} chunk.
+ */
+@FunctionalInterface
+public interface CopyChunkListener {
+    /**
+     * Invoked after a chunk has been copied and committed.
+     *
+     * @param chunkStats statistics for the completed chunk
+     */
+    void afterChunk(CopyChunkStats chunkStats);
+}
@@ -0,0 +1,63 @@
+package io.cockroachdb.jdbc.copy;
+
+import java.time.Duration;
+
+/**
+ * Value object for throughput statistics of a single COPY chunk.
+ */
+public class CopyChunkStats {
+    private final int chunkNumber;
+
+    private final long rows;
+
+    private final long bytes;
+
+    private final Duration duration;
+
+    public CopyChunkStats(int chunkNumber, long rows, long bytes, Duration duration) {
+        this.chunkNumber = chunkNumber;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.duration = duration;
+    }
+
+    public int getChunkNumber() {
+        return chunkNumber;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public double getRowsPerSecond() {
+        return perSecond(rows);
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(bytes);
+    }
+
+    private double perSecond(long value) {
+        long nanos = duration.toNanos();
+        return nanos > 0 ? value * 1_000_000_000.0 / nanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CopyChunkStats{" +
+                "chunkNumber=" + chunkNumber +
+                ", rows=" + rows +
+                ", bytes=" + bytes +
+                ", duration=" + duration +
+                ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) +
+                '}';
+    }
+}
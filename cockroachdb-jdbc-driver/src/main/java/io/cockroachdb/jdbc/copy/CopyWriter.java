@@ -0,0 +1,515 @@
+package io.cockroachdb.jdbc.copy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.ByteStreamWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * A typed row writer for bulk ingest using {@code COPY .. FROM STDIN} in text format.
+ * <p>
+ * Column values are encoded straight into a reusable direct buffer which is streamed to
+ * the server when full. Rows are copied in chunks where each chunk is committed as a separate
+ * transaction, since CockroachDB imposes limits on transaction size. A chunk that fails is rolled
+ * back while all previous chunks remain committed.
+ * <p>
+ * Example usage:
+ * <pre>
+ * try (CopyWriter writer = connection.unwrap(CockroachConnection.class)
+ *         .copyIn("product", "id", "name", "price")
+ *         .setChunkSize(50_000)) {
+ *     writer.writeUUID(id).writeString(name).writeDecimal(price).endRow();
+ * }
+ * </pre>
+ * Not thread safe.
+ */
+public class CopyWriter implements AutoCloseable {
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] HEX_CHARS = "0123456789abcdef".getBytes();
+
+    private static final byte[] LONG_MIN_VALUE = String.valueOf(Long.MIN_VALUE).getBytes();
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Connection connection;
+
+    private final CopyManager copyManager;
+
+    private final String sql;
+
+    private final int columnCount;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private CopyChunkListener chunkListener = chunkStats -> {
+    };
+
+    private ByteBuffer buffer;
+
+    private CopyIn copyIn;
+
+    private int column;
+
+    private int chunkNumber;
+
+    private long chunkRows;
+
+    private long chunkBytes;
+
+    private long chunkStartTime;
+
+    private long totalRows;
+
+    private boolean closed;
+
+    public CopyWriter(Connection connection, CopyManager copyManager, String table, String... columns) {
+        Assert.notNull(connection, "connection is null");
+        Assert.notNull(copyManager, "copyManager is null");
+        Assert.hasText(table, "table is null");
+        Assert.isTrue(columns.length > 0, "columns are empty");
+        this.connection = connection;
+        this.copyManager = copyManager;
+        this.sql = "COPY " + table + "(" + String.join(",", columns) + ") FROM STDIN";
+        this.columnCount = columns.length;
+    }
+
+    /**
+     * Set the number of rows to copy in each transaction.
+     *
+     * @param chunkSize rows per chunk (transaction)
+     * @return this writer
+     */
+    public CopyWriter setChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be > 0");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Set the capacity of the direct buffer used for encoding rows. Must be called
+     * before writing any rows.
+     *
+     * @param bufferSize buffer capacity in bytes
+     * @return this writer
+     */
+    public CopyWriter setBufferSize(int bufferSize) {
+        Assert.isTrue(bufferSize >= 64, "bufferSize must be >= 64");
+        Assert.isTrue(buffer == null, "buffer already allocated");
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public CopyWriter setChunkListener(CopyChunkListener chunkListener) {
+        Assert.notNull(chunkListener, "chunkListener is null");
+        this.chunkListener = chunkListener;
+        return this;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return total number of rows copied in committed chunks
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public CopyWriter writeNull() throws SQLException {
+        beginValue(2);
+        buffer.put((byte) '\\').put((byte) 'N');
+        return this;
+    }
+
+    public CopyWriter writeBoolean(boolean value) throws SQLException {
+        beginValue(1);
+        buffer.put((byte) (value ? 't' : 'f'));
+        return this;
+    }
+
+    public CopyWriter writeInt(int value) throws SQLException {
+        return writeLong(value);
+    }
+
+    public CopyWriter writeLong(long value) throws SQLException {
+        beginValue(LONG_MIN_VALUE.length);
+        if (value == Long.MIN_VALUE) {
+            buffer.put(LONG_MIN_VALUE);
+            return this;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int start = buffer.position();
+        do {
+            buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Digits are in reverse order
+        for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+            byte b = buffer.get(i);
+            buffer.put(i, buffer.get(j));
+            buffer.put(j, b);
+        }
+        return this;
+    }
+
+    public CopyWriter writeDouble(double value) throws SQLException {
+        return writeAscii(Double.toString(value));
+    }
+
+    public CopyWriter writeDecimal(BigDecimal value) throws SQLException {
+        return value == null ? writeNull() : writeAscii(value.toPlainString());
+    }
+
+    public CopyWriter writeUUID(UUID value) throws SQLException {
+        if (value == null) {
+            return writeNull();
+        }
+        beginValue(36);
+        putHex(value.getMostSignificantBits() >>> 32, 8);
+        buffer.put((byte) '-');
+        putHex(value.getMostSignificantBits() >>> 16, 4);
+        buffer.put((byte) '-');
+        putHex(value.getMostSignificantBits(), 4);
+        buffer.put((byte) '-');
+        putHex(value.getLeastSignificantBits() >>> 48, 4);
+        buffer.put((byte) '-');
+        putHex(value.getLeastSignificantBits(), 12);
+        return this;
+    }
+
+    /**
+     * Write a BYTES value in hex format.
+     *
+     * @param value the bytes or null
+     * @return this writer
+     */
+    public CopyWriter writeBytes(byte[] value) throws SQLException {
+        if (value == null) {
+            return writeNull();
+        }
+        beginValue(3);
+        // Escaped backslash followed by hex prefix
+        buffer.put((byte) '\\').put((byte) '\\').put((byte) 'x');
+        for (byte b : value) {
+            ensureCapacity(2);
+            buffer.put(HEX_CHARS[(b >> 4) & 0xf]);
+            buffer.put(HEX_CHARS[b & 0xf]);
+        }
+        return this;
+    }
+
+    /**
+     * Write a string value encoded as UTF-8, escaping characters that are
+     * significant in the COPY text format.
+     *
+     * @param value the string or null
+     * @return this writer
+     */
+    public CopyWriter writeString(CharSequence value) throws SQLException {
+        if (value == null) {
+            return writeNull();
+        }
+        beginValue(0);
+        final int len = value.length();
+        for (int i = 0; i < len; i++) {
+            ensureCapacity(4);
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '\\':
+                        buffer.put((byte) '\\').put((byte) '\\');
+                        break;
+                    case '\t':
+                        buffer.put((byte) '\\').put((byte) 't');
+                        break;
+                    case '\n':
+                        buffer.put((byte) '\\').put((byte) 'n');
+                        break;
+                    case '\r':
+                        buffer.put((byte) '\\').put((byte) 'r');
+                        break;
+                    default:
+                        buffer.put((byte) c);
+                }
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xf0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (cp & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // Malformed, same as String.getBytes
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write a string value that is already UTF-8 encoded, escaping characters that are
+     * significant in the COPY text format.
+     *
+     * @param value the UTF-8 encoded bytes
+     * @param offset start offset in value
+     * @param len number of bytes to write
+     * @return this writer
+     */
+    public CopyWriter writeUtf8(byte[] value, int offset, int len) throws SQLException {
+        beginValue(0);
+        final int end = offset + len;
+        for (int i = offset; i < end; i++) {
+            ensureCapacity(2);
+            byte b = value[i];
+            switch (b) {
+                case '\\':
+                    buffer.put((byte) '\\').put((byte) '\\');
+                    break;
+                case '\t':
+                    buffer.put((byte) '\\').put((byte) 't');
+                    break;
+                case '\n':
+                    buffer.put((byte) '\\').put((byte) 'n');
+                    break;
+                case '\r':
+                    buffer.put((byte) '\\').put((byte) 'r');
+                    break;
+                default:
+                    // Multibyte sequences never contain ASCII bytes
+                    buffer.put(b);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write an arbitrary value by dispatching to the most specific typed
+     * method, falling back to the string representation.
+     *
+     * @param value the value or null
+     * @return this writer
+     */
+    public CopyWriter writeObject(Object value) throws SQLException {
+        if (value == null) {
+            return writeNull();
+        } else if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            return writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal) {
+            return writeDecimal((BigDecimal) value);
+        } else if (value instanceof Boolean) {
+            return writeBoolean((Boolean) value);
+        } else if (value instanceof UUID) {
+            return writeUUID((UUID) value);
+        } else if (value instanceof byte[]) {
+            return writeBytes((byte[]) value);
+        } else if (value instanceof CharSequence) {
+            return writeString((CharSequence) value);
+        }
+        return writeString(value.toString());
+    }
+
+    /**
+     * Complete the current row and commit the current chunk if the chunk size is reached.
+     *
+     * @return this writer
+     * @throws SQLException on COPY or commit failure
+     */
+    public CopyWriter endRow() throws SQLException {
+        if (column != columnCount) {
+            throw new IllegalStateException("Expected " + columnCount + " column values but got " + column);
+        }
+        ensureCapacity(1);
+        buffer.put((byte) '\n');
+        column = 0;
+        if (++chunkRows >= chunkSize) {
+            commitChunk();
+        }
+        return this;
+    }
+
+    /**
+     * Commit all rows written so far as one chunk, regardless of chunk size.
+     *
+     * @throws SQLException on COPY or commit failure
+     */
+    public void flush() throws SQLException {
+        if (column != 0) {
+            throw new IllegalStateException("Cannot flush an incomplete row");
+        }
+        if (chunkRows > 0) {
+            commitChunk();
+        }
+    }
+
+    /**
+     * Cancel the current chunk, discarding any rows that have not been committed.
+     *
+     * @throws SQLException on failure to cancel the COPY or to rollback
+     */
+    public void cancel() throws SQLException {
+        try {
+            if (copyIn != null && copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        } finally {
+            copyIn = null;
+            resetChunk();
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (column != 0) {
+            cancel();
+            throw new IllegalStateException("Closed with an incomplete row - last chunk cancelled");
+        }
+        flush();
+    }
+
+    private void commitChunk() throws SQLException {
+        try {
+            sendBuffer();
+            copyIn.endCopy();
+            copyIn = null;
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            cancel();
+            throw e;
+        }
+
+        totalRows += chunkRows;
+
+        CopyChunkStats chunkStats = new CopyChunkStats(++chunkNumber, chunkRows, chunkBytes,
+                Duration.ofNanos(System.nanoTime() - chunkStartTime));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Committed COPY chunk for [{}]: {}", sql, chunkStats);
+        }
+        chunkListener.afterChunk(chunkStats);
+
+        resetChunk();
+    }
+
+    private void resetChunk() {
+        column = 0;
+        chunkRows = 0;
+        chunkBytes = 0;
+        if (buffer != null) {
+            buffer.clear();
+        }
+    }
+
+    private CopyWriter writeAscii(String value) throws SQLException {
+        beginValue(0);
+        final int len = value.length();
+        for (int i = 0; i < len; i++) {
+            ensureCapacity(1);
+            buffer.put((byte) value.charAt(i));
+        }
+        return this;
+    }
+
+    private void putHex(long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer.put(HEX_CHARS[(int) (value >>> shift) & 0xf]);
+        }
+    }
+
+    private void beginValue(int len) throws SQLException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        if (column == columnCount) {
+            throw new IllegalStateException("Row already has " + columnCount + " column values");
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        if (column == 0 && chunkRows == 0) {
+            chunkStartTime = System.nanoTime();
+        }
+        ensureCapacity(len + 1);
+        if (column++ > 0) {
+            buffer.put((byte) '\t');
+        }
+    }
+
+    private void ensureCapacity(int len) throws SQLException {
+        if (buffer.remaining() < len) {
+            sendBuffer();
+        }
+    }
+
+    private void sendBuffer() throws SQLException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        if (copyIn == null) {
+            copyIn = copyManager.copyIn(sql);
+        }
+        buffer.flip();
+        chunkBytes += buffer.remaining();
+        copyIn.writeToCopy(new ByteBufferStreamWriter(buffer));
+        buffer.clear();
+    }
+
+    private static class ByteBufferStreamWriter implements ByteStreamWriter {
+        private final ByteBuffer buffer;
+
+        ByteBufferStreamWriter(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int getLength() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void writeTo(ByteStreamTarget target) throws IOException {
+            WritableByteChannel channel = Channels.newChannel(target.getOutputStream());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
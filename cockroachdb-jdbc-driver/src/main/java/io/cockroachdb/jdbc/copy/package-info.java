@@ -0,0 +1,4 @@
+/**
+ * This package provides bulk ingest support using {@code COPY .. FROM STDIN}.
+ */
+package io.cockroachdb.jdbc.copy;
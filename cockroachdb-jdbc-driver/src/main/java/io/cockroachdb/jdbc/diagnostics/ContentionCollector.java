@@ -0,0 +1,179 @@
+package io.cockroachdb.jdbc.diagnostics;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.metrics.ContentionStatistics;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+/**
+ * Collects transaction contention events from {@code crdb_internal.transaction_contention_events}
+ * on a side connection into contention statistics.
+ * <p>
+ * Collection is requested on transaction retries and runs in the background, at most once per
+ * interval. Events are read incrementally from the collection time of the last event read.
+ * Note that contention events are only available once the blocking transaction has been
+ * resolved, which by default happens within 30 seconds, so events for a retry are typically
+ * collected on a subsequent request.
+ */
+public class ContentionCollector implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ContentionCollector.class);
+
+    private static final int MAX_EVENTS = 1000;
+
+    private static final int QUERY_TIMEOUT_SECONDS = 30;
+
+    private static final String CONTENTION_EVENTS_SQL
+            = "SELECT collection_ts, encode(blocking_txn_fingerprint_id, 'hex'), database_name, schema_name, "
+            + "table_name, index_name, contending_pretty_key, EXTRACT(epoch FROM contention_duration) "
+            + "FROM crdb_internal.transaction_contention_events "
+            + "WHERE collection_ts > COALESCE(?::TIMESTAMPTZ, now() - INTERVAL '1 minute') "
+            + "ORDER BY collection_ts "
+            + "LIMIT " + MAX_EVENTS;
+
+    private static class ExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "cockroachdb-contention");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            // Don't keep the thread alive when idle
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private final ResourceSupplier<Connection> connectionFactory;
+
+    private final long intervalNanos;
+
+    private final ContentionStatistics contentionStatistics;
+
+    private final AtomicLong nextCollectionTime = new AtomicLong(System.nanoTime());
+
+    private final AtomicBoolean collecting = new AtomicBoolean();
+
+    private Timestamp lastCollectionTime;
+
+    private volatile boolean closed;
+
+    /**
+     * @param connectionFactory factory for side connections reading contention events
+     * @param interval min interval between collections
+     * @param contentionStatistics the statistics to aggregate events into
+     */
+    public ContentionCollector(ResourceSupplier<Connection> connectionFactory, Duration interval,
+                               ContentionStatistics contentionStatistics) {
+        Assert.notNull(connectionFactory, "connectionFactory is null");
+        Assert.notNull(interval, "interval is null");
+        Assert.notNull(contentionStatistics, "contentionStatistics is null");
+        this.connectionFactory = connectionFactory;
+        this.intervalNanos = interval.toNanos();
+        this.contentionStatistics = contentionStatistics;
+    }
+
+    public ContentionStatistics getContentionStatistics() {
+        return contentionStatistics;
+    }
+
+    /**
+     * Request a collection in the background, unless already in progress or not yet due.
+     *
+     * @return true if a collection was scheduled
+     */
+    public boolean requestCollection() {
+        if (closed) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long next = nextCollectionTime.get();
+        if (now - next < 0 || !collecting.compareAndSet(false, true)) {
+            return false;
+        }
+        if (!nextCollectionTime.compareAndSet(next, now + intervalNanos)) {
+            collecting.set(false);
+            return false;
+        }
+        try {
+            ExecutorHolder.EXECUTOR.execute(() -> {
+                try {
+                    collect();
+                } catch (SQLException | RuntimeException e) {
+                    logger.debug("Unable to collect contention events: {}", e.toString());
+                } finally {
+                    collecting.set(false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            collecting.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * Collect contention events since the last collection.
+     *
+     * @return number of events collected
+     * @throws SQLException on query failure
+     */
+    public synchronized int collect() throws SQLException {
+        int events = 0;
+        try (Connection connection = connectionFactory.get();
+             PreparedStatement ps = connection.prepareStatement(CONTENTION_EVENTS_SQL)) {
+            ps.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            if (lastCollectionTime != null) {
+                ps.setTimestamp(1, lastCollectionTime);
+            } else {
+                ps.setNull(1, Types.TIMESTAMP);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lastCollectionTime = rs.getTimestamp(1);
+                    StringJoiner table = new StringJoiner(".");
+                    for (int column = 3; column <= 5; column++) {
+                        String name = rs.getString(column);
+                        if (name != null && !name.isEmpty()) {
+                            table.add(name);
+                        }
+                    }
+                    contentionStatistics.record(rs.getString(2),
+                            table.toString(),
+                            rs.getString(6),
+                            rs.getString(7),
+                            (long) (rs.getDouble(8) * TimeUnit.SECONDS.toNanos(1)));
+                    events++;
+                }
+            }
+        }
+        logger.debug("Collected [{}] contention events", events);
+        return events;
+    }
+
+    /**
+     * Stop collecting contention events in the background.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
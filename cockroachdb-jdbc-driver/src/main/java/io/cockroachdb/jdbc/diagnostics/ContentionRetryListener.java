@@ -0,0 +1,55 @@
+package io.cockroachdb.jdbc.diagnostics;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
+
+import io.cockroachdb.jdbc.retry.RetryListener;
+import io.cockroachdb.jdbc.retry.TransactionRecord;
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * Retry listener requesting collection of transaction contention events on retries caused
+ * by serialization failures, delegating all callbacks to another listener.
+ */
+public class ContentionRetryListener implements RetryListener {
+    private static final String SERIALIZATION_FAILURE = "40001";
+
+    private final RetryListener delegate;
+
+    private final ContentionCollector contentionCollector;
+
+    public ContentionRetryListener(RetryListener delegate, ContentionCollector contentionCollector) {
+        Assert.notNull(delegate, "delegate is null");
+        Assert.notNull(contentionCollector, "contentionCollector is null");
+        this.delegate = delegate;
+        this.contentionCollector = contentionCollector;
+    }
+
+    public RetryListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void configure(Properties properties) {
+        delegate.configure(properties);
+    }
+
+    @Override
+    public void beforeRetry(String methodName, int attempt, SQLException ex, Duration backoffDelay) {
+        if (ex != null && SERIALIZATION_FAILURE.equals(ex.getSQLState())) {
+            contentionCollector.requestCollection();
+        }
+        delegate.beforeRetry(methodName, attempt, ex, backoffDelay);
+    }
+
+    @Override
+    public void afterRetry(String methodName, int attempt, SQLException ex, Duration executionTime) {
+        delegate.afterRetry(methodName, attempt, ex, executionTime);
+    }
+
+    @Override
+    public void afterTransaction(TransactionRecord transactionRecord) {
+        delegate.afterTransaction(transactionRecord);
+    }
+}
@@ -0,0 +1,82 @@
+package io.cockroachdb.jdbc.diagnostics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable record of a statement exceeding the slow statement threshold.
+ */
+public class SlowStatement {
+    private final String sql;
+
+    private final String fingerprint;
+
+    private final List<String> parameters;
+
+    private final Duration duration;
+
+    private final String connectionInfo;
+
+    private final String plan;
+
+    public SlowStatement(String sql, String fingerprint, List<String> parameters, Duration duration,
+                         String connectionInfo, String plan) {
+        this.sql = sql;
+        this.fingerprint = fingerprint;
+        this.parameters = parameters != null ? Collections.unmodifiableList(parameters) : Collections.emptyList();
+        this.duration = duration;
+        this.connectionInfo = connectionInfo;
+        this.plan = plan;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the bound parameter values in display form, masked unless configured otherwise
+     */
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return connection identity and URL including the node host and port
+     */
+    public String getConnectionInfo() {
+        return connectionInfo;
+    }
+
+    /**
+     * @return the output of {@code EXPLAIN ANALYZE (DISTSQL)} if sampled, otherwise null
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    public SlowStatement withPlan(String plan) {
+        return new SlowStatement(sql, fingerprint, parameters, duration, connectionInfo, plan);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append("Slow statement [").append(fingerprint).append("]")
+                .append(" duration=").append(duration.toMillis()).append("ms")
+                .append(" parameters=").append(parameters)
+                .append(" connection=").append(connectionInfo);
+        if (plan != null) {
+            sb.append("\n").append(plan);
+        }
+        return sb.toString();
+    }
+}
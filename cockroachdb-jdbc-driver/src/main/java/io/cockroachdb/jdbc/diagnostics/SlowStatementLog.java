@@ -0,0 +1,240 @@
+package io.cockroachdb.jdbc.diagnostics;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+import io.cockroachdb.jdbc.util.SqlUtils;
+import io.cockroachdb.jdbc.util.TraceUtils;
+
+/**
+ * Captures statements exceeding a latency threshold, logging the SQL fingerprint, masked
+ * parameters, duration and connection at warn level.
+ * <p>
+ * A rate-limited sample of slow plain reads is re-run with {@code EXPLAIN ANALYZE (DISTSQL)}
+ * on a side connection in the background, and the plan is included in the log entry. Only
+ * reads without locking or writes are explained since {@code EXPLAIN ANALYZE} executes the
+ * statement, and prepared statements only if all parameters could be captured for re-binding.
+ */
+public class SlowStatementLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SlowStatementLog.class);
+
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+
+    private static class ExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "cockroachdb-explain");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            // Don't keep the thread alive when idle
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private final long thresholdNanos;
+
+    private final long explainIntervalNanos;
+
+    private final ResourceSupplier<Connection> connectionFactory;
+
+    private final AtomicLong nextExplainTime = new AtomicLong(System.nanoTime());
+
+    private final AtomicBoolean explaining = new AtomicBoolean();
+
+    private boolean masked = true;
+
+    private volatile boolean closed;
+
+    private Consumer<SlowStatement> listener = slowStatement -> logger.warn("{}", slowStatement);
+
+    /**
+     * @param threshold the latency threshold
+     * @param explainsPerMinute max number of statements explained per minute, or 0 to disable
+     * @param connectionFactory factory for side connections running {@code EXPLAIN ANALYZE}
+     */
+    public SlowStatementLog(Duration threshold, int explainsPerMinute, ResourceSupplier<Connection> connectionFactory) {
+        Assert.notNull(threshold, "threshold is null");
+        Assert.isTrue(!threshold.isNegative() && !threshold.isZero(), "threshold must be > 0");
+        Assert.isTrue(explainsPerMinute >= 0, "explainsPerMinute must be >= 0");
+        Assert.isTrue(explainsPerMinute == 0 || connectionFactory != null, "connectionFactory is null");
+        this.thresholdNanos = threshold.toNanos();
+        this.explainIntervalNanos = explainsPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / explainsPerMinute : 0;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @param masked true to mask parameter values (default), false to log them as is
+     */
+    public SlowStatementLog setMasked(boolean masked) {
+        this.masked = masked;
+        return this;
+    }
+
+    /**
+     * @param listener receiver of slow statements replacing the default warn logging
+     */
+    public SlowStatementLog setListener(Consumer<SlowStatement> listener) {
+        Assert.notNull(listener, "listener is null");
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * @param durationNanos the statement execution time
+     * @return true if the execution time exceeds the threshold
+     */
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= thresholdNanos;
+    }
+
+    /**
+     * Capture a slow statement.
+     *
+     * @param statement the executing statement
+     * @param sql the SQL statement
+     * @param parameterBindings the captured parameters or null if not available
+     * @param durationNanos the statement execution time
+     */
+    public void capture(Statement statement, String sql, ParameterBinding[] parameterBindings, long durationNanos) {
+        SlowStatement slowStatement = new SlowStatement(sql,
+                SqlUtils.fingerprint(sql),
+                parametersOf(parameterBindings),
+                Duration.ofNanos(durationNanos),
+                connectionInfo(statement),
+                null);
+
+        if (isExplainable(sql, parameterBindings) && acquireExplain()) {
+            try {
+                ExecutorHolder.EXECUTOR.execute(() -> {
+                    try {
+                        notify(slowStatement.withPlan(explain(sql, parameterBindings)));
+                    } catch (SQLException | RuntimeException e) {
+                        logger.debug("Unable to explain slow statement [{}]: {}", slowStatement.getFingerprint(),
+                                e.toString());
+                        notify(slowStatement);
+                    } finally {
+                        explaining.set(false);
+                    }
+                });
+                return;
+            } catch (RuntimeException e) {
+                explaining.set(false);
+            }
+        }
+        notify(slowStatement);
+    }
+
+    private void notify(SlowStatement slowStatement) {
+        try {
+            listener.accept(slowStatement);
+        } catch (RuntimeException e) {
+            logger.warn("Uncaught exception in slow statement listener", e);
+        }
+    }
+
+    private List<String> parametersOf(ParameterBinding[] parameterBindings) {
+        List<String> parameters = new ArrayList<>();
+        if (parameterBindings != null) {
+            for (ParameterBinding parameterBinding : parameterBindings) {
+                parameters.add(parameterBinding != null
+                        ? TraceUtils.truncateParameter(TraceUtils.parameterAsString(parameterBinding.getValue(), masked))
+                        : "?");
+            }
+        }
+        return parameters;
+    }
+
+    private static String connectionInfo(Statement statement) {
+        try {
+            Connection connection = statement.getConnection();
+            return "connection@" + Integer.toHexString(System.identityHashCode(connection))
+                    + " " + connection.getMetaData().getURL();
+        } catch (SQLException | RuntimeException e) {
+            return "connection@unknown";
+        }
+    }
+
+    private boolean isExplainable(String sql, ParameterBinding[] parameterBindings) {
+        if (closed || explainIntervalNanos == 0 || !SqlUtils.isPlainRead(sql)) {
+            return false;
+        }
+        int placeholders = SqlUtils.countPlaceholders(sql);
+        if (placeholders == 0) {
+            return true;
+        }
+        if (parameterBindings == null || parameterBindings.length != placeholders) {
+            return false;
+        }
+        for (ParameterBinding parameterBinding : parameterBindings) {
+            if (parameterBinding == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean acquireExplain() {
+        long now = System.nanoTime();
+        long next = nextExplainTime.get();
+        if (now - next < 0 || !explaining.compareAndSet(false, true)) {
+            return false;
+        }
+        if (!nextExplainTime.compareAndSet(next, now + explainIntervalNanos)) {
+            explaining.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    private String explain(String sql, ParameterBinding[] parameterBindings) throws SQLException {
+        try (Connection connection = connectionFactory.get();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN ANALYZE (DISTSQL) " + sql)) {
+            ps.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            if (parameterBindings != null) {
+                for (int i = 0; i < parameterBindings.length; i++) {
+                    parameterBindings[i].bind(ps, i + 1);
+                }
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (plan.length() > 0) {
+                        plan.append("\n");
+                    }
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * Stop explaining slow statements on side connections. Slow statements are still logged.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
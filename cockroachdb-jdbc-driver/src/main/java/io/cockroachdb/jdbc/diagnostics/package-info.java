@@ -0,0 +1,4 @@
+/**
+ * This package provides diagnostics for slow statements and transaction contention.
+ */
+package io.cockroachdb.jdbc.diagnostics;
@@ -0,0 +1,21 @@
+package io.cockroachdb.jdbc.hedge;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.util.HostSpec;
+
+/**
+ * Factory for auto-commit connections used to issue hedged queries.
+ */
+@FunctionalInterface
+public interface HedgeConnectionFactory {
+    /**
+     * Open a connection, preferably to another node than the excluded one.
+     *
+     * @param excludedHost the host of the primary connection, or null if unknown
+     * @return a new connection
+     * @throws SQLException if the connection could not be opened
+     */
+    Connection open(HostSpec excludedHost) throws SQLException;
+}
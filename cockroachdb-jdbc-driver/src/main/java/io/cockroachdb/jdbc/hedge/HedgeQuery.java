@@ -0,0 +1,51 @@
+package io.cockroachdb.jdbc.hedge;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import io.cockroachdb.jdbc.util.ParameterBinding;
+
+/**
+ * A query that can be re-issued on another connection. Preparing and executing are
+ * separate steps so that an in-flight hedge can be cancelled.
+ */
+public interface HedgeQuery {
+    static HedgeQuery of(String sql) {
+        return new HedgeQuery() {
+            @Override
+            public Statement prepare(Connection connection) throws SQLException {
+                return connection.createStatement();
+            }
+
+            @Override
+            public ResultSet execute(Statement statement) throws SQLException {
+                return statement.executeQuery(sql);
+            }
+        };
+    }
+
+    static HedgeQuery of(String sql, ParameterBinding[] parameterBindings) {
+        return new HedgeQuery() {
+            @Override
+            public Statement prepare(Connection connection) throws SQLException {
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                for (int i = 0; i < parameterBindings.length; i++) {
+                    parameterBindings[i].bind(preparedStatement, i + 1);
+                }
+                return preparedStatement;
+            }
+
+            @Override
+            public ResultSet execute(Statement statement) throws SQLException {
+                return ((PreparedStatement) statement).executeQuery();
+            }
+        };
+    }
+
+    Statement prepare(Connection connection) throws SQLException;
+
+    ResultSet execute(Statement statement) throws SQLException;
+}
@@ -0,0 +1,63 @@
+package io.cockroachdb.jdbc.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a percentile over a sliding window of recent latency samples.
+ * <p>
+ * Samples are written lock-free into a ring buffer and the percentile is recomputed
+ * from a sorted copy of the window every so many samples, so that reading it is cheap.
+ */
+public class LatencyTracker {
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final long[] samples;
+
+    private final double percentile;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private volatile long percentileNanos = -1;
+
+    /**
+     * @param windowSize number of recent samples to keep
+     * @param percentile the percentile to track, between 0 and 1 (like 0.95)
+     */
+    public LatencyTracker(int windowSize, double percentile) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be > 0");
+        }
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be in range (0, 1]");
+        }
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+    }
+
+    public void record(long nanos) {
+        long n = count.getAndIncrement();
+        samples[(int) (n % samples.length)] = nanos;
+        if ((n + 1) % RECOMPUTE_INTERVAL == 0) {
+            recompute(Math.min(n + 1, samples.length));
+        }
+    }
+
+    private void recompute(long size) {
+        long[] copy = Arrays.copyOf(samples, (int) size);
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(percentile * copy.length) - 1;
+        percentileNanos = copy[Math.max(0, index)];
+    }
+
+    /**
+     * @return the tracked percentile in nanos, or -1 if too few samples are recorded
+     */
+    public long getPercentileNanos() {
+        return percentileNanos;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+}
@@ -0,0 +1,404 @@
+package io.cockroachdb.jdbc.hedge;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.util.HostSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+/**
+ * Hedges historical read queries by issuing the same query on a second connection, preferably
+ * to another node, when the primary hasn't responded within a percentile of recent latencies.
+ * Whichever query answers first wins and the other is cancelled.
+ * <p>
+ * Only auto-commit queries with an {@code AS OF SYSTEM TIME} clause are eligible, since
+ * their results are immutable and it's therefore safe to execute them twice. Hedging starts
+ * once enough latency samples are recorded to compute the hedge delay.
+ */
+public class QueryHedger implements Closeable {
+    private static final Pattern HISTORICAL_READ_PATTERN = Pattern.compile(
+            "^\\s*(SELECT|WITH)\\b.*\\bAS\\s+OF\\s+SYSTEM\\s+TIME\\b.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final int WINDOW_SIZE = 1024;
+
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static class ExecutorHolder {
+        static final ScheduledExecutorService SCHEDULER;
+
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "cockroachdb-hedge-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "cockroachdb-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            SCHEDULER = executor;
+        }
+    }
+
+    /**
+     * @param sql the SQL query
+     * @return true if the query is a historical read that is safe to hedge
+     */
+    public static boolean isEligible(String sql) {
+        return sql != null && HISTORICAL_READ_PATTERN.matcher(sql).matches();
+    }
+
+    static HostSpec hostOf(Connection connection) {
+        try {
+            return connection.unwrap(BaseConnection.class).getQueryExecutor().getHostSpec();
+        } catch (SQLException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final HedgeConnectionFactory connectionFactory;
+
+    private final LatencyTracker latencyTracker;
+
+    private final long minDelayNanos;
+
+    private final Deque<Connection> idleConnections = new ConcurrentLinkedDeque<>();
+
+    private final LongAdder totalQueries = new LongAdder();
+
+    private final LongAdder totalHedged = new LongAdder();
+
+    private final LongAdder totalHedgeWins = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * @param connectionFactory factory for hedge connections
+     * @param percentile the latency percentile used as hedge delay, between 0 and 1 (like 0.95)
+     * @param minDelay the min hedge delay
+     */
+    public QueryHedger(HedgeConnectionFactory connectionFactory, double percentile, Duration minDelay) {
+        Assert.notNull(connectionFactory, "connectionFactory is null");
+        this.connectionFactory = connectionFactory;
+        this.latencyTracker = new LatencyTracker(WINDOW_SIZE, percentile);
+        this.minDelayNanos = minDelay.toNanos();
+    }
+
+    /**
+     * @return the current hedge delay, or null if too few latency samples are recorded
+     */
+    public Duration getHedgeDelay() {
+        long nanos = hedgeDelayNanos();
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+
+    private long hedgeDelayNanos() {
+        long percentileNanos = latencyTracker.getPercentileNanos();
+        return percentileNanos < 0 ? -1 : Math.max(minDelayNanos, percentileNanos);
+    }
+
+    public long getTotalQueries() {
+        return totalQueries.sum();
+    }
+
+    /**
+     * @return number of queries for which a hedge was issued
+     */
+    public long getTotalHedged() {
+        return totalHedged.sum();
+    }
+
+    /**
+     * @return number of queries for which the hedge answered first
+     */
+    public long getTotalHedgeWins() {
+        return totalHedgeWins.sum();
+    }
+
+    /**
+     * Execute a query with hedging.
+     *
+     * @param primaryStatement the statement the primary query executes on, cancelled if the hedge wins
+     * @param primaryQuery the primary query executed by the calling thread
+     * @param hedgeQuery the query to issue on a hedge connection
+     * @return the result set of the query answering first
+     * @throws SQLException if the primary query failed before the hedge answered
+     */
+    public ResultSet executeQuery(Statement primaryStatement,
+                                  ResourceSupplier<ResultSet> primaryQuery,
+                                  HedgeQuery hedgeQuery) throws SQLException {
+        totalQueries.increment();
+
+        final long startTime = System.nanoTime();
+        final long delayNanos = hedgeDelayNanos();
+
+        if (delayNanos < 0 || closed) {
+            ResultSet resultSet = primaryQuery.get();
+            latencyTracker.record(System.nanoTime() - startTime);
+            return resultSet;
+        }
+
+        Hedge hedge = new Hedge(primaryStatement, hedgeQuery, hostOf(primaryStatement.getConnection()));
+        ScheduledFuture<?> timer = ExecutorHolder.SCHEDULER.schedule(
+                () -> ExecutorHolder.EXECUTOR.execute(hedge), delayNanos, TimeUnit.NANOSECONDS);
+
+        try {
+            ResultSet resultSet = primaryQuery.get();
+            if (hedge.claim(Hedge.PRIMARY)) {
+                latencyTracker.record(System.nanoTime() - startTime);
+                timer.cancel(false);
+                hedge.cancel();
+                return resultSet;
+            }
+            resultSet.close();
+        } catch (SQLException e) {
+            if (hedge.claim(Hedge.PRIMARY)) {
+                timer.cancel(false);
+                hedge.cancel();
+                throw e;
+            }
+            logger.debug("Primary query cancelled in favour of hedge: {}", e.toString());
+        }
+
+        // Primary latency is at least this long
+        latencyTracker.record(System.nanoTime() - startTime);
+        return hedge.getResult();
+    }
+
+    /**
+     * Stop hedging and close idle hedge connections. Queries are then executed on the
+     * primary connection only.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Connection connection; (connection = idleConnections.pollFirst()) != null; ) {
+            releaseConnection(connection, false);
+        }
+    }
+
+    private Connection acquireConnection(HostSpec excludedHost) throws SQLException {
+        for (Iterator<Connection> it = idleConnections.iterator(); it.hasNext(); ) {
+            Connection connection = it.next();
+            if (excludedHost == null || !excludedHost.equals(hostOf(connection))) {
+                if (idleConnections.removeFirstOccurrence(connection)) {
+                    if (!connection.isClosed()) {
+                        return connection;
+                    }
+                }
+            }
+        }
+        return connectionFactory.open(excludedHost);
+    }
+
+    private void releaseConnection(Connection connection, boolean reusable) {
+        if (reusable && !closed && idleConnections.size() < MAX_IDLE_CONNECTIONS) {
+            idleConnections.offerFirst(connection);
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close hedge connection: {}", e.toString());
+        }
+    }
+
+    private ResultSet wrapResult(ResultSet resultSet, Statement statement, Connection connection,
+                                 Statement primaryStatement) {
+        return (ResultSet) Proxy.newProxyInstance(
+                QueryHedger.class.getClassLoader(),
+                new Class[] {ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getStatement":
+                            return primaryStatement;
+                        case "close":
+                            if (!resultSet.isClosed()) {
+                                try {
+                                    resultSet.close();
+                                    statement.close();
+                                } finally {
+                                    releaseConnection(connection, true);
+                                }
+                            }
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(resultSet, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+
+    private class Hedge implements Runnable {
+        static final int NONE = 0;
+
+        static final int PRIMARY = 1;
+
+        static final int HEDGE = 2;
+
+        private final Statement primaryStatement;
+
+        private final HedgeQuery hedgeQuery;
+
+        private final HostSpec excludedHost;
+
+        private final CompletableFuture<ResultSet> result = new CompletableFuture<>();
+
+        private int winner = NONE;
+
+        private Statement statement;
+
+        private boolean cancelled;
+
+        Hedge(Statement primaryStatement, HedgeQuery hedgeQuery, HostSpec excludedHost) {
+            this.primaryStatement = primaryStatement;
+            this.hedgeQuery = hedgeQuery;
+            this.excludedHost = excludedHost;
+        }
+
+        synchronized boolean claim(int claimant) {
+            if (winner == NONE) {
+                winner = claimant;
+                return true;
+            }
+            return winner == claimant;
+        }
+
+        /**
+         * Claim the win for the hedge and cancel the primary query while holding the claim
+         * lock. The primary thread claims under the same lock once its query returns, so it
+         * can't return to the caller before the cancel request completed, and a late cancel
+         * can't hit the caller's next statement.
+         */
+        synchronized boolean claimAndCancelPrimary() {
+            if (!claim(HEDGE)) {
+                return false;
+            }
+            try {
+                primaryStatement.cancel();
+            } catch (SQLException e) {
+                logger.debug("Failed to cancel primary query: {}", e.toString());
+            }
+            return true;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (statement != null) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    logger.debug("Failed to cancel hedged query: {}", e.toString());
+                }
+            }
+        }
+
+        private synchronized boolean isDecided() {
+            return winner != NONE;
+        }
+
+        private synchronized boolean begin(Statement statement) {
+            if (winner != NONE) {
+                return false;
+            }
+            this.statement = statement;
+            return true;
+        }
+
+        ResultSet getResult() throws SQLException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for hedged query", e);
+            } catch (ExecutionException e) {
+                throw new SQLException("Hedged query failed", e.getCause());
+            }
+        }
+
+        @Override
+        public void run() {
+            Connection connection = null;
+            Statement statement = null;
+            boolean won = false;
+            try {
+                if (isDecided()) {
+                    return;
+                }
+                connection = acquireConnection(excludedHost);
+                statement = hedgeQuery.prepare(connection);
+                if (!begin(statement)) {
+                    return;
+                }
+
+                totalHedged.increment();
+
+                ResultSet resultSet = hedgeQuery.execute(statement);
+                if (claimAndCancelPrimary()) {
+                    won = true;
+                    totalHedgeWins.increment();
+                    // Publish only after the primary is cancelled
+                    result.complete(wrapResult(resultSet, statement, connection, primaryStatement));
+                } else {
+                    resultSet.close();
+                }
+            } catch (SQLException | RuntimeException e) {
+                logger.debug("Hedged query failed: {}", e.toString());
+            } finally {
+                if (!won) {
+                    if (statement != null) {
+                        try {
+                            statement.close();
+                        } catch (SQLException e) {
+                            // ignore
+                        }
+                    }
+                    if (connection != null) {
+                        // A late cancel request could hit the next query on the connection
+                        boolean reusable;
+                        synchronized (this) {
+                            reusable = !cancelled;
+                        }
+                        releaseConnection(connection, reusable);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package provides hedged execution of historical (AS OF SYSTEM TIME) read queries to cut tail latency.
+ */
+package io.cockroachdb.jdbc.hedge;
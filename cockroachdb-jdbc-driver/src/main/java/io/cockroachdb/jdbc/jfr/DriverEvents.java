@@ -0,0 +1,168 @@
+package io.cockroachdb.jdbc.jfr;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.metrics.DriverMetrics.StatementType;
+
+/**
+ * Entry point for emitting Java Flight Recorder events from the driver.
+ * <p>
+ * On JDK 11 and later the events are emitted through {@code jdk.jfr}, otherwise all methods
+ * are no-ops. Begin methods return null unless the event type is enabled in an active
+ * recording, so the cost when disabled is a single check and no allocation. Statement
+ * fingerprints and connection ids are only computed for events about to be committed.
+ */
+public final class DriverEvents {
+    private static final Logger logger = LoggerFactory.getLogger(DriverEvents.class);
+
+    private static final EventSink SINK = loadSink();
+
+    private static EventSink loadSink() {
+        try {
+            Class<?> type = Class.forName("io.cockroachdb.jdbc.jfr.JfrEventSink");
+            EventSink sink = (EventSink) type.getDeclaredConstructor().newInstance();
+            logger.debug("Flight recorder events available");
+            return sink;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            logger.debug("Flight recorder events not available: {}", e.toString());
+            return new NoOpEventSink();
+        }
+    }
+
+    private DriverEvents() {
+    }
+
+    /**
+     * @return true if events are emitted through Flight Recorder on this JVM
+     */
+    public static boolean isAvailable() {
+        return !(SINK instanceof NoOpEventSink);
+    }
+
+    public static Object beginStatement() {
+        return SINK.beginStatement();
+    }
+
+    public static void endStatement(Object event, Statement statement, StatementType type, String sql) {
+        if (event != null) {
+            long connectionId;
+            try {
+                connectionId = connectionId(statement.getConnection());
+            } catch (SQLException e) {
+                connectionId = 0;
+            }
+            SINK.endStatement(event, connectionId, type.name(), sql);
+        }
+    }
+
+    public static Object beginCommit() {
+        return SINK.beginCommit();
+    }
+
+    public static void endCommit(Object event, Connection connection) {
+        if (event != null) {
+            SINK.endCommit(event, connectionId(connection));
+        }
+    }
+
+    public static Object beginRollback() {
+        return SINK.beginRollback();
+    }
+
+    public static void endRollback(Object event, Connection connection) {
+        if (event != null) {
+            SINK.endRollback(event, connectionId(connection));
+        }
+    }
+
+    public static void retryAttempt(Connection connection, String method, int attempt,
+                                    SQLException reason, Duration backoff) {
+        SINK.retryAttempt(connectionId(connection), method, attempt, reason, backoff);
+    }
+
+    public static Object beginReconnect() {
+        return SINK.beginReconnect();
+    }
+
+    public static void endReconnect(Object event, Connection connection, int attempt) {
+        if (event != null) {
+            SINK.endReconnect(event, connectionId(connection), attempt);
+        }
+    }
+
+    public static Object beginChecksum() {
+        return SINK.beginChecksum();
+    }
+
+    public static void endChecksum(Object event, Connection connection, boolean match) {
+        if (event != null) {
+            SINK.endChecksum(event, connectionId(connection), match);
+        }
+    }
+
+    /**
+     * @param connection the physical connection, may be null
+     * @return identity of the connection, stable for its lifetime
+     */
+    public static long connectionId(Connection connection) {
+        return connection != null ? System.identityHashCode(connection) : 0;
+    }
+
+    private static class NoOpEventSink implements EventSink {
+        @Override
+        public Object beginStatement() {
+            return null;
+        }
+
+        @Override
+        public void endStatement(Object event, long connectionId, String statementType, String sql) {
+        }
+
+        @Override
+        public Object beginCommit() {
+            return null;
+        }
+
+        @Override
+        public void endCommit(Object event, long connectionId) {
+        }
+
+        @Override
+        public Object beginRollback() {
+            return null;
+        }
+
+        @Override
+        public void endRollback(Object event, long connectionId) {
+        }
+
+        @Override
+        public void retryAttempt(long connectionId, String method, int attempt, SQLException reason,
+                                 Duration backoff) {
+        }
+
+        @Override
+        public Object beginReconnect() {
+            return null;
+        }
+
+        @Override
+        public void endReconnect(Object event, long connectionId, int attempt) {
+        }
+
+        @Override
+        public Object beginChecksum() {
+            return null;
+        }
+
+        @Override
+        public void endChecksum(Object event, long connectionId, boolean match) {
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.cockroachdb.jdbc.jfr;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Receiver of driver events. Begin methods return an opaque event token, or null if the
+ * event type is disabled in which case the matching end method is never called.
+ */
+interface EventSink {
+    Object beginStatement();
+
+    void endStatement(Object event, long connectionId, String statementType, String sql);
+
+    Object beginCommit();
+
+    void endCommit(Object event, long connectionId);
+
+    Object beginRollback();
+
+    void endRollback(Object event, long connectionId);
+
+    void retryAttempt(long connectionId, String method, int attempt, SQLException reason, Duration backoff);
+
+    Object beginReconnect();
+
+    void endReconnect(Object event, long connectionId, int attempt);
+
+    Object beginChecksum();
+
+    void endChecksum(Object event, long connectionId, boolean match);
+}
@@ -0,0 +1,6 @@
+/**
+ * This package provides Java Flight Recorder events for statements, transactions and retries.
+ * The event classes are compiled against JDK 11 into the multi-release section of the jar and
+ * are loaded only when running on a JVM with Flight Recorder support.
+ */
+package io.cockroachdb.jdbc.jfr;
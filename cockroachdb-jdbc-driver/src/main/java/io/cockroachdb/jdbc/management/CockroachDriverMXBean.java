@@ -0,0 +1,93 @@
+package io.cockroachdb.jdbc.management;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing live driver state over JMX, registered under
+ * {@code io.cockroachdb.jdbc:type=CockroachDriver}.
+ * <p>
+ * Transaction and retry state is available only for connections with
+ * {@code retryTransientErrors} enabled.
+ */
+public interface CockroachDriverMXBean {
+    /**
+     * @return number of open connections, including side connections used for hedging and scans
+     */
+    int getOpenConnections();
+
+    /**
+     * @return number of connections with retries enabled
+     */
+    int getRetryConnections();
+
+    /**
+     * @return number of explicit transactions in progress
+     */
+    int getInFlightTransactions();
+
+    /**
+     * @return number of transactions currently in a retry attempt
+     */
+    int getRetryingTransactions();
+
+    /**
+     * @return the highest retry attempt currently in progress, or 0 if none
+     */
+    int getMaxCurrentRetryAttempt();
+
+    /**
+     * @return total number of method executions in transaction journals recorded for replay
+     */
+    long getJournalEntries();
+
+    /**
+     * @return estimated total bytes of transaction journals recorded for replay
+     */
+    long getJournalBytes();
+
+    /**
+     * @return the distinct effective retry strategy configurations of connections with retries enabled
+     */
+    String[] getRetryStrategies();
+
+    /**
+     * @return cumulative driver counters by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return summaries of driver latency histograms by name
+     */
+    Map<String, String> getLatencies();
+
+    /**
+     * @return statement statistics of the 10 fingerprints with the highest total execution time
+     */
+    String[] getTopStatements();
+
+    /**
+     * @param limit the max number of fingerprints
+     * @return statement statistics of the fingerprints with the highest total execution time
+     */
+    String[] topStatements(int limit);
+
+    /**
+     * @return contention statistics of the 10 contended keys with the highest total contention time
+     */
+    String[] getTopContention();
+
+    /**
+     * @return total contention time in nanoseconds by table, highest first
+     */
+    Map<String, Long> getHotTables();
+
+    /**
+     * Reset all cumulative counters, latency histograms, statement and contention statistics.
+     */
+    void resetCounters();
+
+    /**
+     * @return a description of each in-flight explicit transaction and its journal
+     */
+    String[] dumpTransactionHistories();
+}
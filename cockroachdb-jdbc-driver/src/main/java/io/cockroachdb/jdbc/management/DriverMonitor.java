@@ -0,0 +1,239 @@
+package io.cockroachdb.jdbc.management;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.metrics.ContentionStatistics;
+import io.cockroachdb.jdbc.metrics.ContentionStats;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
+import io.cockroachdb.jdbc.metrics.StatementStats;
+import io.cockroachdb.jdbc.retry.ConnectionRetryInterceptor;
+import io.cockroachdb.jdbc.retry.MethodExecution;
+
+/**
+ * Tracks live driver state and exposes it through the {@link CockroachDriverMXBean}
+ * management interface.
+ * <p>
+ * Connections with retries enabled are tracked weakly, so that connections never
+ * closed by the application are not retained.
+ */
+public class DriverMonitor implements CockroachDriverMXBean {
+    public static final String OBJECT_NAME = "io.cockroachdb.jdbc:type=CockroachDriver";
+
+    private static final int MAX_SQL_LENGTH = 256;
+
+    private static final int TOP_STATEMENTS = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverMonitor.class);
+
+    private static final DriverMonitor INSTANCE = new DriverMonitor();
+
+    public static DriverMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the driver MBean with the platform MBean server, unless already registered
+     * for example by another class loader.
+     */
+    public static void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            logger.debug("Registered MBean [{}]", OBJECT_NAME);
+        } catch (InstanceAlreadyExistsException e) {
+            logger.debug("MBean [{}] already registered", OBJECT_NAME);
+        } catch (JMException | RuntimeException | LinkageError e) {
+            logger.warn("Unable to register MBean [{}]: {}", OBJECT_NAME, e.toString());
+        }
+    }
+
+    public static void unregisterMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException | RuntimeException | LinkageError e) {
+            logger.warn("Unable to unregister MBean [{}]: {}", OBJECT_NAME, e.toString());
+        }
+    }
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    private final Map<ConnectionRetryInterceptor, Boolean> retryConnections
+            = Collections.synchronizedMap(new WeakHashMap<>());
+
+    protected DriverMonitor() {
+    }
+
+    public void connectionOpened() {
+        openConnections.incrementAndGet();
+    }
+
+    public void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    public void track(ConnectionRetryInterceptor interceptor) {
+        retryConnections.put(interceptor, Boolean.TRUE);
+    }
+
+    public void untrack(ConnectionRetryInterceptor interceptor) {
+        retryConnections.remove(interceptor);
+    }
+
+    private List<ConnectionRetryInterceptor> retryConnections() {
+        synchronized (retryConnections) {
+            return new ArrayList<>(retryConnections.keySet());
+        }
+    }
+
+    @Override
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    @Override
+    public int getRetryConnections() {
+        return retryConnections.size();
+    }
+
+    @Override
+    public int getInFlightTransactions() {
+        return (int) retryConnections().stream()
+                .filter(ConnectionRetryInterceptor::isInTransaction)
+                .count();
+    }
+
+    @Override
+    public int getRetryingTransactions() {
+        return (int) retryConnections().stream()
+                .filter(interceptor -> interceptor.getCurrentAttempt() > 0)
+                .count();
+    }
+
+    @Override
+    public int getMaxCurrentRetryAttempt() {
+        return retryConnections().stream()
+                .mapToInt(ConnectionRetryInterceptor::getCurrentAttempt)
+                .max()
+                .orElse(0);
+    }
+
+    @Override
+    public long getJournalEntries() {
+        return retryConnections().stream()
+                .mapToLong(ConnectionRetryInterceptor::getHistorySize)
+                .sum();
+    }
+
+    @Override
+    public long getJournalBytes() {
+        return retryConnections().stream()
+                .mapToLong(ConnectionRetryInterceptor::getHistoryBytes)
+                .sum();
+    }
+
+    @Override
+    public String[] getRetryStrategies() {
+        Set<String> descriptions = new LinkedHashSet<>();
+        for (ConnectionRetryInterceptor interceptor : retryConnections()) {
+            descriptions.add(interceptor.getRetryStrategy().getDescription());
+        }
+        return descriptions.toArray(new String[0]);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return DriverMetrics.getRegistry().getCounters();
+    }
+
+    @Override
+    public Map<String, String> getLatencies() {
+        Map<String, String> latencies = new TreeMap<>();
+        DriverMetrics.getRegistry().getHistograms()
+                .forEach((name, histogram) -> latencies.put(name, histogram.toString()));
+        return latencies;
+    }
+
+    @Override
+    public String[] getTopStatements() {
+        return topStatements(TOP_STATEMENTS);
+    }
+
+    @Override
+    public String[] topStatements(int limit) {
+        return StatementStatistics.getInstance().getTopByTotalTime(limit).stream()
+                .map(StatementStats::toString)
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getTopContention() {
+        return ContentionStatistics.getInstance().getTopByContentionTime(TOP_STATEMENTS).stream()
+                .map(ContentionStats::toString)
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public Map<String, Long> getHotTables() {
+        return ContentionStatistics.getInstance().getHotTables();
+    }
+
+    @Override
+    public void resetCounters() {
+        DriverMetrics.getRegistry().reset();
+        StatementStatistics.getInstance().reset();
+        ContentionStatistics.getInstance().reset();
+        logger.info("Driver counters reset");
+    }
+
+    @Override
+    public String[] dumpTransactionHistories() {
+        List<String> dumps = new ArrayList<>();
+        for (ConnectionRetryInterceptor interceptor : retryConnections()) {
+            if (!interceptor.isInTransaction()) {
+                continue;
+            }
+            List<MethodExecution> history = interceptor.getHistory();
+
+            StringBuilder sb = new StringBuilder()
+                    .append(interceptor.getDelegate().toString())
+                    .append(" attempt=").append(interceptor.getCurrentAttempt())
+                    .append(" entries=").append(history.size())
+                    .append(" bytes=").append(interceptor.getHistoryBytes());
+
+            int no = 0;
+            for (MethodExecution methodExecution : history) {
+                sb.append("\n\t[").append(no++).append("] ").append(methodExecution.getMethod().getName());
+                Object[] args = methodExecution.getMethodArgs();
+                if (args != null && args.length > 0 && args[0] instanceof String) {
+                    String sql = (String) args[0];
+                    sb.append(": ").append(sql.length() > MAX_SQL_LENGTH
+                            ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql);
+                }
+            }
+            dumps.add(sb.toString());
+        }
+        return dumps.toArray(new String[0]);
+    }
+}
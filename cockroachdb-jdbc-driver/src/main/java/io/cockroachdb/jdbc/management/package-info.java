@@ -0,0 +1,4 @@
+/**
+ * This package provides JMX management of live driver state.
+ */
+package io.cockroachdb.jdbc.management;
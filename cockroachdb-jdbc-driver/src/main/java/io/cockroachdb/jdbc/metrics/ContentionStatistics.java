@@ -0,0 +1,114 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * Contention events aggregated by blocking transaction fingerprint and contended key,
+ * forming a hot key and hot table report of the contention driving transaction retries.
+ * <p>
+ * The number of contended keys is bounded, with events beyond the limit aggregated per
+ * blocking fingerprint and table under the {@link #OTHER_KEY} key.
+ * <p>
+ * Example usage:
+ * <pre>
+ * for (ContentionStats stats : ContentionStatistics.getInstance().getTopByContentionTime(10)) {
+ *     System.out.println(stats);
+ * }
+ * </pre>
+ */
+public class ContentionStatistics {
+    public static final String OTHER_KEY = "<other>";
+
+    private static final ContentionStatistics INSTANCE = new ContentionStatistics(1024);
+
+    /**
+     * @return driver-wide contention statistics shared by all connections in the class loader
+     */
+    public static ContentionStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    private final ConcurrentMap<String, ContentionStats> statsByKey = new ConcurrentHashMap<>();
+
+    private final int maxKeys;
+
+    public ContentionStatistics(int maxKeys) {
+        Assert.isTrue(maxKeys > 0, "maxKeys must be > 0");
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Record a contention event.
+     *
+     * @param blockingFingerprint the transaction fingerprint id of the blocking transaction
+     * @param table the qualified name of the contended table
+     * @param index the contended index
+     * @param key the pretty printed contended key
+     * @param contentionNanos the time the waiting transaction was blocked
+     */
+    public void record(String blockingFingerprint, String table, String index, String key, long contentionNanos) {
+        String id = blockingFingerprint + "|" + table + "|" + index + "|" + key;
+        ContentionStats stats = statsByKey.get(id);
+        if (stats == null) {
+            if (statsByKey.size() >= maxKeys) {
+                id = blockingFingerprint + "|" + table + "|" + index + "|" + OTHER_KEY;
+                stats = statsByKey.computeIfAbsent(id,
+                        k -> new ContentionStats(blockingFingerprint, table, index, OTHER_KEY));
+            } else {
+                stats = statsByKey.computeIfAbsent(id,
+                        k -> new ContentionStats(blockingFingerprint, table, index, key));
+            }
+        }
+        stats.recordEvent(contentionNanos);
+    }
+
+    /**
+     * @return the statistics of all contended keys, in no particular order
+     */
+    public List<ContentionStats> getContendedKeys() {
+        return new ArrayList<>(statsByKey.values());
+    }
+
+    /**
+     * @param limit the max number of keys
+     * @return the statistics of the keys with the highest total contention time
+     */
+    public List<ContentionStats> getTopByContentionTime(int limit) {
+        List<ContentionStats> keys = getContendedKeys();
+        // Sort on a snapshot since totals change concurrently
+        Map<ContentionStats, Long> contentionTimes = new IdentityHashMap<>();
+        keys.forEach(stats -> contentionTimes.put(stats, stats.getContentionTime()));
+        keys.sort(Comparator.comparing(contentionTimes::get, Comparator.reverseOrder()));
+        return keys.size() > limit ? new ArrayList<>(keys.subList(0, limit)) : keys;
+    }
+
+    /**
+     * @return total contention time in nanoseconds by table, highest first
+     */
+    public Map<String, Long> getHotTables() {
+        Map<String, Long> contentionTimes = new LinkedHashMap<>();
+        getContendedKeys().forEach(stats -> contentionTimes.merge(stats.getTable(), stats.getContentionTime(),
+                Long::sum));
+        Map<String, Long> hotTables = new LinkedHashMap<>();
+        contentionTimes.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .forEach(entry -> hotTables.put(entry.getKey(), entry.getValue()));
+        return hotTables;
+    }
+
+    /**
+     * Reset all statistics.
+     */
+    public void reset() {
+        statsByKey.clear();
+    }
+}
@@ -0,0 +1,84 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative contention statistics for a single contended key, attributed to the
+ * fingerprint of the blocking transaction. All counters are safe for concurrent updates.
+ */
+public class ContentionStats {
+    private final String blockingFingerprint;
+
+    private final String table;
+
+    private final String index;
+
+    private final String key;
+
+    private final LongAdder events = new LongAdder();
+
+    private final LongAdder contentionTime = new LongAdder();
+
+    public ContentionStats(String blockingFingerprint, String table, String index, String key) {
+        this.blockingFingerprint = blockingFingerprint;
+        this.table = table;
+        this.index = index;
+        this.key = key;
+    }
+
+    /**
+     * @return the transaction fingerprint id (hex) of the blocking transaction
+     */
+    public String getBlockingFingerprint() {
+        return blockingFingerprint;
+    }
+
+    /**
+     * @return the qualified name of the contended table
+     */
+    public String getTable() {
+        return table;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the pretty printed contended key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return number of contention events
+     */
+    public long getEvents() {
+        return events.sum();
+    }
+
+    /**
+     * @return total time in nanoseconds waiting transactions were blocked
+     */
+    public long getContentionTime() {
+        return contentionTime.sum();
+    }
+
+    void recordEvent(long contentionNanos) {
+        events.increment();
+        contentionTime.add(contentionNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentionStats{" +
+                "blockingFingerprint='" + blockingFingerprint + '\'' +
+                ", table='" + table + '\'' +
+                ", index='" + index + '\'' +
+                ", key='" + key + '\'' +
+                ", events=" + getEvents() +
+                ", contentionTime=" + getContentionTime() +
+                '}';
+    }
+}
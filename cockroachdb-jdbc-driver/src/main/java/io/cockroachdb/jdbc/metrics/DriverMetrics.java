@@ -0,0 +1,199 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Driver-wide metrics shared by all connections in the class loader. Latencies are
+ * recorded in nanoseconds.
+ * <p>
+ * Example usage:
+ * <pre>
+ * MetricsRegistry registry = DriverMetrics.getRegistry();
+ * long retries = registry.getCounters().get(DriverMetrics.RETRY_ATTEMPTS);
+ * long p99 = registry.histogram(DriverMetrics.STATEMENT_QUERY).getValueAtPercentile(.99);
+ * </pre>
+ */
+public final class DriverMetrics {
+    /**
+     * The type of statement execution.
+     */
+    public enum StatementType {
+        QUERY(STATEMENT_QUERY),
+        UPDATE(STATEMENT_UPDATE),
+        BATCH(STATEMENT_BATCH),
+        EXECUTE(STATEMENT_EXECUTE);
+
+        private final String metricName;
+
+        StatementType(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    /**
+     * Latency of {@code executeQuery} calls.
+     */
+    public static final String STATEMENT_QUERY = "statement.query";
+
+    /**
+     * Latency of {@code executeUpdate} and {@code executeLargeUpdate} calls.
+     */
+    public static final String STATEMENT_UPDATE = "statement.update";
+
+    /**
+     * Latency of {@code executeBatch} and {@code executeLargeBatch} calls.
+     */
+    public static final String STATEMENT_BATCH = "statement.batch";
+
+    /**
+     * Latency of {@code execute} calls.
+     */
+    public static final String STATEMENT_EXECUTE = "statement.execute";
+
+    /**
+     * Latency of commits, per attempt.
+     */
+    public static final String TRANSACTION_COMMIT = "transaction.commit";
+
+    /**
+     * Number of transaction retry attempts.
+     */
+    public static final String RETRY_ATTEMPTS = "retry.attempts";
+
+    /**
+     * Number of transaction retry attempts that succeeded.
+     */
+    public static final String RETRY_SUCCESSES = "retry.successes";
+
+    /**
+     * Number of transaction retry attempts that failed.
+     */
+    public static final String RETRY_FAILURES = "retry.failures";
+
+    /**
+     * Number of transactions that gave up after too many retry attempts.
+     */
+    public static final String RETRY_EXHAUSTED = "retry.exhausted";
+
+    /**
+     * Backoff delay before each retry attempt.
+     */
+    public static final String RETRY_BACKOFF = "retry.backoff";
+
+    /**
+     * Time spent replaying the transaction history in each retry attempt.
+     */
+    public static final String RETRY_REPLAY = "retry.replay";
+
+    /**
+     * Number of retry attempts failing due to a result set checksum mismatch.
+     */
+    public static final String RETRY_CHECKSUM_MISMATCHES = "retry.checksum.mismatches";
+
+    /**
+     * Number of connections re-opened for retry attempts.
+     */
+    public static final String RETRY_RECONNECTS = "retry.reconnects";
+
+    /**
+     * Estimated bytes of method arguments recorded in transaction histories for replay.
+     */
+    public static final String RETRY_HISTORY_BYTES = "retry.history.bytes";
+
+    /**
+     * Number of executions of statements planned with a full scan of a large table.
+     */
+    public static final String GUARDRAIL_FULL_SCANS = "guardrail.full.scans";
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static final LatencyHistogram[] STATEMENT_LATENCIES = new LatencyHistogram[StatementType.values().length];
+
+    private static final LatencyHistogram COMMIT_LATENCY = REGISTRY.histogram(TRANSACTION_COMMIT);
+
+    private static final LatencyHistogram BACKOFF = REGISTRY.histogram(RETRY_BACKOFF);
+
+    private static final LatencyHistogram REPLAY = REGISTRY.histogram(RETRY_REPLAY);
+
+    private static final LongAdder ATTEMPTS = REGISTRY.counter(RETRY_ATTEMPTS);
+
+    private static final LongAdder SUCCESSES = REGISTRY.counter(RETRY_SUCCESSES);
+
+    private static final LongAdder FAILURES = REGISTRY.counter(RETRY_FAILURES);
+
+    private static final LongAdder EXHAUSTED = REGISTRY.counter(RETRY_EXHAUSTED);
+
+    private static final LongAdder CHECKSUM_MISMATCHES = REGISTRY.counter(RETRY_CHECKSUM_MISMATCHES);
+
+    private static final LongAdder RECONNECTS = REGISTRY.counter(RETRY_RECONNECTS);
+
+    private static final LongAdder HISTORY_BYTES = REGISTRY.counter(RETRY_HISTORY_BYTES);
+
+    private static final LongAdder FULL_SCANS = REGISTRY.counter(GUARDRAIL_FULL_SCANS);
+
+    static {
+        for (StatementType type : StatementType.values()) {
+            STATEMENT_LATENCIES[type.ordinal()] = REGISTRY.histogram(type.getMetricName());
+        }
+    }
+
+    private DriverMetrics() {
+    }
+
+    /**
+     * @return the driver-wide metrics registry
+     */
+    public static MetricsRegistry getRegistry() {
+        return REGISTRY;
+    }
+
+    public static void recordStatement(StatementType type, long startNanos) {
+        STATEMENT_LATENCIES[type.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public static void recordCommit(long startNanos) {
+        COMMIT_LATENCY.record(System.nanoTime() - startNanos);
+    }
+
+    public static void recordRetryAttempt(Duration backoffDelay) {
+        ATTEMPTS.increment();
+        BACKOFF.record(backoffDelay);
+    }
+
+    public static void recordRetryOutcome(boolean success) {
+        if (success) {
+            SUCCESSES.increment();
+        } else {
+            FAILURES.increment();
+        }
+    }
+
+    public static void recordRetriesExhausted() {
+        EXHAUSTED.increment();
+    }
+
+    public static void recordReplay(long startNanos) {
+        REPLAY.record(System.nanoTime() - startNanos);
+    }
+
+    public static void recordChecksumMismatch() {
+        CHECKSUM_MISMATCHES.increment();
+    }
+
+    public static void recordReconnect() {
+        RECONNECTS.increment();
+    }
+
+    public static void recordHistoryBytes(long bytes) {
+        HISTORY_BYTES.add(bytes);
+    }
+
+    public static void recordFullScan() {
+        FULL_SCANS.increment();
+    }
+}
@@ -0,0 +1,70 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * A registry of named counters and latency histograms. Metrics are created on first
+ * access and live for the lifetime of the registry.
+ */
+public class MetricsRegistry {
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @param name the counter name
+     * @return the counter with the given name, created if missing
+     */
+    public LongAdder counter(String name) {
+        Assert.hasText(name, "name is null");
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * @param name the histogram name
+     * @return the histogram with the given name, created if missing
+     */
+    public LatencyHistogram histogram(String name) {
+        Assert.hasText(name, "name is null");
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * @return a snapshot of all counter values by name, in name order
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @return all histograms by name, in name order
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * Reset all counters and histograms to zero.
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsRegistry{" +
+                "counters=" + getCounters() +
+                ", histograms=" + getHistograms() +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * Binds the driver metrics to a Micrometer meter registry. Counters are exposed as function
+ * counters and histograms as function timers, together with max and percentile time gauges.
+ * Meters are read from the driver metrics when the meter registry is scraped.
+ * <p>
+ * Micrometer is an optional dependency and must be on the classpath to use this class.
+ * <p>
+ * Example usage:
+ * <pre>
+ * new MicrometerMetricsBinder().bindTo(meterRegistry);
+ * </pre>
+ */
+public class MicrometerMetricsBinder implements MeterBinder {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final String prefix;
+
+    public MicrometerMetricsBinder() {
+        this(DriverMetrics.getRegistry(), "cockroachdb.jdbc.");
+    }
+
+    /**
+     * @param metricsRegistry the metrics to bind
+     * @param prefix the prefix of the meter names, like {@code cockroachdb.jdbc.}
+     */
+    public MicrometerMetricsBinder(MetricsRegistry metricsRegistry, String prefix) {
+        Assert.notNull(metricsRegistry, "metricsRegistry is null");
+        Assert.notNull(prefix, "prefix is null");
+        this.metricsRegistry = metricsRegistry;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String name : metricsRegistry.getCounters().keySet()) {
+            FunctionCounter.builder(prefix + name, metricsRegistry.counter(name), LongAdder::sum)
+                    .register(registry);
+        }
+
+        for (Map.Entry<String, LatencyHistogram> entry : metricsRegistry.getHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+
+            FunctionTimer.builder(prefix + entry.getKey(), histogram,
+                            LatencyHistogram::getCount, LatencyHistogram::getTotal, TimeUnit.NANOSECONDS)
+                    .register(registry);
+
+            TimeGauge.builder(prefix + entry.getKey() + ".max", histogram,
+                            TimeUnit.NANOSECONDS, LatencyHistogram::getMax)
+                    .register(registry);
+
+            for (double percentile : PERCENTILES) {
+                TimeGauge.builder(prefix + entry.getKey() + ".percentile", histogram,
+                                TimeUnit.NANOSECONDS, h -> h.getValueAtPercentile(percentile))
+                        .tag("phi", String.valueOf(percentile))
+                        .register(registry);
+            }
+        }
+    }
+}
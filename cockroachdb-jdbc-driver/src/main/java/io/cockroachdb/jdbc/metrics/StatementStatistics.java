@@ -0,0 +1,163 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+import io.cockroachdb.jdbc.util.SqlUtils;
+
+/**
+ * Client-side statement statistics aggregated by SQL fingerprint, similar to
+ * {@code pg_stat_statements} but measured at the driver including network round trips.
+ * <p>
+ * SQL strings are normalized into fingerprints through the bounded {@link SqlFingerprints}
+ * cache, so that recording a recently seen statement is a few map lookups followed by
+ * counter updates. The number of
+ * fingerprints is bounded, with statements beyond the limit aggregated under
+ * {@link #OTHER_FINGERPRINT}.
+ * <p>
+ * Example usage:
+ * <pre>
+ * for (StatementStats stats : StatementStatistics.getInstance().getTopByTotalTime(10)) {
+ *     System.out.println(stats);
+ * }
+ * </pre>
+ */
+public class StatementStatistics {
+    public static final String OTHER_FINGERPRINT = "<other>";
+
+    /**
+     * Pseudo statement under which commits are aggregated.
+     */
+    public static final String COMMIT = "COMMIT";
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+
+    private static final StatementStatistics INSTANCE = new StatementStatistics(1024);
+
+    /**
+     * @return driver-wide statement statistics shared by all connections in the class loader
+     */
+    public static StatementStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    private final ConcurrentMap<String, StatementStats> statsByFingerprint = new ConcurrentHashMap<>();
+
+    private final StatementStats other = new StatementStats(OTHER_FINGERPRINT);
+
+    private final int maxFingerprints;
+
+    public StatementStatistics(int maxFingerprints) {
+        Assert.isTrue(maxFingerprints > 0, "maxFingerprints must be > 0");
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * @param sql the SQL statement, may be null for statements without SQL text such as plain batches
+     * @return the statistics of the statement fingerprint
+     */
+    public StatementStats statsOf(String sql) {
+        if (sql == null) {
+            return other;
+        }
+        String fingerprint = SqlFingerprints.fingerprintOf(SqlFingerprints.idOf(sql));
+        if (fingerprint == null) {
+            // Evicted concurrently
+            fingerprint = SqlUtils.fingerprint(SqlUtils.stripTrailingComment(sql));
+        }
+        StatementStats stats = statsByFingerprint.get(fingerprint);
+        if (stats == null) {
+            if (statsByFingerprint.size() >= maxFingerprints) {
+                return other;
+            }
+            stats = statsByFingerprint.computeIfAbsent(fingerprint, StatementStats::new);
+        }
+        return stats;
+    }
+
+    /**
+     * Record a statement execution.
+     *
+     * @param sql the SQL statement
+     * @param durationNanos the execution time
+     * @param rows the rows affected, or 0 if not known
+     * @param bytes the estimated bytes sent
+     * @param error the exception thrown, or null if successful
+     * @return the statistics of the statement fingerprint
+     */
+    public StatementStats record(String sql, long durationNanos, long rows, long bytes, SQLException error) {
+        StatementStats stats = statsOf(sql);
+        stats.recordExecution(durationNanos, rows, bytes, error != null,
+                error != null && SERIALIZATION_FAILURE.equals(error.getSQLState()));
+        return stats;
+    }
+
+    /**
+     * @param result the result of a statement execution
+     * @return rows affected by an update or batch, otherwise 0
+     */
+    public static long rowsOf(Object result) {
+        long rows = 0;
+        if (result instanceof Integer || result instanceof Long) {
+            rows = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return Math.max(rows, 0);
+    }
+
+    /**
+     * Record a transaction retry attempt caused by a statement.
+     *
+     * @param sql the SQL statement
+     */
+    public void recordRetry(String sql) {
+        statsOf(sql).recordRetry();
+    }
+
+    /**
+     * @return the statistics of all fingerprints, in no particular order
+     */
+    public List<StatementStats> getStatements() {
+        List<StatementStats> statements = new ArrayList<>(statsByFingerprint.values());
+        if (other.getCalls() > 0 || other.getRetries() > 0) {
+            statements.add(other);
+        }
+        return statements;
+    }
+
+    /**
+     * @param limit the max number of fingerprints
+     * @return the statistics of the fingerprints with the highest total execution time
+     */
+    public List<StatementStats> getTopByTotalTime(int limit) {
+        List<StatementStats> statements = getStatements();
+        // Sort on a snapshot since totals change concurrently
+        Map<StatementStats, Long> totalTimes = new IdentityHashMap<>();
+        statements.forEach(stats -> totalTimes.put(stats, stats.getTotalTime()));
+        statements.sort(Comparator.comparing(totalTimes::get, Comparator.reverseOrder()));
+        return statements.size() > limit ? new ArrayList<>(statements.subList(0, limit)) : statements;
+    }
+
+    /**
+     * Reset all statistics and forget the fingerprints.
+     */
+    public void reset() {
+        statsByFingerprint.clear();
+        other.reset();
+    }
+}
@@ -0,0 +1,140 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative client-side statistics for a single SQL fingerprint. All counters are
+ * safe for concurrent updates.
+ */
+public class StatementStats {
+    private final String fingerprint;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder serializationFailures = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public StatementStats(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return the normalized SQL shared by all statements aggregated here
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return number of executions failing with a serialization failure (40001)
+     */
+    public long getSerializationFailures() {
+        return serializationFailures.sum();
+    }
+
+    /**
+     * @return number of transaction retry attempts caused by this statement
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return number of rows affected by updates and batches, or read from query results
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * @return estimated bytes of SQL text and string or binary parameters sent
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return total execution time in nanoseconds
+     */
+    public long getTotalTime() {
+        return latency.getTotal();
+    }
+
+    /**
+     * @return execution latencies in nanoseconds
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the counter of rows, incremented by result sets as rows are read
+     */
+    public LongAdder getRowCounter() {
+        return rows;
+    }
+
+    void recordExecution(long durationNanos, long rows, long bytes, boolean error, boolean serializationFailure) {
+        this.calls.increment();
+        this.latency.record(durationNanos);
+        if (rows > 0) {
+            this.rows.add(rows);
+        }
+        if (bytes > 0) {
+            this.bytes.add(bytes);
+        }
+        if (error) {
+            this.errors.increment();
+        }
+        if (serializationFailure) {
+            this.serializationFailures.increment();
+        }
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void reset() {
+        calls.reset();
+        errors.reset();
+        serializationFailures.reset();
+        retries.reset();
+        rows.reset();
+        bytes.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "StatementStats{" +
+                "fingerprint='" + fingerprint + '\'' +
+                ", calls=" + getCalls() +
+                ", totalTime=" + getTotalTime() +
+                ", mean=" + (long) latency.getMean() +
+                ", p99=" + latency.getValueAtPercentile(.99) +
+                ", rows=" + getRows() +
+                ", bytes=" + getBytes() +
+                ", errors=" + getErrors() +
+                ", serializationFailures=" + getSerializationFailures() +
+                ", retries=" + getRetries() +
+                '}';
+    }
+}
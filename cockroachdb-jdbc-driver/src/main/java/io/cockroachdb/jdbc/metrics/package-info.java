@@ -0,0 +1,4 @@
+/**
+ * This package provides driver-wide metrics with a pull API and an optional Micrometer bridge.
+ */
+package io.cockroachdb.jdbc.metrics;
@@ -0,0 +1,240 @@
+package io.cockroachdb.jdbc.pipeline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.postgresql.util.PSQLState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.CockroachConnection;
+import io.cockroachdb.jdbc.query.QueryProcessor;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.SqlUtils;
+
+/**
+ * Queues independent statements and sends them to the server in a single round trip
+ * when synced, completing one future per statement.
+ * <p>
+ * The queued statements are executed as one multi-statement prepared statement, which
+ * the pgjdbc delegate sends as consecutive Parse/Bind/Execute messages followed by a
+ * single Sync. The statements are thereby executed in the same (implicit or explicit)
+ * transaction, in order, and a failing statement fails all statements after it.
+ * <p>
+ * When created on a connection with driver-level retries enabled, the pipelined statement
+ * and the result set reads are recorded in the retry journal and replayed like any other
+ * statement. Query results are extracted while syncing, so the extractors must not retain
+ * the {@code ResultSet}.
+ * <p>
+ * Not thread safe.
+ */
+public class Pipeline implements AutoCloseable {
+    /**
+     * Callback for mapping a query result set to a value.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface ResultSetExtractor<T> {
+        T extract(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Create a pipeline on the given connection. To have pipelined statements take
+     * part in driver-level retries, pass the connection obtained from the driver or
+     * datasource rather than an unwrapped {@link CockroachConnection}.
+     *
+     * @param connection the connection to pipeline statements on
+     * @return a new pipeline
+     */
+    /**
+     * Leading comment of pipelined multi-statement queries. The statements are run through
+     * the query processor one by one when synced, and a {@link CockroachConnection} prepares
+     * queries starting with this comment as-is rather than processing them again.
+     */
+    public static final String PIPELINE_COMMENT = "/* pipeline */\n";
+
+        public static Pipeline of(Connection connection) {
+        return new Pipeline(connection);
+    }
+
+    private static class Entry<T> {
+        final String sql;
+
+        final Object[] parameters;
+
+        final ResultSetExtractor<T> extractor;
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Entry(String sql, Object[] parameters, ResultSetExtractor<T> extractor) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.extractor = extractor;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Connection connection;
+
+    private final List<Entry<?>> entries = new ArrayList<>();
+
+    public Pipeline(Connection connection) {
+        Assert.notNull(connection, "connection is null");
+        this.connection = connection;
+    }
+
+    /**
+     * Queue a query for execution.
+     *
+     * @param sql the query with {@code ?} placeholders
+     * @param extractor the result set mapper, invoked when synced
+     * @param parameters the parameter values
+     * @param <T> the result type
+     * @return future completing with the extracted value when synced
+     */
+    public <T> CompletableFuture<T> executeQuery(String sql, ResultSetExtractor<T> extractor, Object... parameters) {
+        Assert.notNull(extractor, "extractor is null");
+        return add(new Entry<>(sql, parameters, extractor));
+    }
+
+    /**
+     * Queue a DML or DDL statement for execution.
+     *
+     * @param sql the statement with {@code ?} placeholders
+     * @param parameters the parameter values
+     * @return future completing with the update count when synced
+     */
+    public CompletableFuture<Integer> executeUpdate(String sql, Object... parameters) {
+        return add(new Entry<>(sql, parameters, null));
+    }
+
+    /**
+     * @return number of queued statements not yet synced
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private <T> CompletableFuture<T> add(Entry<T> entry) {
+        Assert.hasText(entry.sql, "sql is empty");
+        int placeholders = SqlUtils.countPlaceholders(entry.sql);
+        int parameters = entry.parameters != null ? entry.parameters.length : 0;
+        if (placeholders != parameters) {
+            throw new IllegalArgumentException("Expected " + placeholders
+                    + " parameters but got " + parameters + " for: " + entry.sql);
+        }
+        entries.add(entry);
+        return entry.future;
+    }
+
+    /**
+     * Send all queued statements in one round trip and complete their futures.
+     *
+     * @throws SQLException on statement failure, after failing the futures of the
+     * failed statement and all statements queued after it
+     */
+    public void sync() throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        final List<Entry<?>> batch = new ArrayList<>(entries);
+        entries.clear();
+
+        int completed = 0;
+        try {
+            String sql = toSQL(batch);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (Entry<?> entry : batch) {
+                    if (entry.parameters != null) {
+                        for (Object parameter : entry.parameters) {
+                            ps.setObject(index++, parameter);
+                        }
+                    }
+                }
+
+                boolean isResultSet = ps.execute();
+
+                for (Entry<?> entry : batch) {
+                    if (completed > 0) {
+                        isResultSet = ps.getMoreResults();
+                    }
+                    complete(ps, entry, isResultSet);
+                    completed++;
+                }
+            }
+            logger.trace("Synced pipeline of [{}] statements", batch.size());
+        } catch (SQLException | RuntimeException e) {
+            for (int i = completed; i < batch.size(); i++) {
+                batch.get(i).future.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private <T> void complete(PreparedStatement ps, Entry<T> entry, boolean isResultSet)
+            throws SQLException {
+        if (entry.extractor != null) {
+            if (!isResultSet) {
+                entry.future.completeExceptionally(new SQLException(
+                        "Query did not return a result set: " + entry.sql, PSQLState.NO_DATA.getState()));
+                return;
+            }
+            try (ResultSet resultSet = ps.getResultSet()) {
+                entry.future.complete(entry.extractor.extract(resultSet));
+            }
+        } else {
+            @SuppressWarnings("unchecked")
+            CompletableFuture<Integer> future = (CompletableFuture<Integer>) entry.future;
+            if (isResultSet) {
+                ps.getResultSet().close();
+                future.complete(0);
+            } else {
+                future.complete(ps.getUpdateCount());
+            }
+        }
+    }
+
+    private String toSQL(List<Entry<?>> batch) throws SQLException {
+        CockroachConnection cockroachConnection = connection.isWrapperFor(CockroachConnection.class)
+                ? connection.unwrap(CockroachConnection.class) : null;
+        QueryProcessor queryProcessor = cockroachConnection != null
+                ? cockroachConnection.getConnectionSettings().getQueryProcessor()
+                : QueryProcessor.PASS_THROUGH;
+
+        StringBuilder sb = new StringBuilder(PIPELINE_COMMENT);
+        for (Entry<?> entry : batch) {
+            // Rewrite each statement individually since query processors expect a single statement
+            String sql = queryProcessor.processQuery(cockroachConnection, stripTerminator(entry.sql));
+            if (sb.length() > PIPELINE_COMMENT.length()) {
+                sb.append(";\n");
+            }
+            sb.append(stripTerminator(sql));
+        }
+        return sb.toString();
+    }
+
+    private static String stripTerminator(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * Sync any queued statements.
+     */
+    @Override
+    public void close() throws SQLException {
+        sync();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package provides pipelined execution of multiple statements in a single round trip.
+ */
+package io.cockroachdb.jdbc.pipeline;
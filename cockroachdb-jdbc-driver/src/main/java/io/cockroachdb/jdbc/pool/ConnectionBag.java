@@ -0,0 +1,178 @@
+package io.cockroachdb.jdbc.pool;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free collection of pool entries, where borrow and return on the hot path
+ * are a CAS on the entry state.
+ * <p>
+ * Returned entries are first offered to waiting threads through a direct handoff and
+ * otherwise remembered in a thread-local list, so that a thread tends to get back the
+ * connection it last used. Entries remembered by other threads can still be stolen
+ * through a scan of the shared list.
+ */
+final class ConnectionBag {
+    private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+    private final CopyOnWriteArrayList<PoolEntry> sharedList = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<List<WeakReference<PoolEntry>>> threadList
+            = ThreadLocal.withInitial(() -> new ArrayList<>(MAX_THREAD_LOCAL_ENTRIES));
+
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /**
+     * Borrow an idle entry without blocking.
+     *
+     * @return an entry in use or null if none is idle
+     */
+    PoolEntry poll() {
+        List<WeakReference<PoolEntry>> list = threadList.get();
+        for (int i = list.size() - 1; i >= 0; i--) {
+            PoolEntry entry = list.remove(i).get();
+            if (entry != null && entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                return entry;
+            }
+        }
+        return scan();
+    }
+
+    private PoolEntry scan() {
+        for (PoolEntry entry : sharedList) {
+            if (entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait for an entry to be returned or added.
+     *
+     * @param timeoutNanos max time to wait
+     * @return an entry in use or null on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    PoolEntry await(long timeoutNanos) throws InterruptedException {
+        waiters.incrementAndGet();
+        try {
+            // Scan again since an entry may have been returned before we registered as waiter
+            PoolEntry entry = scan();
+            if (entry != null) {
+                return entry;
+            }
+
+            final long deadline = System.nanoTime() + timeoutNanos;
+            do {
+                entry = handoffQueue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (entry == null
+                        || entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                    return entry;
+                }
+                timeoutNanos = deadline - System.nanoTime();
+            } while (timeoutNanos > 10_000);
+
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Return a borrowed or reserved entry.
+     *
+     * @param entry the entry
+     */
+    void requite(PoolEntry entry) {
+        entry.setState(PoolEntry.STATE_NOT_IN_USE);
+
+        for (int i = 0; waiters.get() > 0; i++) {
+            if (entry.getState() != PoolEntry.STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+                return;
+            } else if ((i & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+
+        List<WeakReference<PoolEntry>> list = threadList.get();
+        if (list.size() < MAX_THREAD_LOCAL_ENTRIES) {
+            list.add(new WeakReference<>(entry));
+        }
+    }
+
+    /**
+     * Add a new entry in use by the caller.
+     *
+     * @param entry the entry
+     */
+    void add(PoolEntry entry) {
+        sharedList.add(entry);
+    }
+
+    /**
+     * Add a new idle entry, handing it off to a waiting thread if any.
+     *
+     * @param entry the entry
+     */
+    void addIdle(PoolEntry entry) {
+        sharedList.add(entry);
+        requite(entry);
+    }
+
+    /**
+     * Remove a borrowed or reserved entry.
+     *
+     * @param entry the entry
+     * @return true if removed
+     */
+    boolean remove(PoolEntry entry) {
+        if (!entry.compareAndSet(PoolEntry.STATE_IN_USE, PoolEntry.STATE_REMOVED)
+                && !entry.compareAndSet(PoolEntry.STATE_RESERVED, PoolEntry.STATE_REMOVED)) {
+            return false;
+        }
+        return sharedList.remove(entry);
+    }
+
+    /**
+     * Reserve an idle entry for housekeeping, making it unavailable for borrowing.
+     *
+     * @param entry the entry
+     * @return true if reserved
+     */
+    boolean reserve(PoolEntry entry) {
+        return entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_RESERVED);
+    }
+
+    List<PoolEntry> values() {
+        return new ArrayList<>(sharedList);
+    }
+
+    int size() {
+        return sharedList.size();
+    }
+
+    int getCount(int state) {
+        int count = 0;
+        for (PoolEntry entry : sharedList) {
+            if (entry.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getWaiters() {
+        return waiters.get();
+    }
+}
@@ -0,0 +1,378 @@
+package io.cockroachdb.jdbc.pool;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.postgresql.util.PSQLState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.CockroachConnection;
+import io.cockroachdb.jdbc.ConnectionClosedException;
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.cluster.ClusterTopology;
+import io.cockroachdb.jdbc.cluster.TopologyListener;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+/**
+ * A lightweight connection pool with CockroachDB aware validation.
+ * <p>
+ * Borrowing and returning a connection is lock-free with thread affinity (see {@link ConnectionBag}).
+ * Connections are opened on demand by the borrowing thread up to the max pool size, after which
+ * borrowers wait for a returned connection. Connections are discarded rather than returned
+ * when they are closed by the server, or failed with a connection error or an admin shutdown
+ * ({@code 57P01}) that a draining node sends to its clients. Idle connections are validated on borrow
+ * after the validation interval and discarded if invalid. Each connection has a max lifetime
+ * reduced by a random jitter, so that connections are recycled gradually and rebalance
+ * across nodes after a rolling restart or scale-out.
+ * <p>
+ * When using topology discovery, the pool also listens for nodes that start draining and
+ * migrates connections proactively: idle connections to the node are closed and replaced
+ * in background by connections to other nodes, and connections in use are closed when returned.
+ */
+public class ConnectionPool implements Closeable {
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    /**
+     * @param ex the exception
+     * @return true if the exception indicates that the connection is unusable
+     */
+    public static boolean isFatalError(SQLException ex) {
+        String sqlState = ex.getSQLState();
+        return sqlState != null && (sqlState.startsWith("08")
+                // admin_shutdown, crash_shutdown and cannot_connect_now, sent by draining nodes
+                || "57P01".equals(sqlState)
+                || "57P02".equals(sqlState)
+                || "57P03".equals(sqlState));
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ResourceSupplier<Connection> connectionFactory;
+
+    private final PoolSettings poolSettings;
+
+    private final ConnectionBag bag = new ConnectionBag();
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    private final ScheduledExecutorService housekeeper;
+
+    private final String poolName;
+
+    private final TopologyListener drainListener = this::retireConnections;
+
+    private volatile boolean closed;
+
+    public ConnectionPool(ResourceSupplier<Connection> connectionFactory, PoolSettings poolSettings) {
+        Assert.notNull(connectionFactory, "connectionFactory is null");
+        Assert.isTrue(poolSettings.getMaxPoolSize() > 0, "maxPoolSize must be > 0");
+        Assert.isTrue(!poolSettings.getMaxLifetime().isNegative(), "maxLifetime must be >= 0");
+
+        this.connectionFactory = connectionFactory;
+        this.poolSettings = poolSettings;
+        this.poolName = "cockroachdb-pool-" + POOL_COUNTER.incrementAndGet();
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, poolName + "-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        long period = poolSettings.getHousekeepingPeriod().toMillis();
+        executor.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        this.housekeeper = executor;
+
+        ClusterTopology.addListener(drainListener);
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public PoolSettings getPoolSettings() {
+        return poolSettings;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return bag.getCount(PoolEntry.STATE_NOT_IN_USE);
+    }
+
+    public int getActiveConnections() {
+        return bag.getCount(PoolEntry.STATE_IN_USE);
+    }
+
+    public int getPendingThreads() {
+        return bag.getWaiters();
+    }
+
+    /**
+     * Borrow a connection, waiting up to the connection timeout if the pool is exhausted.
+     *
+     * @return a pooled connection that is returned to the pool when closed
+     * @throws SQLException if the pool is closed, on timeout or if opening a new connection failed
+     */
+    public Connection getConnection() throws SQLException {
+        final long timeoutNanos = poolSettings.getConnectionTimeout().toNanos();
+        final long deadline = System.nanoTime() + timeoutNanos;
+
+        long remaining = timeoutNanos;
+        do {
+            if (closed) {
+                throw new ConnectionClosedException();
+            }
+
+            PoolEntry entry = bag.poll();
+            if (entry == null) {
+                entry = openEntry();
+            }
+            if (entry == null) {
+                try {
+                    entry = bag.await(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLTransientConnectionException("Interrupted waiting for connection",
+                            PSQLState.CONNECTION_UNABLE_TO_CONNECT.getState(), e);
+                }
+                if (entry == null) {
+                    break;
+                }
+            }
+
+            long now = System.nanoTime();
+            if (entry.isExpired(now) || (now - entry.lastAccessedNanos > poolSettings.getValidationInterval().toNanos()
+                    && !isValid(entry))) {
+                evict(entry, "expired or invalid on borrow");
+                remaining = deadline - System.nanoTime();
+                continue;
+            }
+
+            entry.lastAccessedNanos = now;
+            return new PooledConnection(this, entry);
+        } while (remaining > 0);
+
+        throw new SQLTransientConnectionException("Connection not available, request timed out after "
+                + poolSettings.getConnectionTimeout().toMillis() + "ms (total=" + totalConnections.get()
+                + ", active=" + getActiveConnections() + ", waiting=" + bag.getWaiters() + ")",
+                PSQLState.CONNECTION_UNABLE_TO_CONNECT.getState());
+    }
+
+    private PoolEntry openEntry() throws SQLException {
+        for (; ; ) {
+            int total = totalConnections.get();
+            if (total >= poolSettings.getMaxPoolSize()) {
+                return null;
+            }
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                break;
+            }
+        }
+
+        try {
+            PoolEntry entry = newEntry();
+            bag.add(entry);
+            return entry;
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PoolEntry newEntry() throws SQLException {
+        Connection connection = connectionFactory.get();
+
+        long lifetime = poolSettings.getMaxLifetime().toNanos();
+        long expiresAt = 0;
+        if (lifetime > 0) {
+            long jitter = Math.min(lifetime / 2, poolSettings.getMaxLifetimeJitter().toNanos());
+            long variance = jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter) : 0;
+            expiresAt = System.nanoTime() + lifetime - variance;
+        }
+
+        logger.debug("Opened connection [{}] in pool [{}]", connection, poolName);
+
+        return new PoolEntry(connection, expiresAt, connection.getAutoCommit(), connection.isReadOnly());
+    }
+
+    private boolean isValid(PoolEntry entry) {
+        try {
+            int timeout = (int) Math.max(1, poolSettings.getValidationTimeout().getSeconds());
+            return entry.connection.isValid(timeout);
+        } catch (SQLException e) {
+            logger.debug("Connection validation failed for [{}]: {}", entry.connection, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool, or discard it if it's no longer usable.
+     */
+    void release(PoolEntry entry) {
+        if (closed || entry.evict || entry.isExpired(System.nanoTime())) {
+            evict(entry, entry.evict ? "fatal error" : "expired or pool closed");
+            return;
+        }
+        try {
+            if (entry.connection.isClosed()) {
+                evict(entry, "closed by server");
+                return;
+            }
+        } catch (SQLException e) {
+            evict(entry, "closed by server");
+            return;
+        }
+        entry.lastAccessedNanos = System.nanoTime();
+        bag.requite(entry);
+    }
+
+    void evict(PoolEntry entry, String reason) {
+        if (bag.remove(entry)) {
+            totalConnections.decrementAndGet();
+            logger.debug("Closing connection [{}] in pool [{}]: {}", entry.connection, poolName, reason);
+            try {
+                entry.connection.close();
+            } catch (SQLException e) {
+                logger.debug("Failed to close connection [{}]: {}", entry.connection, e.toString());
+            }
+            fillPool();
+        }
+    }
+
+    private void fillPool() {
+        // Replace evicted connections for threads waiting since they can't open one themselves
+        if (!closed && bag.getWaiters() > 0 && totalConnections.get() < poolSettings.getMaxPoolSize()) {
+            try {
+                housekeeper.execute(this::openIdleEntry);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Pool [{}] closed while filling", poolName);
+            }
+        }
+    }
+
+    private void openIdleEntry() {
+        if (closed || bag.getWaiters() == 0) {
+            return;
+        }
+        addIdleEntry();
+    }
+
+    private void addIdleEntry() {
+        if (closed) {
+            return;
+        }
+        int total = totalConnections.get();
+        if (total < poolSettings.getMaxPoolSize() && totalConnections.compareAndSet(total, total + 1)) {
+            try {
+                bag.addIdle(newEntry());
+            } catch (SQLException | RuntimeException e) {
+                totalConnections.decrementAndGet();
+                logger.warn("Failed to open connection in pool [{}]: {}", poolName, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Retire connections to a node ahead of its shutdown, typically when it starts draining.
+     * Idle connections are closed and replaced in background, while connections in use are
+     * closed when returned.
+     *
+     * @param node the node to migrate connections away from
+     */
+    public void retireConnections(ClusterNode node) {
+        if (closed) {
+            return;
+        }
+        int retired = 0;
+        for (PoolEntry entry : bag.values()) {
+            if (clusterNodeOf(entry.connection) != node) {
+                continue;
+            }
+            if (bag.reserve(entry)) {
+                evict(entry, "node draining");
+                retired++;
+            } else {
+                entry.evict = true;
+            }
+        }
+
+        if (retired > 0) {
+            logger.info("Retired [{}] idle connections to draining node [{}] in pool [{}]", retired, node, poolName);
+            try {
+                for (int i = 0; i < retired; i++) {
+                    housekeeper.execute(this::addIdleEntry);
+                }
+            } catch (RejectedExecutionException e) {
+                logger.debug("Pool [{}] closed while replacing connections", poolName);
+            }
+        }
+    }
+
+    static ClusterNode clusterNodeOf(Connection connection) {
+        try {
+            if (connection.isWrapperFor(CockroachConnection.class)) {
+                return connection.unwrap(CockroachConnection.class).getClusterNode();
+            }
+        } catch (SQLException e) {
+            // Closed or not unwrappable
+        }
+        return null;
+    }
+
+    private void housekeep() {
+        long now = System.nanoTime();
+        for (PoolEntry entry : bag.values()) {
+            if (bag.reserve(entry)) {
+                if (entry.isExpired(now)) {
+                    evict(entry, "max lifetime");
+                } else {
+                    bag.requite(entry);
+                }
+            }
+        }
+        logger.trace("Pool [{}] stats: total={} active={} idle={} waiting={}", poolName,
+                getTotalConnections(), getActiveConnections(), getIdleConnections(), getPendingThreads());
+    }
+
+    /**
+     * Close the pool and all idle connections. Connections in use are closed when returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ClusterTopology.removeListener(drainListener);
+        housekeeper.shutdownNow();
+        for (PoolEntry entry : bag.values()) {
+            if (bag.reserve(entry)) {
+                evict(entry, "pool closed");
+            }
+        }
+        logger.debug("Closed pool [{}]", poolName);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "poolName='" + poolName + '\'' +
+                ", total=" + getTotalConnections() +
+                ", active=" + getActiveConnections() +
+                ", idle=" + getIdleConnections() +
+                ", waiting=" + getPendingThreads() +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package io.cockroachdb.jdbc.pool;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A pooled connection with its bag state and the session defaults to restore on return.
+ */
+final class PoolEntry {
+    static final int STATE_NOT_IN_USE = 0;
+
+    static final int STATE_IN_USE = 1;
+
+    static final int STATE_REMOVED = -1;
+
+    static final int STATE_RESERVED = -2;
+
+    private static final AtomicIntegerFieldUpdater<PoolEntry> STATE_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(PoolEntry.class, "state");
+
+    final Connection connection;
+
+    final long expiresAtNanos;
+
+    final boolean defaultAutoCommit;
+
+    final boolean defaultReadOnly;
+
+    // Captured lazily before first change since reading them costs a round trip
+    Integer defaultTransactionIsolation;
+
+    String defaultSchema;
+
+    String defaultCatalog;
+
+    volatile long lastAccessedNanos;
+
+    volatile boolean evict;
+
+    private volatile int state;
+
+    PoolEntry(Connection connection, long expiresAtNanos, boolean defaultAutoCommit, boolean defaultReadOnly) {
+        this.connection = connection;
+        this.expiresAtNanos = expiresAtNanos;
+        this.defaultAutoCommit = defaultAutoCommit;
+        this.defaultReadOnly = defaultReadOnly;
+        this.lastAccessedNanos = System.nanoTime();
+        this.state = STATE_IN_USE;
+    }
+
+    int getState() {
+        return state;
+    }
+
+    void setState(int state) {
+        this.state = state;
+    }
+
+    boolean compareAndSet(int expect, int update) {
+        return STATE_UPDATER.compareAndSet(this, expect, update);
+    }
+
+    boolean isExpired(long nowNanos) {
+        return expiresAtNanos != 0 && nowNanos - expiresAtNanos >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolEntry{" +
+                "connection=" + connection +
+                ", state=" + state +
+                ", evict=" + evict +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package io.cockroachdb.jdbc.pool;
+
+import java.time.Duration;
+
+/**
+ * Value object for connection pool settings.
+ */
+@SuppressWarnings("UnusedReturnValue")
+public class PoolSettings {
+    private int maxPoolSize = 10;
+
+    private Duration connectionTimeout = Duration.ofSeconds(30);
+
+    private Duration validationTimeout = Duration.ofSeconds(5);
+
+    private Duration validationInterval = Duration.ofMillis(500);
+
+    private Duration maxLifetime = Duration.ofMinutes(30);
+
+    private Duration maxLifetimeJitter = Duration.ofMinutes(2);
+
+    private Duration housekeepingPeriod = Duration.ofSeconds(30);
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @param maxPoolSize max number of open connections, idle or in use
+     */
+    public PoolSettings setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        return this;
+    }
+
+    public Duration getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    /**
+     * @param connectionTimeout max time to wait for a connection before failing
+     */
+    public PoolSettings setConnectionTimeout(Duration connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        return this;
+    }
+
+    public Duration getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    /**
+     * @param validationTimeout max time to wait for a connection validation
+     */
+    public PoolSettings setValidationTimeout(Duration validationTimeout) {
+        this.validationTimeout = validationTimeout;
+        return this;
+    }
+
+    public Duration getValidationInterval() {
+        return validationInterval;
+    }
+
+    /**
+     * @param validationInterval min idle time before a connection is validated on borrow
+     */
+    public PoolSettings setValidationInterval(Duration validationInterval) {
+        this.validationInterval = validationInterval;
+        return this;
+    }
+
+    public Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * @param maxLifetime max lifetime of a connection, or zero for no limit
+     */
+    public PoolSettings setMaxLifetime(Duration maxLifetime) {
+        this.maxLifetime = maxLifetime;
+        return this;
+    }
+
+    public Duration getMaxLifetimeJitter() {
+        return maxLifetimeJitter;
+    }
+
+    /**
+     * @param maxLifetimeJitter max random reduction of each connection's lifetime, spreading out
+     * reconnects so that connections rebalance over nodes gradually
+     */
+    public PoolSettings setMaxLifetimeJitter(Duration maxLifetimeJitter) {
+        this.maxLifetimeJitter = maxLifetimeJitter;
+        return this;
+    }
+
+    public Duration getHousekeepingPeriod() {
+        return housekeepingPeriod;
+    }
+
+    /**
+     * @param housekeepingPeriod period for retiring expired idle connections
+     */
+    public PoolSettings setHousekeepingPeriod(Duration housekeepingPeriod) {
+        this.housekeepingPeriod = housekeepingPeriod;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolSettings{" +
+                "maxPoolSize=" + maxPoolSize +
+                ", connectionTimeout=" + connectionTimeout +
+                ", validationTimeout=" + validationTimeout +
+                ", validationInterval=" + validationInterval +
+                ", maxLifetime=" + maxLifetime +
+                ", maxLifetimeJitter=" + maxLifetimeJitter +
+                ", housekeepingPeriod=" + housekeepingPeriod +
+                '}';
+    }
+}
@@ -0,0 +1,473 @@
+package io.cockroachdb.jdbc.pool;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import io.cockroachdb.jdbc.ConnectionClosedException;
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.util.WrapperSupport;
+
+/**
+ * A borrowed connection handle that returns the underlying connection to the pool when
+ * closed, after closing its open statements, rolling back any open transaction and restoring
+ * changed session defaults. Fatal errors observed on transaction boundaries or statement
+ * executions mark the connection for eviction.
+ */
+final class PooledConnection extends WrapperSupport<Connection> implements Connection {
+    private final ConnectionPool pool;
+
+    private final PoolEntry entry;
+
+    private boolean closed;
+
+    private boolean transactionIsolationChanged;
+
+    private boolean schemaChanged;
+
+    private boolean catalogChanged;
+
+    private final List<Statement> openStatements = Collections.synchronizedList(new ArrayList<>());
+
+    PooledConnection(ConnectionPool pool, PoolEntry entry) {
+        super(entry.connection);
+        this.pool = pool;
+        this.entry = entry;
+    }
+
+    private Connection delegate() throws SQLException {
+        if (closed) {
+            throw new ConnectionClosedException();
+        }
+        return getDelegate();
+    }
+
+    private SQLException checkException(SQLException ex) {
+        for (SQLException e = ex; e != null; e = e.getNextException()) {
+            if (ConnectionPool.isFatalError(e)) {
+                entry.evict = true;
+                logger.debug("Connection [{}] marked for eviction: {}", getDelegate(), e.toString());
+                if ("57P01".equals(e.getSQLState())) {
+                    // Migrate other connections to the node before they fail too
+                    ClusterNode node = ConnectionPool.clusterNodeOf(getDelegate());
+                    if (node != null) {
+                        node.markDraining();
+                    }
+                }
+                break;
+            }
+        }
+        return ex;
+    }
+
+    /**
+     * Wrap a statement so that it reports fatal errors, returns this handle as its connection
+     * and is closed when the handle is returned to the pool.
+     */
+    private <T extends Statement> T wrapStatement(T statement, Class<T> type) {
+        if (statement == null) {
+            return null;
+        }
+        openStatements.add(statement);
+        return type.cast(Proxy.newProxyInstance(
+                PooledConnection.class.getClassLoader(),
+                new Class[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getConnection":
+                            delegate();
+                            return this;
+                        case "close":
+                            openStatements.remove(statement);
+                            statement.close();
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(statement, args);
+                            } catch (InvocationTargetException e) {
+                                Throwable cause = e.getTargetException();
+                                if (cause instanceof SQLException) {
+                                    checkException((SQLException) cause);
+                                }
+                                throw cause;
+                            }
+                    }
+                }));
+    }
+
+    private void closeStatements() {
+        List<Statement> statements;
+        synchronized (openStatements) {
+            statements = new ArrayList<>(openStatements);
+            openStatements.clear();
+        }
+        for (Statement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                checkException(e);
+                logger.debug("Failed to close statement [{}]: {}", statement, e.toString());
+            }
+        }
+    }
+
+    private void reset() throws SQLException {
+        Connection delegate = getDelegate();
+        if (entry.evict || delegate.isClosed()) {
+            return;
+        }
+        if (!delegate.getAutoCommit()) {
+            delegate.rollback();
+        }
+        if (delegate.getAutoCommit() != entry.defaultAutoCommit) {
+            delegate.setAutoCommit(entry.defaultAutoCommit);
+        }
+        if (delegate.isReadOnly() != entry.defaultReadOnly) {
+            delegate.setReadOnly(entry.defaultReadOnly);
+        }
+        if (transactionIsolationChanged) {
+            delegate.setTransactionIsolation(entry.defaultTransactionIsolation);
+        }
+        if (schemaChanged) {
+            delegate.setSchema(entry.defaultSchema);
+        }
+        if (catalogChanged) {
+            delegate.setCatalog(entry.defaultCatalog);
+        }
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return wrapStatement(delegate().createStatement(), Statement.class);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return wrapStatement(delegate().prepareStatement(sql), PreparedStatement.class);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return wrapStatement(delegate().prepareCall(sql), CallableStatement.class);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        return delegate().nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        try {
+            delegate().setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return delegate().getAutoCommit();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        try {
+            delegate().commit();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        try {
+            delegate().rollback();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeStatements();
+            reset();
+        } catch (SQLException e) {
+            checkException(e);
+            entry.evict = true;
+            logger.debug("Failed to reset connection [{}]: {}", getDelegate(), e.toString());
+        } finally {
+            pool.release(entry);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || getDelegate().isClosed();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return delegate().getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        delegate().setReadOnly(readOnly);
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return delegate().isReadOnly();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        Connection delegate = delegate();
+        if (entry.defaultCatalog == null) {
+            entry.defaultCatalog = delegate.getCatalog();
+        }
+        delegate.setCatalog(catalog);
+        catalogChanged = true;
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return delegate().getCatalog();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        Connection delegate = delegate();
+        if (entry.defaultTransactionIsolation == null) {
+            entry.defaultTransactionIsolation = delegate.getTransactionIsolation();
+        }
+        delegate.setTransactionIsolation(level);
+        transactionIsolationChanged = true;
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        return delegate().getTransactionIsolation();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return delegate().getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        delegate().clearWarnings();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return wrapStatement(delegate().createStatement(resultSetType, resultSetConcurrency), Statement.class);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType,
+                                              int resultSetConcurrency) throws SQLException {
+        return wrapStatement(delegate().prepareStatement(sql, resultSetType, resultSetConcurrency),
+                PreparedStatement.class);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return wrapStatement(delegate().prepareCall(sql, resultSetType, resultSetConcurrency), CallableStatement.class);
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return delegate().getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        delegate().setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        delegate().setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return delegate().getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return delegate().setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return delegate().setSavepoint(name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        delegate().rollback(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        delegate().releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency,
+                                     int resultSetHoldability) throws SQLException {
+        return wrapStatement(delegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability),
+                Statement.class);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return wrapStatement(delegate().prepareStatement(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability), PreparedStatement.class);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return wrapStatement(delegate().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability),
+                CallableStatement.class);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return wrapStatement(delegate().prepareStatement(sql, autoGeneratedKeys), PreparedStatement.class);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return wrapStatement(delegate().prepareStatement(sql, columnIndexes), PreparedStatement.class);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return wrapStatement(delegate().prepareStatement(sql, columnNames), PreparedStatement.class);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return delegate().createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return delegate().createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return delegate().createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return delegate().createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return !closed && getDelegate().isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        if (closed) {
+            throw new SQLClientInfoException("This connection has been closed", null);
+        }
+        getDelegate().setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        if (closed) {
+            throw new SQLClientInfoException("This connection has been closed", null);
+        }
+        getDelegate().setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        return delegate().getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return delegate().getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        return delegate().createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        return delegate().createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        Connection delegate = delegate();
+        if (entry.defaultSchema == null) {
+            entry.defaultSchema = delegate.getSchema();
+        }
+        delegate.setSchema(schema);
+        schemaChanged = true;
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return delegate().getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        entry.evict = true;
+        openStatements.clear();
+        try {
+            getDelegate().abort(executor);
+        } finally {
+            pool.release(entry);
+        }
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        delegate().setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return delegate().getNetworkTimeout();
+    }
+}
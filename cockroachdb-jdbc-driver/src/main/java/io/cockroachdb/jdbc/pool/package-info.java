@@ -0,0 +1,4 @@
+/**
+ * This package provides a built-in connection pool used by {@code CockroachDataSource}.
+ */
+package io.cockroachdb.jdbc.pool;
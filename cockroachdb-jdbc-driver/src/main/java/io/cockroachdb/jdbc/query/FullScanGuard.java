@@ -0,0 +1,259 @@
+package io.cockroachdb.jdbc.query;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.postgresql.util.PSQLState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+import io.cockroachdb.jdbc.util.SqlUtils;
+
+/**
+ * A query processor stage guarding against full scans of large tables.
+ * <p>
+ * The first time a SELECT, UPDATE or DELETE fingerprint is seen, the statement is passed
+ * through while {@code EXPLAIN} runs in the background on a side connection. The outcome
+ * is cached per fingerprint and later executions planned with a full scan of a table with
+ * at least the configured number of estimated rows are handled according to the policy.
+ * After the first sighting, the guard only costs two map lookups.
+ * <p>
+ * Placeholders are bound to a dummy value of unspecified type when explaining. Statements
+ * that can't be explained this way, and tables without statistics, are considered safe.
+ */
+public class FullScanGuard implements QueryProcessor, Closeable {
+    /**
+     * The action taken on statements planned with a full scan of a large table.
+     */
+    public enum Policy {
+        /**
+         * Log a warning and count the execution in the {@link DriverMetrics#GUARDRAIL_FULL_SCANS} metric.
+         */
+        WARN,
+        /**
+         * Count the execution in the {@link DriverMetrics#GUARDRAIL_FULL_SCANS} metric.
+         */
+        METRIC,
+        /**
+         * Count the execution and reject it with a {@link FullScanRejectedException}.
+         */
+        REJECT
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(FullScanGuard.class);
+
+    private static final int MAX_FINGERPRINTS = 4096;
+
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+
+    private static final Pattern GUARDED_STATEMENT = Pattern.compile("^\\s*(SELECT|UPDATE|DELETE)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ESTIMATED_ROW_COUNT = Pattern.compile("estimated row count:\\s*([0-9,]+)");
+
+    private static final String NO_FULL_SCAN = "";
+
+    private static final String PENDING = "<pending>";
+
+    private static class ExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "cockroachdb-full-scan-guard");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            // Don't keep the thread alive when idle
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private final ResourceSupplier<Connection> connectionFactory;
+
+    private final Policy policy;
+
+    private final long minTableRows;
+
+    // Fingerprint id to the fully scanned table, or NO_FULL_SCAN
+    private final ConcurrentMap<Long, String> fullScans = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param connectionFactory factory for side connections running {@code EXPLAIN}
+     * @param policy the action taken on full scans of large tables
+     * @param minTableRows min estimated row count of a table to be considered large
+     */
+    public FullScanGuard(ResourceSupplier<Connection> connectionFactory, Policy policy, long minTableRows) {
+        Assert.notNull(connectionFactory, "connectionFactory is null");
+        Assert.notNull(policy, "policy is null");
+        Assert.isTrue(minTableRows >= 0, "minTableRows must be >= 0");
+        this.connectionFactory = connectionFactory;
+        this.policy = policy;
+        this.minTableRows = minTableRows;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public boolean isTransactionScoped() {
+        return false;
+    }
+
+    @Override
+    public String processQuery(Connection connection, String query) throws SQLException {
+        long fingerprintId = SqlFingerprints.idOf(query);
+        String table = fullScans.get(fingerprintId);
+        if (table == null) {
+            if (GUARDED_STATEMENT.matcher(query).find()) {
+                sighted(fingerprintId, query);
+            } else if (fullScans.size() < MAX_FINGERPRINTS) {
+                fullScans.putIfAbsent(fingerprintId, NO_FULL_SCAN);
+            }
+            return query;
+        }
+        if (table.equals(NO_FULL_SCAN) || table.equals(PENDING)) {
+            return query;
+        }
+
+        DriverMetrics.recordFullScan();
+
+        switch (policy) {
+            case WARN:
+                logger.warn("Statement [{}] is planned with a full scan of table [{}]",
+                        fingerprintOf(fingerprintId, query), table);
+                break;
+            case REJECT:
+                throw new FullScanRejectedException("Statement [" + fingerprintOf(fingerprintId, query)
+                        + "] is planned with a full scan of table [" + table + "]",
+                        PSQLState.UNKNOWN_STATE);
+            default:
+                break;
+        }
+        return query;
+    }
+
+    private static String fingerprintOf(long fingerprintId, String query) {
+        String fingerprint = SqlFingerprints.fingerprintOf(fingerprintId);
+        return fingerprint != null ? fingerprint : query;
+    }
+
+    private void sighted(long fingerprintId, String query) {
+        if (closed || fullScans.size() >= MAX_FINGERPRINTS || fullScans.putIfAbsent(fingerprintId, PENDING) != null) {
+            return;
+        }
+        try {
+            ExecutorHolder.EXECUTOR.execute(() -> {
+                String table = NO_FULL_SCAN;
+                try {
+                    table = explain(query);
+                    if (!table.equals(NO_FULL_SCAN)) {
+                        logger.debug("Statement [{}] is planned with a full scan of table [{}]",
+                                fingerprintOf(fingerprintId, query), table);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    logger.debug("Unable to explain statement [{}]: {}",
+                            fingerprintOf(fingerprintId, query), e.toString());
+                } finally {
+                    fullScans.put(fingerprintId, table);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fullScans.remove(fingerprintId);
+        }
+    }
+
+    private String explain(String query) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (Connection connection = connectionFactory.get();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN " + query)) {
+            ps.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            int placeholders = SqlUtils.countPlaceholders(query);
+            for (int i = 1; i <= placeholders; i++) {
+                // Sent as unspecified type to let the server infer the parameter type
+                ps.setObject(i, "1", Types.OTHER);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+        }
+        return fullScanTable(plan, minTableRows);
+    }
+
+    /**
+     * Find a fully scanned table in an {@code EXPLAIN} output.
+     *
+     * @param plan the plan lines
+     * @param minTableRows min estimated row count of a table to be considered large
+     * @return the name of the first large table fully scanned (without limit), or empty string if none
+     */
+    static String fullScanTable(List<String> plan, long minTableRows) {
+        long estimatedRows = -1;
+        String table = null;
+        boolean fullScan = false;
+        boolean limited = false;
+
+        List<String> lines = new ArrayList<>(plan);
+        lines.add("•");
+
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("•")) {
+                if (fullScan && !limited && table != null && estimatedRows >= minTableRows) {
+                    return table;
+                }
+                estimatedRows = -1;
+                table = null;
+                fullScan = false;
+                limited = false;
+            } else if (trimmed.startsWith("estimated row count:")) {
+                Matcher matcher = ESTIMATED_ROW_COUNT.matcher(trimmed);
+                if (matcher.find()) {
+                    estimatedRows = Long.parseLong(matcher.group(1).replace(",", ""));
+                }
+            } else if (trimmed.startsWith("table:")) {
+                table = trimmed.substring("table:".length()).trim();
+            } else if (trimmed.startsWith("spans:")) {
+                String spans = trimmed.toUpperCase(Locale.ENGLISH);
+                fullScan = spans.contains("FULL SCAN");
+                limited = limited || spans.contains("LIMIT");
+            } else if (trimmed.startsWith("limit:")) {
+                limited = true;
+            }
+        }
+        return NO_FULL_SCAN;
+    }
+
+    /**
+     * Stop explaining newly sighted statements on side connections. Statements already known
+     * to be planned with full scans are still guarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
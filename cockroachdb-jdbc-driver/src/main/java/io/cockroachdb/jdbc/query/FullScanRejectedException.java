@@ -0,0 +1,14 @@
+package io.cockroachdb.jdbc.query;
+
+import org.postgresql.util.PSQLState;
+
+import io.cockroachdb.jdbc.NonTransientCockroachException;
+
+/**
+ * Exception thrown when a statement is rejected by the full scan guard.
+ */
+public class FullScanRejectedException extends NonTransientCockroachException {
+    public FullScanRejectedException(String reason, PSQLState state) {
+        super(reason, state);
+    }
+}
@@ -25,4 +25,26 @@ public interface QueryProcessor {
     String processQuery(Connection connection, String query) throws SQLException;
 
     boolean isTransactionScoped();
+
+    /**
+     * Compose this processor with a subsequent stage receiving the processed query. The
+     * composed processor is transaction scoped if this processor is.
+     *
+     * @param next the subsequent stage
+     * @return a composed processor
+     */
+    default QueryProcessor andThen(QueryProcessor next) {
+        QueryProcessor first = this;
+        return new QueryProcessor() {
+            @Override
+            public String processQuery(Connection connection, String query) throws SQLException {
+                return next.processQuery(connection, first.processQuery(connection, query));
+            }
+
+            @Override
+            public boolean isTransactionScoped() {
+                return first.isTransactionScoped();
+            }
+        };
+    }
 }
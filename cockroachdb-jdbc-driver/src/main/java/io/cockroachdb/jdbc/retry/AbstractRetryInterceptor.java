@@ -7,13 +7,17 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
 import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
 
 public abstract class AbstractRetryInterceptor<T> extends AbstractInterceptor<T> {
     private MethodTraceLogger methodTraceLogger;
 
     private final List<MethodExecution> methodExecutions = new ArrayList<>();
 
+    private volatile long historyBytes;
+
     public AbstractRetryInterceptor(T delegate) {
         super(delegate);
     }
@@ -24,17 +28,124 @@ public abstract class AbstractRetryInterceptor<T> extends AbstractInterceptor<T>
 
     protected void addMethodExecution(MethodExecution methodExecution) {
         Assert.notNull(methodExecution, "methodExecution is null");
-        methodExecutions.add(methodExecution);
+        synchronized (methodExecutions) {
+            methodExecutions.add(methodExecution);
+        }
+
+        long bytes = estimateBytes(methodExecution.getMethodArgs());
+        historyBytes += bytes;
+        DriverMetrics.recordHistoryBytes(bytes);
     }
 
     protected final void clearHistory() {
-        methodExecutions.clear();
+        synchronized (methodExecutions) {
+            methodExecutions.clear();
+        }
+        historyBytes = 0;
+    }
+
+    /**
+     * @return a copy of the method executions recorded for replay, safe to read from any thread
+     */
+    public List<MethodExecution> getHistory() {
+        synchronized (methodExecutions) {
+            return new ArrayList<>(methodExecutions);
+        }
+    }
+
+    /**
+     * @return number of method executions recorded for replay
+     */
+    public int getHistorySize() {
+        return methodExecutions.size();
+    }
+
+    /**
+     * @return estimated bytes of method arguments recorded for replay
+     */
+    public long getHistoryBytes() {
+        return historyBytes;
+    }
+
+    /**
+     * @return the ring buffer of recent operations to record into, or null if not recorded
+     */
+    protected OperationRingBuffer getOperationRingBuffer() {
+        return null;
+    }
+
+    /**
+     * @return true if invocations of the method are recorded in the ring buffer of recent operations
+     */
+    protected boolean isRecorded(Method method) {
+        return true;
+    }
+
+    /**
+     * @return the SQL fingerprint id of a method invocation, or 0 if not applicable
+     */
+    protected long fingerprintId(Method method, Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String
+                ? SqlFingerprints.idOf((String) args[0]) : 0;
+    }
+
+    /**
+     * @return the retry attempt in progress, or 0 if not retrying
+     */
+    protected int currentAttempt() {
+        return 0;
+    }
+
+    /**
+     * @return the timer of the explicit transaction in progress, or null if not timed
+     */
+    TransactionTimer getTransactionTimer() {
+        return null;
+    }
+
+    /**
+     * @return true if invocations of the method are accounted as SQL time of explicit transactions
+     */
+    protected boolean isSqlTime(Method method) {
+        return true;
+    }
+
+    private void recordOperation(Method method, Object[] args, Instant callTime, Duration executionTime,
+                                 Throwable ex) {
+        OperationRingBuffer ringBuffer = getOperationRingBuffer();
+        if (ringBuffer != null && isRecorded(method)) {
+            ringBuffer.record(method, fingerprintId(method, args), callTime.toEpochMilli(),
+                    executionTime.toNanos(), currentAttempt(), ex);
+        }
+        TransactionTimer transactionTimer = getTransactionTimer();
+        if (transactionTimer != null && currentAttempt() == 0 && isSqlTime(method)) {
+            transactionTimer.recordSql(executionTime.toNanos(),
+                    method.getName().startsWith("execute") ? fingerprintId(method, args) : 0);
+        }
+    }
+
+    private static long estimateBytes(Object[] args) {
+        if (args == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (Object arg : args) {
+            if (arg instanceof String) {
+                bytes += ((String) arg).length() * 2L;
+            } else if (arg instanceof byte[]) {
+                bytes += ((byte[]) arg).length;
+            } else {
+                bytes += 8;
+            }
+        }
+        return bytes;
     }
 
     protected MethodExecution proceedWrapExecution(Method method, Object[] args) {
         Assert.notNull(method, "method is null");
 
         Instant callTime = Instant.now();
+        long startTime = System.nanoTime();
         Duration executionTime;
         Throwable ex = null;
         Object result = null;
@@ -48,10 +159,11 @@ public abstract class AbstractRetryInterceptor<T> extends AbstractInterceptor<T>
         } catch (Throwable e) {
             ex = e;
         } finally {
-            executionTime = Duration.between(callTime, Instant.now());
+            executionTime = Duration.ofNanos(System.nanoTime() - startTime);
             if (methodTraceLogger != null) {
                 methodTraceLogger.after(no, connectionInfo(), getDelegate(), method, args, executionTime, ex);
             }
+            recordOperation(method, args, callTime, executionTime, ex);
         }
 
         return MethodExecution.builder()
@@ -69,6 +181,7 @@ public abstract class AbstractRetryInterceptor<T> extends AbstractInterceptor<T>
         Assert.notNull(method, "method is null");
 
         Instant callTime = Instant.now();
+        long startTime = System.nanoTime();
         Throwable ex = null;
 
         long no = 0;
@@ -81,10 +194,12 @@ public abstract class AbstractRetryInterceptor<T> extends AbstractInterceptor<T>
             ex = e;
             throw e;
         } finally {
+            Duration executionTime = Duration.ofNanos(System.nanoTime() - startTime);
             if (methodTraceLogger != null) {
                 methodTraceLogger.after(no, connectionInfo(),
-                        getDelegate(), method, args, Duration.between(callTime, Instant.now()), ex);
+                        getDelegate(), method, args, executionTime, ex);
             }
+            recordOperation(method, args, callTime, executionTime, ex);
         }
     }
 
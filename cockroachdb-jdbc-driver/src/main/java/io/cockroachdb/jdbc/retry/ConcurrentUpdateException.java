@@ -1,11 +1,27 @@
 package io.cockroachdb.jdbc.retry;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.postgresql.util.PSQLState;
 
 import io.cockroachdb.jdbc.NonTransientCockroachException;
 
 public class ConcurrentUpdateException extends NonTransientCockroachException {
+    private List<OperationRingBuffer.Operation> recentOperations = Collections.emptyList();
+
     public ConcurrentUpdateException(String reason) {
         super(reason, PSQLState.SERIALIZATION_FAILURE);
     }
+
+    /**
+     * @return the most recent operations on the connection before the checksum failure, oldest first
+     */
+    public List<OperationRingBuffer.Operation> getRecentOperations() {
+        return recentOperations;
+    }
+
+    void setRecentOperations(List<OperationRingBuffer.Operation> recentOperations) {
+        this.recentOperations = recentOperations;
+    }
 }
@@ -10,14 +10,24 @@ import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
 
 import org.postgresql.util.PSQLState;
 import org.slf4j.MDC;
 
+import io.cockroachdb.jdbc.CockroachConnection;
 import io.cockroachdb.jdbc.CockroachPreparedStatement;
 import io.cockroachdb.jdbc.CockroachStatement;
 import io.cockroachdb.jdbc.ConnectionSettings;
 import io.cockroachdb.jdbc.InvalidConnectionException;
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.jfr.DriverEvents;
+import io.cockroachdb.jdbc.management.DriverMonitor;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
+import io.cockroachdb.jdbc.tracing.Span;
+import io.cockroachdb.jdbc.tracing.Tracer;
 import io.cockroachdb.jdbc.util.Assert;
 import io.cockroachdb.jdbc.util.ExceptionUtils;
 import io.cockroachdb.jdbc.util.ResourceSupplier;
@@ -45,6 +55,14 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
 
     private final ResourceSupplier<Connection> connectionSupplier;
 
+    private final OperationRingBuffer operationRingBuffer;
+
+    private final TransactionTimer transactionTimer = new TransactionTimer();
+
+    private boolean explicitTransactions;
+
+    private volatile int currentAttempt;
+
     protected ConnectionRetryInterceptor(Connection connection,
                                          ConnectionSettings connectionSettings,
                                          ResourceSupplier<Connection> connectionSupplier) {
@@ -57,12 +75,84 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
         this.retryStrategy = connectionSettings.getRetryStrategy();
 
         setMethodTraceLogger(connectionSettings.getMethodTraceLogger());
+
+        this.operationRingBuffer = connectionSettings.getRecentOperations() > 0
+                ? new OperationRingBuffer(connectionSettings.getRecentOperations()) : null;
+
+        try {
+            this.explicitTransactions = !connection.getAutoCommit();
+        } catch (SQLException e) {
+            this.explicitTransactions = false;
+        }
+
+        DriverMonitor.getInstance().track(this);
     }
 
     protected ConnectionSettings getConnectionSettings() {
         return connectionSettings;
     }
 
+    public RetryStrategy getRetryStrategy() {
+        return retryStrategy;
+    }
+
+    /**
+     * @return the retry attempt in progress, or 0 if not retrying
+     */
+    public int getCurrentAttempt() {
+        return currentAttempt;
+    }
+
+    @Override
+    protected OperationRingBuffer getOperationRingBuffer() {
+        return operationRingBuffer;
+    }
+
+    @Override
+    protected int currentAttempt() {
+        return currentAttempt;
+    }
+
+    @Override
+    TransactionTimer getTransactionTimer() {
+        return explicitTransactions ? transactionTimer : null;
+    }
+
+    @Override
+    protected boolean isSqlTime(Method method) {
+        // Transaction boundaries are accounted separately
+        return !"commit".equals(method.getName())
+                && !"rollback".equals(method.getName())
+                && !"setAutoCommit".equals(method.getName())
+                && !"close".equals(method.getName());
+    }
+
+    private void finishTransaction(TransactionRecord.Outcome outcome) {
+        TransactionTimer timer = getTransactionTimer();
+        TransactionRecord record = timer != null ? timer.finish(outcome) : null;
+        if (record != null) {
+            retryListener.afterTransaction(record);
+        }
+    }
+
+    /**
+     * @return the most recent operations on this connection, oldest first, or an empty list if not recorded
+     */
+    public List<OperationRingBuffer.Operation> getRecentOperations() {
+        return operationRingBuffer != null ? operationRingBuffer.snapshot() : Collections.emptyList();
+    }
+
+    /**
+     * @return true if the connection is in an explicit transaction with recorded history
+     */
+    public boolean isInTransaction() {
+        try {
+            return getHistorySize() > 0 && !getDelegate().getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
     @Override
     protected String connectionInfo() {
         return connectionInfo(getDelegate());
@@ -80,23 +170,43 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
             for (int attempt = 1; ; attempt++) { // Limit defined by retry strategy
                 try {
                     MethodExecution context = proceedWrapExecution(method, args);
+                    TransactionTimer timer = getTransactionTimer();
+                    if (timer != null) {
+                        timer.recordCommit(context.getExecutionTime().toNanos());
+                    }
                     if (context.hasThrowable()) {
                         throw context.getThrowable();
                     }
                     clearHistory();
+                    finishTransaction(TransactionRecord.Outcome.COMMITTED);
                     return null;
                 } catch (InvocationTargetException e) {
-                    attempt = rollbackAndRetry(e.getTargetException(), method, attempt, startTime);
+                    try {
+                        attempt = rollbackAndRetry(e.getTargetException(), method, StatementStatistics.COMMIT,
+                                attempt, startTime);
+                    } catch (Throwable ex) {
+                        finishTransaction(TransactionRecord.Outcome.FAILED);
+                        throw ex;
+                    }
                 }
             }
         } else if ("setAutoCommit".equals(method.getName())) {
             clearHistory();
-            return proceedExecution(method, args);
+            transactionTimer.reset();
+            Object result = proceedExecution(method, args);
+            explicitTransactions = !((Boolean) args[0]);
+            return result;
         } else if ("rollback".equals(method.getName())) {
             clearHistory();
-            return proceedExecution(method, args);
+            try {
+                return proceedExecution(method, args);
+            } finally {
+                finishTransaction(TransactionRecord.Outcome.ROLLED_BACK);
+            }
         } else if ("close".equals(method.getName())) {
             clearHistory();
+            transactionTimer.reset();
+            DriverMonitor.getInstance().untrack(this);
             return proceedExecution(method, args);
         } else if ("prepareStatement".equals(method.getName())) {
             MethodExecution context = proceedWrapExecution(method, args);
@@ -105,10 +215,11 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
             }
             addMethodExecution(context);
 
-            CockroachPreparedStatement cockroachPreparedStatement
-                    = new CockroachPreparedStatement((PreparedStatement) context.getResult());
+            PreparedStatement cockroachPreparedStatement = context.getResult() instanceof CockroachPreparedStatement
+                    ? (PreparedStatement) context.getResult()
+                    : new CockroachPreparedStatement((PreparedStatement) context.getResult());
             PreparedStatement preparedStatementRetryProxy
-                    = PreparedStatementRetryInterceptor.proxy(cockroachPreparedStatement, this);
+                    = PreparedStatementRetryInterceptor.proxy(cockroachPreparedStatement, this, (String) args[0]);
             context.setResult(preparedStatementRetryProxy);
             return preparedStatementRetryProxy;
         } else if ("createStatement".equals(method.getName())) {
@@ -139,8 +250,8 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
         return context.getResult();
     }
 
-    protected final int rollbackAndRetry(Throwable targetException, Method method, int attempt, Instant startTime)
-            throws Throwable {
+    protected final int rollbackAndRetry(Throwable targetException, Method method, String sql, int attempt,
+                                         Instant startTime) throws Throwable {
         Assert.isTrue(attempt > 0, "attempt must be > 0");
 
         if (!(targetException instanceof SQLException)) {
@@ -153,10 +264,35 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
             throw rootCauseException;
         }
 
+        StatementStatistics statementStatistics = connectionSettings.getStatementStatistics();
+        if (statementStatistics != null) {
+            statementStatistics.recordRetry(sql);
+        }
+
         logger.debug("Entering retry attempt [{}] due to transient SQL exception:\n{}",
                 attempt, ExceptionUtils.toNestedString(rootCauseException));
 
+        if (retryStrategy.isConnectionError(rootCauseException)) {
+            recordNodeFailure(getDelegate(), rootCauseException);
+        }
+
+        try {
+            return doRollbackAndRetry(rootCauseException, method, attempt, startTime);
+        } finally {
+            currentAttempt = 0;
+        }
+    }
+
+    private int doRollbackAndRetry(SQLException rootCauseException, Method method, int attempt, Instant startTime)
+            throws Throwable {
+        final TransactionTimer timer = getTransactionTimer();
+
         for (; ; attempt++) {
+            currentAttempt = attempt;
+            if (timer != null) {
+                timer.recordRetry();
+            }
+            final long closeTime = System.nanoTime();
             try {
                 closeDelegate(attempt);
             } catch (SQLException ex) {
@@ -167,35 +303,76 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
                 // Let connection errors pass through with a warning since these are potentially retried
                 logger.warn("SQL exception in rollback for connection delegate [{}]\n{}",
                         connectionInfo(), ExceptionUtils.toNestedString(ex));
+            } finally {
+                if (timer != null) {
+                    timer.recordReconnect(System.nanoTime() - closeTime);
+                }
             }
 
             if (!retryStrategy.proceedWithRetry(attempt)) {
-                throw new TooManyRetriesException("Too many retry attempts [" + attempt
-                        + "] or other limit in [" + retryStrategy.getDescription() + "]", rootCauseException);
+                DriverMetrics.recordRetriesExhausted();
+                TooManyRetriesException exception = new TooManyRetriesException("Too many retry attempts ["
+                        + attempt + "] or other limit in [" + retryStrategy.getDescription() + "]",
+                        rootCauseException);
+                exception.setRecentOperations(recentOperations(exception));
+                throw exception;
             }
 
             Duration waitTime = retryStrategy.getBackoffDuration(attempt);
 
+            DriverMetrics.recordRetryAttempt(waitTime);
+            DriverEvents.retryAttempt(getDelegate(), method.getName(), attempt, rootCauseException, waitTime);
+
             MDC.put("retry.attempt", attempt + "");
 
             retryListener.beforeRetry(method.toGenericString(), attempt, rootCauseException, waitTime);
 
+            // Span covering backoff, reconnect and replay, with replayed statements as children
+            final Tracer tracer = connectionSettings.getTracer();
+            final Span span = tracer != null ? tracer.startSpan("cockroachdb.retry")
+                    .setAttribute("db.system", "cockroachdb")
+                    .setAttribute("retry.attempt", attempt)
+                    .setAttribute("retry.sql_state", rootCauseException.getSQLState())
+                    .setAttribute("retry.backoff_ms", waitTime.toMillis()) : null;
+
             // Pause current thread for a delay determined by strategy
+            final long sleepTime = System.nanoTime();
             try {
                 Thread.sleep(waitTime.toMillis());
             } catch (InterruptedException ex) {
                 Thread.currentThread().interrupt();
+            } finally {
+                if (timer != null) {
+                    timer.recordBackoff(System.nanoTime() - sleepTime);
+                }
             }
 
             SQLException retryException = rootCauseException;
+            boolean replaying = false;
 
             try {
-                openDelegate(attempt);
+                final long openTime = System.nanoTime();
+                try {
+                    openDelegate(attempt);
+                } finally {
+                    if (timer != null) {
+                        timer.recordReconnect(System.nanoTime() - openTime);
+                    }
+                }
 
                 MDC.put("retry.connection", connectionInfo());
 
                 // At this point we have a new, valid connection delegate and ready to replay history
-                retry(getDelegate());
+                replaying = true;
+                final long replayTime = System.nanoTime();
+                try {
+                    retry(getDelegate());
+                } finally {
+                    DriverMetrics.recordReplay(replayTime);
+                    if (timer != null) {
+                        timer.recordReplay(System.nanoTime() - replayTime);
+                    }
+                }
                 // Signal success
                 retryException = null;
                 break;
@@ -203,14 +380,28 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
                 retryException = ex;
                 // Unless it's a retryable error (which may include connection error) we can't continue
                 if (!retryStrategy.isConnectionError(ex)) {
+                    if (ex instanceof ConcurrentUpdateException) {
+                        ((ConcurrentUpdateException) ex).setRecentOperations(recentOperations(ex));
+                    }
                     throw ex.initCause(rootCauseException);
                 }
+                // Failures opening a new delegate are recorded against the attempted node when opening
+                if (replaying) {
+                    recordNodeFailure(getDelegate(), ex);
+                }
                 logger.debug("SQL exception in attempt [{}]\n{}",
                         attempt, ExceptionUtils.toNestedString(ex));
             } finally {
+                DriverMetrics.recordRetryOutcome(retryException == null);
                 retryListener.afterRetry(method.toGenericString(), attempt,
                         retryException,
                         Duration.between(startTime, Instant.now()));
+                if (span != null) {
+                    if (retryException != null) {
+                        span.recordException(retryException);
+                    }
+                    span.end();
+                }
                 MDC.clear();
             }
         }
@@ -218,16 +409,34 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
         return attempt;
     }
 
+    private List<OperationRingBuffer.Operation> recentOperations(SQLException ex) {
+        List<OperationRingBuffer.Operation> operations = getRecentOperations();
+        if (!operations.isEmpty() && logger.isDebugEnabled()) {
+            logger.debug("Recent operations on connection delegate [{}] before [{}]:{}",
+                    connectionInfo(), ex.getMessage(), OperationRingBuffer.toString(operations));
+        }
+        return operations;
+    }
+
     private void openDelegate(int attempt) throws SQLException {
         logger.debug("Opening new connection for attempt [{}]", attempt);
+        Object event = DriverEvents.beginReconnect();
         Connection newDelegate = connectionSupplier.get();
-        if (newDelegate.getAutoCommit()) {
-            throw new InvalidConnectionException("Connection is in auto-commit mode",
-                    PSQLState.UNEXPECTED_ERROR);
-        }
-        if (!newDelegate.isValid(10)) {
-            throw new InvalidConnectionException("Connection is invalid",
-                    PSQLState.CONNECTION_UNABLE_TO_CONNECT);
+        try {
+            if (newDelegate.getAutoCommit()) {
+                throw new InvalidConnectionException("Connection is in auto-commit mode",
+                        PSQLState.UNEXPECTED_ERROR);
+            }
+            if (!newDelegate.isValid(10)) {
+                throw new InvalidConnectionException("Connection is invalid",
+                        PSQLState.CONNECTION_UNABLE_TO_CONNECT);
+            }
+        } catch (SQLException ex) {
+            if (retryStrategy.isConnectionError(ex)) {
+                recordNodeFailure(newDelegate, ex);
+            }
+            newDelegate.close();
+            throw ex;
         }
         SQLWarning warning = newDelegate.getWarnings();
         if (warning != null) {
@@ -235,10 +444,28 @@ public class ConnectionRetryInterceptor extends AbstractRetryInterceptor<Connect
         }
         Connection expiredDelegate = getDelegate();
         setDelegate(newDelegate);
+        DriverMetrics.recordReconnect();
+        DriverEvents.endReconnect(event, newDelegate, attempt);
         logger.debug("Opened new connection [{}] replacing [{}]",
                 connectionInfo(newDelegate), connectionInfo(expiredDelegate));
     }
 
+    private void recordNodeFailure(Connection connection, SQLException ex) {
+        // Mark the node draining or trip its circuit breaker when using topology discovery,
+        // so that reconnects skip the node
+        if (connection instanceof CockroachConnection) {
+            ClusterNode clusterNode = ((CockroachConnection) connection).getClusterNode();
+            if (clusterNode == null) {
+                return;
+            }
+            if (ex != null && "57P01".equals(ex.getSQLState())) {
+                clusterNode.markDraining();
+            } else {
+                clusterNode.getCircuitBreaker().recordFailure();
+            }
+        }
+    }
+
     private void closeDelegate(int attempt) throws SQLException {
         Connection expiredDelegate = getDelegate();
         if (expiredDelegate.isClosed()) {
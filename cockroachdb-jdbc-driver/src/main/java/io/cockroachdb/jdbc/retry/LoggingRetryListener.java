@@ -76,6 +76,13 @@ public class LoggingRetryListener implements RetryListener {
         }
     }
 
+    @Override
+    public void afterTransaction(TransactionRecord transactionRecord) {
+        if (transactionRecord.getRetries() > 0 && logger.isDebugEnabled()) {
+            logger.debug(marker, "Transaction {}", transactionRecord);
+        }
+    }
+
     public void resetCounters() {
         totalSuccess.set(0);
         totalFailures.set(0);
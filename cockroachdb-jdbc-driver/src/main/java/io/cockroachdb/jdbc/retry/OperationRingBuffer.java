@@ -0,0 +1,221 @@
+package io.cockroachdb.jdbc.retry;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+
+/**
+ * A fixed-size ring buffer of the most recent operations on a connection, used for postmortem
+ * diagnostics when a transaction fails with {@link TooManyRetriesException} or
+ * {@link ConcurrentUpdateException}.
+ * <p>
+ * Storage is preallocated as parallel arrays and records only hold references to existing
+ * objects (methods and SQL state codes) and primitives, so recording doesn't allocate.
+ * Resolving records into {@link Operation} values is deferred until a snapshot is taken.
+ */
+public class OperationRingBuffer {
+    private final Method[] methods;
+
+    private final long[] fingerprintIds;
+
+    private final long[] timestamps;
+
+    private final long[] durations;
+
+    private final int[] attempts;
+
+    private final String[] errors;
+
+    private long sequence;
+
+    public OperationRingBuffer(int capacity) {
+        Assert.isTrue(capacity > 0, "capacity must be > 0");
+        this.methods = new Method[capacity];
+        this.fingerprintIds = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.durations = new long[capacity];
+        this.attempts = new int[capacity];
+        this.errors = new String[capacity];
+    }
+
+    public int getCapacity() {
+        return methods.length;
+    }
+
+    /**
+     * Record an operation, overwriting the oldest record when full.
+     *
+     * @param method the invoked JDBC method
+     * @param fingerprintId the SQL fingerprint id or 0 if not applicable
+     * @param timestamp the call time in epoch millis
+     * @param durationNanos the execution time in nanoseconds
+     * @param attempt the retry attempt in progress, or 0 if not retrying
+     * @param thrown the exception thrown, or null if successful
+     */
+    public synchronized void record(Method method, long fingerprintId, long timestamp, long durationNanos,
+                                    int attempt, Throwable thrown) {
+        int index = (int) (sequence++ % methods.length);
+        methods[index] = method;
+        fingerprintIds[index] = fingerprintId;
+        timestamps[index] = timestamp;
+        durations[index] = durationNanos;
+        attempts[index] = attempt;
+        errors[index] = errorOf(thrown);
+    }
+
+    private static String errorOf(Throwable thrown) {
+        if (thrown instanceof InvocationTargetException) {
+            thrown = ((InvocationTargetException) thrown).getTargetException();
+        }
+        if (thrown == null) {
+            return null;
+        }
+        if (thrown instanceof SQLException && ((SQLException) thrown).getSQLState() != null) {
+            return ((SQLException) thrown).getSQLState();
+        }
+        return thrown.getClass().getName();
+    }
+
+    /**
+     * @return total number of operations recorded, including overwritten ones
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the buffered operations, oldest first
+     */
+    public synchronized List<Operation> snapshot() {
+        int size = (int) Math.min(sequence, methods.length);
+        List<Operation> operations = new ArrayList<>(size);
+        for (long seq = sequence - size; seq < sequence; seq++) {
+            int index = (int) (seq % methods.length);
+            Method method = methods[index];
+            operations.add(new Operation(seq,
+                    timestamps[index],
+                    method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                    fingerprintIds[index],
+                    SqlFingerprints.fingerprintOf(fingerprintIds[index]),
+                    durations[index],
+                    attempts[index],
+                    errors[index]));
+        }
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * @param operations the operations to format
+     * @return one line per operation, oldest first
+     */
+    public static String toString(List<Operation> operations) {
+        StringBuilder sb = new StringBuilder();
+        for (Operation operation : operations) {
+            sb.append("\n\t").append(operation);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * An immutable record of a buffered operation.
+     */
+    public static final class Operation implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long sequence;
+
+        private final long timestamp;
+
+        private final String method;
+
+        private final long fingerprintId;
+
+        private final String fingerprint;
+
+        private final long durationNanos;
+
+        private final int attempt;
+
+        private final String error;
+
+        Operation(long sequence, long timestamp, String method, long fingerprintId, String fingerprint,
+                  long durationNanos, int attempt, String error) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.method = method;
+            this.fingerprintId = fingerprintId;
+            this.fingerprint = fingerprint;
+            this.durationNanos = durationNanos;
+            this.attempt = attempt;
+            this.error = error;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Instant getTimestamp() {
+            return Instant.ofEpochMilli(timestamp);
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getFingerprintId() {
+            return fingerprintId;
+        }
+
+        /**
+         * @return the normalized SQL, or null if not applicable or evicted from the fingerprint cache
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public int getAttempt() {
+            return attempt;
+        }
+
+        /**
+         * @return SQL state or exception class name on failure, or null if successful
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder()
+                    .append("[").append(sequence).append("] ")
+                    .append(getTimestamp()).append(" ")
+                    .append(method)
+                    .append(" ").append(String.format("%.3fms", durationNanos / 1_000_000.0))
+                    .append(" attempt=").append(attempt)
+                    .append(" ").append(error != null ? "FAILED(" + error + ")" : "OK");
+            if (fingerprintId != 0) {
+                sb.append(" fingerprint=").append(Long.toHexString(fingerprintId));
+                if (fingerprint != null) {
+                    sb.append(" sql=").append(fingerprint);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -8,22 +8,37 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.time.Instant;
 
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+
 public class PreparedStatementRetryInterceptor extends AbstractRetryInterceptor<PreparedStatement>
         implements InvocationHandler {
     public static PreparedStatement proxy(PreparedStatement delegate,
                                           ConnectionRetryInterceptor connectionInterceptor) {
+        return proxy(delegate, connectionInterceptor, null);
+    }
+
+    public static PreparedStatement proxy(PreparedStatement delegate,
+                                          ConnectionRetryInterceptor connectionInterceptor,
+                                          String sql) {
         return (PreparedStatement) Proxy.newProxyInstance(
                 PreparedStatementRetryInterceptor.class.getClassLoader(),
                 new Class[] {PreparedStatement.class},
-                new PreparedStatementRetryInterceptor(delegate, connectionInterceptor));
+                new PreparedStatementRetryInterceptor(delegate, connectionInterceptor, sql));
     }
 
     private final ConnectionRetryInterceptor connectionRetryInterceptor;
 
+    private final String sql;
+
+    private final long fingerprintId;
+
     protected PreparedStatementRetryInterceptor(PreparedStatement delegate,
-                                                ConnectionRetryInterceptor connectionRetryInterceptor) {
+                                                ConnectionRetryInterceptor connectionRetryInterceptor,
+                                                String sql) {
         super(delegate);
         this.connectionRetryInterceptor = connectionRetryInterceptor;
+        this.sql = sql;
+        this.fingerprintId = SqlFingerprints.idOf(sql);
         setMethodTraceLogger(connectionRetryInterceptor.getConnectionSettings().getMethodTraceLogger());
     }
 
@@ -32,6 +47,33 @@ public class PreparedStatementRetryInterceptor extends AbstractRetryInterceptor<
         return connectionRetryInterceptor.connectionInfo();
     }
 
+    @Override
+    protected OperationRingBuffer getOperationRingBuffer() {
+        return connectionRetryInterceptor.getOperationRingBuffer();
+    }
+
+    @Override
+    protected int currentAttempt() {
+        return connectionRetryInterceptor.currentAttempt();
+    }
+
+    @Override
+    TransactionTimer getTransactionTimer() {
+        return connectionRetryInterceptor.getTransactionTimer();
+    }
+
+    @Override
+    protected boolean isRecorded(Method method) {
+        // Skip parameter binding
+        return !method.getName().startsWith("set");
+    }
+
+    @Override
+    protected long fingerprintId(Method method, Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String
+                ? super.fingerprintId(method, args) : fingerprintId;
+    }
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         if ("toString".equals(method.getName())
@@ -60,8 +102,8 @@ public class PreparedStatementRetryInterceptor extends AbstractRetryInterceptor<
 
                 return context.getResult();
             } catch (InvocationTargetException e) {
-                attempt = connectionRetryInterceptor.rollbackAndRetry(e.getTargetException(), method, attempt,
-                        startTime);
+                attempt = connectionRetryInterceptor.rollbackAndRetry(e.getTargetException(), method, sql,
+                        attempt, startTime);
             }
         }
     }
@@ -16,6 +16,8 @@ import java.sql.ResultSetMetaData;
 import java.util.Arrays;
 import java.util.UUID;
 
+import io.cockroachdb.jdbc.jfr.DriverEvents;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
 import io.cockroachdb.jdbc.util.Checksum;
 import io.cockroachdb.jdbc.util.StreamUtils;
 
@@ -43,6 +45,16 @@ public class ResultSetRetryInterceptor extends AbstractRetryInterceptor<ResultSe
         return connectionRetryInterceptor.connectionInfo();
     }
 
+    @Override
+    protected int currentAttempt() {
+        return connectionRetryInterceptor.currentAttempt();
+    }
+
+    @Override
+    TransactionTimer getTransactionTimer() {
+        return connectionRetryInterceptor.getTransactionTimer();
+    }
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         if ("toString".equals(method.getName())
@@ -63,6 +75,19 @@ public class ResultSetRetryInterceptor extends AbstractRetryInterceptor<ResultSe
 
     @Override
     protected void doRetry(Iterable<MethodExecution> methodExecutions) throws Throwable {
+        long startTime = System.nanoTime();
+        try {
+            verifyChecksum(methodExecutions);
+        } finally {
+            TransactionTimer transactionTimer = getTransactionTimer();
+            if (transactionTimer != null) {
+                transactionTimer.recordChecksum(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    private void verifyChecksum(Iterable<MethodExecution> methodExecutions) throws Throwable {
+        Object event = DriverEvents.beginChecksum();
         Checksum lastChecksum = Checksum.sha256();
 
         for (MethodExecution methodExecution : methodExecutions) {
@@ -87,7 +112,11 @@ public class ResultSetRetryInterceptor extends AbstractRetryInterceptor<ResultSe
         byte[] firstDigest = firstChecksum.toDigest();
         byte[] lastDigest = lastChecksum.toDigest();
 
-        if (!Arrays.equals(firstDigest, lastDigest)) {
+        boolean match = Arrays.equals(firstDigest, lastDigest);
+        DriverEvents.endChecksum(event, connectionRetryInterceptor.getDelegate(), match);
+
+        if (!match) {
+            DriverMetrics.recordChecksumMismatch();
             throw new ConcurrentUpdateException(
                     "The transaction could not serialize due to a concurrent update (checksum failure)");
         }
@@ -41,4 +41,12 @@ public interface RetryListener {
      */
     default void afterRetry(String methodName, int attempt, SQLException ex, Duration executionTime) {
     }
+
+    /**
+     * Invoked when an explicit transaction is committed, rolled back or fails, with or without retries.
+     *
+     * @param transactionRecord the transaction wall time accounted into phases
+     */
+    default void afterTransaction(TransactionRecord transactionRecord) {
+    }
 }
@@ -31,6 +31,21 @@ public class StatementRetryInterceptor extends AbstractRetryInterceptor<Statemen
         return connectionRetryInterceptor.connectionInfo();
     }
 
+    @Override
+    protected OperationRingBuffer getOperationRingBuffer() {
+        return connectionRetryInterceptor.getOperationRingBuffer();
+    }
+
+    @Override
+    protected int currentAttempt() {
+        return connectionRetryInterceptor.currentAttempt();
+    }
+
+    @Override
+    TransactionTimer getTransactionTimer() {
+        return connectionRetryInterceptor.getTransactionTimer();
+    }
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         if ("toString".equals(method.getName())
@@ -59,8 +74,9 @@ public class StatementRetryInterceptor extends AbstractRetryInterceptor<Statemen
 
                 return context.getResult();
             } catch (InvocationTargetException e) {
-                attempt = connectionRetryInterceptor.rollbackAndRetry(e.getTargetException(), method, attempt,
-                        startTime);
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                attempt = connectionRetryInterceptor.rollbackAndRetry(e.getTargetException(), method, sql,
+                        attempt, startTime);
             }
         }
     }
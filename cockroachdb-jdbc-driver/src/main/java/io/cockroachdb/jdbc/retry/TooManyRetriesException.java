@@ -1,12 +1,27 @@
 package io.cockroachdb.jdbc.retry;
 
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 import io.cockroachdb.jdbc.NonTransientCockroachException;
 import io.cockroachdb.jdbc.util.ExceptionUtils;
 
 public class TooManyRetriesException extends NonTransientCockroachException {
+    private List<OperationRingBuffer.Operation> recentOperations = Collections.emptyList();
+
     public TooManyRetriesException(String reason, SQLException cause) {
         super(reason, ExceptionUtils.toPSQLState(cause.getSQLState()), cause);
     }
+
+    /**
+     * @return the most recent operations on the connection before the retries were exhausted, oldest first
+     */
+    public List<OperationRingBuffer.Operation> getRecentOperations() {
+        return recentOperations;
+    }
+
+    void setRecentOperations(List<OperationRingBuffer.Operation> recentOperations) {
+        this.recentOperations = recentOperations;
+    }
 }
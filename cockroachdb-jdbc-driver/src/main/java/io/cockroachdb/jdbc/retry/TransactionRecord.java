@@ -0,0 +1,157 @@
+package io.cockroachdb.jdbc.retry;
+
+import java.time.Duration;
+
+/**
+ * An immutable record of a finished explicit transaction, with its wall time accounted
+ * into phases. Time not spent in any phase, such as application think time between
+ * statements, is reported as other time.
+ */
+public class TransactionRecord {
+    /**
+     * The outcome of a transaction.
+     */
+    public enum Outcome {
+        COMMITTED,
+        ROLLED_BACK,
+        FAILED
+    }
+
+    private final String fingerprint;
+
+    private final Outcome outcome;
+
+    private final int statements;
+
+    private final int retries;
+
+    private final long wallTime;
+
+    private final long sqlTime;
+
+    private final long backoffTime;
+
+    private final long reconnectTime;
+
+    private final long replayTime;
+
+    private final long checksumTime;
+
+    private final long commitTime;
+
+    TransactionRecord(String fingerprint, Outcome outcome, int statements, int retries, long wallTime,
+                      long sqlTime, long backoffTime, long reconnectTime, long replayTime, long checksumTime,
+                      long commitTime) {
+        this.fingerprint = fingerprint;
+        this.outcome = outcome;
+        this.statements = statements;
+        this.retries = retries;
+        this.wallTime = wallTime;
+        this.sqlTime = sqlTime;
+        this.backoffTime = backoffTime;
+        this.reconnectTime = reconnectTime;
+        this.replayTime = replayTime;
+        this.checksumTime = checksumTime;
+        this.commitTime = commitTime;
+    }
+
+    /**
+     * @return the transaction fingerprint (hex), derived from the fingerprints of executed statements in order
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return number of statement executions, excluding replays
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return number of retry attempts
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return time from the first operation to the end of the transaction
+     */
+    public Duration getWallTime() {
+        return Duration.ofNanos(wallTime);
+    }
+
+    /**
+     * @return time spent in JDBC calls outside of retry attempts, excluding commits
+     */
+    public Duration getSqlTime() {
+        return Duration.ofNanos(sqlTime);
+    }
+
+    /**
+     * @return time spent in backoff delays before retry attempts
+     */
+    public Duration getBackoffTime() {
+        return Duration.ofNanos(backoffTime);
+    }
+
+    /**
+     * @return time spent closing and reopening connections for retry attempts
+     */
+    public Duration getReconnectTime() {
+        return Duration.ofNanos(reconnectTime);
+    }
+
+    /**
+     * @return time spent replaying the transaction history, excluding checksum verification
+     */
+    public Duration getReplayTime() {
+        return Duration.ofNanos(replayTime);
+    }
+
+    /**
+     * @return time spent re-reading result sets and verifying their checksums during replay
+     */
+    public Duration getChecksumTime() {
+        return Duration.ofNanos(checksumTime);
+    }
+
+    /**
+     * @return time spent in commit attempts
+     */
+    public Duration getCommitTime() {
+        return Duration.ofNanos(commitTime);
+    }
+
+    /**
+     * @return wall time not accounted to any phase, such as application think time
+     */
+    public Duration getOtherTime() {
+        return Duration.ofNanos(Math.max(0, wallTime - sqlTime - backoffTime - reconnectTime - replayTime
+                - checksumTime - commitTime));
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionRecord{" +
+                "fingerprint='" + fingerprint + '\'' +
+                ", outcome=" + outcome +
+                ", statements=" + statements +
+                ", retries=" + retries +
+                ", wallTime=" + getWallTime() +
+                ", sqlTime=" + getSqlTime() +
+                ", backoffTime=" + getBackoffTime() +
+                ", reconnectTime=" + getReconnectTime() +
+                ", replayTime=" + getReplayTime() +
+                ", checksumTime=" + getChecksumTime() +
+                ", commitTime=" + getCommitTime() +
+                ", otherTime=" + getOtherTime() +
+                '}';
+    }
+}
@@ -0,0 +1,110 @@
+package io.cockroachdb.jdbc.retry;
+
+/**
+ * Accounts the wall time of an explicit transaction into phases. Not thread safe, the
+ * timer is confined to the thread using the connection like the connection itself.
+ */
+final class TransactionTimer {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long startTime;
+
+    private long fingerprint = FNV_OFFSET_BASIS;
+
+    private int statements;
+
+    private int retries;
+
+    private long sqlTime;
+
+    private long backoffTime;
+
+    private long reconnectTime;
+
+    private long replayTime;
+
+    private long checksumTime;
+
+    private long commitTime;
+
+    private void start() {
+        if (startTime == 0) {
+            startTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param nanos time spent in a JDBC call outside of retry attempts
+     * @param fingerprintId the SQL fingerprint id of a statement execution, or 0 if not an execution
+     */
+    void recordSql(long nanos, long fingerprintId) {
+        start();
+        sqlTime += nanos;
+        if (fingerprintId != 0) {
+            statements++;
+            fingerprint = (fingerprint ^ fingerprintId) * FNV_PRIME;
+        }
+    }
+
+    void recordRetry() {
+        start();
+        retries++;
+    }
+
+    void recordBackoff(long nanos) {
+        backoffTime += nanos;
+    }
+
+    void recordReconnect(long nanos) {
+        reconnectTime += nanos;
+    }
+
+    void recordReplay(long nanos) {
+        replayTime += nanos;
+    }
+
+    void recordChecksum(long nanos) {
+        checksumTime += nanos;
+    }
+
+    void recordCommit(long nanos) {
+        start();
+        commitTime += nanos;
+    }
+
+    boolean isStarted() {
+        return startTime != 0;
+    }
+
+    /**
+     * Finish the transaction and reset the timer.
+     *
+     * @param outcome the transaction outcome
+     * @return the transaction record, or null if no operations were recorded
+     */
+    TransactionRecord finish(TransactionRecord.Outcome outcome) {
+        if (!isStarted()) {
+            return null;
+        }
+        TransactionRecord record = new TransactionRecord(Long.toHexString(fingerprint), outcome, statements,
+                retries, System.nanoTime() - startTime, sqlTime, backoffTime, reconnectTime,
+                Math.max(0, replayTime - checksumTime), checksumTime, commitTime);
+        reset();
+        return record;
+    }
+
+    void reset() {
+        startTime = 0;
+        fingerprint = FNV_OFFSET_BASIS;
+        statements = 0;
+        retries = 0;
+        sqlTime = 0;
+        backoffTime = 0;
+        reconnectTime = 0;
+        replayTime = 0;
+        checksumTime = 0;
+        commitTime = 0;
+    }
+}
@@ -0,0 +1,169 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.cluster.ClusterTopology;
+import io.cockroachdb.jdbc.pool.ConnectionPool;
+import io.cockroachdb.jdbc.pool.PoolSettings;
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * Routes single-key statements to the leaseholder of the range containing the key, using
+ * the leaseholder node as gateway to avoid an extra internal hop from gateway to leaseholder.
+ * <p>
+ * Connections are pooled per gateway node. When the leaseholder of a key is unknown or the
+ * node is unhealthy, any healthy node is used as gateway instead and the table is scheduled
+ * for a range cache refresh.
+ */
+public class LeaseholderRouter implements Closeable {
+    // Pool key for connections to any node
+    private static final int ANY_NODE = -1;
+
+    private final ClusterTopology topology;
+
+    private final RangeCache rangeCache;
+
+    private final NodeConnectionFactory connectionFactory;
+
+    private final PoolSettings poolSettings;
+
+    private final ConcurrentMap<Integer, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    private final LongAdder totalHits = new LongAdder();
+
+    private final LongAdder totalMisses = new LongAdder();
+
+    public LeaseholderRouter(ClusterTopology topology, RangeCache rangeCache,
+                             NodeConnectionFactory connectionFactory, PoolSettings poolSettings) {
+        Assert.notNull(topology, "topology is null");
+        Assert.notNull(rangeCache, "rangeCache is null");
+        Assert.notNull(connectionFactory, "connectionFactory is null");
+        this.topology = topology;
+        this.rangeCache = rangeCache;
+        this.connectionFactory = connectionFactory;
+        this.poolSettings = poolSettings;
+    }
+
+    /**
+     * Start refreshing the range cache in background.
+     *
+     * @param refreshInterval the interval each table is refreshed within
+     */
+    public void start(Duration refreshInterval) {
+        rangeCache.start(refreshInterval);
+    }
+
+    public RangeCache getRangeCache() {
+        return rangeCache;
+    }
+
+    /**
+     * @return number of keys routed to a known leaseholder
+     */
+    public long getTotalHits() {
+        return totalHits.sum();
+    }
+
+    /**
+     * @return number of keys with unknown or unhealthy leaseholder
+     */
+    public long getTotalMisses() {
+        return totalMisses.sum();
+    }
+
+    /**
+     * Lookup the leaseholder node of a primary key.
+     *
+     * @param table the table name
+     * @param key the primary key
+     * @return the leaseholder node, or null if unknown or unhealthy
+     */
+    public ClusterNode route(String table, RangeKey key) {
+        ClusterNode node = lookupNode(table, key);
+        if (node == null) {
+            rangeCache.invalidate(table);
+        }
+        return node;
+    }
+
+    private ClusterNode lookupNode(String table, RangeKey key) {
+        RangeDescriptor descriptor = rangeCache.lookup(table, key);
+        ClusterNode node = descriptor != null ? topology.getNode(descriptor.getLeaseholderNodeId()) : null;
+        if (node == null || !node.isHealthy()) {
+            totalMisses.increment();
+            return null;
+        }
+        totalHits.increment();
+        return node;
+    }
+
+    /**
+     * Group primary keys by leaseholder node, for example to partition a batch.
+     *
+     * @param table the table name
+     * @param keys the primary keys
+     * @return indexes of the keys per leaseholder node in key order, with unrouted keys under a null node
+     */
+    public Map<ClusterNode, List<Integer>> partition(String table, List<RangeKey> keys) {
+        Map<ClusterNode, List<Integer>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            partitions.computeIfAbsent(lookupNode(table, keys.get(i)), node -> new ArrayList<>()).add(i);
+        }
+        if (partitions.containsKey(null)) {
+            rangeCache.invalidate(table);
+        }
+        return partitions;
+    }
+
+    /**
+     * Get a pooled auto-commit connection with the leaseholder of a primary key as gateway.
+     * The connection is returned to the pool when closed.
+     *
+     * @param table the table name
+     * @param key the primary key column values in primary key order
+     * @return the connection
+     * @throws SQLException if no connection could be acquired
+     */
+    public Connection getConnection(String table, Object... key) throws SQLException {
+        return getConnection(route(table, RangeKey.of(key)));
+    }
+
+    /**
+     * @return max number of pooled connections per gateway node
+     */
+    public int getMaxConnectionsPerNode() {
+        return poolSettings.getMaxPoolSize();
+    }
+
+    /**
+     * Get a pooled auto-commit connection with the given node as gateway.
+     *
+     * @param node the gateway node, or null for any node
+     * @return the connection
+     * @throws SQLException if no connection could be acquired
+     */
+    public Connection getConnection(ClusterNode node) throws SQLException {
+        int poolKey = node != null ? node.getNodeId() : ANY_NODE;
+        return pools.computeIfAbsent(poolKey,
+                        k -> new ConnectionPool(() -> connectionFactory.open(node), poolSettings))
+                .getConnection();
+    }
+
+    @Override
+    public void close() {
+        rangeCache.close();
+        pools.values().forEach(ConnectionPool::close);
+        pools.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+
+/**
+ * Factory for connections to a given cluster node, used as gateway for routed statements.
+ */
+@FunctionalInterface
+public interface NodeConnectionFactory {
+    /**
+     * Open a connection to a node, or to another healthy node if it's unreachable.
+     *
+     * @param node the preferred gateway node, or null for any node
+     * @return a new connection
+     * @throws SQLException if the connection could not be opened
+     */
+    Connection open(ClusterNode node) throws SQLException;
+}
@@ -0,0 +1,273 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+
+/**
+ * Executes large auto-commit insert and upsert batches by partitioning the rows by the
+ * leaseholder of their primary key range and executing the partitions in parallel, each over
+ * a pooled connection with the leaseholder as gateway. Update counts are reassembled in the
+ * original row order.
+ * <p>
+ * Only single-row {@code INSERT} or {@code UPSERT} statements with an explicit column list and
+ * placeholder values into a cached table are eligible. Partitions commit independently, so
+ * unlike a sequential auto-commit batch, a failed batch may be partially applied.
+ * <p>
+ * Partitions larger than the max partition size are split into chunks. The chunks of a node
+ * are executed by at most as many concurrent workers as there are pooled connections per node,
+ * so that a batch never waits for connections held by itself.
+ */
+public class PartitionedBatchExecutor {
+    private static final Pattern INSERT_PATTERN = Pattern.compile(
+            "^\\s*(?:insert|upsert)\\s+into\\s+([^\\s(]+)\\s*\\(([^)]*)\\)\\s*values\\s*"
+                    + "\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)(?:\\s+on\\s+conflict\\b.*)?\\s*;?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Min number of rows for partitioning a batch, smaller batches execute sequentially.
+     */
+    public static final int DEFAULT_MIN_BATCH_SIZE = 32;
+
+    /**
+     * Max number of rows per partition, larger partitions are split.
+     */
+    public static final int DEFAULT_MAX_PARTITION_SIZE = 512;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static class ExecutorHolder {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "cockroachdb-batch-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final LeaseholderRouter leaseholderRouter;
+
+    private final int minBatchSize;
+
+    private final int maxPartitionSize;
+
+    private final LongAdder totalBatches = new LongAdder();
+
+    private final LongAdder totalPartitions = new LongAdder();
+
+    public PartitionedBatchExecutor(LeaseholderRouter leaseholderRouter) {
+        this(leaseholderRouter, DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_PARTITION_SIZE);
+    }
+
+    public PartitionedBatchExecutor(LeaseholderRouter leaseholderRouter, int minBatchSize, int maxPartitionSize) {
+        Assert.notNull(leaseholderRouter, "leaseholderRouter is null");
+        Assert.isTrue(maxPartitionSize > 0, "maxPartitionSize must be > 0");
+        this.leaseholderRouter = leaseholderRouter;
+        this.minBatchSize = minBatchSize;
+        this.maxPartitionSize = maxPartitionSize;
+    }
+
+    /**
+     * @param sql the SQL statement
+     * @return true if the statement is a single-row insert or upsert into a cached table
+     */
+    public boolean isEligible(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        Matcher matcher = INSERT_PATTERN.matcher(sql);
+        return matcher.matches() && leaseholderRouter.getRangeCache().getTables().contains(matcher.group(1));
+    }
+
+    /**
+     * @param batchSize number of rows in the batch
+     * @return true if the batch is large enough to be partitioned
+     */
+    public boolean isPartitionable(int batchSize) {
+        return batchSize >= minBatchSize;
+    }
+
+    /**
+     * @return number of batches executed in partitions
+     */
+    public long getTotalBatches() {
+        return totalBatches.sum();
+    }
+
+    /**
+     * @return number of partitions executed
+     */
+    public long getTotalPartitions() {
+        return totalPartitions.sum();
+    }
+
+    /**
+     * Map the primary key columns of the target table to the parameter indexes of the statement.
+     *
+     * @param sql an eligible SQL statement
+     * @return zero-based parameter indexes in primary key order, or null if the primary key
+     * is unknown or not fully bound by the statement
+     */
+    int[] keyParameterIndexes(String sql) {
+        Matcher matcher = INSERT_PATTERN.matcher(sql);
+        if (!matcher.matches()) {
+            return null;
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : matcher.group(2).split(",")) {
+            columns.add(normalize(column));
+        }
+        List<String> keyColumns = leaseholderRouter.getRangeCache().getPrimaryKeyColumns(matcher.group(1));
+        if (keyColumns.isEmpty()) {
+            return null;
+        }
+        int[] indexes = new int[keyColumns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = columns.indexOf(keyColumns.get(i));
+            if (indexes[i] < 0) {
+                return null;
+            }
+        }
+        return indexes;
+    }
+
+    private static String normalize(String identifier) {
+        String id = identifier.trim();
+        if (id.length() >= 2 && id.startsWith("\"") && id.endsWith("\"")) {
+            return id.substring(1, id.length() - 1);
+        }
+        return id.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Execute a batch partitioned by leaseholder.
+     *
+     * @param sql an eligible SQL statement
+     * @param rows the parameter bindings of each batch row
+     * @return the update counts in row order, or null if the batch can't be partitioned
+     * since the primary key is unknown
+     * @throws BatchUpdateException if any partition failed, with failed rows marked as
+     * {@link Statement#EXECUTE_FAILED}
+     */
+    public int[] executeBatch(String sql, List<ParameterBinding[]> rows) throws SQLException {
+        Matcher matcher = INSERT_PATTERN.matcher(sql);
+        Assert.isTrue(matcher.matches(), "Not an eligible statement: " + sql);
+
+        final int[] keyIndexes = keyParameterIndexes(sql);
+        if (keyIndexes == null) {
+            return null;
+        }
+
+        final String table = matcher.group(1);
+
+        List<RangeKey> keys = new ArrayList<>(rows.size());
+        for (ParameterBinding[] row : rows) {
+            Object[] values = new Object[keyIndexes.length];
+            for (int i = 0; i < keyIndexes.length; i++) {
+                values[i] = row[keyIndexes[i]].getValue();
+            }
+            keys.add(RangeKey.of(values));
+        }
+
+        final int[] updateCounts = new int[rows.size()];
+        Arrays.fill(updateCounts, Statement.EXECUTE_FAILED);
+
+        final int maxWorkersPerNode = leaseholderRouter.getMaxConnectionsPerNode();
+
+        List<CompletableFuture<List<SQLException>>> futures = new ArrayList<>();
+        int partitions = 0;
+        for (Map.Entry<ClusterNode, List<Integer>> partition : leaseholderRouter.partition(table, keys).entrySet()) {
+            List<Integer> indexes = partition.getValue();
+            List<List<Integer>> chunks = new ArrayList<>();
+            for (int from = 0; from < indexes.size(); from += maxPartitionSize) {
+                chunks.add(indexes.subList(from, Math.min(indexes.size(), from + maxPartitionSize)));
+            }
+            partitions += chunks.size();
+
+            AtomicInteger nextChunk = new AtomicInteger();
+            for (int worker = 0; worker < Math.min(chunks.size(), maxWorkersPerNode); worker++) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    List<SQLException> failures = new ArrayList<>();
+                    for (int i = nextChunk.getAndIncrement(); i < chunks.size(); i = nextChunk.getAndIncrement()) {
+                        try {
+                            executePartition(partition.getKey(), sql, rows, chunks.get(i), updateCounts);
+                        } catch (SQLException e) {
+                            failures.add(e);
+                        }
+                    }
+                    return failures;
+                }, ExecutorHolder.INSTANCE));
+            }
+        }
+
+        totalBatches.increment();
+        totalPartitions.add(partitions);
+
+        List<SQLException> failures = new ArrayList<>();
+        for (CompletableFuture<List<SQLException>> future : futures) {
+            try {
+                failures.addAll(future.join());
+            } catch (CompletionException e) {
+                failures.add(new SQLException("Batch partition failed", e.getCause()));
+            }
+        }
+
+        SQLException failure = null;
+        for (SQLException cause : failures) {
+            if (failure == null) {
+                failure = cause;
+            } else {
+                failure.setNextException(cause);
+            }
+        }
+
+        if (failure != null) {
+            throw new BatchUpdateException("Batch partially failed: " + failure.getMessage(),
+                    failure.getSQLState(), failure.getErrorCode(), updateCounts, failure);
+        }
+
+        return updateCounts;
+    }
+
+    private void executePartition(ClusterNode node, String sql, List<ParameterBinding[]> rows,
+                                  List<Integer> indexes, int[] updateCounts) throws SQLException {
+        try (Connection connection = leaseholderRouter.getConnection(node);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int index : indexes) {
+                ParameterBinding[] row = rows.get(index);
+                for (int i = 0; i < row.length; i++) {
+                    row[i].bind(ps, i + 1);
+                }
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                updateCounts[indexes.get(i)] = counts[i];
+            }
+            logger.debug("Executed batch partition of [{}] rows through node [{}]", indexes.size(), node);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+/**
+ * A cache of range descriptors and leaseholders for a set of tables, loaded with
+ * {@code SHOW RANGES} and held in a sorted interval map per table keyed by the range start key.
+ * <p>
+ * The cache is refreshed incrementally in background, one table at a time starting with the
+ * one refreshed least recently, so that each table is refreshed about once per refresh interval.
+ * A table can also be invalidated to refresh it as soon as possible, for example after a
+ * split or lease transfer is suspected.
+ */
+public class RangeCache implements Closeable {
+    static final String SHOW_RANGES_WITH_DETAILS = "SHOW RANGES FROM TABLE %s WITH DETAILS";
+
+    static final String SHOW_RANGES = "SHOW RANGES FROM TABLE %s";
+
+    static final String PRIMARY_KEY_QUERY = "SELECT kcu.column_name "
+            + "FROM information_schema.table_constraints AS tc "
+            + "JOIN information_schema.key_column_usage AS kcu "
+            + "ON kcu.constraint_schema = tc.constraint_schema AND kcu.constraint_name = tc.constraint_name "
+            + "AND kcu.table_name = tc.table_name "
+            + "WHERE tc.constraint_type = 'PRIMARY KEY' AND tc.table_name = ? "
+            + "AND tc.table_schema = coalesce(?, current_schema()) "
+            + "ORDER BY kcu.ordinal_position";
+
+    // Primary index of tables with an unchanged primary key
+    private static final long PRIMARY_INDEX_ID = 1;
+
+    private static class SchedulerHolder {
+        static final ScheduledExecutorService INSTANCE;
+
+        static {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "cockroachdb-range-cache");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            INSTANCE = executor;
+        }
+    }
+
+    private static class TableRanges {
+        volatile NavigableMap<RangeKey, RangeDescriptor> ranges = Collections.emptyNavigableMap();
+
+        volatile List<String> primaryKeyColumns = Collections.emptyList();
+
+        volatile long refreshSequence;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ResourceSupplier<Connection> connectionSupplier;
+
+    private final ConcurrentMap<String, TableRanges> tables = new ConcurrentHashMap<>();
+
+    private final AtomicLong refreshSequence = new AtomicLong();
+
+    private ScheduledFuture<?> refreshTask;
+
+    /**
+     * @param connectionSupplier supplier of connections for loading range descriptors
+     * @param tables the tables to cache ranges for
+     */
+    public RangeCache(ResourceSupplier<Connection> connectionSupplier, Collection<String> tables) {
+        Assert.notNull(connectionSupplier, "connectionSupplier is null");
+        this.connectionSupplier = connectionSupplier;
+        tables.forEach(table -> this.tables.put(table, new TableRanges()));
+    }
+
+    /**
+     * Start refreshing the tables in background.
+     *
+     * @param refreshInterval the interval each table is refreshed within
+     */
+    public synchronized void start(Duration refreshInterval) {
+        if (refreshTask != null || tables.isEmpty()) {
+            return;
+        }
+        long period = Math.max(1, refreshInterval.toMillis() / tables.size());
+        refreshTask = SchedulerHolder.INSTANCE.scheduleWithFixedDelay(
+                this::refreshStalest, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+
+    public Set<String> getTables() {
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+
+    /**
+     * @param table the table name
+     * @return the cached ranges of the table in key order
+     */
+    public List<RangeDescriptor> getRanges(String table) {
+        TableRanges tableRanges = tables.get(table);
+        return tableRanges != null
+                ? new ArrayList<>(tableRanges.ranges.values())
+                : Collections.emptyList();
+    }
+
+    /**
+     * @param table the table name
+     * @return the primary key column names of the table in key order, or an empty list if
+     * the table is not cached or not yet loaded
+     */
+    public List<String> getPrimaryKeyColumns(String table) {
+        TableRanges tableRanges = tables.get(table);
+        return tableRanges != null ? tableRanges.primaryKeyColumns : Collections.emptyList();
+    }
+
+    /**
+     * Lookup the range containing a primary key.
+     *
+     * @param table the table name
+     * @param key the primary key
+     * @return the range descriptor, or null if the table is not cached or not yet loaded
+     */
+    public RangeDescriptor lookup(String table, RangeKey key) {
+        TableRanges tableRanges = tables.get(table);
+        if (tableRanges == null) {
+            return null;
+        }
+        Map.Entry<RangeKey, RangeDescriptor> entry = tableRanges.ranges.floorEntry(key);
+        if (entry == null || !entry.getValue().contains(key)) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * Refresh a table as soon as possible in background.
+     *
+     * @param table the table name
+     */
+    public void invalidate(String table) {
+        if (!tables.containsKey(table)) {
+            return;
+        }
+        try {
+            SchedulerHolder.INSTANCE.execute(() -> {
+                try {
+                    refresh(table);
+                } catch (SQLException e) {
+                    logger.warn("Range cache refresh failed for table [{}]: {}", table, e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Range cache refresh rejected for table [{}]", table);
+        }
+    }
+
+    private void refreshStalest() {
+        String stalest = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<String, TableRanges> entry : tables.entrySet()) {
+            if (entry.getValue().refreshSequence < oldest) {
+                stalest = entry.getKey();
+                oldest = entry.getValue().refreshSequence;
+            }
+        }
+        if (stalest != null) {
+            try {
+                refresh(stalest);
+            } catch (SQLException | RuntimeException e) {
+                logger.warn("Range cache refresh failed for table [{}]: {}", stalest, e.toString());
+                // Move on to the next table
+                tables.get(stalest).refreshSequence = refreshSequence.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Refresh the ranges of a table over a new connection.
+     *
+     * @param table the table name
+     * @throws SQLException if the ranges could not be loaded
+     */
+    public void refresh(String table) throws SQLException {
+        try (Connection connection = connectionSupplier.get()) {
+            refresh(connection, table);
+        }
+    }
+
+    /**
+     * Refresh the ranges of a table using the given connection.
+     *
+     * @param connection the connection
+     * @param table the table name
+     * @throws SQLException if the ranges could not be loaded
+     */
+    public void refresh(Connection connection, String table) throws SQLException {
+        TableRanges tableRanges = tables.get(table);
+        Assert.notNull(tableRanges, "Table not cached: " + table);
+
+        if (tableRanges.primaryKeyColumns.isEmpty()) {
+            tableRanges.primaryKeyColumns = loadPrimaryKeyColumns(connection, table);
+        }
+
+        NavigableMap<RangeKey, RangeDescriptor> ranges = new TreeMap<>();
+
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet;
+            Long indexId;
+            try {
+                // Keys are prefixed with the index id in v23.1+
+                resultSet = statement.executeQuery(String.format(SHOW_RANGES_WITH_DETAILS, table));
+                indexId = PRIMARY_INDEX_ID;
+            } catch (SQLException e) {
+                logger.debug("Falling back to SHOW RANGES without details: {}", e.toString());
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+                resultSet = statement.executeQuery(String.format(SHOW_RANGES, table));
+                indexId = null;
+            }
+
+            try (ResultSet rs = resultSet) {
+                while (rs.next()) {
+                    RangeKey startKey = RangeKey.parse(rs.getString("start_key"), indexId, RangeKey.MIN);
+                    RangeKey endKey = RangeKey.parse(rs.getString("end_key"), indexId, RangeKey.MAX);
+                    if (startKey.compareTo(endKey) >= 0) {
+                        continue; // Range of another index
+                    }
+                    RangeDescriptor descriptor = new RangeDescriptor(rs.getLong("range_id"),
+                            startKey, endKey, rs.getInt("lease_holder"));
+                    ranges.put(startKey, descriptor);
+                }
+            }
+        }
+
+        tableRanges.ranges = Collections.unmodifiableNavigableMap(ranges);
+        tableRanges.refreshSequence = refreshSequence.incrementAndGet();
+
+        logger.debug("Refreshed [{}] ranges for table [{}]", ranges.size(), table);
+    }
+
+    private static List<String> loadPrimaryKeyColumns(Connection connection, String table) throws SQLException {
+        int dot = table.lastIndexOf('.');
+        String schema = dot > 0 ? table.substring(table.lastIndexOf('.', dot - 1) + 1, dot) : null;
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(PRIMARY_KEY_QUERY)) {
+            ps.setString(1, unquote(table.substring(dot + 1)));
+            ps.setString(2, schema != null ? unquote(schema) : null);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    columns.add(rs.getString(1));
+                }
+            }
+        }
+        return Collections.unmodifiableList(columns);
+    }
+
+    private static String unquote(String identifier) {
+        String id = identifier.trim();
+        if (id.length() >= 2 && id.startsWith("\"") && id.endsWith("\"")) {
+            return id.substring(1, id.length() - 1);
+        }
+        return id.toLowerCase();
+    }
+}
@@ -0,0 +1,56 @@
+package io.cockroachdb.jdbc.routing;
+
+/**
+ * A cached range descriptor with the primary key span and the leaseholder node of the range.
+ */
+public final class RangeDescriptor {
+    private final long rangeId;
+
+    private final RangeKey startKey;
+
+    private final RangeKey endKey;
+
+    private final int leaseholderNodeId;
+
+    public RangeDescriptor(long rangeId, RangeKey startKey, RangeKey endKey, int leaseholderNodeId) {
+        this.rangeId = rangeId;
+        this.startKey = startKey;
+        this.endKey = endKey;
+        this.leaseholderNodeId = leaseholderNodeId;
+    }
+
+    public long getRangeId() {
+        return rangeId;
+    }
+
+    /**
+     * @return the inclusive start key
+     */
+    public RangeKey getStartKey() {
+        return startKey;
+    }
+
+    /**
+     * @return the exclusive end key
+     */
+    public RangeKey getEndKey() {
+        return endKey;
+    }
+
+    public int getLeaseholderNodeId() {
+        return leaseholderNodeId;
+    }
+
+    public boolean contains(RangeKey key) {
+        return startKey.compareTo(key) <= 0 && key.compareTo(endKey) < 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RangeDescriptor{" +
+                "rangeId=" + rangeId +
+                ", span=[" + startKey + ", " + endKey + ")" +
+                ", leaseholder=n" + leaseholderNodeId +
+                '}';
+    }
+}
@@ -0,0 +1,214 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A comparable primary key bound, made of the decoded key columns of a pretty-printed
+ * CockroachDB key like {@code /1000/"abc"}.
+ * <p>
+ * Components are compared in order, integers before strings and a key before any key it's a
+ * prefix of, which matches the ordering of the encoded keys for ascending integer and string
+ * primary key columns.
+ */
+public final class RangeKey implements Comparable<RangeKey> {
+    /**
+     * The unbounded lower key.
+     */
+    public static final RangeKey MIN = new RangeKey(Collections.emptyList(), -1, true);
+
+    /**
+     * The unbounded upper key.
+     */
+    public static final RangeKey MAX = new RangeKey(Collections.emptyList(), 1, true);
+
+    /**
+     * Create a key from primary key column values.
+     *
+     * @param values the key column values in primary key order
+     * @return the key
+     */
+    public static RangeKey of(Object... values) {
+        List<Comparable<?>> components = new ArrayList<>(values.length);
+        for (Object value : values) {
+            components.add(toComponent(value));
+        }
+        return new RangeKey(components, 0, true);
+    }
+
+    private static Comparable<?> toComponent(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Parse a pretty-printed key relative to the table, like {@code /1000} or {@code …/1/1000}.
+     *
+     * @param prettyKey the pretty-printed key, may be null
+     * @param indexId the index id the key is prefixed with, or null if the key is relative to the index
+     * @param unbounded the key to return if the key is null or outside of the table
+     * @return the parsed key, or {@link #MIN} or {@link #MAX} if the key is before or after the index
+     */
+    public static RangeKey parse(String prettyKey, Long indexId, RangeKey unbounded) {
+        if (prettyKey == null) {
+            return unbounded;
+        }
+        String key = prettyKey.trim();
+        if (key.startsWith("\u2026")) {
+            key = key.substring(1);
+        }
+        if (!key.startsWith("/") || key.startsWith("/Table") || key.startsWith("/Min") || key.startsWith("/Max")) {
+            return unbounded;
+        }
+
+        List<Comparable<?>> components = new ArrayList<>();
+        boolean decoded = true;
+        for (String segment : splitSegments(key)) {
+            if (segment.startsWith("\"") && segment.endsWith("\"") && segment.length() >= 2) {
+                components.add(segment.substring(1, segment.length() - 1));
+            } else {
+                try {
+                    components.add(Long.parseLong(segment));
+                } catch (NumberFormatException e) {
+                    // Some other type like UUID or timestamp, compared by its text form
+                    components.add(segment);
+                    decoded = false;
+                }
+            }
+        }
+
+        if (indexId != null) {
+            if (!(components.get(0) instanceof Long)) {
+                return unbounded;
+            }
+            int c = ((Long) components.get(0)).compareTo(indexId);
+            if (c > 0) {
+                return MAX;
+            }
+            if (c < 0 || components.size() == 1) {
+                return MIN;
+            }
+            components = components.subList(1, components.size());
+        }
+        return new RangeKey(components, 0, decoded);
+    }
+
+    private static List<String> splitSegments(String key) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 1; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            if (c == '/' && !quoted) {
+                segments.add(segment.toString());
+                segment.setLength(0);
+            } else {
+                segment.append(c);
+            }
+        }
+        segments.add(segment.toString());
+        return segments;
+    }
+
+    private final List<Comparable<?>> components;
+
+    private final int bound;
+
+    private final boolean decoded;
+
+    private RangeKey(List<Comparable<?>> components, int bound, boolean decoded) {
+        this.components = new ArrayList<>(components);
+        this.bound = bound;
+        this.decoded = decoded;
+    }
+
+    /**
+     * @return true if this is the unbounded lower or upper key
+     */
+    public boolean isUnbounded() {
+        return bound != 0;
+    }
+
+    /**
+     * @return true if all components are integers or strings, false if any component is the
+     * text form of another type
+     */
+    public boolean isDecoded() {
+        return decoded;
+    }
+
+    /**
+     * @return the decoded key column values, {@code Long} or {@code String}, which may be fewer
+     * than the primary key columns for split keys
+     */
+    public List<Object> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compareTo(RangeKey o) {
+        if (bound != 0 || o.bound != 0) {
+            return Integer.compare(bound, o.bound);
+        }
+        int n = Math.min(components.size(), o.components.size());
+        for (int i = 0; i < n; i++) {
+            Comparable a = components.get(i);
+            Comparable b = o.components.get(i);
+            int c;
+            if (a.getClass() == b.getClass()) {
+                c = a.compareTo(b);
+            } else {
+                c = a instanceof Long ? -1 : 1;
+            }
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(components.size(), o.components.size());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RangeKey that = (RangeKey) o;
+        return bound == that.bound && components.equals(that.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(components, bound);
+    }
+
+    @Override
+    public String toString() {
+        if (bound < 0) {
+            return "/Min";
+        }
+        if (bound > 0) {
+            return "/Max";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Comparable<?> component : components) {
+            sb.append('/');
+            if (component instanceof String) {
+                sb.append('"').append(component).append('"');
+            } else {
+                sb.append(component);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package provides leaseholder-aware routing of single-key statements using a cached range map.
+ */
+package io.cockroachdb.jdbc.routing;
@@ -0,0 +1,417 @@
+package io.cockroachdb.jdbc.scan;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.routing.RangeCache;
+import io.cockroachdb.jdbc.routing.RangeDescriptor;
+import io.cockroachdb.jdbc.routing.RangeKey;
+import io.cockroachdb.jdbc.util.Assert;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+/**
+ * A consistent snapshot scan of a table, split into primary key spans at range boundaries
+ * and streamed in parallel, each span by keyset pagination on its own connection and thread.
+ * All spans read at the same {@code AS OF SYSTEM TIME} timestamp. Rows are merged into a
+ * bounded queue in no particular order and consumed by a single thread.
+ * <p>
+ * Range boundaries are decoded for integer and string primary key columns, other key types
+ * are scanned as a single span.
+ */
+public class ParallelScan implements AutoCloseable {
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+
+    static final String TIMESTAMP_QUERY = "SELECT cluster_logical_timestamp()";
+
+    private static final Object[] END_OF_SPAN = new Object[0];
+
+    private static final AtomicInteger SCAN_COUNTER = new AtomicInteger();
+
+    /**
+     * Open a parallel scan with the default page size.
+     *
+     * @param connectionFactory factory for auto-commit connections, one per span
+     * @param table the table name
+     * @param parallelism max number of spans scanned in parallel
+     * @return the started scan, which must be closed
+     * @throws SQLException if the table ranges or primary key could not be loaded
+     */
+    public static ParallelScan open(ResourceSupplier<Connection> connectionFactory, String table, int parallelism)
+            throws SQLException {
+        return open(connectionFactory, table, parallelism, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Open a parallel scan.
+     *
+     * @param connectionFactory factory for auto-commit connections, one per span
+     * @param table the table name
+     * @param parallelism max number of spans scanned in parallel
+     * @param pageSize number of rows per page
+     * @return the started scan, which must be closed
+     * @throws SQLException if the table ranges or primary key could not be loaded
+     */
+    public static ParallelScan open(ResourceSupplier<Connection> connectionFactory, String table,
+                                    int parallelism, int pageSize) throws SQLException {
+        Assert.isTrue(parallelism > 0, "parallelism must be > 0");
+        Assert.isTrue(pageSize > 0, "pageSize must be > 0");
+
+        String timestamp;
+        RangeCache rangeCache = new RangeCache(connectionFactory, Collections.singletonList(table));
+
+        try (Connection connection = connectionFactory.get()) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(TIMESTAMP_QUERY)) {
+                if (!rs.next()) {
+                    throw new SQLException("No cluster timestamp returned");
+                }
+                timestamp = rs.getString(1);
+            }
+            rangeCache.refresh(connection, table);
+        }
+
+        List<String> keyColumns = rangeCache.getPrimaryKeyColumns(table);
+        if (keyColumns.isEmpty()) {
+            throw new SQLException("No primary key found for table: " + table);
+        }
+
+        ParallelScan scan = new ParallelScan(connectionFactory, table, timestamp, keyColumns,
+                split(rangeCache.getRanges(table), parallelism), pageSize);
+        scan.start();
+        return scan;
+    }
+
+    /**
+     * Split the key space into at most the given number of spans at range start keys,
+     * so that each span covers about the same number of ranges.
+     */
+    static List<RangeKey[]> split(List<RangeDescriptor> ranges, int parallelism) {
+        List<RangeKey> splitKeys = new ArrayList<>();
+        for (RangeDescriptor range : ranges) {
+            if (!range.getStartKey().isDecoded()) {
+                // Can't bind the bounds of other key types
+                return Collections.singletonList(new RangeKey[] {RangeKey.MIN, RangeKey.MAX});
+            }
+            if (!range.getStartKey().isUnbounded()) {
+                splitKeys.add(range.getStartKey());
+            }
+        }
+
+        List<RangeKey[]> spans = new ArrayList<>();
+        RangeKey lower = RangeKey.MIN;
+        int spanCount = Math.min(parallelism, splitKeys.size() + 1);
+        for (int i = 1; i < spanCount; i++) {
+            RangeKey upper = splitKeys.get(i * splitKeys.size() / spanCount);
+            if (upper.compareTo(lower) > 0) {
+                spans.add(new RangeKey[] {lower, upper});
+                lower = upper;
+            }
+        }
+        spans.add(new RangeKey[] {lower, RangeKey.MAX});
+        return spans;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ResourceSupplier<Connection> connectionFactory;
+
+    private final String table;
+
+    private final String timestamp;
+
+    private final List<String> keyColumns;
+
+    private final List<RangeKey[]> spans;
+
+    private final int pageSize;
+
+    private final BlockingQueue<Object[]> queue;
+
+    private final AtomicReference<SQLException> failure = new AtomicReference<>();
+
+    private final AtomicReference<List<String>> columnLabels = new AtomicReference<>();
+
+    private ExecutorService executor;
+
+    private int remainingSpans;
+
+    private volatile boolean closed;
+
+    protected ParallelScan(ResourceSupplier<Connection> connectionFactory, String table, String timestamp,
+                           List<String> keyColumns, List<RangeKey[]> spans, int pageSize) {
+        this.connectionFactory = connectionFactory;
+        this.table = table;
+        this.timestamp = timestamp;
+        this.keyColumns = keyColumns;
+        this.spans = spans;
+        this.pageSize = pageSize;
+        this.queue = new ArrayBlockingQueue<>(pageSize * spans.size() + spans.size());
+        this.remainingSpans = spans.size();
+    }
+
+    private void start() {
+        final int scanId = SCAN_COUNTER.incrementAndGet();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(spans.size(), r -> {
+            Thread thread = new Thread(r, "cockroachdb-scan-" + scanId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (RangeKey[] span : spans) {
+            executor.execute(() -> scanSpan(span[0], span[1]));
+        }
+        logger.debug("Started scan of table [{}] as of [{}] in [{}] spans", table, timestamp, spans.size());
+    }
+
+    /**
+     * @return the {@code AS OF SYSTEM TIME} timestamp all spans read at
+     */
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public int getSpanCount() {
+        return spans.size();
+    }
+
+    /**
+     * @return the column labels of the rows, or null if no rows are read yet
+     */
+    public List<String> getColumnLabels() {
+        return columnLabels.get();
+    }
+
+    /**
+     * Take the next row, blocking until one is available.
+     *
+     * @return the column values of the next row, or null if all spans are scanned
+     * @throws SQLException if scanning any span failed
+     */
+    public Object[] next() throws SQLException {
+        while (remainingSpans > 0) {
+            if (closed) {
+                throw new SQLException("Scan is closed");
+            }
+            Object[] row;
+            try {
+                row = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for rows", e);
+            }
+            if (row == END_OF_SPAN) {
+                remainingSpans--;
+            } else if (row != null) {
+                return row;
+            }
+            SQLException ex = failure.get();
+            if (ex != null) {
+                close();
+                throw ex;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a sequential stream of all rows that closes this scan when closed, throwing
+     * {@code IllegalStateException} with the {@code SQLException} as cause if scanning failed
+     */
+    public Stream<Object[]> stream() {
+        Iterator<Object[]> iterator = new Iterator<Object[]>() {
+            private Object[] nextRow;
+
+            @Override
+            public boolean hasNext() {
+                if (nextRow == null) {
+                    try {
+                        nextRow = ParallelScan.this.next();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Parallel scan failed", e);
+                    }
+                }
+                return nextRow != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = nextRow;
+                nextRow = null;
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.NONNULL | Spliterator.IMMUTABLE), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            queue.clear();
+        }
+    }
+
+    String pageQuery(RangeKey lower, RangeKey upper, boolean hasLastKey) {
+        String keyList = keyColumns.stream()
+                .map(column -> "\"" + column.replace("\"", "\"\"") + "\"")
+                .collect(Collectors.joining(","));
+
+        StringBuilder sql = new StringBuilder()
+                .append("SELECT * FROM ").append(table)
+                .append(" AS OF SYSTEM TIME '").append(timestamp).append("'");
+
+        List<String> predicates = new ArrayList<>();
+        if (hasLastKey) {
+            predicates.add("(" + keyList + ") > (" + placeholders(keyColumns.size()) + ")");
+        } else if (!lower.isUnbounded()) {
+            predicates.add("(" + keyPrefix(lower) + ") >= (" + placeholders(lower.getComponents().size()) + ")");
+        }
+        if (!upper.isUnbounded()) {
+            predicates.add("(" + keyPrefix(upper) + ") < (" + placeholders(upper.getComponents().size()) + ")");
+        }
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        return sql.append(" ORDER BY ").append(keyList).append(" LIMIT ").append(pageSize).toString();
+    }
+
+    private String keyPrefix(RangeKey key) {
+        return keyColumns.subList(0, Math.min(keyColumns.size(), key.getComponents().size())).stream()
+                .map(column -> "\"" + column.replace("\"", "\"\"") + "\"")
+                .collect(Collectors.joining(","));
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private void scanSpan(RangeKey lower, RangeKey upper) {
+        try (Connection connection = connectionFactory.get()) {
+            Object[] lastKey = null;
+            int[] keyIndexes = null;
+
+            while (!closed) {
+                int rowCount = 0;
+                try (PreparedStatement ps = connection.prepareStatement(pageQuery(lower, upper, lastKey != null))) {
+                    int index = 1;
+                    if (lastKey != null) {
+                        for (Object value : lastKey) {
+                            ps.setObject(index++, value);
+                        }
+                    } else if (!lower.isUnbounded()) {
+                        for (Object value : keyPrefixValues(lower)) {
+                            ps.setObject(index++, value);
+                        }
+                    }
+                    if (!upper.isUnbounded()) {
+                        for (Object value : keyPrefixValues(upper)) {
+                            ps.setObject(index++, value);
+                        }
+                    }
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        ResultSetMetaData metaData = rs.getMetaData();
+                        int columnCount = metaData.getColumnCount();
+                        if (keyIndexes == null) {
+                            keyIndexes = keyIndexes(metaData);
+                        }
+                        while (rs.next()) {
+                            Object[] row = new Object[columnCount];
+                            for (int i = 0; i < columnCount; i++) {
+                                row[i] = rs.getObject(i + 1);
+                            }
+                            if (!put(row)) {
+                                return;
+                            }
+                            rowCount++;
+                            lastKey = new Object[keyIndexes.length];
+                            for (int i = 0; i < keyIndexes.length; i++) {
+                                lastKey[i] = row[keyIndexes[i]];
+                            }
+                        }
+                    }
+                }
+                if (rowCount < pageSize) {
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            if (!closed) {
+                logger.warn("Scan of table [{}] span [{}, {}) failed: {}", table, lower, upper, e.toString());
+                failure.compareAndSet(null, e instanceof SQLException
+                        ? (SQLException) e : new SQLException("Scan of table [" + table + "] failed", e));
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        } finally {
+            put(END_OF_SPAN);
+        }
+    }
+
+    private List<Object> keyPrefixValues(RangeKey key) {
+        List<Object> components = key.getComponents();
+        return components.subList(0, Math.min(keyColumns.size(), components.size()));
+    }
+
+    private int[] keyIndexes(ResultSetMetaData metaData) throws SQLException {
+        List<String> labels = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        columnLabels.compareAndSet(null, Collections.unmodifiableList(labels));
+
+        int[] indexes = new int[keyColumns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = labels.indexOf(keyColumns.get(i));
+            if (indexes[i] < 0) {
+                throw new SQLException("Primary key column not found in result: " + keyColumns.get(i));
+            }
+        }
+        return indexes;
+    }
+
+    private boolean put(Object[] row) {
+        try {
+            while (!closed) {
+                if (queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package provides parallel consistent table scans using range boundaries and keyset pagination.
+ */
+package io.cockroachdb.jdbc.scan;
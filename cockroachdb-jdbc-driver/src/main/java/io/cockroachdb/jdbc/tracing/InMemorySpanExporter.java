@@ -0,0 +1,27 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A span exporter collecting ended spans in memory, intended for tests.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+    private final List<SpanData> finishedSpans = new ArrayList<>();
+
+    @Override
+    public synchronized void export(SpanData spanData) {
+        finishedSpans.add(spanData);
+    }
+
+    /**
+     * @return a copy of the ended spans, in the order ended
+     */
+    public synchronized List<SpanData> getFinishedSpans() {
+        return new ArrayList<>(finishedSpans);
+    }
+
+    public synchronized void reset() {
+        finishedSpans.clear();
+    }
+}
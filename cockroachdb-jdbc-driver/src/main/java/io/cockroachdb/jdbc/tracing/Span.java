@@ -0,0 +1,29 @@
+package io.cockroachdb.jdbc.tracing;
+
+/**
+ * A timed operation within a trace, started by a {@link Tracer}. A span becomes the current
+ * span of the thread when started, until it's ended.
+ */
+public interface Span {
+    /**
+     * Set an attribute of the span.
+     *
+     * @param key the attribute key, like {@code db.statement}
+     * @param value the attribute value
+     * @return this span
+     */
+    Span setAttribute(String key, Object value);
+
+    /**
+     * Record an exception thrown by the operation.
+     *
+     * @param ex the exception
+     * @return this span
+     */
+    Span recordException(Throwable ex);
+
+    /**
+     * End the span, restoring the previously current span.
+     */
+    void end();
+}
@@ -0,0 +1,96 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable record of an ended span.
+ */
+public class SpanData {
+    private final String name;
+
+    private final String traceId;
+
+    private final String spanId;
+
+    private final String parentSpanId;
+
+    private final long startEpochNanos;
+
+    private final Duration duration;
+
+    private final Map<String, Object> attributes;
+
+    private final Throwable exception;
+
+    public SpanData(String name, String traceId, String spanId, String parentSpanId, long startEpochNanos,
+                    Duration duration, Map<String, Object> attributes, Throwable exception) {
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startEpochNanos = startEpochNanos;
+        this.duration = duration;
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+        this.exception = exception;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the trace id as 32 lowercase hex characters
+     */
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return the span id as 16 lowercase hex characters
+     */
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return the span id of the parent span, or null if a root span
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return the recorded exception, or null if none
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "SpanData{" +
+                "name='" + name + '\'' +
+                ", traceId='" + traceId + '\'' +
+                ", spanId='" + spanId + '\'' +
+                ", parentSpanId='" + parentSpanId + '\'' +
+                ", duration=" + duration +
+                ", attributes=" + attributes +
+                ", exception=" + exception +
+                '}';
+    }
+}
@@ -0,0 +1,14 @@
+package io.cockroachdb.jdbc.tracing;
+
+/**
+ * Receiver of ended spans from a {@link W3CTracer}.
+ */
+@FunctionalInterface
+public interface SpanExporter {
+    /**
+     * Export an ended span. Invoked on the thread ending the span.
+     *
+     * @param spanData the ended span
+     */
+    void export(SpanData spanData);
+}
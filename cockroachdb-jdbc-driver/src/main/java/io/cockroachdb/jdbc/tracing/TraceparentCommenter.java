@@ -0,0 +1,82 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.sql.Connection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.cockroachdb.jdbc.query.QueryProcessor;
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * A query processor stage appending the current trace context as a
+ * <a href="https://google.github.io/sqlcommenter/">sqlcommenter</a> style {@code traceparent}
+ * comment at the end of statements, allowing statements in CockroachDB diagnostics to be
+ * correlated with application traces. CockroachDB ignores comments when
+ * fingerprinting statements, so statement statistics are not fragmented.
+ * <p>
+ * The comment prefix of each statement is cached, so that commenting an already seen
+ * statement is a map lookup and a single concatenation. Statements already containing
+ * comments are left as is.
+ * <p>
+ * Plain statements are processed at execution time within their statement span. Prepared
+ * statements are processed when prepared, so they are only commented if prepared within a
+ * span and then carry the context of that span for all executions. Commented prepared
+ * statements are unique per trace and can't reuse server-side prepared statements across
+ * traces.
+ */
+public class TraceparentCommenter implements QueryProcessor {
+    private static final int MAX_ENTRIES = 4096;
+
+    private static final String NOT_COMMENTED = "";
+
+    private final Tracer tracer;
+
+    private final ConcurrentMap<String, String> prefixes = new ConcurrentHashMap<>();
+
+    public TraceparentCommenter(Tracer tracer) {
+        Assert.notNull(tracer, "tracer is null");
+        this.tracer = tracer;
+    }
+
+    @Override
+    public String processQuery(Connection connection, String query) {
+        String traceparent = tracer.traceparent();
+        if (traceparent == null || query == null) {
+            return query;
+        }
+        String prefix = prefixes.get(query);
+        if (prefix == null) {
+            prefix = prefixOf(query);
+            if (prefixes.size() < MAX_ENTRIES) {
+                prefixes.putIfAbsent(query, prefix);
+            }
+        }
+        if (prefix.isEmpty()) {
+            return query;
+        }
+        return new StringBuilder(prefix.length() + traceparent.length() + 3)
+                .append(prefix)
+                .append(traceparent)
+                .append("'*/")
+                .toString();
+    }
+
+    private static String prefixOf(String query) {
+        if (query.contains("/*") || query.contains("--")) {
+            return NOT_COMMENTED;
+        }
+        int end = query.length();
+        while (end > 0 && (Character.isWhitespace(query.charAt(end - 1)) || query.charAt(end - 1) == ';')) {
+            end--;
+        }
+        if (end == 0) {
+            return NOT_COMMENTED;
+        }
+        return query.substring(0, end) + " /*traceparent='";
+    }
+
+    @Override
+    public boolean isTransactionScoped() {
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.util.Properties;
+
+/**
+ * Interface specifying the API to be implemented by a class providing tracing of
+ * statement executions, commits and transaction retries, for example by bridging to
+ * an application tracing library.
+ *
+ * <p>This is intended for internal use by the CockroachDB JDBC driver.
+ * See {@link W3CTracer}.
+ */
+public interface Tracer {
+    /**
+     * Configure the tracer, if supported.
+     *
+     * @param properties the configuration properties, optionally provided in JDBC URL
+     */
+    void configure(Properties properties);
+
+    /**
+     * Start a span as a child of the current span, if any, and make it current.
+     *
+     * @param name the span name
+     * @return the started span
+     */
+    Span startSpan(String name);
+
+    /**
+     * @return the current span context in W3C {@code traceparent} format, or null if there is no current span
+     */
+    String traceparent();
+}
@@ -0,0 +1,154 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.jdbc.util.Assert;
+
+/**
+ * A self-contained tracer generating W3C trace context identifiers, with the current span
+ * tracked per thread. Ended spans are passed to a span exporter, by default logging them
+ * at debug level.
+ * <p>
+ * To continue a trace started elsewhere, such as an incoming request, pass its
+ * {@code traceparent} header to {@link #startSpan(String, String)}.
+ */
+public class W3CTracer implements Tracer {
+    private static final Logger logger = LoggerFactory.getLogger(W3CTracer.class);
+
+    private final ThreadLocal<W3CSpan> currentSpan = new ThreadLocal<>();
+
+    private final SpanExporter spanExporter;
+
+    public W3CTracer() {
+        this(spanData -> logger.debug("{}", spanData));
+    }
+
+    public W3CTracer(SpanExporter spanExporter) {
+        Assert.notNull(spanExporter, "spanExporter is null");
+        this.spanExporter = spanExporter;
+    }
+
+    @Override
+    public void configure(Properties properties) {
+    }
+
+    @Override
+    public Span startSpan(String name) {
+        W3CSpan parent = currentSpan.get();
+        return start(name, parent != null ? parent.traceId : randomHex(16), parent != null ? parent.spanId : null,
+                parent);
+    }
+
+    /**
+     * Start a span as a child of a remote parent and make it current.
+     *
+     * @param name the span name
+     * @param traceparent the remote parent in W3C {@code traceparent} format
+     * @return the started span
+     */
+    public Span startSpan(String name, String traceparent) {
+        String[] parts = traceparent != null ? traceparent.split("-") : new String[0];
+        if (parts.length != 4 || parts[1].length() != 32 || parts[2].length() != 16) {
+            return startSpan(name);
+        }
+        return start(name, parts[1], parts[2], currentSpan.get());
+    }
+
+    private Span start(String name, String traceId, String parentSpanId, W3CSpan previous) {
+        W3CSpan span = new W3CSpan(name, traceId, randomHex(8), parentSpanId, previous);
+        currentSpan.set(span);
+        return span;
+    }
+
+    @Override
+    public String traceparent() {
+        W3CSpan span = currentSpan.get();
+        return span != null ? span.traceparent : null;
+    }
+
+    private static String randomHex(int bytes) {
+        StringBuilder sb = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < bytes; i++) {
+            String hex = Integer.toHexString(random.nextInt(256));
+            if (hex.length() == 1) {
+                sb.append('0');
+            }
+            sb.append(hex);
+        }
+        return sb.toString();
+    }
+
+    private class W3CSpan implements Span {
+        private final String name;
+
+        private final String traceId;
+
+        private final String spanId;
+
+        private final String parentSpanId;
+
+        private final String traceparent;
+
+        private final W3CSpan previous;
+
+        private final long startEpochNanos;
+
+        private final long startTime = System.nanoTime();
+
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+        private Throwable exception;
+
+        private boolean ended;
+
+        W3CSpan(String name, String traceId, String spanId, String parentSpanId, W3CSpan previous) {
+            this.name = name;
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+            this.traceparent = "00-" + traceId + "-" + spanId + "-01";
+            this.previous = previous;
+            Instant now = Instant.now();
+            this.startEpochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        }
+
+        @Override
+        public Span setAttribute(String key, Object value) {
+            attributes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Span recordException(Throwable ex) {
+            this.exception = ex;
+            return this;
+        }
+
+        @Override
+        public void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (currentSpan.get() == this) {
+                if (previous != null) {
+                    currentSpan.set(previous);
+                } else {
+                    currentSpan.remove();
+                }
+            }
+            spanExporter.export(new SpanData(name, traceId, spanId, parentSpanId, startEpochNanos,
+                    Duration.ofNanos(System.nanoTime() - startTime), attributes, exception));
+        }
+    }
+}
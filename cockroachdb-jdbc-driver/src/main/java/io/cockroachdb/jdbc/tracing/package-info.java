@@ -0,0 +1,5 @@
+/**
+ * This package provides a tracing SPI for spans around statement executions, commits and
+ * retries, and W3C trace context propagation into SQL comments.
+ */
+package io.cockroachdb.jdbc.tracing;
@@ -0,0 +1,71 @@
+package io.cockroachdb.jdbc.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A captured prepared statement parameter value together with the setter
+ * used to bind it, allowing the value to be re-bound to another statement
+ * at a different parameter index.
+ * <p>
+ * Bindings are equal if both the value and the qualifiers affecting how the
+ * setter binds it, like a target SQL type or calendar time zone, are equal.
+ */
+public final class ParameterBinding {
+    /**
+     * A functional interface representing a parameter setter invocation.
+     */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement preparedStatement, int parameterIndex) throws SQLException;
+    }
+
+    public static ParameterBinding of(Object value, Binder binder, Object... qualifiers) {
+        return new ParameterBinding(value, binder, qualifiers);
+    }
+
+    private final Object value;
+
+    private final Binder binder;
+
+    private final Object[] qualifiers;
+
+    private ParameterBinding(Object value, Binder binder, Object[] qualifiers) {
+        this.value = value;
+        this.binder = binder;
+        this.qualifiers = qualifiers;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void bind(PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+        binder.bind(preparedStatement, parameterIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ParameterBinding)) {
+            return false;
+        }
+        ParameterBinding that = (ParameterBinding) o;
+        return Objects.deepEquals(value, that.value)
+                && Arrays.deepEquals(qualifiers, that.qualifiers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(new Object[] {value, qualifiers});
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toString(value);
+    }
+}
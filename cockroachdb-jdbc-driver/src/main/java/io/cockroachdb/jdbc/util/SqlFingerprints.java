@@ -0,0 +1,123 @@
+package io.cockroachdb.jdbc.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded cache of SQL fingerprints, mapping SQL text to fingerprint ids and fingerprint ids
+ * back to the normalized text. Lookups of cached statements don't allocate, which allows
+ * fingerprint ids to be computed on hot paths.
+ * <p>
+ * When full, entries are evicted using the clock (second chance) algorithm, so that
+ * statements looked up since the clock hand last passed them stay cached.
+ */
+public final class SqlFingerprints {
+    static final int MAX_ENTRIES = 4096;
+
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<Long, Fingerprint> FINGERPRINTS = new ConcurrentHashMap<>();
+
+    // Guarded by itself
+    private static final Entry[] CLOCK = new Entry[MAX_ENTRIES];
+
+    // Guarded by CLOCK
+    private static int hand;
+
+    private static final class Entry {
+        final String sql;
+
+        final long fingerprintId;
+
+        volatile boolean referenced;
+
+        Entry(String sql, long fingerprintId) {
+            this.sql = sql;
+            this.fingerprintId = fingerprintId;
+        }
+    }
+
+    private static final class Fingerprint {
+        final String text;
+
+        // Number of cached statements with this fingerprint, guarded by CLOCK
+        int references;
+
+        Fingerprint(String text) {
+            this.text = text;
+        }
+    }
+
+    private SqlFingerprints() {
+    }
+
+    /**
+     * @param sql the SQL statement
+     * @return the fingerprint id of the statement, or 0 if null
+     */
+    public static long idOf(String sql) {
+        if (sql == null) {
+            return 0;
+        }
+        sql = SqlUtils.stripTrailingComment(sql);
+        Entry entry = ENTRIES.get(sql);
+        if (entry != null) {
+            // Avoid a volatile write when already set
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.fingerprintId;
+        }
+        String fingerprint = SqlUtils.fingerprint(sql);
+        long fingerprintId = SqlUtils.fingerprintId(fingerprint);
+        insert(sql, fingerprintId, fingerprint);
+        return fingerprintId;
+    }
+
+    /**
+     * @param fingerprintId the fingerprint id
+     * @return the normalized SQL of the fingerprint, or null if not cached
+     */
+    public static String fingerprintOf(long fingerprintId) {
+        Fingerprint fingerprint = FINGERPRINTS.get(fingerprintId);
+        return fingerprint != null ? fingerprint.text : null;
+    }
+
+    /**
+     * @param sql the SQL statement
+     * @return true if the fingerprint of the statement is cached
+     */
+    public static boolean isCached(String sql) {
+        return ENTRIES.containsKey(SqlUtils.stripTrailingComment(sql));
+    }
+
+    static int size() {
+        return ENTRIES.size();
+    }
+
+    private static void insert(String sql, long fingerprintId, String fingerprint) {
+        synchronized (CLOCK) {
+            if (ENTRIES.containsKey(sql)) {
+                return;
+            }
+            // Give referenced entries a second chance, terminates within one revolution
+            Entry victim;
+            while ((victim = CLOCK[hand]) != null && victim.referenced) {
+                victim.referenced = false;
+                hand = (hand + 1) % CLOCK.length;
+            }
+            if (victim != null) {
+                ENTRIES.remove(victim.sql);
+                Fingerprint evicted = FINGERPRINTS.get(victim.fingerprintId);
+                if (evicted != null && --evicted.references == 0) {
+                    FINGERPRINTS.remove(victim.fingerprintId);
+                }
+            }
+            Entry entry = new Entry(sql, fingerprintId);
+            CLOCK[hand] = entry;
+            hand = (hand + 1) % CLOCK.length;
+            FINGERPRINTS.computeIfAbsent(fingerprintId, k -> new Fingerprint(fingerprint)).references++;
+            ENTRIES.put(sql, entry);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.cockroachdb.jdbc.util;
+
+import java.util.regex.Pattern;
+
+public abstract class SqlUtils {
+    private static final Pattern READ_PATTERN = Pattern.compile(
+            "^\\s*(SELECT|WITH)\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern WRITE_PATTERN = Pattern.compile(
+            ".*\\b(INSERT|UPDATE|UPSERT|DELETE|FOR\\s+SHARE|NEXTVAL)\\b.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?: ?, ?\\?)+");
+
+    private static final Pattern REPEATED_TUPLES = Pattern.compile("(\\([^()]*\\))(?: ?, ?\\1)+");
+
+    private SqlUtils() {
+    }
+
+    /**
+     * Count {@code ?} placeholders outside of quoted literals and identifiers,
+     * treating {@code ??} as an escaped operator.
+     *
+     * @param sql the SQL statement
+     * @return number of parameter placeholders
+     */
+    public static int countPlaceholders(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '?') {
+                    i++;
+                } else {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param sql the SQL statement
+     * @return true if the statement is a plain read without locking or writes
+     */
+    public static boolean isPlainRead(String sql) {
+        return sql != null && READ_PATTERN.matcher(sql).matches() && !WRITE_PATTERN.matcher(sql).matches();
+    }
+
+    /**
+     * Normalize a SQL statement into a fingerprint shared by all executions differing only
+     * in literal values or list lengths. String and numeric literals and {@code $n} placeholders
+     * are replaced with {@code ?}, comments are removed, whitespace is collapsed and lists of
+     * placeholders or repeated tuples are folded into their first element followed by {@code ...}.
+     *
+     * @param sql the SQL statement
+     * @return the fingerprint
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(sql.length());
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 1;
+                space = sb.length() > 0;
+                continue;
+            }
+            if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? sql.length() : end;
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            if (c == '\'') {
+                // String literal with '' escapes
+                for (i++; i < sql.length(); i++) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                sb.append('?');
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? sql.length() - 1 : end;
+                sb.append(sql, i, end + 1);
+                i = end;
+            } else if ((Character.isDigit(c) || c == '$') && !isIdentifierEnd(sb)) {
+                int end = i + 1;
+                while (end < sql.length() && (Character.isDigit(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                    end++;
+                }
+                if (c == '$' && end == i + 1) {
+                    sb.append(c);
+                } else {
+                    sb.append('?');
+                    i = end - 1;
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        String fingerprint = PLACEHOLDER_LIST.matcher(sb).replaceAll("?, ...");
+        return REPEATED_TUPLES.matcher(fingerprint).replaceAll("$1, ...");
+    }
+
+    /**
+     * Remove a trailing block comment, like a sqlcommenter style trace context comment
+     * appended to an otherwise unique statement.
+     *
+     * @param sql the SQL statement
+     * @return the statement without trailing comment, or the statement itself if none
+     */
+    public static String stripTrailingComment(String sql) {
+        if (sql == null || !sql.endsWith("*/")) {
+            return sql;
+        }
+        int start = sql.lastIndexOf("/*");
+        if (start <= 0) {
+            return sql;
+        }
+        int end = start;
+        while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    private static boolean isIdentifierEnd(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char c = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * @param fingerprint a SQL fingerprint
+     * @return a stable 64-bit FNV-1a hash of the fingerprint, or 0 if null
+     */
+    public static long fingerprintId(String fingerprint) {
+        if (fingerprint == null) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < fingerprint.length(); i++) {
+            hash ^= fingerprint.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
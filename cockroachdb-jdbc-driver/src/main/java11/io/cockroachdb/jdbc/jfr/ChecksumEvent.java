@@ -0,0 +1,19 @@
+package io.cockroachdb.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.cockroachdb.jdbc.ChecksumVerification")
+@Label("Checksum Verification")
+@Category({"CockroachDB", "JDBC"})
+@Description("Result set checksum verification on transaction replay")
+final class ChecksumEvent extends Event {
+    @Label("Connection Id")
+    long connectionId;
+
+    @Label("Match")
+    boolean match;
+}
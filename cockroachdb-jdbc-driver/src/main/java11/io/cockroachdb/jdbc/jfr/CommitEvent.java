@@ -0,0 +1,16 @@
+package io.cockroachdb.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.cockroachdb.jdbc.Commit")
+@Label("Commit")
+@Category({"CockroachDB", "JDBC"})
+@Description("Transaction commit")
+final class CommitEvent extends Event {
+    @Label("Connection Id")
+    long connectionId;
+}
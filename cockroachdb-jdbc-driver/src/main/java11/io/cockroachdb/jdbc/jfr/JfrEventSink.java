@@ -0,0 +1,148 @@
+package io.cockroachdb.jdbc.jfr;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import jdk.jfr.EventType;
+
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+
+/**
+ * Event sink emitting {@code jdk.jfr} events. Loaded reflectively by {@link DriverEvents}
+ * from the multi-release section of the jar.
+ */
+final class JfrEventSink implements EventSink {
+    private static final EventType STATEMENT = EventType.getEventType(StatementEvent.class);
+
+    private static final EventType COMMIT = EventType.getEventType(CommitEvent.class);
+
+    private static final EventType ROLLBACK = EventType.getEventType(RollbackEvent.class);
+
+    private static final EventType RETRY_ATTEMPT = EventType.getEventType(RetryAttemptEvent.class);
+
+    private static final EventType RECONNECT = EventType.getEventType(ReconnectEvent.class);
+
+    private static final EventType CHECKSUM = EventType.getEventType(ChecksumEvent.class);
+
+    @Override
+    public Object beginStatement() {
+        if (!STATEMENT.isEnabled()) {
+            return null;
+        }
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endStatement(Object token, long connectionId, String statementType, String sql) {
+        StatementEvent event = (StatementEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.connectionId = connectionId;
+            event.statementType = statementType;
+            event.fingerprint = SqlFingerprints.fingerprintOf(SqlFingerprints.idOf(sql));
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginCommit() {
+        if (!COMMIT.isEnabled()) {
+            return null;
+        }
+        CommitEvent event = new CommitEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endCommit(Object token, long connectionId) {
+        CommitEvent event = (CommitEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.connectionId = connectionId;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginRollback() {
+        if (!ROLLBACK.isEnabled()) {
+            return null;
+        }
+        RollbackEvent event = new RollbackEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endRollback(Object token, long connectionId) {
+        RollbackEvent event = (RollbackEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.connectionId = connectionId;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void retryAttempt(long connectionId, String method, int attempt, SQLException reason,
+                             Duration backoff) {
+        if (!RETRY_ATTEMPT.isEnabled()) {
+            return;
+        }
+        RetryAttemptEvent event = new RetryAttemptEvent();
+        if (event.shouldCommit()) {
+            event.connectionId = connectionId;
+            event.method = method;
+            event.attempt = attempt;
+            event.sqlState = reason != null ? reason.getSQLState() : null;
+            event.reason = reason != null ? reason.getMessage() : null;
+            event.backoff = backoff != null ? backoff.toMillis() : 0;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginReconnect() {
+        if (!RECONNECT.isEnabled()) {
+            return null;
+        }
+        ReconnectEvent event = new ReconnectEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endReconnect(Object token, long connectionId, int attempt) {
+        ReconnectEvent event = (ReconnectEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.connectionId = connectionId;
+            event.attempt = attempt;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginChecksum() {
+        if (!CHECKSUM.isEnabled()) {
+            return null;
+        }
+        ChecksumEvent event = new ChecksumEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endChecksum(Object token, long connectionId, boolean match) {
+        ChecksumEvent event = (ChecksumEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.connectionId = connectionId;
+            event.match = match;
+            event.commit();
+        }
+    }
+}
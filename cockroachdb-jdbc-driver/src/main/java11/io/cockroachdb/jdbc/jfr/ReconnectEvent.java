@@ -0,0 +1,20 @@
+package io.cockroachdb.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.cockroachdb.jdbc.Reconnect")
+@Label("Reconnect")
+@Category({"CockroachDB", "JDBC"})
+@Description("Connection reopened for a retry attempt")
+final class ReconnectEvent extends Event {
+    @Label("Connection Id")
+    @Description("Identity of the new connection")
+    long connectionId;
+
+    @Label("Attempt")
+    int attempt;
+}
@@ -0,0 +1,33 @@
+package io.cockroachdb.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("io.cockroachdb.jdbc.RetryAttempt")
+@Label("Retry Attempt")
+@Category({"CockroachDB", "JDBC"})
+@Description("Transaction retry attempt after a transient error")
+final class RetryAttemptEvent extends Event {
+    @Label("Connection Id")
+    long connectionId;
+
+    @Label("Method")
+    String method;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("SQL State")
+    String sqlState;
+
+    @Label("Reason")
+    String reason;
+
+    @Label("Backoff")
+    @Timespan(Timespan.MILLISECONDS)
+    long backoff;
+}
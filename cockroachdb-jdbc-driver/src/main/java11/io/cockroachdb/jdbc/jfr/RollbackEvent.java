@@ -0,0 +1,16 @@
+package io.cockroachdb.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.cockroachdb.jdbc.Rollback")
+@Label("Rollback")
+@Category({"CockroachDB", "JDBC"})
+@Description("Transaction rollback")
+final class RollbackEvent extends Event {
+    @Label("Connection Id")
+    long connectionId;
+}
@@ -0,0 +1,23 @@
+package io.cockroachdb.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.cockroachdb.jdbc.Statement")
+@Label("Statement")
+@Category({"CockroachDB", "JDBC"})
+@Description("SQL statement execution")
+final class StatementEvent extends Event {
+    @Label("Connection Id")
+    long connectionId;
+
+    @Label("Statement Type")
+    String statementType;
+
+    @Label("Fingerprint")
+    @Description("SQL statement with literals and parameters normalized")
+    String fingerprint;
+}
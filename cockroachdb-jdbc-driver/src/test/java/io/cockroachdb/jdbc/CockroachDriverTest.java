@@ -18,6 +18,45 @@ import org.mockito.Mockito;
 
 @Tag("unit-test")
 public class CockroachDriverTest {
+    @Test
+    public void getConnection_ShareComponents_OnlyIfSameSettings() throws SQLException {
+        Driver driverMock = Mockito.mock(Driver.class);
+        Mockito.when(driverMock.acceptsURL("jdbc:postgresql")).thenReturn(true);
+        Mockito.when(driverMock.connect(Mockito.startsWith("jdbc:postgresql"), Mockito.any(Properties.class)))
+                .thenAnswer(invocation -> Mockito.mock(Connection.class));
+        DriverManager.registerDriver(driverMock);
+
+        final String url = "jdbc:cockroachdb://0.0.0.0:26257/shared_test?sslmode=disable";
+        CockroachDriver driver = new CockroachDriver();
+
+        Properties slow = new Properties();
+        slow.setProperty("user", "root");
+        slow.setProperty(CockroachProperty.SLOW_STATEMENT_THRESHOLD.getName(), "100ms");
+        Properties slower = new Properties();
+        slower.putAll(slow);
+        slower.setProperty(CockroachProperty.SLOW_STATEMENT_THRESHOLD.getName(), "1s");
+
+        try (Connection c1 = driver.connect(url, slow);
+             Connection c2 = driver.connect(url, slow);
+             Connection c3 = driver.connect(url, slower)) {
+            ConnectionSettings s1 = c1.unwrap(CockroachConnection.class).getConnectionSettings();
+            ConnectionSettings s2 = c2.unwrap(CockroachConnection.class).getConnectionSettings();
+            ConnectionSettings s3 = c3.unwrap(CockroachConnection.class).getConnectionSettings();
+            Assertions.assertSame(s1.getSlowStatementLog(), s2.getSlowStatementLog());
+            Assertions.assertNotSame(s1.getSlowStatementLog(), s3.getSlowStatementLog());
+            Assertions.assertFalse(s3.getSlowStatementLog().isSlow(500_000_000L));
+
+            CockroachDriver.closeSharedResources();
+
+            try (Connection c4 = driver.connect(url, slow)) {
+                Assertions.assertNotSame(s1.getSlowStatementLog(),
+                        c4.unwrap(CockroachConnection.class).getConnectionSettings().getSlowStatementLog());
+            }
+        } finally {
+            DriverManager.deregisterDriver(driverMock);
+        }
+    }
+
     @Test
     public void getConnection_Valid_IfProperDatabaseURL() throws SQLException {
         Driver driverMock = Mockito.mock(Driver.class);
@@ -86,7 +125,7 @@ public class CockroachDriverTest {
             }
         });
 
-        Assertions.assertEquals(8, psql.size());
+        Assertions.assertEquals(32, psql.size());
         Assertions.assertEquals(78, crdb.size());
     }
 }
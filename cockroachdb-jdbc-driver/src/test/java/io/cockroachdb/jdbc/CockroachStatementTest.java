@@ -1,6 +1,7 @@
 package io.cockroachdb.jdbc;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import io.cockroachdb.jdbc.query.QueryProcessor;
 import io.cockroachdb.jdbc.query.SelectForUpdateProcessor;
 
 @Tag("unit-test")
@@ -121,4 +123,57 @@ public class CockroachStatementTest {
             statementUnderTest.execute("SET implicitSelectForUpdate=true");
         });
     }
+
+    @Test
+    public void whenExecutingUpdates_expectQueryProcessorStagesApplied() throws SQLException {
+        Statement statementMock = Mockito.mock(Statement.class);
+        Connection connectionMock = Mockito.mock(Connection.class);
+
+        QueryProcessor stageMock = Mockito.mock(QueryProcessor.class);
+        Mockito.when(stageMock.processQuery(Mockito.any(), Mockito.anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1) + " /* staged */");
+
+        ConnectionSettings connectionSettings = new ConnectionSettings()
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH)
+                .addQueryStage(stageMock);
+
+        Connection connection = new CockroachConnection(connectionMock, connectionSettings);
+        Mockito.when(statementMock.getConnection()).thenReturn(connection);
+
+        Statement statementUnderTest = new CockroachStatement(statementMock, connectionSettings);
+        statementUnderTest.executeUpdate("DELETE FROM t");
+        statementUnderTest.execute("UPDATE t SET v = 1");
+        statementUnderTest.executeLargeUpdate("DELETE FROM t WHERE v = 2");
+
+        Mockito.verify(statementMock).executeUpdate("DELETE FROM t /* staged */");
+        Mockito.verify(statementMock).execute("UPDATE t SET v = 1 /* staged */");
+        Mockito.verify(statementMock).executeLargeUpdate("DELETE FROM t WHERE v = 2 /* staged */");
+    }
+
+    @Test
+    public void givenImplicitSFU_whenExecutingSelect_expectOnlyQueryProcessorStagesApplied() throws SQLException {
+        Statement statementMock = Mockito.mock(Statement.class);
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(statementMock.executeQuery(Mockito.anyString())).thenReturn(Mockito.mock(ResultSet.class));
+
+        QueryProcessor stageMock = Mockito.mock(QueryProcessor.class);
+        Mockito.when(stageMock.processQuery(Mockito.any(), Mockito.anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1) + " /* staged */");
+
+        ConnectionSettings connectionSettings = new ConnectionSettings()
+                .setQueryProcessor(SelectForUpdateProcessor.INSTANCE)
+                .addQueryStage(stageMock);
+
+        Connection connection = new CockroachConnection(connectionMock, connectionSettings);
+        Mockito.when(statementMock.getConnection()).thenReturn(connection);
+
+        Statement statementUnderTest = new CockroachStatement(statementMock, connectionSettings);
+        statementUnderTest.execute("select 1");
+        statementUnderTest.executeUpdate("select 2");
+        statementUnderTest.executeQuery("select 3");
+
+        Mockito.verify(statementMock).execute("select 1 /* staged */");
+        Mockito.verify(statementMock).executeUpdate("select 2 /* staged */");
+        Mockito.verify(statementMock).executeQuery("select 3 FOR UPDATE /* staged */");
+    }
 }
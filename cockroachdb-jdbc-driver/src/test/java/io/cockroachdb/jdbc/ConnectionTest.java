@@ -5,14 +5,29 @@ import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
 import java.util.Properties;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import io.cockroachdb.jdbc.coalesce.SingleFlight;
+import io.cockroachdb.jdbc.metrics.StatementStatistics;
+import io.cockroachdb.jdbc.query.QueryProcessor;
+
 @Tag("unit-test")
 public class ConnectionTest {
     @Test
@@ -53,4 +68,152 @@ public class ConnectionTest {
 
         DriverManager.deregisterDriver(driverMock);
     }
+
+    @Test
+    public void prepareStatement_RecordStatistics_OnAllOverloads() throws SQLException {
+        final String sql = "INSERT INTO account (balance) VALUES (?)";
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.executeUpdate()).thenReturn(1);
+        Mockito.when(connectionMock.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+                .thenReturn(preparedStatementMock);
+        Mockito.when(connectionMock.prepareStatement(sql, new String[] {"id"}))
+                .thenReturn(preparedStatementMock);
+        Mockito.when(connectionMock.prepareStatement(sql, new int[] {1}))
+                .thenReturn(preparedStatementMock);
+        Mockito.when(connectionMock.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+                .thenReturn(preparedStatementMock);
+
+        StatementStatistics statistics = new StatementStatistics(16);
+        Connection connection = new CockroachConnection(connectionMock, new ConnectionSettings()
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH)
+                .setStatementStatistics(statistics));
+
+        connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).executeUpdate();
+        connection.prepareStatement(sql, new String[] {"id"}).executeUpdate();
+        connection.prepareStatement(sql, new int[] {1}).executeUpdate();
+        connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY).executeUpdate();
+
+        Assertions.assertEquals(4, statistics.statsOf(sql).getCalls());
+        Assertions.assertEquals(4, statistics.statsOf(sql).getRows());
+    }
+
+    @Test
+    public void prepareStatement_ShareFlight_OnlyWithSameBindingQualifiers() throws Exception {
+        final String sql = "SELECT * FROM event WHERE created_at > ? AND kind = ?";
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(true);
+        PreparedStatement blockingMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(blockingMock.getConnection()).thenReturn(connectionMock);
+        Mockito.when(blockingMock.executeQuery()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return emptyResultSet();
+        });
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.getConnection()).thenReturn(connectionMock);
+        Mockito.when(preparedStatementMock.executeQuery()).thenAnswer(invocation -> emptyResultSet());
+        Mockito.when(connectionMock.prepareStatement(sql))
+                .thenReturn(blockingMock)
+                .thenReturn(preparedStatementMock);
+
+        SingleFlight singleFlight = new SingleFlight();
+        Connection connection = new CockroachConnection(connectionMock, new ConnectionSettings()
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH)
+                .setSingleFlight(singleFlight));
+
+        final Timestamp timestamp = new Timestamp(0);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        PreparedStatement blocking = connection.prepareStatement(sql);
+        blocking.setTimestamp(1, timestamp, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        blocking.setObject(2, "1", Types.VARCHAR);
+        Future<ResultSet> inFlight = executorService.submit(() -> blocking.executeQuery());
+        awaitCondition(() -> singleFlight.getInFlight() == 1);
+
+        PreparedStatement otherZone = connection.prepareStatement(sql);
+        otherZone.setTimestamp(1, timestamp, Calendar.getInstance(TimeZone.getTimeZone("Europe/Stockholm")));
+        otherZone.setObject(2, "1", Types.VARCHAR);
+        otherZone.executeQuery().close();
+
+        PreparedStatement otherType = connection.prepareStatement(sql);
+        otherType.setTimestamp(1, timestamp, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        otherType.setObject(2, "1", Types.INTEGER);
+        otherType.executeQuery().close();
+
+        Assertions.assertEquals(0, singleFlight.getTotalShared());
+
+        PreparedStatement same = connection.prepareStatement(sql);
+        same.setTimestamp(1, timestamp, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        same.setObject(2, "1", Types.VARCHAR);
+        Future<ResultSet> shared = executorService.submit(() -> same.executeQuery());
+        awaitCondition(() -> singleFlight.getTotalShared() == 1);
+
+        release.countDown();
+        inFlight.get().close();
+        shared.get().close();
+        executorService.shutdownNow();
+
+        Assertions.assertEquals(4, singleFlight.getTotalQueries());
+        Assertions.assertEquals(1, singleFlight.getTotalShared());
+        Mockito.verify(blockingMock, Mockito.times(1)).executeQuery();
+        Mockito.verify(preparedStatementMock, Mockito.times(2)).executeQuery();
+    }
+
+    @Test
+    public void prepareStatement_BypassSingleFlight_OnChangedCatalog() throws SQLException {
+        final String sql = "SELECT * FROM product WHERE id = ?";
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(true);
+        Mockito.when(connectionMock.getCatalog()).thenReturn("defaultdb");
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.getConnection()).thenReturn(connectionMock);
+        Mockito.when(preparedStatementMock.executeQuery()).thenAnswer(invocation -> emptyResultSet());
+        Mockito.when(connectionMock.prepareStatement(sql)).thenReturn(preparedStatementMock);
+
+        SingleFlight singleFlight = new SingleFlight();
+        Connection connection = new CockroachConnection(connectionMock, new ConnectionSettings()
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH)
+                .setSingleFlight(singleFlight));
+
+        PreparedStatement ps = connection.prepareStatement(sql);
+        ps.setLong(1, 1L);
+
+        connection.setCatalog("defaultdb");
+        ps.executeQuery().close();
+        Assertions.assertEquals(1, singleFlight.getTotalQueries());
+
+        connection.setCatalog("other");
+        ps.executeQuery().close();
+
+        PreparedStatement other = connection.prepareStatement(sql);
+        other.setLong(1, 1L);
+        other.executeQuery().close();
+
+        Assertions.assertEquals(1, singleFlight.getTotalQueries());
+        Mockito.verify(preparedStatementMock, Mockito.times(3)).executeQuery();
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    private static void awaitCondition(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.isMet() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertTrue(condition.isMet());
+    }
+
+    private static ResultSet emptyResultSet() throws SQLException {
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(metaData.getColumnCount()).thenReturn(0);
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.getMetaData()).thenReturn(metaData);
+        return resultSet;
+    }
 }
@@ -0,0 +1,52 @@
+package io.cockroachdb.jdbc.bulk;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class AimdLimiterTest {
+    @Test
+    public void whenSuccessWithinTarget_expectAdditiveIncrease() throws InterruptedException {
+        AimdLimiter limiter = new AimdLimiter(1, 4, 0.5, Duration.ofMillis(100));
+        Assertions.assertEquals(1, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+            limiter.onSuccess(Duration.ofMillis(10));
+        }
+
+        Assertions.assertEquals(4, limiter.getLimit());
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void whenOverloadOrSlow_expectMultiplicativeDecrease() throws InterruptedException {
+        AimdLimiter limiter = new AimdLimiter(1, 8, 0.5, Duration.ofMillis(100));
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.onSuccess(Duration.ofMillis(10));
+        }
+        Assertions.assertEquals(8, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.onFailure(true);
+        Assertions.assertEquals(4, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.onSuccess(Duration.ofSeconds(1));
+        Assertions.assertEquals(2, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.onFailure(false);
+        Assertions.assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.onFailure(true);
+        }
+        Assertions.assertEquals(1, limiter.getLimit());
+    }
+}
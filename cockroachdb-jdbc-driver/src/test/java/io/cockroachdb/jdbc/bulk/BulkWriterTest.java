@@ -0,0 +1,194 @@
+package io.cockroachdb.jdbc.bulk;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.ByteStreamWriter;
+
+import io.cockroachdb.jdbc.CockroachConnection;
+import io.cockroachdb.jdbc.copy.CopyWriter;
+
+@Tag("unit-test")
+public class BulkWriterTest {
+    private final ByteArrayOutputStream copyOutput = new ByteArrayOutputStream();
+
+    private final AtomicInteger copyAttempts = new AtomicInteger();
+
+    private DataSource dataSourceMock(int failFirstAttempts) throws SQLException {
+        return dataSourceMock(failFirstAttempts, () -> new SQLException("Disturbance!", "40001"));
+    }
+
+    private DataSource dataSourceMock(int failFirstAttempts, Supplier<Exception> failure) throws SQLException {
+        CopyIn copyInMock = Mockito.mock(CopyIn.class);
+        Mockito.doAnswer(invocation -> {
+            ByteStreamWriter writer = invocation.getArgument(0);
+            synchronized (copyOutput) {
+                writer.writeTo(() -> copyOutput);
+            }
+            return null;
+        }).when(copyInMock).writeToCopy(Mockito.any(ByteStreamWriter.class));
+
+        CopyManager copyManagerMock = Mockito.mock(CopyManager.class);
+        Mockito.when(copyManagerMock.copyIn(Mockito.anyString())).thenAnswer(invocation -> {
+            if (copyAttempts.incrementAndGet() <= failFirstAttempts) {
+                throw failure.get();
+            }
+            return copyInMock;
+        });
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(true);
+
+        CockroachConnection cockroachConnectionMock = Mockito.mock(CockroachConnection.class);
+        Mockito.when(cockroachConnectionMock.copyIn(Mockito.anyString(), Mockito.any()))
+                .thenAnswer(invocation -> new CopyWriter(connectionMock, copyManagerMock,
+                        invocation.getArgument(0), "a", "b", "c", "d"));
+        Mockito.when(connectionMock.unwrap(CockroachConnection.class)).thenReturn(cockroachConnectionMock);
+
+        DataSource dataSourceMock = Mockito.mock(DataSource.class);
+        Mockito.when(dataSourceMock.getConnection()).thenReturn(connectionMock);
+        return dataSourceMock;
+    }
+
+    private BulkWriter newWriter(DataSource dataSource) {
+        return BulkWriter.builder(dataSource)
+                .withTable("t")
+                .withColumn("a", ColumnType.LONG)
+                .withColumn("b", ColumnType.DOUBLE)
+                .withColumn("c", ColumnType.STRING)
+                .withColumn("d", ColumnType.BOOLEAN)
+                .withBatchSize(64)
+                .withWorkers(3)
+                .withMaxPendingBatches(4)
+                .build();
+    }
+
+    @Test
+    public void whenWritingFromManyProducers_expectAllRowsFlushed() throws Exception {
+        final int producers = 4;
+        final int rowsPerProducer = 1000;
+
+        DataSource dataSource = dataSourceMock(0);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(producers);
+
+        try (BulkWriter writer = newWriter(dataSource)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                futures.add(executorService.submit(() -> {
+                    try (BulkWriter.Producer producer = writer.newProducer()) {
+                        for (int i = 0; i < rowsPerProducer; i++) {
+                            producer.appendLong(i)
+                                    .appendDouble(i / 2.0)
+                                    .appendString(i % 10 == 0 ? null : "row\t" + i)
+                                    .appendBoolean(i % 2 == 0)
+                                    .endRow();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        String output = new String(copyOutput.toByteArray(), StandardCharsets.UTF_8);
+        String[] lines = output.split("\n");
+        Assertions.assertEquals(producers * rowsPerProducer, lines.length);
+        Assertions.assertTrue(output.contains("1\t0.5\trow\\t1\tf\n"));
+        Assertions.assertTrue(output.contains("10\t5.0\t\\N\tt\n"));
+    }
+
+    @Test
+    public void whenFlushFailsWithContention_expectRetryAndBackoff() throws Exception {
+        DataSource dataSource = dataSourceMock(2);
+
+        BulkWriter writer = newWriter(dataSource);
+        try (BulkWriter.Producer producer = writer.newProducer()) {
+            for (int i = 0; i < 10; i++) {
+                producer.appendLong(i).appendDouble(i).appendString("x").appendBoolean(true).endRow();
+            }
+        }
+        writer.close();
+
+        Assertions.assertEquals(10, writer.getRowsWritten());
+        Assertions.assertEquals(2, writer.getBatchesRetried());
+    }
+
+    @Test
+    public void whenFlushFailsWithRuntimeException_expectWriterFailed() throws Exception {
+        DataSource dataSource = dataSourceMock(Integer.MAX_VALUE, () -> new IllegalStateException("Boom"));
+
+        BulkWriter writer = newWriter(dataSource);
+        try (BulkWriter.Producer producer = writer.newProducer()) {
+            producer.appendLong(1).appendDouble(1).appendString("x").appendBoolean(true).endRow();
+        }
+
+        SQLException ex = Assertions.assertThrows(SQLException.class, writer::close);
+        Assertions.assertTrue(ex.getCause() instanceof IllegalStateException);
+        Assertions.assertEquals(0, writer.getRowsWritten());
+    }
+
+    @Test
+    public void whenConnectionLostDuringCopy_expectNoRetry() throws Exception {
+        DataSource dataSource = dataSourceMock(1, () -> new SQLException("Connection reset", "08006"));
+
+        BulkWriter writer = newWriter(dataSource);
+        try (BulkWriter.Producer producer = writer.newProducer()) {
+            producer.appendLong(1).appendDouble(1).appendString("x").appendBoolean(true).endRow();
+        }
+
+        SQLException ex = Assertions.assertThrows(SQLException.class, writer::close);
+        Assertions.assertEquals("08006", ex.getSQLState());
+        Assertions.assertEquals(1, copyAttempts.get());
+        Assertions.assertEquals(0, writer.getBatchesRetried());
+    }
+
+    @Test
+    public void whenConnectionUnavailable_expectRetry() throws Exception {
+        DataSource dataSource = dataSourceMock(0);
+        Connection connection = dataSource.getConnection();
+        Mockito.when(dataSource.getConnection())
+                .thenThrow(new SQLException("Connection refused", "08001"))
+                .thenReturn(connection);
+
+        BulkWriter writer = newWriter(dataSource);
+        try (BulkWriter.Producer producer = writer.newProducer()) {
+            producer.appendLong(1).appendDouble(1).appendString("x").appendBoolean(true).endRow();
+        }
+        writer.close();
+
+        Assertions.assertEquals(1, writer.getRowsWritten());
+        Assertions.assertEquals(1, writer.getBatchesRetried());
+    }
+
+    @Test
+    public void whenAppendingWrongType_expectIllegalStateException() throws Exception {
+        try (BulkWriter writer = newWriter(dataSourceMock(0))) {
+            BulkWriter.Producer producer = writer.newProducer();
+            Assertions.assertThrows(IllegalStateException.class, () -> producer.appendDouble(1.0));
+            producer.appendLong(1);
+            Assertions.assertThrows(IllegalStateException.class, producer::endRow);
+        }
+    }
+}
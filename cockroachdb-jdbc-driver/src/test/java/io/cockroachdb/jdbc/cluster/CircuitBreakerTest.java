@@ -0,0 +1,65 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class CircuitBreakerTest {
+    @Test
+    public void whenFailuresReachThreshold_thenOpen() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        Assertions.assertTrue(circuitBreaker.isCallPermitted());
+
+        circuitBreaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.isCallPermitted());
+        Assertions.assertEquals(1, circuitBreaker.getTotalTrips());
+    }
+
+    @Test
+    public void whenOpenDurationElapsed_thenHalfOpenUntilOutcome() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ZERO);
+        circuitBreaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assertions.assertTrue(circuitBreaker.isCallPermitted());
+
+        circuitBreaker.recordSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void whenProbing_thenTrackNodeHealth() throws IOException {
+        ClusterTopology topology = new ClusterTopology("jdbc:postgresql://localhost:26257/defaultdb",
+                new Properties(), new TopologySettings().setOpenDuration(Duration.ofMinutes(1)));
+
+        ClusterNode node;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            node = new ClusterNode(1, "localhost", serverSocket.getLocalPort(),
+                    new CircuitBreaker(1, Duration.ofMinutes(1)));
+            node.getCircuitBreaker().recordFailure();
+            Assertions.assertFalse(node.isHealthy());
+
+            topology.probe(node);
+            Assertions.assertTrue(node.getLatencyNanos() > 0);
+            Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, node.getCircuitBreaker().getState());
+
+            node.getCircuitBreaker().recordSuccess();
+        }
+
+        topology.probe(node);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, node.getCircuitBreaker().getState());
+    }
+}
@@ -0,0 +1,163 @@
+package io.cockroachdb.jdbc.cluster;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+@Tag("unit-test")
+public class ClusterTopologyTest {
+    @Test
+    public void whenRewritingHost_thenKeepDatabaseAndQuery() {
+        Assertions.assertEquals("jdbc:postgresql://n2:26258/defaultdb?sslmode=disable",
+                ClusterTopology.withHost("jdbc:postgresql://n1:26257,n3:26257/defaultdb?sslmode=disable",
+                        "n2", 26258));
+        Assertions.assertEquals("jdbc:postgresql://n2:26257?sslmode=disable",
+                ClusterTopology.withHost("jdbc:postgresql://localhost?sslmode=disable", "n2", 26257));
+        Assertions.assertEquals("jdbc:postgresql://n2:26257/defaultdb",
+                ClusterTopology.withHost("jdbc:postgresql:defaultdb", "n2", 26257));
+    }
+
+    @Test
+    public void whenParsingLocality_thenPreserveTierOrder() {
+        Map<String, String> locality = ClusterNode.parseLocality("region=eu-west-1, zone=eu-west-1a");
+        Assertions.assertEquals(Arrays.asList("region", "zone"), Arrays.asList(locality.keySet().toArray()));
+        Assertions.assertEquals("eu-west-1a", locality.get("zone"));
+        Assertions.assertTrue(ClusterNode.parseLocality(null).isEmpty());
+    }
+
+    @Test
+    public void whenBalancingByLeastConnections_thenPickLeastLoadedNode() {
+        ClusterNode n1 = new ClusterNode(1, "n1", 26257);
+        ClusterNode n2 = new ClusterNode(2, "n2", 26257);
+        ClusterNode n3 = new ClusterNode(3, "n3", 26257);
+        n1.acquire();
+        n2.acquire();
+        n2.acquire();
+
+        LoadBalancer loadBalancer = new LeastConnectionsLoadBalancer();
+        Assertions.assertSame(n3, loadBalancer.select(Arrays.asList(n1, n2, n3)));
+        n3.acquire();
+        n3.acquire();
+        Assertions.assertSame(n1, loadBalancer.select(Arrays.asList(n1, n2, n3)));
+    }
+
+    @Test
+    public void whenBalancingByLatency_thenPreferFasterNode() {
+        ClusterNode fast = new ClusterNode(1, "n1", 26257);
+        ClusterNode slow = new ClusterNode(2, "n2", 26257);
+        fast.recordLatency(1_000_000);
+        slow.recordLatency(50_000_000);
+
+        LoadBalancer loadBalancer = new LatencyAwareLoadBalancer();
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertSame(fast, loadBalancer.select(Arrays.asList(fast, slow)));
+        }
+    }
+
+    @Test
+    public void whenBalancingByLocality_thenPreferSameZoneThenSameRegion() throws SQLException {
+        ClusterTopology topology = new ClusterTopology("jdbc:postgresql://localhost:26257/defaultdb",
+                new Properties());
+        topology.refresh(mockConnection(false,
+                new Object[] {1, "n1:26257", "region=eu-west-1,zone=a", true, false},
+                new Object[] {2, "n2:26257", "region=eu-west-1,zone=b", true, false},
+                new Object[] {3, "n3:26257", "region=us-east-1,zone=a", true, false}));
+
+        LoadBalancer loadBalancer = new LocalityAwareLoadBalancer(
+                ClusterNode.parseLocality("region=eu-west-1,zone=a"), new LeastConnectionsLoadBalancer());
+
+        List<ClusterNode> candidates = new ArrayList<>(topology.getAvailableNodes());
+        topology.getNode(1).acquire();
+        Assertions.assertSame(topology.getNode(1), loadBalancer.select(candidates));
+
+        candidates.remove(topology.getNode(1));
+        Assertions.assertSame(topology.getNode(2), loadBalancer.select(candidates));
+
+        candidates.remove(topology.getNode(2));
+        Assertions.assertSame(topology.getNode(3), loadBalancer.select(candidates));
+    }
+
+    @Test
+    public void whenRefreshing_thenUpdateNodesInPlace() throws SQLException {
+        ClusterTopology topology = new ClusterTopology("jdbc:postgresql://localhost:26257/defaultdb",
+                new Properties());
+
+        topology.refresh(mockConnection(false,
+                new Object[] {1, "n1:26257", "region=eu,zone=a", true, false},
+                new Object[] {2, "n2:26257", "region=eu,zone=b", true, false},
+                new Object[] {3, "n3:26257", "region=us,zone=a", false, false}));
+
+        Assertions.assertEquals(3, topology.getNodes().size());
+        Assertions.assertEquals(2, topology.getAvailableNodes().size());
+
+        ClusterNode n1 = topology.getNode(1);
+        n1.acquire();
+
+        topology.refresh(mockConnection(false,
+                new Object[] {1, "n1:26257", "region=eu,zone=a", true, true},
+                new Object[] {2, "n2:26257", "region=eu,zone=b", true, false}));
+
+        Assertions.assertSame(n1, topology.getNode(1));
+        Assertions.assertEquals(1, n1.getActiveConnections());
+        Assertions.assertTrue(n1.isDraining());
+        Assertions.assertNull(topology.getNode(3));
+
+        List<ClusterNode> available = topology.getAvailableNodes();
+        Assertions.assertEquals(1, available.size());
+        Assertions.assertEquals(2, available.get(0).getNodeId());
+    }
+
+    @Test
+    public void whenGossipNodesUnavailable_thenFallbackToNodeStatus() throws SQLException {
+        ClusterTopology topology = new ClusterTopology("jdbc:postgresql://localhost:26257/defaultdb",
+                new Properties());
+
+        topology.refresh(mockConnection(true,
+                new Object[] {1, "n1:26257",
+                        "{\"tiers\": [{\"key\": \"region\", \"value\": \"eu\"}, {\"key\": \"zone\", \"value\": \"a\"}]}",
+                        true, false}));
+
+        ClusterNode n1 = topology.getNode(1);
+        Assertions.assertEquals("n1", n1.getHost());
+        Assertions.assertEquals("eu", n1.getLocality().get("region"));
+        Assertions.assertEquals("a", n1.getLocality().get("zone"));
+    }
+
+    private static Connection mockConnection(boolean gossipFails, Object[]... rows) throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        final int[] row = {-1};
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        Mockito.when(resultSet.getInt(1)).thenAnswer(invocation -> rows[row[0]][0]);
+        Mockito.when(resultSet.getString(2)).thenAnswer(invocation -> rows[row[0]][1]);
+        Mockito.when(resultSet.getString(3)).thenAnswer(invocation -> rows[row[0]][2]);
+        Mockito.when(resultSet.getBoolean(4)).thenAnswer(invocation -> rows[row[0]][3]);
+        Mockito.when(resultSet.getBoolean(5)).thenAnswer(invocation -> rows[row[0]][4]);
+
+        Statement statement = Mockito.mock(Statement.class);
+        if (gossipFails) {
+            Mockito.when(statement.executeQuery(ClusterTopology.GOSSIP_NODES_QUERY))
+                    .thenThrow(new PSQLException("relation does not exist", PSQLState.UNDEFINED_TABLE));
+        } else {
+            Mockito.when(statement.executeQuery(ClusterTopology.GOSSIP_NODES_QUERY)).thenReturn(resultSet);
+        }
+        Mockito.when(statement.executeQuery(ClusterTopology.KV_NODE_STATUS_QUERY)).thenReturn(resultSet);
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        return connection;
+    }
+}
@@ -0,0 +1,194 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.util.ParameterBinding;
+
+@Tag("unit-test")
+public class GroupCommitterTest {
+    private static final String SQL = "INSERT INTO t (a,b) VALUES (?,?)";
+
+    private static ParameterBinding[] row(int a, String b) {
+        return new ParameterBinding[] {
+                ParameterBinding.of(a, (ps, i) -> ps.setInt(i, a)),
+                ParameterBinding.of(b, (ps, i) -> ps.setString(i, b))
+        };
+    }
+
+    private static List<Future<Integer>> submit(ExecutorService executorService, GroupCommitter groupCommitter,
+                                                Connection connection, int rows) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            final int n = i;
+            futures.add(executorService.submit(
+                    () -> groupCommitter.executeUpdate(connection, SQL, row(n, "v" + n))));
+        }
+        return futures;
+    }
+
+    @Test
+    public void whenCheckingEligibility_thenOnlyAcceptSingleRowInsertsAndUpserts() {
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofMillis(1), 64);
+
+        Assertions.assertTrue(groupCommitter.isEligible(SQL));
+        Assertions.assertTrue(groupCommitter.isEligible("upsert into t(a) values ( ? );"));
+        Assertions.assertEquals(2, groupCommitter.getParameterCount(SQL));
+
+        Assertions.assertFalse(groupCommitter.isEligible(null));
+        Assertions.assertFalse(groupCommitter.isEligible("UPDATE t SET a=? WHERE b=?"));
+        Assertions.assertFalse(groupCommitter.isEligible("INSERT INTO t VALUES (?,?)"));
+        Assertions.assertFalse(groupCommitter.isEligible("INSERT INTO t (a,b) VALUES (?,1)"));
+        Assertions.assertFalse(groupCommitter.isEligible("INSERT INTO t (a,b) VALUES (?,?),(?,?)"));
+        Assertions.assertFalse(groupCommitter.isEligible("INSERT INTO t (a,b) VALUES (?,?) ON CONFLICT DO NOTHING"));
+        Assertions.assertFalse(groupCommitter.isEligible("INSERT INTO t (a,b) VALUES (?,?) RETURNING id"));
+    }
+
+    @Test
+    public void whenCheckingManyStatements_thenCacheOnlyEligibleTemplatesUpToLimit() {
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofMillis(1), 64);
+
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertFalse(groupCommitter.isEligible("INSERT INTO t (a,b) VALUES (" + i + ",?)"));
+            Assertions.assertFalse(groupCommitter.isEligible("SELECT * FROM t WHERE a = " + i));
+        }
+        Assertions.assertEquals(0, groupCommitter.getTemplateCount());
+
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(groupCommitter.isEligible("INSERT INTO t" + i + " (a,b) VALUES (?,?)"));
+        }
+        Assertions.assertTrue(groupCommitter.getTemplateCount() <= 1024);
+        Assertions.assertEquals(2, groupCommitter.getParameterCount("INSERT INTO t0 (a,b) VALUES (?,?)"));
+    }
+
+    @Test
+    public void whenConcurrentInserts_thenCoalesceIntoOneStatement() throws Exception {
+        final int rows = 8;
+
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.executeUpdate()).thenReturn(rows);
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenReturn(preparedStatementMock);
+
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofSeconds(10), rows);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(rows);
+        try {
+            for (Future<Integer> future : submit(executorService, groupCommitter, connectionMock, rows)) {
+                Assertions.assertEquals(1, future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Mockito.verify(connectionMock).prepareStatement(
+                "INSERT INTO t (a,b) VALUES (?,?),(?,?),(?,?),(?,?),(?,?),(?,?),(?,?),(?,?)");
+        Mockito.verify(preparedStatementMock, Mockito.times(rows)).setInt(Mockito.anyInt(), Mockito.anyInt());
+        Mockito.verify(preparedStatementMock).setString(Mockito.anyInt(), Mockito.eq("v7"));
+        Mockito.verify(preparedStatementMock, Mockito.times(1)).executeUpdate();
+
+        Assertions.assertEquals(1, groupCommitter.getTotalGroups());
+        Assertions.assertEquals(rows, groupCommitter.getTotalRows());
+    }
+
+    @Test
+    public void whenGroupFails_thenFallbackToIndividualRows() throws Exception {
+        final int rows = 3;
+
+        PreparedStatement groupStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(groupStatementMock.executeUpdate())
+                .thenThrow(new SQLException("duplicate key value", "23505"));
+
+        AtomicInteger calls = new AtomicInteger();
+        PreparedStatement rowStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(rowStatementMock.executeUpdate()).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new SQLException("duplicate key value", "23505");
+            }
+            return 1;
+        });
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenAnswer(invocation ->
+                SQL.equals(invocation.getArgument(0)) ? rowStatementMock : groupStatementMock);
+
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofSeconds(10), rows);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(rows);
+        int succeeded = 0;
+        int failed = 0;
+        try {
+            for (Future<Integer> future : submit(executorService, groupCommitter, connectionMock, rows)) {
+                try {
+                    Assertions.assertEquals(1, future.get());
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    Assertions.assertEquals("23505", ((SQLException) e.getCause()).getSQLState());
+                    failed++;
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assertions.assertEquals(2, succeeded);
+        Assertions.assertEquals(1, failed);
+        Mockito.verify(rowStatementMock, Mockito.times(rows)).executeUpdate();
+    }
+
+    @Test
+    public void whenGroupFailsWithAmbiguousError_thenFailAllRows() throws Exception {
+        final int rows = 3;
+
+        PreparedStatement groupStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(groupStatementMock.executeUpdate())
+                .thenThrow(new SQLException("result is ambiguous", "40003"));
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenReturn(groupStatementMock);
+
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofSeconds(10), rows);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(rows);
+        try {
+            for (Future<Integer> future : submit(executorService, groupCommitter, connectionMock, rows)) {
+                ExecutionException ex = Assertions.assertThrows(ExecutionException.class, future::get);
+                Assertions.assertEquals("40003", ((SQLException) ex.getCause()).getSQLState());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Mockito.verify(connectionMock, Mockito.never()).prepareStatement(SQL);
+        Mockito.verify(groupStatementMock, Mockito.times(1)).executeUpdate();
+    }
+
+    @Test
+    public void whenSingleWriter_thenExecuteAfterMaxDelay() throws Exception {
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.executeUpdate()).thenReturn(1);
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenReturn(preparedStatementMock);
+
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofMillis(1), 64);
+
+        Assertions.assertEquals(1, groupCommitter.executeUpdate(connectionMock, SQL, row(1, "a")));
+        Mockito.verify(connectionMock).prepareStatement("INSERT INTO t (a,b) VALUES (?,?)");
+    }
+}
@@ -0,0 +1,145 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+@Tag("unit-test")
+public class PointLoaderTest {
+    private static final String QUERY = "SELECT id, name FROM product WHERE id = ANY(?)";
+
+    private final List<Object[]> executedKeys = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void whenConcurrentLookups_thenCoalesceIntoOneQuery() throws Exception {
+        PointLoader<String> loader = PointLoader.builder(mockDataSource(), rs -> rs.getString("name"))
+                .withQuery(QUERY)
+                .withMaxDelay(Duration.ofSeconds(1))
+                .withMaxBatchSize(1000)
+                .build();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            final int id = i % 16;
+            futures.add(executorService.submit(() -> {
+                startGate.await();
+                return loader.get(id);
+            }));
+        }
+        startGate.countDown();
+
+        for (int i = 0; i < futures.size(); i++) {
+            List<String> rows = futures.get(i).get();
+            if (i % 16 == 13) {
+                Assertions.assertTrue(rows.isEmpty());
+            } else {
+                Assertions.assertEquals(Collections.singletonList("product-" + (i % 16)), rows);
+            }
+        }
+        executorService.shutdownNow();
+
+        Assertions.assertEquals(32, loader.getTotalLoads());
+        Assertions.assertEquals(16, loader.getTotalKeys());
+        Assertions.assertEquals(1, loader.getTotalBatches());
+        Assertions.assertEquals(16, executedKeys.get(0).length);
+    }
+
+    @Test
+    public void whenBatchFull_thenExecuteWithoutDelay() throws Exception {
+        PointLoader<String> loader = PointLoader.builder(mockDataSource(), rs -> rs.getString("name"))
+                .withQuery(QUERY)
+                .withMaxDelay(Duration.ofSeconds(30))
+                .withMaxBatchSize(3)
+                .build();
+
+        CompletableFuture<List<String>> f1 = loader.load(1L);
+        CompletableFuture<List<String>> f2 = loader.load(2);
+        CompletableFuture<List<String>> f3 = loader.load(3);
+
+        Assertions.assertEquals(Collections.singletonList("product-1"), f1.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Collections.singletonList("product-2"), f2.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Collections.singletonList("product-3"), f3.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<List<String>> f4 = loader.load(4);
+        loader.close();
+        Assertions.assertEquals(Collections.singletonList("product-4"), f4.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, loader.getTotalBatches());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> loader.load(5));
+    }
+
+    @Test
+    public void whenQueryFails_thenFailAllCallers() throws Exception {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenThrow(new SQLException("connection refused", "08001"));
+
+        PointLoader<String> loader = PointLoader.builder(dataSource, rs -> rs.getString("name"))
+                .withQuery(QUERY)
+                .withMaxBatchSize(2)
+                .build();
+
+        CompletableFuture<List<String>> f1 = loader.load(1);
+        SQLException ex = Assertions.assertThrows(SQLException.class, () -> loader.get(2));
+        Assertions.assertEquals("08001", ex.getSQLState());
+        ExecutionException cause = Assertions.assertThrows(ExecutionException.class,
+                () -> f1.get(5, TimeUnit.SECONDS));
+        Assertions.assertSame(ex, cause.getCause());
+    }
+
+    private DataSource mockDataSource() throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenAnswer(invocation -> mockConnection());
+        return dataSource;
+    }
+
+    private Connection mockConnection() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.prepareStatement(QUERY)).thenReturn(ps);
+        Mockito.when(connection.createArrayOf(Mockito.eq("INT8"), Mockito.any())).thenAnswer(invocation -> {
+            Object[] keys = invocation.getArgument(1);
+            Array array = Mockito.mock(Array.class);
+            Mockito.when(array.getArray()).thenReturn(keys);
+            return array;
+        });
+
+        final Object[][] keys = new Object[1][];
+        Mockito.doAnswer(invocation -> keys[0] = (Object[]) ((Array) invocation.getArgument(1)).getArray())
+                .when(ps).setArray(Mockito.eq(1), Mockito.any());
+        Mockito.when(ps.executeQuery()).thenAnswer(invocation -> {
+            executedKeys.add(keys[0]);
+            List<Object> ids = new ArrayList<>(Arrays.asList(keys[0]));
+            ids.remove(13L);
+
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            final int[] row = {-1};
+            Mockito.when(rs.next()).thenAnswer(i -> ++row[0] < ids.size());
+            Mockito.when(rs.getObject("id")).thenAnswer(i -> ids.get(row[0]));
+            Mockito.when(rs.getString("name")).thenAnswer(i -> "product-" + ids.get(row[0]));
+            return rs;
+        });
+        return connection;
+    }
+}
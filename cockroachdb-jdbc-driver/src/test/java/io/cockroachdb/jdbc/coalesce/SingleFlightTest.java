@@ -0,0 +1,205 @@
+package io.cockroachdb.jdbc.coalesce;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.util.ParameterBinding;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+@Tag("unit-test")
+public class SingleFlightTest {
+    private static final String QUERY = "SELECT id, name FROM product WHERE category = ?";
+
+    @Test
+    public void whenReadQuery_thenEligible() {
+        Assertions.assertTrue(SingleFlight.isEligible(QUERY));
+        Assertions.assertTrue(SingleFlight.isEligible("with x as (select 1) select * from x"));
+        Assertions.assertTrue(SingleFlight.isEligible(
+                "SELECT * FROM product AS OF SYSTEM TIME follower_read_timestamp() WHERE id = ?"));
+        Assertions.assertFalse(SingleFlight.isEligible("SELECT * FROM product WHERE id = ? FOR UPDATE"));
+        Assertions.assertFalse(SingleFlight.isEligible("SELECT * FROM product WHERE id = ? FOR SHARE"));
+        Assertions.assertFalse(SingleFlight.isEligible(
+                "WITH x AS (DELETE FROM product RETURNING id) SELECT * FROM x"));
+        Assertions.assertFalse(SingleFlight.isEligible("UPDATE product SET name = ? WHERE id = ?"));
+        Assertions.assertFalse(SingleFlight.isEligible(null));
+    }
+
+    @Test
+    public void whenConcurrentIdenticalQueries_thenExecuteOnce() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ResourceSupplier<ResultSet> query = () -> {
+            executions.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new SQLException(e);
+            }
+            return mockResultSet();
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executorService.submit(() -> {
+                try (ResultSet rs = singleFlight.executeQuery(null, QUERY, bindings("shoes"), query)) {
+                    List<String> names = new ArrayList<>();
+                    while (rs.next()) {
+                        names.add(rs.getLong("id") + ":" + rs.getString(2));
+                    }
+                    return names;
+                }
+            }));
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (singleFlight.getTotalQueries() < 8 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<List<String>> future : futures) {
+            List<String> names = future.get();
+            Assertions.assertEquals(3, names.size());
+            Assertions.assertEquals("1:product-1", names.get(0));
+            Assertions.assertEquals("3:product-3", names.get(2));
+        }
+        executorService.shutdownNow();
+
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertEquals(8, singleFlight.getTotalQueries());
+        Assertions.assertEquals(7, singleFlight.getTotalShared());
+        Assertions.assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void whenDifferentParameters_thenExecuteSeparately() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger executions = new AtomicInteger();
+
+        ResourceSupplier<ResultSet> query = () -> {
+            executions.incrementAndGet();
+            return mockResultSet();
+        };
+
+        singleFlight.executeQuery(null, QUERY, bindings("shoes"), query).close();
+        singleFlight.executeQuery(null, QUERY, bindings("hats"), query).close();
+        singleFlight.executeQuery(null, QUERY, bindings("shoes"), query).close();
+
+        Assertions.assertEquals(3, executions.get());
+        Assertions.assertEquals(0, singleFlight.getTotalShared());
+    }
+
+    @Test
+    public void whenQueryFails_thenFailAllWaiters() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ResourceSupplier<ResultSet> query = () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new SQLException(e);
+            }
+            throw new SQLException("boom", "40001");
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<ResultSet> f1 = executorService.submit(
+                () -> singleFlight.executeQuery(null, QUERY, bindings("shoes"), query));
+        Future<ResultSet> f2 = executorService.submit(
+                () -> singleFlight.executeQuery(null, QUERY, bindings("shoes"), query));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (singleFlight.getTotalQueries() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<ResultSet> future : Arrays.asList(f1, f2)) {
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+            Assertions.assertTrue(e.getCause() instanceof SQLException);
+            Assertions.assertEquals("40001", ((SQLException) e.getCause()).getSQLState());
+        }
+        executorService.shutdownNow();
+
+        Assertions.assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    public void whenMaterialized_thenIndependentCursors() throws Exception {
+        MaterializedResult result = MaterializedResult.of(mockResultSet());
+        Assertions.assertEquals(3, result.getRowCount());
+
+        ResultSet rs1 = result.newResultSet(null);
+        ResultSet rs2 = result.newResultSet(null);
+
+        Assertions.assertTrue(rs1.next());
+        Assertions.assertTrue(rs1.next());
+        Assertions.assertEquals(2, rs1.getInt(1));
+        Assertions.assertEquals("2", rs1.getString("id"));
+        Assertions.assertEquals(2.0, rs1.getDouble("ID"));
+
+        Assertions.assertTrue(rs2.next());
+        Assertions.assertEquals(1L, rs2.getObject(1, Long.class));
+        Assertions.assertEquals("product-1", rs2.getObject("name"));
+        Assertions.assertFalse(rs2.wasNull());
+
+        Assertions.assertEquals(2, rs2.getMetaData().getColumnCount());
+        Assertions.assertEquals("name", rs2.getMetaData().getColumnLabel(2));
+        Assertions.assertEquals(Types.BIGINT, rs2.getMetaData().getColumnType(1));
+
+        Assertions.assertTrue(rs1.next());
+        Assertions.assertFalse(rs1.next());
+        rs1.close();
+        Assertions.assertTrue(rs1.isClosed());
+        Assertions.assertThrows(SQLException.class, rs1::next);
+        Assertions.assertFalse(rs2.isClosed());
+        Assertions.assertThrows(SQLException.class, () -> rs2.getString("missing"));
+    }
+
+    private static ParameterBinding[] bindings(String category) {
+        return new ParameterBinding[] {
+                ParameterBinding.of(category, (ps, index) -> ps.setString(index, category))
+        };
+    }
+
+    private static ResultSet mockResultSet() throws SQLException {
+        ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+        Mockito.when(metaData.getColumnCount()).thenReturn(2);
+        Mockito.when(metaData.getColumnLabel(1)).thenReturn("id");
+        Mockito.when(metaData.getColumnLabel(2)).thenReturn("name");
+        Mockito.when(metaData.getColumnName(1)).thenReturn("id");
+        Mockito.when(metaData.getColumnName(2)).thenReturn("name");
+        Mockito.when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        Mockito.when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+
+        final int[] row = {-1};
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSet.getMetaData()).thenReturn(metaData);
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> ++row[0] < 3);
+        Mockito.when(resultSet.getObject(1)).thenAnswer(invocation -> (long) row[0] + 1);
+        Mockito.when(resultSet.getString(1)).thenAnswer(invocation -> String.valueOf(row[0] + 1));
+        Mockito.when(resultSet.getObject(2)).thenAnswer(invocation -> "product-" + (row[0] + 1));
+        return resultSet;
+    }
+}
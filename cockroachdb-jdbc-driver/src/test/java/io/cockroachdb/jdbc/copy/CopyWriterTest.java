@@ -0,0 +1,108 @@
+package io.cockroachdb.jdbc.copy;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.ByteStreamWriter;
+
+@Tag("unit-test")
+public class CopyWriterTest {
+    private final ByteArrayOutputStream copyOutput = new ByteArrayOutputStream();
+
+    private CopyManager copyManagerMock() throws SQLException {
+        CopyIn copyInMock = Mockito.mock(CopyIn.class);
+        Mockito.doAnswer(invocation -> {
+            ByteStreamWriter writer = invocation.getArgument(0);
+            writer.writeTo(() -> copyOutput);
+            return null;
+        }).when(copyInMock).writeToCopy(Mockito.any(ByteStreamWriter.class));
+        Mockito.when(copyInMock.isActive()).thenReturn(true);
+
+        CopyManager copyManagerMock = Mockito.mock(CopyManager.class);
+        Mockito.when(copyManagerMock.copyIn(Mockito.anyString())).thenReturn(copyInMock);
+        return copyManagerMock;
+    }
+
+    @Test
+    public void whenWritingTypedRows_expectTextFormatEncoding() throws SQLException {
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(true);
+
+        CopyManager copyManagerMock = copyManagerMock();
+
+        UUID id = UUID.randomUUID();
+
+        try (CopyWriter writer = new CopyWriter(connectionMock, copyManagerMock, "t", "a", "b", "c", "d", "e")) {
+            Assertions.assertEquals("COPY t(a,b,c,d,e) FROM STDIN", writer.getSql());
+            writer.writeLong(-1234567890123L)
+                    .writeString("a\tb\\c\nd åäö 😀")
+                    .writeNull()
+                    .writeUUID(id)
+                    .writeDecimal(new BigDecimal("10.50"))
+                    .endRow();
+            writer.writeLong(Long.MIN_VALUE)
+                    .writeBoolean(true)
+                    .writeBytes(new byte[] {0x01, (byte) 0xff})
+                    .writeDouble(1.5)
+                    .writeObject(7)
+                    .endRow();
+        }
+
+        Mockito.verify(copyManagerMock, Mockito.times(1)).copyIn("COPY t(a,b,c,d,e) FROM STDIN");
+        Mockito.verify(connectionMock, Mockito.never()).commit();
+
+        Assertions.assertEquals("-1234567890123\ta\\tb\\\\c\\nd åäö 😀\t\\N\t" + id + "\t10.50\n"
+                        + Long.MIN_VALUE + "\tt\t\\\\x01ff\t1.5\t7\n",
+                new String(copyOutput.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenExceedingChunkSize_expectCommitPerChunk() throws SQLException {
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(false);
+
+        CopyManager copyManagerMock = copyManagerMock();
+
+        List<CopyChunkStats> chunks = new ArrayList<>();
+
+        try (CopyWriter writer = new CopyWriter(connectionMock, copyManagerMock, "t", "a")
+                .setChunkSize(10)
+                .setBufferSize(64)
+                .setChunkListener(chunks::add)) {
+            for (int i = 0; i < 25; i++) {
+                writer.writeString("some value to overflow the buffer " + i).endRow();
+            }
+            Assertions.assertEquals(20, writer.getTotalRows());
+        }
+
+        Mockito.verify(copyManagerMock, Mockito.times(3)).copyIn(Mockito.anyString());
+        Mockito.verify(connectionMock, Mockito.times(3)).commit();
+
+        Assertions.assertEquals(3, chunks.size());
+        Assertions.assertEquals(10, chunks.get(0).getRows());
+        Assertions.assertEquals(5, chunks.get(2).getRows());
+        Assertions.assertEquals(copyOutput.size(), chunks.stream().mapToLong(CopyChunkStats::getBytes).sum());
+    }
+
+    @Test
+    public void whenWritingIncompleteRow_expectIllegalStateException() throws SQLException {
+        Connection connectionMock = Mockito.mock(Connection.class);
+        CopyWriter writer = new CopyWriter(connectionMock, copyManagerMock(), "t", "a", "b");
+        writer.writeLong(1);
+        Assertions.assertThrows(IllegalStateException.class, writer::endRow);
+        writer.writeLong(2);
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.writeLong(3));
+    }
+}
@@ -0,0 +1,92 @@
+package io.cockroachdb.jdbc.diagnostics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.metrics.ContentionStatistics;
+import io.cockroachdb.jdbc.metrics.ContentionStats;
+import io.cockroachdb.jdbc.retry.RetryListener;
+
+@Tag("unit-test")
+public class ContentionCollectorTest {
+    private static final Timestamp COLLECTION_TIME = Timestamp.valueOf("2024-01-01 12:00:00");
+
+    private static ResultSet contentionEvents() throws SQLException {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.next()).thenReturn(true, true, true, false);
+        Mockito.when(rs.getTimestamp(1)).thenReturn(COLLECTION_TIME);
+        Mockito.when(rs.getString(2)).thenReturn("a1b2", "a1b2", "c3d4");
+        Mockito.when(rs.getString(3)).thenReturn("bank");
+        Mockito.when(rs.getString(4)).thenReturn("public");
+        Mockito.when(rs.getString(5)).thenReturn("account", "account", "transfer");
+        Mockito.when(rs.getString(6)).thenReturn("account_pkey", "account_pkey", "transfer_pkey");
+        Mockito.when(rs.getString(7)).thenReturn("/Table/104/1/1/0", "/Table/104/1/1/0", "/Table/105/1/7/0");
+        Mockito.when(rs.getDouble(8)).thenReturn(0.5, 0.25, 0.1);
+        return rs;
+    }
+
+    @Test
+    public void whenCollected_thenAggregateByBlockingFingerprintAndKey() throws SQLException {
+        ResultSet first = contentionEvents();
+        ResultSet empty = Mockito.mock(ResultSet.class);
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        Mockito.when(ps.executeQuery()).thenReturn(first, empty);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(ps);
+
+        ContentionStatistics statistics = new ContentionStatistics(16);
+        ContentionCollector collector = new ContentionCollector(() -> connection, Duration.ofSeconds(10), statistics);
+
+        Assertions.assertEquals(3, collector.collect());
+        Mockito.verify(ps).setNull(1, Types.TIMESTAMP);
+
+        List<ContentionStats> top = statistics.getTopByContentionTime(10);
+        Assertions.assertEquals(2, top.size());
+        Assertions.assertEquals("a1b2", top.get(0).getBlockingFingerprint());
+        Assertions.assertEquals("bank.public.account", top.get(0).getTable());
+        Assertions.assertEquals("/Table/104/1/1/0", top.get(0).getKey());
+        Assertions.assertEquals(2, top.get(0).getEvents());
+        Assertions.assertEquals(Duration.ofMillis(750).toNanos(), top.get(0).getContentionTime());
+
+        Map<String, Long> hotTables = statistics.getHotTables();
+        Assertions.assertEquals("bank.public.account", hotTables.keySet().iterator().next());
+
+        // Incremental from the last collection time
+        Assertions.assertEquals(0, collector.collect());
+        Mockito.verify(ps).setTimestamp(1, COLLECTION_TIME);
+    }
+
+    @Test
+    public void whenRetriedOnSerializationFailure_thenRequestCollectionRateLimited() throws SQLException {
+        ContentionCollector collector = Mockito.mock(ContentionCollector.class);
+        RetryListener delegate = Mockito.mock(RetryListener.class);
+        ContentionRetryListener listener = new ContentionRetryListener(delegate, collector);
+
+        SQLException serializationFailure = new SQLException("restart transaction", "40001");
+        listener.beforeRetry("executeUpdate", 1, serializationFailure, Duration.ZERO);
+        listener.beforeRetry("executeUpdate", 1, new SQLException("connection reset", "08006"), Duration.ZERO);
+
+        Mockito.verify(collector, Mockito.times(1)).requestCollection();
+        Mockito.verify(delegate, Mockito.times(2)).beforeRetry(Mockito.eq("executeUpdate"), Mockito.eq(1),
+                Mockito.any(), Mockito.eq(Duration.ZERO));
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenThrow(new SQLException("unavailable"));
+        ContentionCollector rateLimited = new ContentionCollector(() -> connection, Duration.ofMinutes(1),
+                new ContentionStatistics(16));
+        Assertions.assertTrue(rateLimited.requestCollection());
+        Assertions.assertFalse(rateLimited.requestCollection());
+    }
+}
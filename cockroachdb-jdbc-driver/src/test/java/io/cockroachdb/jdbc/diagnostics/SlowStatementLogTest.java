@@ -0,0 +1,107 @@
+package io.cockroachdb.jdbc.diagnostics;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.util.ParameterBinding;
+
+@Tag("unit-test")
+public class SlowStatementLogTest {
+    private static final String SQL = "SELECT * FROM account WHERE id = ? AND name = ?";
+
+    private static Statement statementMock() throws SQLException {
+        DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+        Mockito.when(metaData.getURL()).thenReturn("jdbc:postgresql://n1:26257/defaultdb");
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getMetaData()).thenReturn(metaData);
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(statement.getConnection()).thenReturn(connection);
+        return statement;
+    }
+
+    private static ParameterBinding[] parameters() {
+        return new ParameterBinding[] {
+                ParameterBinding.of(1L, (ps, i) -> ps.setLong(i, 1L)),
+                ParameterBinding.of("secret", (ps, i) -> ps.setString(i, "secret"))
+        };
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(size, list.size());
+    }
+
+    @Test
+    public void whenBelowThreshold_thenNotSlow() {
+        SlowStatementLog log = new SlowStatementLog(Duration.ofMillis(100), 0, null);
+        Assertions.assertFalse(log.isSlow(TimeUnit.MILLISECONDS.toNanos(99)));
+        Assertions.assertTrue(log.isSlow(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void whenSlowWithoutExplain_thenCaptureMaskedParameters() throws SQLException {
+        List<SlowStatement> captured = new CopyOnWriteArrayList<>();
+        SlowStatementLog log = new SlowStatementLog(Duration.ofMillis(100), 0, null)
+                .setListener(captured::add);
+
+        log.capture(statementMock(), SQL, parameters(), TimeUnit.MILLISECONDS.toNanos(250));
+
+        Assertions.assertEquals(1, captured.size());
+        SlowStatement slowStatement = captured.get(0);
+        Assertions.assertEquals("SELECT * FROM account WHERE id = ? AND name = ?", slowStatement.getFingerprint());
+        Assertions.assertEquals(250, slowStatement.getDuration().toMillis());
+        Assertions.assertEquals(Arrays.asList("*", "******"), slowStatement.getParameters());
+        Assertions.assertTrue(slowStatement.getConnectionInfo().contains("n1:26257"));
+        Assertions.assertNull(slowStatement.getPlan());
+    }
+
+    @Test
+    public void whenSampled_thenAttachPlanAndRateLimit() throws Exception {
+        ResultSet planResultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(planResultSet.next()).thenReturn(true, true, false);
+        Mockito.when(planResultSet.getString(1)).thenReturn("planning time: 1ms", "• scan");
+        PreparedStatement explainStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(explainStatement.executeQuery()).thenReturn(planResultSet);
+        Connection sideConnection = Mockito.mock(Connection.class);
+        Mockito.when(sideConnection.prepareStatement("EXPLAIN ANALYZE (DISTSQL) " + SQL))
+                .thenReturn(explainStatement);
+
+        List<SlowStatement> captured = new CopyOnWriteArrayList<>();
+        SlowStatementLog log = new SlowStatementLog(Duration.ofMillis(100), 1, () -> sideConnection)
+                .setListener(captured::add);
+
+        log.capture(statementMock(), SQL, parameters(), TimeUnit.MILLISECONDS.toNanos(250));
+        awaitSize(captured, 1);
+        Assertions.assertEquals("planning time: 1ms\n• scan", captured.get(0).getPlan());
+        Mockito.verify(explainStatement).setLong(1, 1L);
+        Mockito.verify(explainStatement).setString(2, "secret");
+        Mockito.verify(sideConnection).close();
+
+        // Next sample not due within the minute
+        log.capture(statementMock(), SQL, parameters(), TimeUnit.MILLISECONDS.toNanos(250));
+        awaitSize(captured, 2);
+        Assertions.assertNull(captured.get(1).getPlan());
+
+        // Writes are never explained
+        log.capture(statementMock(), "UPDATE account SET balance = 0", null, TimeUnit.MILLISECONDS.toNanos(250));
+        awaitSize(captured, 3);
+        Mockito.verify(sideConnection, Mockito.times(1)).prepareStatement(Mockito.anyString());
+    }
+}
@@ -0,0 +1,145 @@
+package io.cockroachdb.jdbc.hedge;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+@Tag("unit-test")
+public class QueryHedgerTest {
+    @Test
+    public void whenHistoricalRead_thenEligible() {
+        Assertions.assertTrue(QueryHedger.isEligible(
+                "SELECT * FROM t AS OF SYSTEM TIME follower_read_timestamp() WHERE id = ?"));
+        Assertions.assertTrue(QueryHedger.isEligible("select count(*)\nfrom t as of system time '-10s'"));
+        Assertions.assertFalse(QueryHedger.isEligible("SELECT * FROM t WHERE id = ?"));
+        Assertions.assertFalse(QueryHedger.isEligible("UPDATE t SET v = 1"));
+    }
+
+    @Test
+    public void whenTrackingLatency_thenComputePercentile() {
+        LatencyTracker latencyTracker = new LatencyTracker(100, 0.95);
+        Assertions.assertEquals(-1, latencyTracker.getPercentileNanos());
+        for (int i = 1; i <= 128; i++) {
+            latencyTracker.record(i % 100 + 1);
+        }
+        Assertions.assertEquals(95, latencyTracker.getPercentileNanos());
+    }
+
+    @Test
+    public void whenPrimaryFast_thenNeverHedge() throws SQLException {
+        HedgeConnectionFactory connectionFactory = Mockito.mock(HedgeConnectionFactory.class);
+        QueryHedger queryHedger = new QueryHedger(connectionFactory, 0.95, Duration.ofSeconds(10));
+
+        Statement primaryStatement = Mockito.mock(Statement.class);
+        ResultSet primaryResult = Mockito.mock(ResultSet.class);
+
+        for (int i = 0; i < 128; i++) {
+            Assertions.assertSame(primaryResult, queryHedger.executeQuery(primaryStatement,
+                    () -> primaryResult, HedgeQuery.of("SELECT 1 AS OF SYSTEM TIME '-1s'")));
+        }
+
+        Assertions.assertEquals(Duration.ofSeconds(10), queryHedger.getHedgeDelay());
+        Assertions.assertEquals(0, queryHedger.getTotalHedged());
+        Mockito.verifyNoInteractions(connectionFactory);
+    }
+
+    @Test
+    public void whenPrimarySlow_thenHedgeWinsAndPrimaryIsCancelled() throws Exception {
+        ResultSet hedgeResult = Mockito.mock(ResultSet.class);
+        Mockito.when(hedgeResult.getString(1)).thenReturn("hedged");
+        Statement hedgeStatement = Mockito.mock(Statement.class);
+        Mockito.when(hedgeStatement.executeQuery(Mockito.anyString())).thenReturn(hedgeResult);
+        Connection hedgeConnection = Mockito.mock(Connection.class);
+        Mockito.when(hedgeConnection.createStatement()).thenReturn(hedgeStatement);
+
+        QueryHedger queryHedger = new QueryHedger(excludedHost -> hedgeConnection, 0.95, Duration.ofMillis(1));
+
+        Statement primaryStatement = Mockito.mock(Statement.class);
+        ResultSet primaryResult = Mockito.mock(ResultSet.class);
+        HedgeQuery hedgeQuery = HedgeQuery.of("SELECT 1 AS OF SYSTEM TIME '-1s'");
+
+        for (int i = 0; i < 64; i++) {
+            queryHedger.executeQuery(primaryStatement, () -> primaryResult, hedgeQuery);
+        }
+
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).when(primaryStatement).cancel();
+
+        ResultSet resultSet = queryHedger.executeQuery(primaryStatement, () -> {
+            try {
+                if (!cancelled.await(10, TimeUnit.SECONDS)) {
+                    return primaryResult;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new SQLException("canceling statement due to user request", "57014");
+        }, hedgeQuery);
+
+        Assertions.assertEquals("hedged", resultSet.getString(1));
+        Assertions.assertSame(primaryStatement, resultSet.getStatement());
+        Assertions.assertEquals(1, queryHedger.getTotalHedgeWins());
+
+        resultSet.close();
+        Mockito.verify(hedgeResult).close();
+        Mockito.verify(hedgeStatement).close();
+        Mockito.verify(hedgeConnection, Mockito.never()).close();
+    }
+
+    @Test
+    public void whenPrimaryFinishesAfterHedgeClaims_thenCancelCompletesBeforeReturn() throws Exception {
+        ResultSet hedgeResult = Mockito.mock(ResultSet.class);
+        Statement hedgeStatement = Mockito.mock(Statement.class);
+        Mockito.when(hedgeStatement.executeQuery(Mockito.anyString())).thenReturn(hedgeResult);
+        Connection hedgeConnection = Mockito.mock(Connection.class);
+        Mockito.when(hedgeConnection.createStatement()).thenReturn(hedgeStatement);
+
+        QueryHedger queryHedger = new QueryHedger(excludedHost -> hedgeConnection, 0.95, Duration.ofMillis(1));
+
+        Statement primaryStatement = Mockito.mock(Statement.class);
+        ResultSet primaryResult = Mockito.mock(ResultSet.class);
+        HedgeQuery hedgeQuery = HedgeQuery.of("SELECT 1 AS OF SYSTEM TIME '-1s'");
+
+        for (int i = 0; i < 64; i++) {
+            queryHedger.executeQuery(primaryStatement, () -> primaryResult, hedgeQuery);
+        }
+
+        CountDownLatch cancelStarted = new CountDownLatch(1);
+        AtomicBoolean cancelDone = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            cancelStarted.countDown();
+            Thread.sleep(200);
+            cancelDone.set(true);
+            return null;
+        }).when(primaryStatement).cancel();
+
+        // Primary completes successfully right after the hedge claimed the win
+        ResultSet resultSet = queryHedger.executeQuery(primaryStatement, () -> {
+            try {
+                cancelStarted.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return primaryResult;
+        }, hedgeQuery);
+
+        Assertions.assertTrue(cancelDone.get(), "Cancel must complete before the caller gets a result");
+        Assertions.assertEquals(1, queryHedger.getTotalHedgeWins());
+        Mockito.verify(primaryResult).close();
+        Mockito.verify(primaryStatement, Mockito.times(1)).cancel();
+        resultSet.close();
+    }
+}
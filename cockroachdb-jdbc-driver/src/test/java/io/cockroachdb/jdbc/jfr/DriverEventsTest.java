@@ -0,0 +1,72 @@
+package io.cockroachdb.jdbc.jfr;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.metrics.DriverMetrics.StatementType;
+
+@Tag("unit-test")
+public class DriverEventsTest {
+    private static boolean isJava11OrLater() {
+        return !System.getProperty("java.specification.version").startsWith("1.");
+    }
+
+    @Test
+    public void whenNoRecording_thenEventsDisabled() {
+        Assertions.assertEquals(isJava11OrLater(), DriverEvents.isAvailable());
+
+        Assertions.assertNull(DriverEvents.beginStatement());
+        Assertions.assertNull(DriverEvents.beginCommit());
+        Assertions.assertNull(DriverEvents.beginChecksum());
+
+        // Ending a disabled event is a no-op
+        DriverEvents.endStatement(null, null, StatementType.QUERY, "SELECT 1");
+        DriverEvents.endCommit(null, null);
+        DriverEvents.retryAttempt(null, "commit", 1, new SQLException("retry", "40001"), Duration.ZERO);
+    }
+
+    @Test
+    public void whenRecording_thenEventsEnabled() throws Exception {
+        Assumptions.assumeTrue(DriverEvents.isAvailable());
+
+        Connection connection = Mockito.mock(Connection.class);
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(statement.getConnection()).thenReturn(connection);
+
+        // Test sources target Java 8, hence the reflective recording
+        Class<?> recordingType = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingType.getConstructor().newInstance();
+        try (Closeable ignored = () -> invoke(recording, "close")) {
+            recordingType.getMethod("enable", String.class).invoke(recording, "io.cockroachdb.jdbc.Statement");
+            invoke(recording, "start");
+
+            Object event = DriverEvents.beginStatement();
+            Assertions.assertNotNull(event);
+            DriverEvents.endStatement(event, statement, StatementType.QUERY, "SELECT * FROM t WHERE id = 1");
+            Mockito.verify(statement).getConnection();
+
+            Object commit = DriverEvents.beginCommit();
+            Assertions.assertNotNull(commit);
+            DriverEvents.endCommit(commit, connection);
+
+            invoke(recording, "stop");
+        }
+    }
+
+    private static void invoke(Object target, String method) {
+        try {
+            target.getClass().getMethod(method).invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
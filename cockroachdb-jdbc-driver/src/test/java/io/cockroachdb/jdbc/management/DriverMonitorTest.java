@@ -0,0 +1,89 @@
+package io.cockroachdb.jdbc.management;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+import io.cockroachdb.jdbc.query.QueryProcessor;
+import io.cockroachdb.jdbc.retry.ConnectionRetryInterceptor;
+import io.cockroachdb.jdbc.retry.ExponentialBackoffRetryStrategy;
+import io.cockroachdb.jdbc.retry.RetryListener;
+
+@Tag("unit-test")
+public class DriverMonitorTest {
+    private static final String SQL = "UPDATE account SET balance = balance + ? WHERE id = ?";
+
+    @Test
+    public void whenExplicitTransaction_thenExposeJournal() throws SQLException {
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(false);
+        Mockito.when(connectionMock.prepareStatement(SQL)).thenReturn(Mockito.mock(PreparedStatement.class));
+
+        ExponentialBackoffRetryStrategy strategy = new ExponentialBackoffRetryStrategy();
+        strategy.setMaxAttempts(7);
+
+        Connection proxy = ConnectionRetryInterceptor.proxy(connectionMock,
+                new ConnectionSettings()
+                        .setRetryListener(Mockito.mock(RetryListener.class))
+                        .setRetryStrategy(strategy)
+                        .setQueryProcessor(Mockito.mock(QueryProcessor.class)),
+                () -> {
+                    Assertions.fail();
+                    return null;
+                });
+
+        DriverMonitor monitor = DriverMonitor.getInstance();
+        int inFlight = monitor.getInFlightTransactions();
+
+        proxy.setAutoCommit(false);
+        proxy.prepareStatement(SQL);
+
+        Assertions.assertEquals(inFlight + 1, monitor.getInFlightTransactions());
+        Assertions.assertTrue(monitor.getJournalEntries() >= 1);
+        Assertions.assertTrue(monitor.getJournalBytes() >= SQL.length());
+        Assertions.assertTrue(Arrays.stream(monitor.getRetryStrategies())
+                .anyMatch(description -> description.contains("maxAttempts=7")));
+        Assertions.assertTrue(Arrays.stream(monitor.dumpTransactionHistories())
+                .anyMatch(dump -> dump.contains("prepareStatement: " + SQL)));
+
+        proxy.close();
+
+        Assertions.assertEquals(inFlight, monitor.getInFlightTransactions());
+        Assertions.assertTrue(Arrays.stream(monitor.dumpTransactionHistories())
+                .noneMatch(dump -> dump.contains(SQL)));
+    }
+
+    @Test
+    public void whenRegistered_thenExposeAttributesAndOperations() throws Exception {
+        DriverMonitor.registerMBean();
+        DriverMonitor.registerMBean();
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(DriverMonitor.OBJECT_NAME);
+        Assertions.assertTrue(mBeanServer.isRegistered(objectName));
+
+        Assertions.assertNotNull(mBeanServer.getAttribute(objectName, "OpenConnections"));
+        Assertions.assertNotNull(mBeanServer.getAttribute(objectName, "Counters"));
+        Assertions.assertNotNull(mBeanServer.getAttribute(objectName, "Latencies"));
+
+        DriverMetrics.getRegistry().counter(DriverMetrics.RETRY_ATTEMPTS).increment();
+        mBeanServer.invoke(objectName, "resetCounters", new Object[0], new String[0]);
+        Assertions.assertEquals(0L,
+                DriverMetrics.getRegistry().getCounters().get(DriverMetrics.RETRY_ATTEMPTS));
+
+        DriverMonitor.unregisterMBean();
+        Assertions.assertFalse(mBeanServer.isRegistered(objectName));
+    }
+}
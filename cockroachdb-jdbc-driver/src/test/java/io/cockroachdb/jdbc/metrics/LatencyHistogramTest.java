@@ -0,0 +1,82 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class LatencyHistogramTest {
+    @Test
+    public void whenBucketing_thenBoundsContainValue() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE};
+        int lastIndex = -1;
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assertions.assertTrue(index >= lastIndex);
+            Assertions.assertTrue(LatencyHistogram.bucketLowerBound(index) <= value, "" + value);
+            Assertions.assertTrue(LatencyHistogram.bucketUpperBound(index) >= value, "" + value);
+            lastIndex = index;
+        }
+        for (int i = 0; i < 2000; i++) {
+            long value = ThreadLocalRandom.current().nextLong(0, Long.MAX_VALUE);
+            int index = LatencyHistogram.bucketIndex(value);
+            long lower = LatencyHistogram.bucketLowerBound(index);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            Assertions.assertTrue(lower <= value && value <= upper);
+            Assertions.assertTrue((double) (upper - lower) / lower < 0.07);
+        }
+    }
+
+    @Test
+    public void whenRecording_thenApproximatePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getValueAtPercentile(.99));
+
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        Assertions.assertEquals(10_000, histogram.getCount());
+        Assertions.assertEquals(10_000_000, histogram.getMax());
+        Assertions.assertEquals(5_000_500, histogram.getMean(), 1);
+
+        long p50 = histogram.getValueAtPercentile(.5);
+        long p99 = histogram.getValueAtPercentile(.99);
+        Assertions.assertEquals(5_000_000, p50, 5_000_000 * 0.07);
+        Assertions.assertEquals(9_900_000, p99, 9_900_000 * 0.07);
+        Assertions.assertEquals(10_000_000, histogram.getValueAtPercentile(1));
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void whenRecordingConcurrently_thenNoLostUpdates() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdownNow();
+
+        Assertions.assertEquals(80_000, histogram.getCount());
+        Assertions.assertEquals(9_999, histogram.getMax());
+        Assertions.assertEquals(8L * (9_999 * 10_000 / 2), histogram.getTotal());
+    }
+}
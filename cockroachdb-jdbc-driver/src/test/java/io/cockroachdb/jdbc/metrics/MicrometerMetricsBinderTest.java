@@ -0,0 +1,55 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Tag("unit-test")
+public class MicrometerMetricsBinderTest {
+    @Test
+    public void whenBound_thenMetersReadRegistry() {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        metricsRegistry.counter("retry.attempts").add(3);
+        metricsRegistry.histogram("statement.query").record(TimeUnit.MILLISECONDS.toNanos(10));
+        metricsRegistry.histogram("statement.query").record(TimeUnit.MILLISECONDS.toNanos(20));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new MicrometerMetricsBinder(metricsRegistry, "cockroachdb.jdbc.").bindTo(meterRegistry);
+
+        FunctionCounter counter = meterRegistry.get("cockroachdb.jdbc.retry.attempts").functionCounter();
+        Assertions.assertEquals(3, counter.count());
+
+        FunctionTimer timer = meterRegistry.get("cockroachdb.jdbc.statement.query").functionTimer();
+        Assertions.assertEquals(2, timer.count());
+        Assertions.assertEquals(30, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+
+        // Meters are live views of the registry
+        metricsRegistry.counter("retry.attempts").increment();
+        Assertions.assertEquals(4, counter.count());
+
+        TimeGauge max = meterRegistry.get("cockroachdb.jdbc.statement.query.max").timeGauge();
+        Assertions.assertEquals(20, max.value(TimeUnit.MILLISECONDS), 0.001);
+
+        TimeGauge p99 = meterRegistry.get("cockroachdb.jdbc.statement.query.percentile")
+                .tag("phi", "0.99").timeGauge();
+        Assertions.assertEquals(20, p99.value(TimeUnit.MILLISECONDS), 20 * 0.07);
+    }
+
+    @Test
+    public void whenDriverMetrics_thenWellKnownMetricsRegistered() {
+        MetricsRegistry registry = DriverMetrics.getRegistry();
+        Assertions.assertTrue(registry.getCounters().containsKey(DriverMetrics.RETRY_ATTEMPTS));
+        Assertions.assertTrue(registry.getCounters().containsKey(DriverMetrics.RETRY_HISTORY_BYTES));
+        for (DriverMetrics.StatementType type : DriverMetrics.StatementType.values()) {
+            Assertions.assertTrue(registry.getHistograms().containsKey(type.getMetricName()));
+        }
+        Assertions.assertTrue(registry.getHistograms().containsKey(DriverMetrics.TRANSACTION_COMMIT));
+    }
+}
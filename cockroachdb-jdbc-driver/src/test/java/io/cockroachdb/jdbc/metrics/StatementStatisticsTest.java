@@ -0,0 +1,114 @@
+package io.cockroachdb.jdbc.metrics;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.CockroachPreparedStatement;
+import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+
+@Tag("unit-test")
+public class StatementStatisticsTest {
+    @Test
+    public void whenRecording_thenAggregateByFingerprint() {
+        StatementStatistics statistics = new StatementStatistics(2);
+
+        statistics.record("SELECT * FROM t WHERE id IN (1, 2)", TimeUnit.MILLISECONDS.toNanos(1), 0, 10, null);
+        statistics.record("SELECT * FROM t WHERE id IN (3, 4, 5)", TimeUnit.MILLISECONDS.toNanos(2), 0, 10, null);
+        statistics.record("UPDATE t SET v = 'x' WHERE id = 1", TimeUnit.MILLISECONDS.toNanos(10), 1, 20,
+                new SQLException("restart transaction", "40001"));
+        statistics.recordRetry("UPDATE t SET v = 'y' WHERE id = 2");
+        // Exceeds max fingerprints
+        statistics.record("DELETE FROM t", TimeUnit.MILLISECONDS.toNanos(1), 5, 0, null);
+
+        List<StatementStats> top = statistics.getTopByTotalTime(10);
+        Assertions.assertEquals(3, top.size());
+
+        StatementStats update = top.get(0);
+        Assertions.assertEquals("UPDATE t SET v = ? WHERE id = ?", update.getFingerprint());
+        Assertions.assertEquals(1, update.getCalls());
+        Assertions.assertEquals(1, update.getErrors());
+        Assertions.assertEquals(1, update.getSerializationFailures());
+        Assertions.assertEquals(1, update.getRetries());
+
+        StatementStats select = top.get(1);
+        Assertions.assertEquals("SELECT * FROM t WHERE id IN (?, ...)", select.getFingerprint());
+        Assertions.assertEquals(2, select.getCalls());
+        Assertions.assertEquals(20, select.getBytes());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(3), select.getTotalTime());
+
+        Assertions.assertEquals(StatementStatistics.OTHER_FINGERPRINT, top.get(2).getFingerprint());
+        Assertions.assertEquals(5, top.get(2).getRows());
+
+        Assertions.assertEquals(1, statistics.getTopByTotalTime(1).size());
+
+        statistics.reset();
+        Assertions.assertTrue(statistics.getStatements().isEmpty());
+    }
+
+    @Test
+    public void whenManyDistinctStatements_thenKeepCachingFingerprints() {
+        StatementStatistics statistics = new StatementStatistics(16);
+
+        StatementStats first = statistics.statsOf("SELECT * FROM many WHERE id = 0");
+        for (int i = 1; i <= 10_000; i++) {
+            String sql = "SELECT * FROM many WHERE id = " + i;
+            Assertions.assertSame(first, statistics.statsOf(sql));
+            // Lookups after the first one hit the fingerprint cache
+            Assertions.assertTrue(SqlFingerprints.isCached(sql));
+        }
+
+        Assertions.assertEquals(1, statistics.getStatements().size());
+        Assertions.assertEquals("SELECT * FROM many WHERE id = ?", first.getFingerprint());
+    }
+
+    @Test
+    public void whenExecutingWithoutRetries_thenRecordRowsAndErrors() throws SQLException {
+        final String sql = "SELECT * FROM account WHERE id = ?";
+
+        StatementStatistics statistics = new StatementStatistics(16);
+
+        ResultSet resultSetMock = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSetMock.next()).thenReturn(true, true, false);
+
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.executeQuery())
+                .thenReturn(resultSetMock)
+                .thenThrow(new SQLException("restart transaction", "40001"));
+
+        PreparedStatement preparedStatement = new CockroachPreparedStatement(preparedStatementMock, sql,
+                new ConnectionSettings().setStatementStatistics(statistics));
+        preparedStatement.setString(1, "abc");
+
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                Assertions.assertNotNull(resultSet);
+            }
+        }
+        Assertions.assertThrows(SQLException.class, preparedStatement::executeQuery);
+
+        StatementStats stats = statistics.statsOf("SELECT * FROM account WHERE id = 42");
+        Assertions.assertEquals(2, stats.getCalls());
+        Assertions.assertEquals(2, stats.getRows());
+        Assertions.assertEquals(3, stats.getBytes());
+        Assertions.assertEquals(1, stats.getSerializationFailures());
+        Assertions.assertEquals(2, stats.getLatency().getCount());
+    }
+
+    @Test
+    public void whenResultOfUpdatesOrBatches_thenCountRows() {
+        Assertions.assertEquals(3, StatementStatistics.rowsOf(3));
+        Assertions.assertEquals(3L, StatementStatistics.rowsOf(3L));
+        Assertions.assertEquals(3, StatementStatistics.rowsOf(new int[] {1, 2, PreparedStatement.SUCCESS_NO_INFO}));
+        Assertions.assertEquals(0, StatementStatistics.rowsOf(Boolean.TRUE));
+        Assertions.assertEquals(0, StatementStatistics.rowsOf(null));
+    }
+}
@@ -0,0 +1,133 @@
+package io.cockroachdb.jdbc.pipeline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.CockroachConnection;
+import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.query.QueryProcessor;
+
+@Tag("unit-test")
+public class PipelineTest {
+    @Test
+    public void whenSyncing_thenExecuteAllStatementsInOneRoundTrip() throws Exception {
+        ResultSet resultSetMock = Mockito.mock(ResultSet.class);
+        Mockito.when(resultSetMock.next()).thenReturn(true);
+        Mockito.when(resultSetMock.getString(1)).thenReturn("alice");
+
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.execute()).thenReturn(true);
+        Mockito.when(preparedStatementMock.getResultSet()).thenReturn(resultSetMock);
+        Mockito.when(preparedStatementMock.getMoreResults()).thenReturn(false);
+        Mockito.when(preparedStatementMock.getUpdateCount()).thenReturn(3);
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenReturn(preparedStatementMock);
+
+        CompletableFuture<String> name;
+        CompletableFuture<Integer> updated;
+
+        try (Pipeline pipeline = Pipeline.of(connectionMock)) {
+            name = pipeline.executeQuery("SELECT name FROM users WHERE id = ?;",
+                    rs -> rs.next() ? rs.getString(1) : null, 1);
+            updated = pipeline.executeUpdate("UPDATE accounts SET balance = ? WHERE user_id = ?", 100, 1);
+
+            Assertions.assertEquals(2, pipeline.size());
+            Assertions.assertFalse(name.isDone());
+        }
+
+        Assertions.assertEquals("alice", name.get());
+        Assertions.assertEquals(3, updated.get());
+
+        Mockito.verify(connectionMock).prepareStatement(Pipeline.PIPELINE_COMMENT
+                + "SELECT name FROM users WHERE id = ?;\nUPDATE accounts SET balance = ? WHERE user_id = ?");
+        Mockito.verify(preparedStatementMock).setObject(1, 1);
+        Mockito.verify(preparedStatementMock).setObject(2, 100);
+        Mockito.verify(preparedStatementMock).setObject(3, 1);
+        Mockito.verify(preparedStatementMock, Mockito.times(1)).execute();
+        Mockito.verify(resultSetMock).close();
+    }
+
+    @Test
+    public void whenStatementFails_thenFailRemainingFutures() throws Exception {
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.execute()).thenReturn(false);
+        Mockito.when(preparedStatementMock.getUpdateCount()).thenReturn(1);
+        Mockito.when(preparedStatementMock.getMoreResults())
+                .thenThrow(new SQLException("Disturbance!", "40001"));
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenReturn(preparedStatementMock);
+
+        Pipeline pipeline = Pipeline.of(connectionMock);
+        CompletableFuture<Integer> first = pipeline.executeUpdate("DELETE FROM t WHERE id = ?", 1);
+        CompletableFuture<Integer> second = pipeline.executeUpdate("DELETE FROM t WHERE id = ?", 2);
+
+        SQLException ex = Assertions.assertThrows(SQLException.class, pipeline::sync);
+        Assertions.assertEquals("40001", ex.getSQLState());
+
+        Assertions.assertEquals(1, first.get());
+        ExecutionException cause = Assertions.assertThrows(ExecutionException.class, second::get);
+        Assertions.assertSame(ex, cause.getCause());
+        Assertions.assertEquals(0, pipeline.size());
+    }
+
+    @Test
+    public void whenSyncingOnCockroachConnection_thenProcessEachStatementOnce() throws Exception {
+        List<String> processed = new ArrayList<>();
+        QueryProcessor countingStage = new QueryProcessor() {
+            @Override
+            public String processQuery(Connection connection, String query) {
+                processed.add(query);
+                return query;
+            }
+
+            @Override
+            public boolean isTransactionScoped() {
+                return false;
+            }
+        };
+
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.execute()).thenReturn(false);
+        Mockito.when(preparedStatementMock.getMoreResults()).thenReturn(false);
+        Mockito.when(preparedStatementMock.getUpdateCount()).thenReturn(1);
+
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.prepareStatement(Mockito.anyString())).thenReturn(preparedStatementMock);
+
+        Connection connection = new CockroachConnection(connectionMock, new ConnectionSettings()
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH)
+                .addQueryStage(countingStage)) {
+        };
+
+        try (Pipeline pipeline = Pipeline.of(connection)) {
+            pipeline.executeUpdate("DELETE FROM t WHERE id = ?", 1);
+            pipeline.executeUpdate("DELETE FROM t WHERE id = ?;", 2);
+        }
+
+        Assertions.assertEquals(Arrays.asList("DELETE FROM t WHERE id = ?", "DELETE FROM t WHERE id = ?"),
+                processed);
+        Mockito.verify(connectionMock).prepareStatement(Pipeline.PIPELINE_COMMENT
+                + "DELETE FROM t WHERE id = ?;\nDELETE FROM t WHERE id = ?");
+    }
+
+    @Test
+    public void whenParameterCountMismatch_thenRejectStatement() {
+        Pipeline pipeline = Pipeline.of(Mockito.mock(Connection.class));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> pipeline.executeUpdate("DELETE FROM t WHERE id = ?"));
+    }
+}
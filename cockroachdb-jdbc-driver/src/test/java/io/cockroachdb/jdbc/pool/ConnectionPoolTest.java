@@ -0,0 +1,240 @@
+package io.cockroachdb.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.CockroachConnection;
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.util.ResourceSupplier;
+
+@Tag("unit-test")
+public class ConnectionPoolTest {
+    private final List<Connection> openedConnections = new ArrayList<>();
+
+    private final ResourceSupplier<Connection> connectionFactory = () -> {
+        Connection connectionMock = Mockito.mock(Connection.class);
+        Mockito.when(connectionMock.getAutoCommit()).thenReturn(true);
+        Mockito.when(connectionMock.isValid(Mockito.anyInt())).thenReturn(true);
+        synchronized (openedConnections) {
+            openedConnections.add(connectionMock);
+        }
+        return connectionMock;
+    };
+
+    @Test
+    public void whenBorrowingAndReturning_thenReuseConnection() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, new PoolSettings())) {
+            Connection first = pool.getConnection();
+            Assertions.assertEquals(1, pool.getActiveConnections());
+            first.close();
+            Assertions.assertTrue(first.isClosed());
+            Assertions.assertThrows(SQLException.class, first::createStatement);
+
+            Assertions.assertEquals(1, pool.getIdleConnections());
+
+            try (Connection second = pool.getConnection()) {
+                Assertions.assertNotSame(first, second);
+                second.createStatement();
+                Mockito.verify(openedConnections.get(0)).createStatement();
+            }
+            Assertions.assertEquals(1, openedConnections.size());
+            Assertions.assertEquals(1, pool.getTotalConnections());
+            Mockito.verify(openedConnections.get(0), Mockito.never()).close();
+        }
+        Mockito.verify(openedConnections.get(0)).close();
+    }
+
+    @Test
+    public void whenPoolExhausted_thenTimeout() throws SQLException {
+        PoolSettings poolSettings = new PoolSettings()
+                .setMaxPoolSize(2)
+                .setConnectionTimeout(Duration.ofMillis(50));
+
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, poolSettings)) {
+            Connection c1 = pool.getConnection();
+            Connection c2 = pool.getConnection();
+            Assertions.assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+            c1.close();
+            c2.close();
+        }
+        Assertions.assertEquals(2, openedConnections.size());
+    }
+
+    @Test
+    public void whenAdminShutdown_thenEvictConnection() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, new PoolSettings())) {
+            try (Connection connection = pool.getConnection()) {
+                Mockito.doThrow(new SQLException("server is shutting down", "57P01"))
+                        .when(openedConnections.get(0)).commit();
+                Assertions.assertThrows(SQLException.class, connection::commit);
+            }
+            Mockito.verify(openedConnections.get(0)).close();
+            Assertions.assertEquals(0, pool.getTotalConnections());
+
+            pool.getConnection().close();
+            Assertions.assertEquals(2, openedConnections.size());
+        }
+    }
+
+    @Test
+    public void whenStatementFailsWithAdminShutdown_thenEvictConnectionAndMarkNodeDraining() throws SQLException {
+        ClusterNode node = new ClusterNode(1, "n1", 26257);
+
+        ResourceSupplier<Connection> nodeConnectionFactory = () -> {
+            Connection connectionMock = connectionFactory.get();
+            CockroachConnection cockroachConnection = Mockito.mock(CockroachConnection.class);
+            Mockito.when(cockroachConnection.getClusterNode()).thenReturn(node);
+            Mockito.when(connectionMock.isWrapperFor(CockroachConnection.class)).thenReturn(true);
+            Mockito.when(connectionMock.unwrap(CockroachConnection.class)).thenReturn(cockroachConnection);
+            Statement statementMock = Mockito.mock(Statement.class);
+            Mockito.when(statementMock.executeUpdate(Mockito.anyString()))
+                    .thenThrow(new SQLException("server is shutting down", "57P01"));
+            Mockito.when(statementMock.getConnection()).thenReturn(connectionMock);
+            Mockito.when(connectionMock.createStatement()).thenReturn(statementMock);
+            return connectionMock;
+        };
+
+        try (ConnectionPool pool = new ConnectionPool(nodeConnectionFactory, new PoolSettings())) {
+            try (Connection connection = pool.getConnection()) {
+                Statement statement = connection.createStatement();
+                Assertions.assertSame(connection, statement.getConnection());
+                Assertions.assertThrows(SQLException.class, () -> statement.executeUpdate("DELETE FROM t"));
+            }
+            Assertions.assertTrue(node.isDraining());
+            Mockito.verify(openedConnections.get(0)).close();
+            Assertions.assertEquals(0, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    public void whenReturned_thenCloseOpenStatements() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, new PoolSettings())) {
+            Connection connection = pool.getConnection();
+            PreparedStatement statementMock = Mockito.mock(PreparedStatement.class);
+            Mockito.when(openedConnections.get(0).prepareStatement("SELECT 1")).thenReturn(statementMock);
+
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            statement.executeQuery();
+            Mockito.verify(statementMock).executeQuery();
+            connection.close();
+
+            Mockito.verify(statementMock).close();
+            Assertions.assertEquals(1, pool.getIdleConnections());
+        }
+    }
+
+    @Test
+    public void whenNodeDraining_thenMigrateConnections() throws Exception {
+        ClusterNode drainingNode = new ClusterNode(1, "n1", 26257);
+        AtomicReference<ClusterNode> currentNode = new AtomicReference<>(drainingNode);
+
+        ResourceSupplier<Connection> nodeConnectionFactory = () -> {
+            Connection connectionMock = connectionFactory.get();
+            CockroachConnection cockroachConnection = Mockito.mock(CockroachConnection.class);
+            Mockito.when(cockroachConnection.getClusterNode()).thenReturn(currentNode.get());
+            Mockito.when(connectionMock.isWrapperFor(CockroachConnection.class)).thenReturn(true);
+            Mockito.when(connectionMock.unwrap(CockroachConnection.class)).thenReturn(cockroachConnection);
+            return connectionMock;
+        };
+
+        try (ConnectionPool pool = new ConnectionPool(nodeConnectionFactory, new PoolSettings())) {
+            Connection inUse = pool.getConnection();
+            pool.getConnection().close();
+            Connection c3 = pool.getConnection();
+            Connection c4 = pool.getConnection();
+            c3.close();
+            c4.close();
+            Assertions.assertEquals(3, pool.getTotalConnections());
+
+            currentNode.set(new ClusterNode(2, "n2", 26257));
+            drainingNode.markDraining();
+
+            Mockito.verify(openedConnections.get(1)).close();
+            Mockito.verify(openedConnections.get(2)).close();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (pool.getIdleConnections() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(2, pool.getIdleConnections());
+            Assertions.assertEquals(5, openedConnections.size());
+
+            inUse.close();
+            Mockito.verify(openedConnections.get(0)).close();
+            Assertions.assertEquals(2, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    public void whenMaxLifetimeExceeded_thenRetireConnection() throws Exception {
+        PoolSettings poolSettings = new PoolSettings()
+                .setMaxLifetime(Duration.ofMillis(20))
+                .setMaxLifetimeJitter(Duration.ofMillis(5));
+
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, poolSettings)) {
+            pool.getConnection().close();
+            Thread.sleep(25);
+            pool.getConnection().close();
+            Assertions.assertEquals(2, openedConnections.size());
+            Mockito.verify(openedConnections.get(0)).close();
+        }
+    }
+
+    @Test
+    public void whenTransactionLeftOpen_thenRollbackOnReturn() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, new PoolSettings())) {
+            Connection connection = pool.getConnection();
+            Connection delegate = openedConnections.get(0);
+            Mockito.when(delegate.getAutoCommit()).thenReturn(false);
+            connection.close();
+            Mockito.verify(delegate).rollback();
+            Mockito.verify(delegate).setAutoCommit(true);
+        }
+    }
+
+    @Test
+    public void whenConcurrentBorrowing_thenNeverExceedMaxPoolSize() throws Exception {
+        PoolSettings poolSettings = new PoolSettings().setMaxPoolSize(4);
+
+        try (ConnectionPool pool = new ConnectionPool(connectionFactory, poolSettings)) {
+            ExecutorService executorService = Executors.newFixedThreadPool(16);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    futures.add(executorService.submit(() -> {
+                        for (int j = 0; j < 500; j++) {
+                            try (Connection connection = pool.getConnection()) {
+                                connection.getAutoCommit();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
+            Assertions.assertTrue(pool.getTotalConnections() <= 4);
+            Assertions.assertEquals(0, pool.getActiveConnections());
+            Assertions.assertEquals(0, pool.getPendingThreads());
+        }
+        Assertions.assertTrue(openedConnections.size() <= 4);
+    }
+}
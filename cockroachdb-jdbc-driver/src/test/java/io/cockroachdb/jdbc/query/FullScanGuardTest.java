@@ -0,0 +1,110 @@
+package io.cockroachdb.jdbc.query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.metrics.DriverMetrics;
+
+@Tag("unit-test")
+public class FullScanGuardTest {
+    private static final String[] FULL_SCAN_PLAN = {
+            "distribution: full",
+            "vectorized: true",
+            "",
+            "• filter",
+            "│ filter: name = '1'",
+            "│",
+            "└── • scan",
+            "      estimated row count: 250,000 (100% of the table; stats collected 2 minutes ago)",
+            "      table: account@account_pkey",
+            "      spans: FULL SCAN"
+    };
+
+    @Test
+    public void whenPlanHasFullScanOfLargeTable_thenReturnTable() {
+        Assertions.assertEquals("account@account_pkey",
+                FullScanGuard.fullScanTable(Arrays.asList(FULL_SCAN_PLAN), 10000));
+        Assertions.assertEquals("",
+                FullScanGuard.fullScanTable(Arrays.asList(FULL_SCAN_PLAN), 1000000));
+    }
+
+    @Test
+    public void whenPlanHasPointLookupOrLimit_thenNoFullScan() {
+        Assertions.assertEquals("", FullScanGuard.fullScanTable(Arrays.asList(
+                "• scan",
+                "  estimated row count: 1 (<0.01% of the table; stats collected 2 minutes ago)",
+                "  table: account@account_pkey",
+                "  spans: [/1 - /1]"), 10000));
+        Assertions.assertEquals("", FullScanGuard.fullScanTable(Arrays.asList(
+                "• scan",
+                "  estimated row count: 10 (<0.01% of the table; stats collected 2 minutes ago)",
+                "  table: account@account_pkey",
+                "  spans: LIMITED SCAN",
+                "  limit: 10"), 10000));
+        Assertions.assertEquals("", FullScanGuard.fullScanTable(Arrays.asList(
+                "• scan",
+                "  missing stats",
+                "  table: account@account_pkey",
+                "  spans: FULL SCAN"), 10000));
+    }
+
+    @Test
+    public void whenFullScanSighted_thenRejectLaterExecutions() throws Exception {
+        String sql = "SELECT * FROM account WHERE name = ?";
+
+        ResultSet planResultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(planResultSet.next()).thenReturn(
+                true, true, true, true, true, true, true, true, true, true, false);
+        Mockito.when(planResultSet.getString(1)).thenReturn(FULL_SCAN_PLAN[0],
+                Arrays.copyOfRange(FULL_SCAN_PLAN, 1, FULL_SCAN_PLAN.length));
+        PreparedStatement explainStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(explainStatement.executeQuery()).thenReturn(planResultSet);
+        Connection sideConnection = Mockito.mock(Connection.class);
+        Mockito.when(sideConnection.prepareStatement("EXPLAIN " + sql)).thenReturn(explainStatement);
+
+        FullScanGuard guard = new FullScanGuard(() -> sideConnection, FullScanGuard.Policy.REJECT, 10000);
+        ConnectionSettings connectionSettings = new ConnectionSettings()
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH)
+                .addQueryStage(guard);
+        Connection connection = Mockito.mock(Connection.class);
+
+        // First sighting passes through
+        Assertions.assertEquals(sql, connectionSettings.getQueryProcessor().processQuery(connection, sql));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        long fullScans = DriverMetrics.getRegistry().getCounters().get(DriverMetrics.GUARDRAIL_FULL_SCANS);
+        SQLException rejected = null;
+        while (rejected == null && System.nanoTime() < deadline) {
+            try {
+                connectionSettings.getQueryProcessor().processQuery(connection, sql);
+                Thread.sleep(10);
+            } catch (FullScanRejectedException e) {
+                rejected = e;
+            }
+        }
+        Assertions.assertNotNull(rejected);
+        Assertions.assertTrue(rejected.getMessage().contains("account@account_pkey"));
+        Assertions.assertTrue(
+                DriverMetrics.getRegistry().getCounters().get(DriverMetrics.GUARDRAIL_FULL_SCANS) > fullScans);
+        Mockito.verify(sideConnection, Mockito.times(1)).prepareStatement(Mockito.anyString());
+
+        // Stages are retained when the query processor is replaced
+        connectionSettings.setQueryProcessor(SelectForUpdateProcessor.PASS_THROUGH);
+        Assertions.assertThrows(FullScanRejectedException.class,
+                () -> connectionSettings.getQueryProcessor().processQuery(connection, sql));
+
+        // Inserts are never guarded
+        String insert = "INSERT INTO account (name) VALUES (?)";
+        Assertions.assertEquals(insert, connectionSettings.getQueryProcessor().processQuery(connection, insert));
+    }
+}
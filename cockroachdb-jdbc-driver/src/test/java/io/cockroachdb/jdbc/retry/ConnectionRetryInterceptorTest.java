@@ -4,13 +4,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import io.cockroachdb.jdbc.CockroachConnection;
 import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.cluster.ClusterNode;
 import io.cockroachdb.jdbc.query.QueryProcessor;
 
 @Tag("unit-test")
@@ -138,4 +145,108 @@ public class ConnectionRetryInterceptorTest {
         Mockito.verify(primaryMock, Mockito.times(1)).rollback();
         Mockito.verify(retryMock, Mockito.times(0)).commit();
     }
+
+    @Test
+    public void whenExplicitTransactionRetried_expectTimeBreakdown() throws SQLException {
+        Connection primaryMock = Mockito.mock(Connection.class);
+        Connection retryMock = Mockito.mock(Connection.class);
+        PreparedStatement primaryStatementMock = Mockito.mock(PreparedStatement.class);
+        PreparedStatement retryStatementMock = Mockito.mock(PreparedStatement.class);
+
+        String sql = "UPDATE account SET balance = balance + ? WHERE id = ?";
+        Mockito.when(primaryMock.prepareStatement(sql)).thenReturn(primaryStatementMock);
+        Mockito.when(retryMock.prepareStatement(sql)).thenReturn(retryStatementMock);
+        Mockito.when(retryMock.isValid(Mockito.anyInt())).thenReturn(true);
+        Mockito.doThrow(new SQLException("Disturbance!", "40001"))
+                .when(primaryMock).commit();
+
+        ExponentialBackoffRetryStrategy strategy = new ExponentialBackoffRetryStrategy();
+        strategy.setMaxAttempts(5);
+        strategy.setMaxBackoffTime(Duration.ofMillis(10));
+
+        List<TransactionRecord> records = new ArrayList<>();
+        ConnectionSettings settings = new ConnectionSettings();
+        settings.setRetryStrategy(strategy);
+        settings.setRetryListener(new RetryListener() {
+            @Override
+            public void configure(Properties properties) {
+            }
+
+            @Override
+            public void afterTransaction(TransactionRecord transactionRecord) {
+                records.add(transactionRecord);
+            }
+        });
+
+        Connection proxy = ConnectionRetryInterceptor.proxy(primaryMock, settings, () -> retryMock);
+        proxy.setAutoCommit(false);
+        PreparedStatement ps = proxy.prepareStatement(sql);
+        ps.setInt(1, 100);
+        ps.setInt(2, 1);
+        ps.executeUpdate();
+        proxy.commit();
+
+        Assertions.assertEquals(1, records.size());
+        TransactionRecord record = records.get(0);
+        Assertions.assertEquals(TransactionRecord.Outcome.COMMITTED, record.getOutcome());
+        Assertions.assertEquals(1, record.getRetries());
+        Assertions.assertEquals(1, record.getStatements());
+        Assertions.assertTrue(record.getCommitTime().toNanos() > 0);
+        Assertions.assertTrue(record.getReplayTime().toNanos() > 0);
+        Assertions.assertFalse(record.getWallTime().minus(record.getSqlTime()).minus(record.getBackoffTime())
+                .minus(record.getReconnectTime()).minus(record.getReplayTime()).minus(record.getCommitTime())
+                .isNegative());
+        Mockito.verify(retryStatementMock, Mockito.times(1)).executeUpdate();
+
+        // Same statements yield the same fingerprint, rollback ends the transaction
+        ps = proxy.prepareStatement(sql);
+        ps.executeUpdate();
+        proxy.rollback();
+
+        Assertions.assertEquals(2, records.size());
+        Assertions.assertEquals(TransactionRecord.Outcome.ROLLED_BACK, records.get(1).getOutcome());
+        Assertions.assertEquals(0, records.get(1).getRetries());
+        Assertions.assertEquals(record.getFingerprint(), records.get(1).getFingerprint());
+    }
+
+    @Test
+    public void whenReconnectFails_expectFailureRecordedOnAttemptedNodeOnly() throws SQLException {
+        ClusterNode primaryNode = new ClusterNode(1, "n1", 26257);
+        ClusterNode invalidNode = new ClusterNode(2, "n2", 26257);
+        ClusterNode retryNode = new ClusterNode(3, "n3", 26257);
+
+        CockroachConnection primaryMock = Mockito.mock(CockroachConnection.class);
+        Mockito.when(primaryMock.getClusterNode()).thenReturn(primaryNode);
+        Mockito.doThrow(new SQLException("Disturbance!", "40001"))
+                .when(primaryMock).commit();
+
+        CockroachConnection invalidMock = Mockito.mock(CockroachConnection.class);
+        Mockito.when(invalidMock.getClusterNode()).thenReturn(invalidNode);
+        Mockito.when(invalidMock.isValid(Mockito.anyInt())).thenReturn(false);
+
+        CockroachConnection retryMock = Mockito.mock(CockroachConnection.class);
+        Mockito.when(retryMock.getClusterNode()).thenReturn(retryNode);
+        Mockito.when(retryMock.isValid(Mockito.anyInt())).thenReturn(true);
+
+        ExponentialBackoffRetryStrategy strategy = new ExponentialBackoffRetryStrategy();
+        strategy.setMaxAttempts(5);
+        strategy.setMaxBackoffTime(Duration.ofMillis(10));
+
+        ConnectionSettings settings = new ConnectionSettings();
+        settings.setRetryStrategy(strategy);
+        settings.setRetryListener(properties -> {
+        });
+
+        AtomicInteger connections = new AtomicInteger();
+        Connection proxy = ConnectionRetryInterceptor.proxy(primaryMock, settings,
+                () -> connections.incrementAndGet() == 1 ? invalidMock : retryMock);
+
+        proxy.commit();
+
+        Assertions.assertEquals(0, primaryNode.getCircuitBreaker().getConsecutiveFailures());
+        Assertions.assertEquals(1, invalidNode.getCircuitBreaker().getConsecutiveFailures());
+        Assertions.assertEquals(0, retryNode.getCircuitBreaker().getConsecutiveFailures());
+        Mockito.verify(invalidMock, Mockito.times(1)).close();
+        Mockito.verify(retryMock, Mockito.times(1)).commit();
+    }
 }
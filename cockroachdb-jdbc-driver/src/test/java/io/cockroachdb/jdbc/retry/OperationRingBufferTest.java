@@ -0,0 +1,79 @@
+package io.cockroachdb.jdbc.retry;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.util.SqlFingerprints;
+
+@Tag("unit-test")
+public class OperationRingBufferTest {
+    @Test
+    public void whenFull_thenOverwriteOldest() throws Exception {
+        Method method = PreparedStatement.class.getMethod("executeUpdate");
+        OperationRingBuffer ringBuffer = new OperationRingBuffer(4);
+        Assertions.assertTrue(ringBuffer.snapshot().isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            ringBuffer.record(method, i, 1000 + i, i * 1000, 0,
+                    i == 9 ? new SQLException("Disturbance!", "40001") : null);
+        }
+
+        List<OperationRingBuffer.Operation> operations = ringBuffer.snapshot();
+        Assertions.assertEquals(10, ringBuffer.getSequence());
+        Assertions.assertEquals(4, operations.size());
+        Assertions.assertEquals(6, operations.get(0).getSequence());
+        Assertions.assertEquals(6, operations.get(0).getFingerprintId());
+        Assertions.assertEquals("PreparedStatement.executeUpdate", operations.get(0).getMethod());
+        Assertions.assertTrue(operations.get(0).isSuccess());
+        Assertions.assertEquals("40001", operations.get(3).getError());
+    }
+
+    @Test
+    public void whenRetriesExhausted_thenAttachRecentOperations() throws SQLException {
+        final String sql = "UPDATE account SET balance = balance + ? WHERE id = ?";
+
+        ExponentialBackoffRetryStrategy strategy = new ExponentialBackoffRetryStrategy();
+        strategy.setMaxAttempts(2);
+
+        ConnectionSettings settings = new ConnectionSettings()
+                .setRecentOperations(16);
+        settings.setRetryStrategy(strategy);
+        settings.setRetryListener(properties -> {
+        });
+
+        Connection retryConnectionMock = Mockito.mock(Connection.class);
+        Mockito.when(retryConnectionMock.isValid(Mockito.anyInt())).thenReturn(true);
+
+        ConnectionRetryInterceptor connectionInterceptor = new ConnectionRetryInterceptor(
+                Mockito.mock(Connection.class), settings, () -> retryConnectionMock);
+
+        PreparedStatement preparedStatementMock = Mockito.mock(PreparedStatement.class);
+        Mockito.when(preparedStatementMock.executeUpdate())
+                .thenThrow(new SQLException("Disturbance!", "40001"));
+
+        PreparedStatement proxy = PreparedStatementRetryInterceptor.proxy(preparedStatementMock,
+                connectionInterceptor, sql);
+        proxy.setLong(1, 100);
+
+        TooManyRetriesException ex = Assertions.assertThrows(TooManyRetriesException.class, proxy::executeUpdate);
+
+        List<OperationRingBuffer.Operation> operations = ex.getRecentOperations();
+        Assertions.assertFalse(operations.isEmpty());
+        Assertions.assertTrue(operations.stream().noneMatch(operation -> operation.getMethod().startsWith("set")));
+
+        OperationRingBuffer.Operation first = operations.get(0);
+        Assertions.assertEquals("PreparedStatement.executeUpdate", first.getMethod());
+        Assertions.assertEquals("40001", first.getError());
+        Assertions.assertEquals(SqlFingerprints.idOf(sql), first.getFingerprintId());
+        Assertions.assertEquals(sql, first.getFingerprint());
+    }
+}
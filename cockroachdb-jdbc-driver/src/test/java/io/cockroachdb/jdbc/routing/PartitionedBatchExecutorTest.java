@@ -0,0 +1,173 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.cluster.ClusterNode;
+import io.cockroachdb.jdbc.cluster.ClusterTopology;
+import io.cockroachdb.jdbc.pool.PoolSettings;
+import io.cockroachdb.jdbc.util.ParameterBinding;
+
+@Tag("unit-test")
+public class PartitionedBatchExecutorTest {
+    private static final String UPSERT = "UPSERT INTO account (id, balance) VALUES (?, ?)";
+
+    private final Map<Integer, List<Long>> executedKeys = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Set<Thread>> executingThreads = new ConcurrentHashMap<>();
+
+    @Test
+    public void whenSingleRowInsertIntoCachedTable_thenEligible() throws SQLException {
+        PartitionedBatchExecutor batchExecutor = new PartitionedBatchExecutor(createRouter(), 2, 10);
+        Assertions.assertTrue(batchExecutor.isEligible(UPSERT));
+        Assertions.assertTrue(batchExecutor.isEligible(
+                "insert into account (balance, id) values (?, ?) on conflict (id) do nothing"));
+        Assertions.assertFalse(batchExecutor.isEligible("INSERT INTO other (id, balance) VALUES (?, ?)"));
+        Assertions.assertFalse(batchExecutor.isEligible("INSERT INTO account VALUES (?, ?)"));
+        Assertions.assertFalse(batchExecutor.isEligible("UPDATE account SET balance = ? WHERE id = ?"));
+
+        Assertions.assertArrayEquals(new int[] {1},
+                batchExecutor.keyParameterIndexes("INSERT INTO account (balance, \"id\") VALUES (?, ?)"));
+        Assertions.assertNull(batchExecutor.keyParameterIndexes("INSERT INTO account (balance) VALUES (?)"));
+    }
+
+    @Test
+    public void whenExecutingBatch_thenPartitionByLeaseholderAndKeepRowOrder() throws SQLException {
+        LeaseholderRouter router = createRouter();
+        PartitionedBatchExecutor batchExecutor = new PartitionedBatchExecutor(router, 2, 10);
+
+        List<ParameterBinding[]> rows = new ArrayList<>();
+        for (long id : new long[] {150, 5, 120, 99, 100, 7, 250, 42, 180, 1, 130, 60, 199, 3}) {
+            rows.add(new ParameterBinding[] {
+                    ParameterBinding.of(id, (ps, i) -> ps.setLong(i, id)),
+                    ParameterBinding.of(1.0, (ps, i) -> ps.setDouble(i, 1.0))
+            });
+        }
+
+        int[] updateCounts = batchExecutor.executeBatch(UPSERT, rows);
+
+        for (int i = 0; i < rows.size(); i++) {
+            Assertions.assertEquals(((Long) rows.get(i)[0].getValue()).intValue(), updateCounts[i]);
+        }
+        Assertions.assertTrue(executedKeys.get(1).stream().allMatch(id -> id < 100));
+        Assertions.assertTrue(executedKeys.get(2).stream().allMatch(id -> id >= 100));
+        Assertions.assertEquals(rows.size(), executedKeys.get(1).size() + executedKeys.get(2).size());
+        // One partition per leaseholder, both below the max partition size
+        Assertions.assertEquals(2, batchExecutor.getTotalPartitions());
+
+        router.close();
+    }
+
+    @Test
+    public void whenManyChunksPerNode_thenBoundConcurrencyByNodePoolSize() throws SQLException {
+        LeaseholderRouter router = createRouter(new PoolSettings().setMaxPoolSize(2));
+        PartitionedBatchExecutor batchExecutor = new PartitionedBatchExecutor(router, 2, 1);
+
+        List<ParameterBinding[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            final long value = id * 10;
+            rows.add(new ParameterBinding[] {
+                    ParameterBinding.of(value, (ps, i) -> ps.setLong(i, value)),
+                    ParameterBinding.of(1.0, (ps, i) -> ps.setDouble(i, 1.0))
+            });
+        }
+
+        int[] updateCounts = batchExecutor.executeBatch(UPSERT, rows);
+
+        for (int i = 0; i < rows.size(); i++) {
+            Assertions.assertEquals(((Long) rows.get(i)[0].getValue()).intValue(), updateCounts[i]);
+        }
+        Assertions.assertEquals(20, batchExecutor.getTotalPartitions());
+        // No more workers per node than pooled connections, so that none waits for a connection
+        executingThreads.values().forEach(threads -> Assertions.assertTrue(threads.size() <= 2));
+
+        router.close();
+    }
+
+    private LeaseholderRouter createRouter() throws SQLException {
+        return createRouter(new PoolSettings());
+    }
+
+    private LeaseholderRouter createRouter(PoolSettings poolSettings) throws SQLException {
+        ClusterNode n1 = new ClusterNode(1, "n1", 26257);
+        ClusterNode n2 = new ClusterNode(2, "n2", 26257);
+        ClusterTopology topology = Mockito.mock(ClusterTopology.class);
+        Mockito.when(topology.getNode(1)).thenReturn(n1);
+        Mockito.when(topology.getNode(2)).thenReturn(n2);
+
+        RangeCache rangeCache = new RangeCache(() -> {
+            throw new SQLException("not used");
+        }, Collections.singletonList("account"));
+        rangeCache.refresh(mockRangeConnection(), "account");
+
+        return new LeaseholderRouter(topology, rangeCache, node -> mockNodeConnection(node.getNodeId()),
+                poolSettings);
+    }
+
+    private Connection mockNodeConnection(int nodeId) throws SQLException {
+        List<Long> keys = executedKeys.computeIfAbsent(nodeId, k -> Collections.synchronizedList(new ArrayList<>()));
+        List<Long> batch = new ArrayList<>();
+
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        Mockito.doAnswer(invocation -> batch.add(invocation.getArgument(1)))
+                .when(ps).setLong(Mockito.eq(1), Mockito.anyLong());
+        Mockito.when(ps.executeBatch()).thenAnswer(invocation -> {
+            executingThreads.computeIfAbsent(nodeId, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+            Thread.sleep(10);
+            keys.addAll(batch);
+            int[] counts = batch.stream().mapToInt(Long::intValue).toArray();
+            batch.clear();
+            return counts;
+        });
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(true);
+        Mockito.when(connection.prepareStatement(UPSERT)).thenReturn(ps);
+        return connection;
+    }
+
+    private static Connection mockRangeConnection() throws SQLException {
+        Object[][] rows = {
+                {"<before:/Table/104>", "…/1/100", 70L, 1},
+                {"…/1/100", "<after:/Max>", 71L, 2}
+        };
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        final int[] row = {-1};
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        Mockito.when(resultSet.getString("start_key")).thenAnswer(invocation -> rows[row[0]][0]);
+        Mockito.when(resultSet.getString("end_key")).thenAnswer(invocation -> rows[row[0]][1]);
+        Mockito.when(resultSet.getLong("range_id")).thenAnswer(invocation -> rows[row[0]][2]);
+        Mockito.when(resultSet.getInt("lease_holder")).thenAnswer(invocation -> rows[row[0]][3]);
+
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(statement.executeQuery(Mockito.anyString())).thenReturn(resultSet);
+
+        ResultSet keyResultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(keyResultSet.next()).thenReturn(true, false);
+        Mockito.when(keyResultSet.getString(1)).thenReturn("id");
+
+        PreparedStatement keyStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(keyStatement.executeQuery()).thenReturn(keyResultSet);
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        Mockito.when(connection.prepareStatement(RangeCache.PRIMARY_KEY_QUERY)).thenReturn(keyStatement);
+        return connection;
+    }
+}
@@ -0,0 +1,109 @@
+package io.cockroachdb.jdbc.routing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+@Tag("unit-test")
+public class RangeCacheTest {
+    @Test
+    public void whenParsingKeys_thenStripIndexAndDecodeComponents() {
+        Assertions.assertEquals(RangeKey.of(1000L), RangeKey.parse("…/1/1000", 1L, RangeKey.MIN));
+        Assertions.assertEquals(RangeKey.of(7, "a/b"), RangeKey.parse("/7/\"a/b\"", null, RangeKey.MIN));
+        Assertions.assertSame(RangeKey.MIN, RangeKey.parse("<before:/Table/104>", 1L, RangeKey.MIN));
+        Assertions.assertSame(RangeKey.MIN, RangeKey.parse("…/1", 1L, RangeKey.MAX));
+        Assertions.assertSame(RangeKey.MAX, RangeKey.parse("…/2/5", 1L, RangeKey.MIN));
+        Assertions.assertSame(RangeKey.MAX, RangeKey.parse(null, null, RangeKey.MAX));
+        Assertions.assertTrue(RangeKey.parse("…/1/\"abc\"/7", 1L, RangeKey.MIN).isDecoded());
+        Assertions.assertFalse(RangeKey.parse("…/1/7b4c2f4e-0d1a-4b8e-9f3a-2b6c8d0e1f2a", 1L, RangeKey.MIN).isDecoded());
+    }
+
+    @Test
+    public void whenComparingKeys_thenOrderLikeEncodedKeys() {
+        Assertions.assertTrue(RangeKey.MIN.compareTo(RangeKey.of(Long.MIN_VALUE)) < 0);
+        Assertions.assertTrue(RangeKey.of(Long.MAX_VALUE).compareTo(RangeKey.MAX) < 0);
+        Assertions.assertTrue(RangeKey.of(9).compareTo(RangeKey.of(10)) < 0);
+        Assertions.assertTrue(RangeKey.of(10).compareTo(RangeKey.of(10, "x")) < 0);
+        Assertions.assertTrue(RangeKey.of(10L).compareTo(RangeKey.of("10")) < 0);
+    }
+
+    @Test
+    public void whenRefreshed_thenLookupLeaseholderByKey() throws SQLException {
+        RangeCache rangeCache = new RangeCache(() -> {
+            throw new SQLException("not used");
+        }, Collections.singletonList("account"));
+
+        rangeCache.refresh(mockConnection(false,
+                new Object[] {"<before:/Table/104>", "…/1/100", 70L, 1},
+                new Object[] {"…/1/100", "…/1/200", 71L, 2},
+                new Object[] {"…/1/200", "…/2", 72L, 3},
+                new Object[] {"…/2", "<after:/Max>", 73L, 1}), "account");
+
+        Assertions.assertEquals(3, rangeCache.getRanges("account").size());
+        Assertions.assertEquals(Collections.singletonList("id"), rangeCache.getPrimaryKeyColumns("account"));
+        Assertions.assertEquals(1, rangeCache.lookup("account", RangeKey.of(-5)).getLeaseholderNodeId());
+        Assertions.assertEquals(2, rangeCache.lookup("account", RangeKey.of(100)).getLeaseholderNodeId());
+        Assertions.assertEquals(2, rangeCache.lookup("account", RangeKey.of(199)).getLeaseholderNodeId());
+        Assertions.assertEquals(72L, rangeCache.lookup("account", RangeKey.of(200)).getRangeId());
+        Assertions.assertEquals(72L, rangeCache.lookup("account", RangeKey.of("zzz")).getRangeId());
+        Assertions.assertNull(rangeCache.lookup("other", RangeKey.of(1)));
+    }
+
+    @Test
+    public void whenDetailsUnsupported_thenFallbackToRelativeKeys() throws SQLException {
+        RangeCache rangeCache = new RangeCache(() -> {
+            throw new SQLException("not used");
+        }, Collections.singletonList("account"));
+
+        rangeCache.refresh(mockConnection(true,
+                new Object[] {null, "/100", 70L, 1},
+                new Object[] {"/100", null, 71L, 2}), "account");
+
+        Assertions.assertEquals(1, rangeCache.lookup("account", RangeKey.of(99)).getLeaseholderNodeId());
+        Assertions.assertEquals(2, rangeCache.lookup("account", RangeKey.of(100)).getLeaseholderNodeId());
+    }
+
+    private static Connection mockConnection(boolean detailsFails, Object[]... rows) throws SQLException {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        final int[] row = {-1};
+        Mockito.when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        Mockito.when(resultSet.getString("start_key")).thenAnswer(invocation -> rows[row[0]][0]);
+        Mockito.when(resultSet.getString("end_key")).thenAnswer(invocation -> rows[row[0]][1]);
+        Mockito.when(resultSet.getLong("range_id")).thenAnswer(invocation -> rows[row[0]][2]);
+        Mockito.when(resultSet.getInt("lease_holder")).thenAnswer(invocation -> rows[row[0]][3]);
+
+        Statement statement = Mockito.mock(Statement.class);
+        if (detailsFails) {
+            Mockito.when(statement.executeQuery(String.format(RangeCache.SHOW_RANGES_WITH_DETAILS, "account")))
+                    .thenThrow(new PSQLException("syntax error", PSQLState.SYNTAX_ERROR));
+        } else {
+            Mockito.when(statement.executeQuery(String.format(RangeCache.SHOW_RANGES_WITH_DETAILS, "account")))
+                    .thenReturn(resultSet);
+        }
+        Mockito.when(statement.executeQuery(String.format(RangeCache.SHOW_RANGES, "account")))
+                .thenReturn(resultSet);
+
+        ResultSet keyResultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(keyResultSet.next()).thenReturn(true, false);
+        Mockito.when(keyResultSet.getString(1)).thenReturn("id");
+
+        PreparedStatement keyStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(keyStatement.executeQuery()).thenReturn(keyResultSet);
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        Mockito.when(connection.prepareStatement(RangeCache.PRIMARY_KEY_QUERY)).thenReturn(keyStatement);
+        return connection;
+    }
+}
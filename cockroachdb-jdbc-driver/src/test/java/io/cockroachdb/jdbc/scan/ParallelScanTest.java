@@ -0,0 +1,169 @@
+package io.cockroachdb.jdbc.scan;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.routing.RangeDescriptor;
+import io.cockroachdb.jdbc.routing.RangeKey;
+
+@Tag("unit-test")
+public class ParallelScanTest {
+    private static final int ROW_COUNT = 2500;
+
+    private final Set<String> timestamps = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean failPages;
+
+    @Test
+    public void whenSplittingRanges_thenEvenSpansCoveringKeySpace() {
+        List<RangeDescriptor> ranges = new ArrayList<>();
+        RangeKey start = RangeKey.MIN;
+        for (int i = 1; i <= 8; i++) {
+            RangeKey end = i == 8 ? RangeKey.MAX : RangeKey.of(i * 100L);
+            ranges.add(new RangeDescriptor(i, start, end, 1));
+            start = end;
+        }
+
+        List<RangeKey[]> spans = ParallelScan.split(ranges, 4);
+        Assertions.assertEquals(4, spans.size());
+        Assertions.assertSame(RangeKey.MIN, spans.get(0)[0]);
+        Assertions.assertEquals(RangeKey.of(200L), spans.get(0)[1]);
+        Assertions.assertEquals(spans.get(0)[1], spans.get(1)[0]);
+        Assertions.assertSame(RangeKey.MAX, spans.get(3)[1]);
+
+        Assertions.assertEquals(8, ParallelScan.split(ranges, 32).size());
+        Assertions.assertEquals(1, ParallelScan.split(Collections.emptyList(), 4).size());
+    }
+
+    @Test
+    public void whenScanning_thenReadAllRowsOnceAtSameTimestamp() throws SQLException {
+        try (ParallelScan scan = ParallelScan.open(this::mockConnection, "account", 4, 100);
+             Stream<Object[]> rows = scan.stream()) {
+            List<Long> ids = rows.map(row -> (Long) row[0]).sorted().collect(Collectors.toList());
+
+            Assertions.assertEquals(4, scan.getSpanCount());
+            Assertions.assertEquals(ROW_COUNT, ids.size());
+            Assertions.assertEquals(ROW_COUNT, ids.stream().distinct().count());
+            Assertions.assertEquals(Arrays.asList("id", "balance"), scan.getColumnLabels());
+        }
+        Assertions.assertEquals(Collections.singleton("1700000000000000000.0000000000"), timestamps);
+    }
+
+    @Test
+    public void whenSpanFailsWithRuntimeException_thenScanFails() throws SQLException {
+        failPages = true;
+        try (ParallelScan scan = ParallelScan.open(this::mockConnection, "account", 4, 100)) {
+            SQLException ex = Assertions.assertThrows(SQLException.class, () -> {
+                while (scan.next() != null) {
+                    Assertions.fail("Expected no rows");
+                }
+            });
+            Assertions.assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private Connection mockConnection() throws SQLException {
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(statement.executeQuery(ParallelScan.TIMESTAMP_QUERY)).thenAnswer(invocation -> {
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            Mockito.when(rs.next()).thenReturn(true);
+            Mockito.when(rs.getString(1)).thenReturn("1700000000000000000.0000000000");
+            return rs;
+        });
+        Mockito.when(statement.executeQuery(Mockito.startsWith("SHOW RANGES"))).thenAnswer(invocation -> {
+            Object[][] ranges = {
+                    {"<before:/Table/104>", "…/1/500", 1L, 1},
+                    {"…/1/500", "…/1/1000", 2L, 2},
+                    {"…/1/1000", "…/1/1500", 3L, 3},
+                    {"…/1/1500", "…/1/2000", 4L, 1},
+                    {"…/1/2000", "<after:/Max>", 5L, 2}
+            };
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            final int[] row = {-1};
+            Mockito.when(rs.next()).thenAnswer(i -> ++row[0] < ranges.length);
+            Mockito.when(rs.getString("start_key")).thenAnswer(i -> ranges[row[0]][0]);
+            Mockito.when(rs.getString("end_key")).thenAnswer(i -> ranges[row[0]][1]);
+            Mockito.when(rs.getLong("range_id")).thenAnswer(i -> ranges[row[0]][2]);
+            Mockito.when(rs.getInt("lease_holder")).thenAnswer(i -> ranges[row[0]][3]);
+            return rs;
+        });
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.createStatement()).thenReturn(statement);
+        Mockito.when(connection.prepareStatement(Mockito.anyString()))
+                .thenAnswer(invocation -> mockPageStatement(invocation.getArgument(0)));
+        return connection;
+    }
+
+    private PreparedStatement mockPageStatement(String sql) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        Mockito.doAnswer(invocation -> params.add(invocation.getArgument(1)))
+                .when(ps).setObject(Mockito.anyInt(), Mockito.any());
+
+        if (!sql.startsWith("SELECT * FROM account")) {
+            // Primary key query
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            Mockito.when(rs.next()).thenReturn(true, false);
+            Mockito.when(rs.getString(1)).thenReturn("id");
+            Mockito.when(ps.executeQuery()).thenReturn(rs);
+            return ps;
+        }
+
+        Mockito.when(ps.executeQuery()).thenAnswer(invocation -> {
+            if (failPages) {
+                throw new IllegalStateException("Disturbance!");
+            }
+            timestamps.add(sql.substring(sql.indexOf('\'') + 1, sql.lastIndexOf('\'')));
+            int index = 0;
+            long from = 0;
+            long to = Long.MAX_VALUE;
+            if (sql.contains(") > (")) {
+                from = ((Number) params.get(index++)).longValue() + 1;
+            } else if (sql.contains(") >= (")) {
+                from = ((Number) params.get(index++)).longValue();
+            }
+            if (sql.contains(") < (")) {
+                to = ((Number) params.get(index)).longValue();
+            }
+            int limit = Integer.parseInt(sql.substring(sql.lastIndexOf(' ') + 1));
+
+            List<Long> ids = new ArrayList<>();
+            for (long id = Math.max(1, from); id <= ROW_COUNT && id < to && ids.size() < limit; id++) {
+                ids.add(id);
+            }
+
+            ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+            Mockito.when(metaData.getColumnCount()).thenReturn(2);
+            Mockito.when(metaData.getColumnLabel(1)).thenReturn("id");
+            Mockito.when(metaData.getColumnLabel(2)).thenReturn("balance");
+
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            final int[] row = {-1};
+            Mockito.when(rs.getMetaData()).thenReturn(metaData);
+            Mockito.when(rs.next()).thenAnswer(i -> ++row[0] < ids.size());
+            Mockito.when(rs.getObject(1)).thenAnswer(i -> ids.get(row[0]));
+            Mockito.when(rs.getObject(2)).thenReturn(100.0);
+            return rs;
+        });
+        return ps;
+    }
+}
@@ -0,0 +1,90 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.cockroachdb.jdbc.CockroachStatement;
+import io.cockroachdb.jdbc.ConnectionSettings;
+import io.cockroachdb.jdbc.query.QueryProcessor;
+
+@Tag("unit-test")
+public class TraceparentCommenterTest {
+    @Test
+    public void whenSpanCurrent_thenAppendTraceparentComment() {
+        W3CTracer tracer = new W3CTracer(new InMemorySpanExporter());
+        TraceparentCommenter commenter = new TraceparentCommenter(tracer);
+
+        Assertions.assertEquals("SELECT 1", commenter.processQuery(null, "SELECT 1"));
+
+        Span span = tracer.startSpan("test");
+        try {
+            String traceparent = tracer.traceparent();
+            Assertions.assertEquals("SELECT 1 /*traceparent='" + traceparent + "'*/",
+                    commenter.processQuery(null, "SELECT 1;\n"));
+            Assertions.assertEquals("SELECT 1 /*traceparent='" + traceparent + "'*/",
+                    commenter.processQuery(null, "SELECT 1;\n"));
+            Assertions.assertEquals("SELECT 1 /* app */",
+                    commenter.processQuery(null, "SELECT 1 /* app */"));
+            Assertions.assertEquals("SELECT 1 -- app",
+                    commenter.processQuery(null, "SELECT 1 -- app"));
+        } finally {
+            span.end();
+        }
+    }
+
+    @Test
+    public void whenStatementExecuted_thenExportSpanAndCommentQuery() throws SQLException {
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        W3CTracer tracer = new W3CTracer(exporter);
+
+        Statement statementMock = Mockito.mock(Statement.class);
+        Mockito.when(statementMock.executeQuery(Mockito.anyString())).thenReturn(Mockito.mock(ResultSet.class));
+
+        ConnectionSettings connectionSettings = new ConnectionSettings()
+                .setTracer(tracer)
+                .addQueryStage(new TraceparentCommenter(tracer))
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH);
+
+        Span parent = tracer.startSpan("request");
+        new CockroachStatement(statementMock, connectionSettings).executeQuery("SELECT * FROM t WHERE id = 1");
+        parent.end();
+
+        List<SpanData> spans = exporter.getFinishedSpans();
+        Assertions.assertEquals(2, spans.size());
+        SpanData statementSpan = spans.get(0);
+        Assertions.assertEquals("cockroachdb.statement", statementSpan.getName());
+        Assertions.assertEquals(spans.get(1).getSpanId(), statementSpan.getParentSpanId());
+        Assertions.assertEquals("QUERY", statementSpan.getAttributes().get("db.operation"));
+        Assertions.assertEquals("SELECT * FROM t WHERE id = ?", statementSpan.getAttributes().get("db.statement"));
+
+        Mockito.verify(statementMock).executeQuery("SELECT * FROM t WHERE id = 1 /*traceparent='00-"
+                + statementSpan.getTraceId() + "-" + statementSpan.getSpanId() + "-01'*/");
+    }
+
+    @Test
+    public void whenStatementUpdated_thenCommentWithStatementSpan() throws SQLException {
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        W3CTracer tracer = new W3CTracer(exporter);
+
+        Statement statementMock = Mockito.mock(Statement.class);
+
+        ConnectionSettings connectionSettings = new ConnectionSettings()
+                .setTracer(tracer)
+                .addQueryStage(new TraceparentCommenter(tracer))
+                .setQueryProcessor(QueryProcessor.PASS_THROUGH);
+
+        new CockroachStatement(statementMock, connectionSettings).executeUpdate("DELETE FROM t WHERE id = 1");
+
+        SpanData statementSpan = exporter.getFinishedSpans().get(0);
+        Assertions.assertEquals("UPDATE", statementSpan.getAttributes().get("db.operation"));
+        Mockito.verify(statementMock).executeUpdate("DELETE FROM t WHERE id = 1 /*traceparent='00-"
+                + statementSpan.getTraceId() + "-" + statementSpan.getSpanId() + "-01'*/");
+    }
+}
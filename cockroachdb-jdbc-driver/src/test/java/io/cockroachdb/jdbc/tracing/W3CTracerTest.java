@@ -0,0 +1,63 @@
+package io.cockroachdb.jdbc.tracing;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class W3CTracerTest {
+    @Test
+    public void whenNestedSpans_thenPropagateTraceAndRestoreParent() {
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        W3CTracer tracer = new W3CTracer(exporter);
+
+        Assertions.assertNull(tracer.traceparent());
+
+        Span parent = tracer.startSpan("parent");
+        String parentTraceparent = tracer.traceparent();
+        Assertions.assertTrue(parentTraceparent.matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01"), parentTraceparent);
+
+        Span child = tracer.startSpan("child").setAttribute("db.system", "cockroachdb");
+        child.recordException(new IllegalStateException("boom"));
+        child.end();
+        child.end();
+
+        Assertions.assertEquals(parentTraceparent, tracer.traceparent());
+        parent.end();
+        Assertions.assertNull(tracer.traceparent());
+
+        List<SpanData> spans = exporter.getFinishedSpans();
+        Assertions.assertEquals(2, spans.size());
+        SpanData childData = spans.get(0);
+        SpanData parentData = spans.get(1);
+        Assertions.assertEquals("child", childData.getName());
+        Assertions.assertEquals(parentData.getTraceId(), childData.getTraceId());
+        Assertions.assertEquals(parentData.getSpanId(), childData.getParentSpanId());
+        Assertions.assertNull(parentData.getParentSpanId());
+        Assertions.assertEquals("cockroachdb", childData.getAttributes().get("db.system"));
+        Assertions.assertTrue(childData.getException() instanceof IllegalStateException);
+
+        exporter.reset();
+        Assertions.assertTrue(exporter.getFinishedSpans().isEmpty());
+    }
+
+    @Test
+    public void whenRemoteParent_thenContinueTrace() {
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        W3CTracer tracer = new W3CTracer(exporter);
+
+        String remote = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+        Span span = tracer.startSpan("request", remote);
+        Assertions.assertTrue(tracer.traceparent().startsWith("00-4bf92f3577b34da6a3ce929d0e0e4736-"));
+        span.end();
+
+        SpanData spanData = exporter.getFinishedSpans().get(0);
+        Assertions.assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", spanData.getTraceId());
+        Assertions.assertEquals("00f067aa0ba902b7", spanData.getParentSpanId());
+
+        tracer.startSpan("invalid", "garbage").end();
+        Assertions.assertNull(exporter.getFinishedSpans().get(1).getParentSpanId());
+    }
+}
@@ -0,0 +1,39 @@
+package io.cockroachdb.jdbc.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class SqlFingerprintsTest {
+    @Test
+    public void whenFull_thenEvictUnreferencedAndKeepCachingNewStatements() {
+        final String hot = "SELECT * FROM hot WHERE id = 1";
+        final long hotId = SqlFingerprints.idOf(hot);
+
+        String last = null;
+        for (int i = 0; i < SqlFingerprints.MAX_ENTRIES * 2; i++) {
+            last = "SELECT * FROM cold_" + i + " WHERE id = " + i;
+            SqlFingerprints.idOf(last);
+            Assertions.assertEquals(hotId, SqlFingerprints.idOf(hot));
+        }
+
+        Assertions.assertTrue(SqlFingerprints.size() <= SqlFingerprints.MAX_ENTRIES);
+        Assertions.assertTrue(SqlFingerprints.isCached(hot));
+        Assertions.assertTrue(SqlFingerprints.isCached(last));
+        Assertions.assertFalse(SqlFingerprints.isCached("SELECT * FROM cold_0 WHERE id = 0"));
+        Assertions.assertEquals("SELECT * FROM hot WHERE id = ?", SqlFingerprints.fingerprintOf(hotId));
+        Assertions.assertEquals("SELECT * FROM cold_" + (SqlFingerprints.MAX_ENTRIES * 2 - 1) + " WHERE id = ?",
+                SqlFingerprints.fingerprintOf(SqlFingerprints.idOf(last)));
+    }
+
+    @Test
+    public void whenStatementsShareFingerprint_thenShareFingerprintId() {
+        long id = SqlFingerprints.idOf("SELECT * FROM shared WHERE id = 1");
+        Assertions.assertEquals(id, SqlFingerprints.idOf("SELECT * FROM shared WHERE id = 2"));
+        Assertions.assertEquals(id,
+                SqlFingerprints.idOf("SELECT * FROM shared WHERE id = 3 /*traceparent='00-ab-cd-01'*/"));
+        Assertions.assertEquals("SELECT * FROM shared WHERE id = ?", SqlFingerprints.fingerprintOf(id));
+        Assertions.assertEquals(0, SqlFingerprints.idOf(null));
+    }
+}
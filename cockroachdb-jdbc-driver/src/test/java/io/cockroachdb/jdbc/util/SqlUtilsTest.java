@@ -0,0 +1,37 @@
+package io.cockroachdb.jdbc.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class SqlUtilsTest {
+    @Test
+    public void whenCountingPlaceholders_thenSkipLiteralsAndEscapes() {
+        Assertions.assertEquals(0, SqlUtils.countPlaceholders("SELECT 1"));
+        Assertions.assertEquals(2, SqlUtils.countPlaceholders("SELECT * FROM t WHERE a=? AND b=?"));
+        Assertions.assertEquals(1, SqlUtils.countPlaceholders("SELECT '?' FROM \"t?\" WHERE j ?? 'k' AND a=?"));
+    }
+
+    @Test
+    public void whenFingerprinting_thenNormalizeLiteralsAndLists() {
+        Assertions.assertEquals("SELECT * FROM t WHERE a = ? AND b = ?",
+                SqlUtils.fingerprint("SELECT  *\n FROM t WHERE a = 'x''y' AND b = 42.5"));
+        Assertions.assertEquals("SELECT * FROM t2 WHERE \"c1\" IN (?, ...)",
+                SqlUtils.fingerprint("SELECT * FROM t2 WHERE \"c1\" IN (1, 2, 3)"));
+        Assertions.assertEquals("INSERT INTO t (a, b) VALUES (?, ...), ...",
+                SqlUtils.fingerprint("INSERT INTO t (a, b) VALUES ($1, $2), ($3, $4), ($5,$6)"));
+        Assertions.assertEquals(SqlUtils.fingerprint("SELECT 1"), SqlUtils.fingerprint("SELECT 2"));
+        Assertions.assertEquals(SqlUtils.fingerprintId("SELECT ?"), SqlUtils.fingerprintId("SELECT ?"));
+        Assertions.assertNotEquals(SqlUtils.fingerprintId("SELECT ?"), SqlUtils.fingerprintId("SELECT ?, ..."));
+    }
+
+    @Test
+    public void whenCommented_thenExcludeCommentsFromFingerprint() {
+        Assertions.assertEquals("SELECT * FROM t WHERE a = ?",
+                SqlUtils.fingerprint("SELECT * /* all */ FROM t -- table\nWHERE a = 1 /*traceparent='00-ab-cd-01'*/"));
+        Assertions.assertEquals("SELECT * FROM t WHERE a = ?",
+                SqlUtils.stripTrailingComment("SELECT * FROM t WHERE a = ? /*traceparent='00-ab-cd-01'*/"));
+        Assertions.assertEquals("SELECT 1", SqlUtils.stripTrailingComment("SELECT 1"));
+    }
+}